@@ -11,8 +11,9 @@ import com.exchange.core.model.msg.Message;
 import com.exchange.core.model.msg.Order;
 import com.exchange.core.model.msg.SnapshotMessage;
 import com.exchange.core.model.msg.UserBalance;
+import com.exchange.core.queue.MpscRingBufferQueue;
+import com.exchange.core.queue.SpscRingBufferQueue;
 import java.math.BigDecimal;
-import java.util.LinkedList;
 import java.util.Queue;
 
 /**
@@ -31,8 +32,9 @@ public class SpotExchangeApp {
     symbolMsg.setSymbol(SYMBOL);
 
     final WaitStrategy wait = new SleepWaitStrategy();
-    final Queue<Message> inbound = new LinkedList<>();
-    final Queue<Message> outbound = new LinkedList<>();
+    // inbound may be written by many client threads, outbound is written only by matching thread
+    final Queue<Message> inbound = new MpscRingBufferQueue<>(1 << 16);
+    final Queue<Message> outbound = new SpscRingBufferQueue<>(1 << 16);
     // listener for outbound messages
     new Thread(() -> {
       while (true) {
@@ -0,0 +1,52 @@
+package com.exchange.core.codec;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Direct-mapped cache of strings decoded from ASCII bytes, so decoding of symbols and assets
+ * doesn't create new string for every message. On collision old value is replaced
+ * Not thread-safe
+ */
+class AsciiStringCache {
+
+  private final String[] values;
+  private final int mask;
+
+  /**
+   * @param capacity - should be power of 2
+   */
+  AsciiStringCache(int capacity) {
+    values = new String[capacity];
+    mask = capacity - 1;
+  }
+
+  String get(ByteBuffer buffer, int index, int length) {
+    int hash = 0;
+    for (int i = 0; i < length; i++) {
+      hash = 31 * hash + buffer.get(index + i);
+    }
+    int slot = (hash ^ (hash >>> 16)) & mask;
+    String value = values[slot];
+    if (value == null || !matches(value, buffer, index, length)) {
+      char[] chars = new char[length];
+      for (int i = 0; i < length; i++) {
+        chars[i] = (char) buffer.get(index + i);
+      }
+      value = new String(chars);
+      values[slot] = value;
+    }
+    return value;
+  }
+
+  private boolean matches(String value, ByteBuffer buffer, int index, int length) {
+    if (value.length() != length) {
+      return false;
+    }
+    for (int i = 0; i < length; i++) {
+      if (value.charAt(i) != buffer.get(index + i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
@@ -0,0 +1,58 @@
+package com.exchange.core.codec;
+
+import com.exchange.core.model.msg.CancelOrder;
+import java.nio.ByteBuffer;
+
+/**
+ * Binary layout of CancelOrder
+ */
+public class CancelOrderFlyweight extends Flyweight {
+
+  public static final int ORDER_ID = HEADER_LENGTH;
+  public static final int ACCOUNT = ORDER_ID + Long.BYTES;
+  public static final int SYMBOL = ACCOUNT + Integer.BYTES;
+  public static final int CL_ORD_ID = SYMBOL + SYMBOL_LENGTH;
+  public static final int LENGTH = CL_ORD_ID + CL_ORD_ID_LENGTH;
+
+  public CancelOrderFlyweight wrap(ByteBuffer buffer, int offset) {
+    wrapBuffer(buffer, offset);
+    return this;
+  }
+
+  /**
+   * @return length of encoded message
+   */
+  public int encode(CancelOrder cancel) {
+    putHeader(MessageCodec.CANCEL_ORDER, LENGTH);
+    buffer.putLong(offset + ORDER_ID, cancel.getOrderId());
+    buffer.putInt(offset + ACCOUNT, cancel.getAccount());
+    putString(SYMBOL, SYMBOL_LENGTH, cancel.getSymbol());
+    putString(CL_ORD_ID, CL_ORD_ID_LENGTH, cancel.getClOrdId());
+    return LENGTH;
+  }
+
+  public CancelOrder decode(CancelOrder cancel) {
+    checkTemplateId(MessageCodec.CANCEL_ORDER);
+    cancel.setOrderId(orderId());
+    cancel.setAccount(account());
+    cancel.setSymbol(symbol());
+    cancel.setClOrdId(clOrdId());
+    return cancel;
+  }
+
+  public long orderId() {
+    return buffer.getLong(offset + ORDER_ID);
+  }
+
+  public int account() {
+    return buffer.getInt(offset + ACCOUNT);
+  }
+
+  public String symbol() {
+    return cachedString(SYMBOL);
+  }
+
+  public String clOrdId() {
+    return string(CL_ORD_ID);
+  }
+}
@@ -0,0 +1,75 @@
+package com.exchange.core.codec;
+
+import com.exchange.core.model.msg.ErrorMessage;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Binary layout of ErrorMessage: error text as UTF-8 with int length (-1 means null), followed by
+ * payload encoded as nested message. Payload is written by MessageCodec, non-message payload is
+ * dropped
+ */
+public class ErrorMessageFlyweight extends Flyweight {
+
+  public static final int ERROR_LENGTH = HEADER_LENGTH;
+  public static final int ERROR = ERROR_LENGTH + Integer.BYTES;
+
+  public ErrorMessageFlyweight wrap(ByteBuffer buffer, int offset) {
+    wrapBuffer(buffer, offset);
+    return this;
+  }
+
+  /**
+   * Encode header and error text, payload (if any) should be written at payloadField()
+   * @return length of encoded message without payload
+   */
+  public int encode(ErrorMessage error) {
+    byte[] text = error.getError() == null ? null
+        : error.getError().getBytes(StandardCharsets.UTF_8);
+    int length = ERROR + (text == null ? 0 : text.length);
+    putHeader(MessageCodec.ERROR_MESSAGE, length);
+    buffer.putInt(offset + ERROR_LENGTH, text == null ? -1 : text.length);
+    if (text != null) {
+      buffer.put(offset + ERROR, text);
+    }
+    return length;
+  }
+
+  /**
+   * Include payload written at payloadField() into message length
+   */
+  void addPayload(int payloadLength) {
+    buffer.putInt(offset + LENGTH_OFFSET, payloadField() + payloadLength);
+  }
+
+  /**
+   * Decode error text, payload should be decoded by MessageCodec
+   */
+  public ErrorMessage decode(ErrorMessage error) {
+    checkTemplateId(MessageCodec.ERROR_MESSAGE);
+    error.setError(error());
+    error.setPayload(null);
+    return error;
+  }
+
+  public String error() {
+    int length = buffer.getInt(offset + ERROR_LENGTH);
+    if (length < 0) {
+      return null;
+    }
+    byte[] text = new byte[length];
+    buffer.get(offset + ERROR, text);
+    return new String(text, StandardCharsets.UTF_8);
+  }
+
+  public boolean hasPayload() {
+    return length() > payloadField();
+  }
+
+  /**
+   * @return offset of nested payload message from start of this message
+   */
+  public int payloadField() {
+    return ERROR + Math.max(buffer.getInt(offset + ERROR_LENGTH), 0);
+  }
+}
@@ -0,0 +1,132 @@
+package com.exchange.core.codec;
+
+import com.exchange.core.model.enums.OrderStatus;
+import com.exchange.core.model.msg.ExecutionReport;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+
+/**
+ * Binary layout of ExecutionReport
+ * Report in fixed-point mode is encoded from scaled values, so lazy BigDecimal isn't created
+ */
+public class ExecutionReportFlyweight extends Flyweight {
+
+  public static final int EXEC_ID = HEADER_LENGTH;
+  public static final int ORDER_ID = EXEC_ID + Long.BYTES;
+  public static final int COUNTER_ORDER_ID = ORDER_ID + Long.BYTES;
+  public static final int IS_TAKER = COUNTER_ORDER_ID + Long.BYTES;
+  public static final int STATUS = IS_TAKER + 1;
+  public static final int ORDER_QTY = STATUS + 1;
+  public static final int LEAVES_QTY = ORDER_QTY + DECIMAL_LENGTH;
+  public static final int PRICE = LEAVES_QTY + DECIMAL_LENGTH;
+  public static final int LAST_QTY = PRICE + DECIMAL_LENGTH;
+  public static final int LAST_PX = LAST_QTY + DECIMAL_LENGTH;
+  public static final int SYMBOL = LAST_PX + DECIMAL_LENGTH;
+  public static final int CL_ORD_ID = SYMBOL + SYMBOL_LENGTH;
+  public static final int LENGTH = CL_ORD_ID + CL_ORD_ID_LENGTH;
+  private static final OrderStatus[] STATUSES = OrderStatus.values();
+
+  public ExecutionReportFlyweight wrap(ByteBuffer buffer, int offset) {
+    wrapBuffer(buffer, offset);
+    return this;
+  }
+
+  /**
+   * @return length of encoded message
+   */
+  public int encode(ExecutionReport exec) {
+    putHeader(MessageCodec.EXECUTION_REPORT, LENGTH);
+    buffer.putLong(offset + EXEC_ID, exec.getExecId());
+    buffer.putLong(offset + ORDER_ID, exec.getOrderId());
+    buffer.putLong(offset + COUNTER_ORDER_ID, exec.getCounterOrderId());
+    putBoolean(IS_TAKER, exec.getIsTaker());
+    putEnum(STATUS, exec.getStatus());
+    putDecimal(ORDER_QTY, exec.getOrderQty());
+    putDecimal(PRICE, exec.getPrice());
+    if (exec.isFixedPoint()) {
+      putDecimal(LEAVES_QTY, exec.getScaledLeavesQty(), exec.getLeavesQtyScale());
+      if (exec.getIsTaker() != null) {
+        putDecimal(LAST_QTY, exec.getScaledLastQty(), exec.getLastQtyScale());
+        putDecimal(LAST_PX, exec.getScaledLastPx(), exec.getLastPxScale());
+      } else {
+        putDecimal(LAST_QTY, null);
+        putDecimal(LAST_PX, null);
+      }
+    } else {
+      putDecimal(LEAVES_QTY, exec.getLeavesQty());
+      putDecimal(LAST_QTY, exec.getLastQty());
+      putDecimal(LAST_PX, exec.getLastPx());
+    }
+    putString(SYMBOL, SYMBOL_LENGTH, exec.getSymbol());
+    putString(CL_ORD_ID, CL_ORD_ID_LENGTH, exec.getClOrdId());
+    return LENGTH;
+  }
+
+  /**
+   * Fill report with decoded fields, so pooled report can be used instead of new one
+   */
+  public ExecutionReport decode(ExecutionReport exec) {
+    checkTemplateId(MessageCodec.EXECUTION_REPORT);
+    exec.setExecId(execId());
+    exec.setOrderId(orderId());
+    exec.setCounterOrderId(counterOrderId());
+    exec.setIsTaker(isTaker());
+    exec.setStatus(status());
+    exec.setOrderQty(orderQty());
+    exec.setLeavesQty(leavesQty());
+    exec.setPrice(price());
+    exec.setLastQty(lastQty());
+    exec.setLastPx(lastPx());
+    exec.setSymbol(symbol());
+    exec.setClOrdId(clOrdId());
+    return exec;
+  }
+
+  public long execId() {
+    return buffer.getLong(offset + EXEC_ID);
+  }
+
+  public long orderId() {
+    return buffer.getLong(offset + ORDER_ID);
+  }
+
+  public long counterOrderId() {
+    return buffer.getLong(offset + COUNTER_ORDER_ID);
+  }
+
+  public Boolean isTaker() {
+    return getBoolean(IS_TAKER);
+  }
+
+  public OrderStatus status() {
+    return getEnum(STATUS, STATUSES);
+  }
+
+  public BigDecimal orderQty() {
+    return decimal(ORDER_QTY);
+  }
+
+  public BigDecimal leavesQty() {
+    return decimal(LEAVES_QTY);
+  }
+
+  public BigDecimal price() {
+    return decimal(PRICE);
+  }
+
+  public BigDecimal lastQty() {
+    return decimal(LAST_QTY);
+  }
+
+  public BigDecimal lastPx() {
+    return decimal(LAST_PX);
+  }
+
+  public String symbol() {
+    return cachedString(SYMBOL);
+  }
+
+  public String clOrdId() {
+    return string(CL_ORD_ID);
+  }
+}
@@ -0,0 +1,179 @@
+package com.exchange.core.codec;
+
+import com.exchange.core.exceptions.AppException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Base of fixed-layout binary messages, flyweight is wrapped over buffer and reads/writes fields
+ * in place with absolute get/put, so buffer position isn't changed and nothing is copied
+ * Every message starts with header: total length (int), templateId (short), schema version (short)
+ * Field encoding:
+ * decimal - unscaled long + scale byte, scale -1 means null
+ * string - length byte + ASCII chars, length -1 means null, field has fixed size
+ * enum - ordinal byte, -1 means null
+ * Buffer should be little-endian, flyweight isn't thread-safe
+ */
+public abstract class Flyweight {
+
+  public static final short SCHEMA_VERSION = 1;
+  public static final int LENGTH_OFFSET = 0;
+  public static final int TEMPLATE_ID_OFFSET = 4;
+  public static final int VERSION_OFFSET = 6;
+  public static final int HEADER_LENGTH = 8;
+  public static final int DECIMAL_LENGTH = 9;
+  // symbol, asset - up to 15 chars
+  public static final int SYMBOL_LENGTH = 16;
+  public static final int CL_ORD_ID_LENGTH = 40;
+  private static final byte NULL_VALUE = -1;
+
+  protected ByteBuffer buffer;
+  protected int offset;
+  private final AsciiStringCache stringCache = new AsciiStringCache(64);
+
+  protected void wrapBuffer(ByteBuffer buffer, int offset) {
+    if (buffer.order() != ByteOrder.LITTLE_ENDIAN) {
+      throw new AppException("Buffer should be little-endian: order=" + buffer.order());
+    }
+    this.buffer = buffer;
+    this.offset = offset;
+  }
+
+  public int offset() {
+    return offset;
+  }
+
+  /**
+   * @return total length of message in bytes, including header
+   */
+  public int length() {
+    return buffer.getInt(offset + LENGTH_OFFSET);
+  }
+
+  public short templateId() {
+    return buffer.getShort(offset + TEMPLATE_ID_OFFSET);
+  }
+
+  protected void putHeader(short templateId, int length) {
+    if (offset + length > buffer.capacity()) {
+      throw new AppException(
+          "Buffer too small: offset=" + offset + ", length=" + length + ", capacity="
+              + buffer.capacity());
+    }
+    buffer.putInt(offset + LENGTH_OFFSET, length);
+    buffer.putShort(offset + TEMPLATE_ID_OFFSET, templateId);
+    buffer.putShort(offset + VERSION_OFFSET, SCHEMA_VERSION);
+  }
+
+  protected void checkTemplateId(short expected) {
+    if (templateId() != expected) {
+      throw new AppException(
+          "Unexpected templateId: expected=" + expected + ", actual=" + templateId());
+    }
+  }
+
+  /**
+   * Unscaled value of decimal field, can be used with scale() to read decimal without allocation
+   * @param field - offset of field from message start
+   */
+  public long mantissa(int field) {
+    return buffer.getLong(offset + field);
+  }
+
+  /**
+   * @return scale of decimal field or -1 if field is null
+   */
+  public int scale(int field) {
+    return buffer.get(offset + field + Long.BYTES);
+  }
+
+  public BigDecimal decimal(int field) {
+    int scale = scale(field);
+    return scale == NULL_VALUE ? null : BigDecimal.valueOf(mantissa(field), scale);
+  }
+
+  protected void putDecimal(int field, long mantissa, int scale) {
+    if (scale < 0 || scale > Byte.MAX_VALUE) {
+      throw new AppException("Decimal scale out of range: scale=" + scale);
+    }
+    buffer.putLong(offset + field, mantissa);
+    buffer.put(offset + field + Long.BYTES, (byte) scale);
+  }
+
+  protected void putDecimal(int field, BigDecimal value) {
+    if (value == null) {
+      buffer.putLong(offset + field, 0);
+      buffer.put(offset + field + Long.BYTES, NULL_VALUE);
+      return;
+    }
+    if (value.scale() < 0) {
+      value = value.setScale(0);
+    }
+    try {
+      putDecimal(field, value.unscaledValue().longValueExact(), value.scale());
+    } catch (ArithmeticException ex) {
+      throw new AppException("Decimal doesn't fit into long: value=" + value, ex);
+    }
+  }
+
+  /**
+   * Read string field, values are cached, so repeated symbols/assets don't create new strings
+   */
+  protected String cachedString(int field) {
+    int length = buffer.get(offset + field);
+    return length == NULL_VALUE ? null : stringCache.get(buffer, offset + field + 1, length);
+  }
+
+  protected String string(int field) {
+    int length = buffer.get(offset + field);
+    if (length == NULL_VALUE) {
+      return null;
+    }
+    char[] chars = new char[length];
+    for (int i = 0; i < length; i++) {
+      chars[i] = (char) buffer.get(offset + field + 1 + i);
+    }
+    return new String(chars);
+  }
+
+  /**
+   * @param size - size of field, including length byte
+   */
+  protected void putString(int field, int size, String value) {
+    if (value == null) {
+      buffer.put(offset + field, NULL_VALUE);
+      return;
+    }
+    int length = value.length();
+    if (length >= size) {
+      throw new AppException("String too long: value=" + value + ", maxLength=" + (size - 1));
+    }
+    buffer.put(offset + field, (byte) length);
+    for (int i = 0; i < length; i++) {
+      char c = value.charAt(i);
+      if (c > Byte.MAX_VALUE) {
+        throw new AppException("String should be ASCII: value=" + value);
+      }
+      buffer.put(offset + field + 1 + i, (byte) c);
+    }
+  }
+
+  protected <E extends Enum<E>> E getEnum(int field, E[] values) {
+    int ordinal = buffer.get(offset + field);
+    return ordinal == NULL_VALUE ? null : values[ordinal];
+  }
+
+  protected void putEnum(int field, Enum<?> value) {
+    buffer.put(offset + field, value == null ? NULL_VALUE : (byte) value.ordinal());
+  }
+
+  protected Boolean getBoolean(int field) {
+    byte value = buffer.get(offset + field);
+    return value == NULL_VALUE ? null : value == 1;
+  }
+
+  protected void putBoolean(int field, Boolean value) {
+    buffer.put(offset + field, value == null ? NULL_VALUE : (byte) (value ? 1 : 0));
+  }
+}
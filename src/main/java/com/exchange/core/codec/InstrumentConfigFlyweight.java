@@ -0,0 +1,65 @@
+package com.exchange.core.codec;
+
+import com.exchange.core.model.msg.InstrumentConfig;
+import java.nio.ByteBuffer;
+
+/**
+ * Binary layout of InstrumentConfig
+ */
+public class InstrumentConfigFlyweight extends Flyweight {
+
+  public static final int PRICE_SCALE = HEADER_LENGTH;
+  public static final int QUANTITY_SCALE = PRICE_SCALE + Integer.BYTES;
+  public static final int SYMBOL = QUANTITY_SCALE + Integer.BYTES;
+  public static final int BASE = SYMBOL + SYMBOL_LENGTH;
+  public static final int QUOTE = BASE + SYMBOL_LENGTH;
+  public static final int LENGTH = QUOTE + SYMBOL_LENGTH;
+
+  public InstrumentConfigFlyweight wrap(ByteBuffer buffer, int offset) {
+    wrapBuffer(buffer, offset);
+    return this;
+  }
+
+  /**
+   * @return length of encoded message
+   */
+  public int encode(InstrumentConfig inst) {
+    putHeader(MessageCodec.INSTRUMENT_CONFIG, LENGTH);
+    buffer.putInt(offset + PRICE_SCALE, inst.getPriceScale());
+    buffer.putInt(offset + QUANTITY_SCALE, inst.getQuantityScale());
+    putString(SYMBOL, SYMBOL_LENGTH, inst.getSymbol());
+    putString(BASE, SYMBOL_LENGTH, inst.getBase());
+    putString(QUOTE, SYMBOL_LENGTH, inst.getQuote());
+    return LENGTH;
+  }
+
+  public InstrumentConfig decode(InstrumentConfig inst) {
+    checkTemplateId(MessageCodec.INSTRUMENT_CONFIG);
+    inst.setPriceScale(priceScale());
+    inst.setQuantityScale(quantityScale());
+    inst.setSymbol(symbol());
+    inst.setBase(base());
+    inst.setQuote(quote());
+    return inst;
+  }
+
+  public int priceScale() {
+    return buffer.getInt(offset + PRICE_SCALE);
+  }
+
+  public int quantityScale() {
+    return buffer.getInt(offset + QUANTITY_SCALE);
+  }
+
+  public String symbol() {
+    return cachedString(SYMBOL);
+  }
+
+  public String base() {
+    return cachedString(BASE);
+  }
+
+  public String quote() {
+    return cachedString(QUOTE);
+  }
+}
@@ -0,0 +1,142 @@
+package com.exchange.core.codec;
+
+import com.exchange.core.exceptions.AppException;
+import com.exchange.core.model.msg.MarketData;
+import com.exchange.core.model.msg.MarketDataUpdate;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+
+/**
+ * Binary layout of MarketData and MarketDataUpdate, they differ only by templateId and depth,
+ * which is 0 for update
+ * Fixed block is followed by bid levels and then ask levels, every level is {price, qty} decimals
+ */
+public class MarketDataFlyweight extends Flyweight {
+
+  public static final int SEQ_NUM = HEADER_LENGTH;
+  public static final int TRANSACT_TIME = SEQ_NUM + Long.BYTES;
+  public static final int DEPTH = TRANSACT_TIME + Long.BYTES;
+  public static final int BID_COUNT = DEPTH + Integer.BYTES;
+  public static final int ASK_COUNT = BID_COUNT + Short.BYTES;
+  public static final int SYMBOL = ASK_COUNT + Short.BYTES;
+  public static final int LEVELS = SYMBOL + SYMBOL_LENGTH;
+  public static final int LEVEL_LENGTH = 2 * DECIMAL_LENGTH;
+
+  public MarketDataFlyweight wrap(ByteBuffer buffer, int offset) {
+    wrapBuffer(buffer, offset);
+    return this;
+  }
+
+  /**
+   * @return length of encoded message
+   */
+  public int encode(MarketData md) {
+    return encode(MessageCodec.MARKET_DATA, md.getSymbol(), md.getSeqNum(),
+        md.getTransactTime(), md.getDepth(), md.getBids(), md.getAsks());
+  }
+
+  /**
+   * @return length of encoded message
+   */
+  public int encode(MarketDataUpdate update) {
+    return encode(MessageCodec.MARKET_DATA_UPDATE, update.getSymbol(), update.getSeqNum(),
+        update.getTransactTime(), 0, update.getBids(), update.getAsks());
+  }
+
+  private int encode(short templateId, String symbol, long seqNum, long transactTime, int depth,
+      BigDecimal[][] bids, BigDecimal[][] asks) {
+    int bidCount = bids == null ? 0 : bids.length;
+    int askCount = asks == null ? 0 : asks.length;
+    if (bidCount > Short.MAX_VALUE || askCount > Short.MAX_VALUE) {
+      throw new AppException("Too many levels: bids=" + bidCount + ", asks=" + askCount);
+    }
+    int length = LEVELS + (bidCount + askCount) * LEVEL_LENGTH;
+    putHeader(templateId, length);
+    buffer.putLong(offset + SEQ_NUM, seqNum);
+    buffer.putLong(offset + TRANSACT_TIME, transactTime);
+    buffer.putInt(offset + DEPTH, depth);
+    buffer.putShort(offset + BID_COUNT, (short) bidCount);
+    buffer.putShort(offset + ASK_COUNT, (short) askCount);
+    putString(SYMBOL, SYMBOL_LENGTH, symbol);
+    for (int i = 0; i < bidCount; i++) {
+      putLevel(bidPriceField(i), bids[i]);
+    }
+    for (int i = 0; i < askCount; i++) {
+      putLevel(askPriceField(i), asks[i]);
+    }
+    return length;
+  }
+
+  private void putLevel(int field, BigDecimal[] level) {
+    putDecimal(field, level[0]);
+    putDecimal(field + DECIMAL_LENGTH, level[1]);
+  }
+
+  public MarketData decode(MarketData md) {
+    checkTemplateId(MessageCodec.MARKET_DATA);
+    md.setSymbol(symbol());
+    md.setSeqNum(seqNum());
+    md.setTransactTime(transactTime());
+    md.setDepth(depth());
+    md.setBids(levels(bidCount(), bidPriceField(0)));
+    md.setAsks(levels(askCount(), askPriceField(0)));
+    return md;
+  }
+
+  public MarketDataUpdate decode(MarketDataUpdate update) {
+    checkTemplateId(MessageCodec.MARKET_DATA_UPDATE);
+    update.setSymbol(symbol());
+    update.setSeqNum(seqNum());
+    update.setTransactTime(transactTime());
+    update.setBids(levels(bidCount(), bidPriceField(0)));
+    update.setAsks(levels(askCount(), askPriceField(0)));
+    return update;
+  }
+
+  private BigDecimal[][] levels(int count, int field) {
+    BigDecimal[][] levels = new BigDecimal[count][];
+    for (int i = 0; i < count; i++) {
+      int price = field + i * LEVEL_LENGTH;
+      levels[i] = new BigDecimal[]{decimal(price), decimal(price + DECIMAL_LENGTH)};
+    }
+    return levels;
+  }
+
+  public long seqNum() {
+    return buffer.getLong(offset + SEQ_NUM);
+  }
+
+  public long transactTime() {
+    return buffer.getLong(offset + TRANSACT_TIME);
+  }
+
+  public int depth() {
+    return buffer.getInt(offset + DEPTH);
+  }
+
+  public int bidCount() {
+    return buffer.getShort(offset + BID_COUNT);
+  }
+
+  public int askCount() {
+    return buffer.getShort(offset + ASK_COUNT);
+  }
+
+  public String symbol() {
+    return cachedString(SYMBOL);
+  }
+
+  /**
+   * Offset of price of bid level, qty follows it, can be read with mantissa()/scale()
+   */
+  public int bidPriceField(int level) {
+    return LEVELS + level * LEVEL_LENGTH;
+  }
+
+  /**
+   * Offset of price of ask level, qty follows it, can be read with mantissa()/scale()
+   */
+  public int askPriceField(int level) {
+    return LEVELS + (bidCount() + level) * LEVEL_LENGTH;
+  }
+}
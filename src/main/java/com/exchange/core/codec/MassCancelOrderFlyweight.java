@@ -0,0 +1,44 @@
+package com.exchange.core.codec;
+
+import com.exchange.core.model.msg.MassCancelOrder;
+import java.nio.ByteBuffer;
+
+/**
+ * Binary layout of MassCancelOrder, null symbol means all symbols of account
+ */
+public class MassCancelOrderFlyweight extends Flyweight {
+
+  public static final int ACCOUNT = HEADER_LENGTH;
+  public static final int SYMBOL = ACCOUNT + Integer.BYTES;
+  public static final int LENGTH = SYMBOL + SYMBOL_LENGTH;
+
+  public MassCancelOrderFlyweight wrap(ByteBuffer buffer, int offset) {
+    wrapBuffer(buffer, offset);
+    return this;
+  }
+
+  /**
+   * @return length of encoded message
+   */
+  public int encode(MassCancelOrder massCancel) {
+    putHeader(MessageCodec.MASS_CANCEL_ORDER, LENGTH);
+    buffer.putInt(offset + ACCOUNT, massCancel.getAccount());
+    putString(SYMBOL, SYMBOL_LENGTH, massCancel.getSymbol());
+    return LENGTH;
+  }
+
+  public MassCancelOrder decode(MassCancelOrder massCancel) {
+    checkTemplateId(MessageCodec.MASS_CANCEL_ORDER);
+    massCancel.setAccount(account());
+    massCancel.setSymbol(symbol());
+    return massCancel;
+  }
+
+  public int account() {
+    return buffer.getInt(offset + ACCOUNT);
+  }
+
+  public String symbol() {
+    return cachedString(SYMBOL);
+  }
+}
@@ -0,0 +1,145 @@
+package com.exchange.core.codec;
+
+import com.exchange.core.exceptions.AppException;
+import com.exchange.core.model.msg.CancelOrder;
+import com.exchange.core.model.msg.ErrorMessage;
+import com.exchange.core.model.msg.ExecutionReport;
+import com.exchange.core.model.msg.InstrumentConfig;
+import com.exchange.core.model.msg.MarketData;
+import com.exchange.core.model.msg.MarketDataUpdate;
+import com.exchange.core.model.msg.MassCancelOrder;
+import com.exchange.core.model.msg.Message;
+import com.exchange.core.model.msg.Order;
+import com.exchange.core.model.msg.ReplaceOrder;
+import com.exchange.core.model.msg.SnapshotMessage;
+import com.exchange.core.model.msg.UserBalance;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Encode any message into buffer and decode it back by templateId from header
+ * decode() creates new message objects, hot path should wrap typed flyweight and either read fields
+ * in place or decode into pooled object, e.g. orderFlyweight.wrap(buffer, offset).decode(pooled)
+ * Keeps one flyweight per type, so instance shouldn't be shared between threads
+ */
+public class MessageCodec {
+
+  public static final short ORDER = 1;
+  public static final short EXECUTION_REPORT = 2;
+  public static final short MARKET_DATA = 3;
+  public static final short MARKET_DATA_UPDATE = 4;
+  public static final short USER_BALANCE = 5;
+  public static final short INSTRUMENT_CONFIG = 6;
+  public static final short CANCEL_ORDER = 7;
+  public static final short REPLACE_ORDER = 8;
+  public static final short MASS_CANCEL_ORDER = 9;
+  public static final short SNAPSHOT = 10;
+  public static final short ERROR_MESSAGE = 11;
+
+  private final HeaderFlyweight header = new HeaderFlyweight();
+  private final OrderFlyweight order = new OrderFlyweight();
+  private final ExecutionReportFlyweight executionReport = new ExecutionReportFlyweight();
+  private final MarketDataFlyweight marketData = new MarketDataFlyweight();
+  private final UserBalanceFlyweight userBalance = new UserBalanceFlyweight();
+  private final InstrumentConfigFlyweight instrumentConfig = new InstrumentConfigFlyweight();
+  private final CancelOrderFlyweight cancelOrder = new CancelOrderFlyweight();
+  private final ReplaceOrderFlyweight replaceOrder = new ReplaceOrderFlyweight();
+  private final MassCancelOrderFlyweight massCancelOrder = new MassCancelOrderFlyweight();
+  private final ErrorMessageFlyweight errorMessage = new ErrorMessageFlyweight();
+
+  /**
+   * @return direct little-endian buffer, which can be used by flyweights
+   */
+  public static ByteBuffer allocate(int capacity) {
+    return ByteBuffer.allocateDirect(capacity).order(ByteOrder.LITTLE_ENDIAN);
+  }
+
+  /**
+   * @return length of encoded message in bytes
+   */
+  public int encode(Message msg, ByteBuffer buffer, int offset) {
+    return switch (msg) {
+      case Order o -> order.wrap(buffer, offset).encode(o);
+      case ExecutionReport exec -> executionReport.wrap(buffer, offset).encode(exec);
+      case MarketData md -> marketData.wrap(buffer, offset).encode(md);
+      case MarketDataUpdate update -> marketData.wrap(buffer, offset).encode(update);
+      case UserBalance ub -> userBalance.wrap(buffer, offset).encode(ub);
+      case InstrumentConfig inst -> instrumentConfig.wrap(buffer, offset).encode(inst);
+      case CancelOrder cancel -> cancelOrder.wrap(buffer, offset).encode(cancel);
+      case ReplaceOrder replace -> replaceOrder.wrap(buffer, offset).encode(replace);
+      case MassCancelOrder massCancel -> massCancelOrder.wrap(buffer, offset).encode(massCancel);
+      case SnapshotMessage snapshot -> header.wrap(buffer, offset).encode(SNAPSHOT);
+      case ErrorMessage error -> encodeError(error, buffer, offset);
+      case null, default -> throw new AppException("Undefined message: msg=" + msg);
+    };
+  }
+
+  private int encodeError(ErrorMessage error, ByteBuffer buffer, int offset) {
+    int length = errorMessage.wrap(buffer, offset).encode(error);
+    if (error.getPayload() instanceof Message payload) {
+      int payloadLength = encode(payload, buffer, offset + length);
+      // flyweight is shared with nested message, so wrap it again
+      errorMessage.wrap(buffer, offset).addPayload(payloadLength);
+      length += payloadLength;
+    }
+    return length;
+  }
+
+  /**
+   * Decode message into new object
+   */
+  public Message decode(ByteBuffer buffer, int offset) {
+    short templateId = header.wrap(buffer, offset).templateId();
+    return switch (templateId) {
+      case ORDER -> order.wrap(buffer, offset).decode(new Order());
+      case EXECUTION_REPORT -> executionReport.wrap(buffer, offset).decode(new ExecutionReport());
+      case MARKET_DATA -> marketData.wrap(buffer, offset).decode(new MarketData());
+      case MARKET_DATA_UPDATE -> marketData.wrap(buffer, offset).decode(new MarketDataUpdate());
+      case USER_BALANCE -> userBalance.wrap(buffer, offset).decode(new UserBalance());
+      case INSTRUMENT_CONFIG -> instrumentConfig.wrap(buffer, offset)
+          .decode(new InstrumentConfig());
+      case CANCEL_ORDER -> cancelOrder.wrap(buffer, offset).decode(new CancelOrder());
+      case REPLACE_ORDER -> replaceOrder.wrap(buffer, offset).decode(new ReplaceOrder());
+      case MASS_CANCEL_ORDER -> massCancelOrder.wrap(buffer, offset)
+          .decode(new MassCancelOrder());
+      case SNAPSHOT -> new SnapshotMessage();
+      case ERROR_MESSAGE -> decodeError(buffer, offset);
+      default -> throw new AppException("Undefined templateId: templateId=" + templateId);
+    };
+  }
+
+  private ErrorMessage decodeError(ByteBuffer buffer, int offset) {
+    ErrorMessage error = errorMessage.wrap(buffer, offset).decode(new ErrorMessage(null, null));
+    if (errorMessage.hasPayload()) {
+      error.setPayload(decode(buffer, offset + errorMessage.payloadField()));
+    }
+    return error;
+  }
+
+  /**
+   * @return templateId of message at offset, used to choose flyweight
+   */
+  public short templateId(ByteBuffer buffer, int offset) {
+    return header.wrap(buffer, offset).templateId();
+  }
+
+  /**
+   * @return total length of message at offset, used to move to next message
+   */
+  public int length(ByteBuffer buffer, int offset) {
+    return header.wrap(buffer, offset).length();
+  }
+
+  private static class HeaderFlyweight extends Flyweight {
+
+    HeaderFlyweight wrap(ByteBuffer buffer, int offset) {
+      wrapBuffer(buffer, offset);
+      return this;
+    }
+
+    int encode(short templateId) {
+      putHeader(templateId, HEADER_LENGTH);
+      return HEADER_LENGTH;
+    }
+  }
+}
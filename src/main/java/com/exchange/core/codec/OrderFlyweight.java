@@ -0,0 +1,108 @@
+package com.exchange.core.codec;
+
+import com.exchange.core.model.enums.OrderSide;
+import com.exchange.core.model.enums.OrderType;
+import com.exchange.core.model.msg.Order;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+
+/**
+ * Binary layout of Order, engine-only fields (scaled values, book links) aren't encoded
+ */
+public class OrderFlyweight extends Flyweight {
+
+  public static final int ORDER_ID = HEADER_LENGTH;
+  public static final int ACCOUNT = ORDER_ID + Long.BYTES;
+  public static final int SIDE = ACCOUNT + Integer.BYTES;
+  public static final int TYPE = SIDE + 1;
+  public static final int ORDER_QTY = TYPE + 1;
+  public static final int LEAVES_QTY = ORDER_QTY + DECIMAL_LENGTH;
+  public static final int QUOTE_ORDER_QTY = LEAVES_QTY + DECIMAL_LENGTH;
+  public static final int PRICE = QUOTE_ORDER_QTY + DECIMAL_LENGTH;
+  public static final int SYMBOL = PRICE + DECIMAL_LENGTH;
+  public static final int CL_ORD_ID = SYMBOL + SYMBOL_LENGTH;
+  public static final int LENGTH = CL_ORD_ID + CL_ORD_ID_LENGTH;
+  private static final OrderSide[] SIDES = OrderSide.values();
+  private static final OrderType[] TYPES = OrderType.values();
+
+  public OrderFlyweight wrap(ByteBuffer buffer, int offset) {
+    wrapBuffer(buffer, offset);
+    return this;
+  }
+
+  /**
+   * @return length of encoded message
+   */
+  public int encode(Order order) {
+    putHeader(MessageCodec.ORDER, LENGTH);
+    buffer.putLong(offset + ORDER_ID, order.getOrderId());
+    buffer.putInt(offset + ACCOUNT, order.getAccount());
+    putEnum(SIDE, order.getSide());
+    putEnum(TYPE, order.getType());
+    putDecimal(ORDER_QTY, order.getOrderQty());
+    putDecimal(LEAVES_QTY, order.getLeavesQty());
+    putDecimal(QUOTE_ORDER_QTY, order.getQuoteOrderQty());
+    putDecimal(PRICE, order.getPrice());
+    putString(SYMBOL, SYMBOL_LENGTH, order.getSymbol());
+    putString(CL_ORD_ID, CL_ORD_ID_LENGTH, order.getClOrdId());
+    return LENGTH;
+  }
+
+  /**
+   * Fill order with decoded fields, so pooled order can be used instead of new one
+   */
+  public Order decode(Order order) {
+    checkTemplateId(MessageCodec.ORDER);
+    order.setOrderId(orderId());
+    order.setAccount(account());
+    order.setSide(side());
+    order.setType(type());
+    order.setOrderQty(orderQty());
+    order.setLeavesQty(leavesQty());
+    order.setQuoteOrderQty(quoteOrderQty());
+    order.setPrice(price());
+    order.setSymbol(symbol());
+    order.setClOrdId(clOrdId());
+    return order;
+  }
+
+  public long orderId() {
+    return buffer.getLong(offset + ORDER_ID);
+  }
+
+  public int account() {
+    return buffer.getInt(offset + ACCOUNT);
+  }
+
+  public OrderSide side() {
+    return getEnum(SIDE, SIDES);
+  }
+
+  public OrderType type() {
+    return getEnum(TYPE, TYPES);
+  }
+
+  public BigDecimal orderQty() {
+    return decimal(ORDER_QTY);
+  }
+
+  public BigDecimal leavesQty() {
+    return decimal(LEAVES_QTY);
+  }
+
+  public BigDecimal quoteOrderQty() {
+    return decimal(QUOTE_ORDER_QTY);
+  }
+
+  public BigDecimal price() {
+    return decimal(PRICE);
+  }
+
+  public String symbol() {
+    return cachedString(SYMBOL);
+  }
+
+  public String clOrdId() {
+    return string(CL_ORD_ID);
+  }
+}
@@ -0,0 +1,73 @@
+package com.exchange.core.codec;
+
+import com.exchange.core.model.msg.ReplaceOrder;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+
+/**
+ * Binary layout of ReplaceOrder
+ */
+public class ReplaceOrderFlyweight extends Flyweight {
+
+  public static final int ORDER_ID = HEADER_LENGTH;
+  public static final int ACCOUNT = ORDER_ID + Long.BYTES;
+  public static final int PRICE = ACCOUNT + Integer.BYTES;
+  public static final int ORDER_QTY = PRICE + DECIMAL_LENGTH;
+  public static final int SYMBOL = ORDER_QTY + DECIMAL_LENGTH;
+  public static final int CL_ORD_ID = SYMBOL + SYMBOL_LENGTH;
+  public static final int LENGTH = CL_ORD_ID + CL_ORD_ID_LENGTH;
+
+  public ReplaceOrderFlyweight wrap(ByteBuffer buffer, int offset) {
+    wrapBuffer(buffer, offset);
+    return this;
+  }
+
+  /**
+   * @return length of encoded message
+   */
+  public int encode(ReplaceOrder replace) {
+    putHeader(MessageCodec.REPLACE_ORDER, LENGTH);
+    buffer.putLong(offset + ORDER_ID, replace.getOrderId());
+    buffer.putInt(offset + ACCOUNT, replace.getAccount());
+    putDecimal(PRICE, replace.getPrice());
+    putDecimal(ORDER_QTY, replace.getOrderQty());
+    putString(SYMBOL, SYMBOL_LENGTH, replace.getSymbol());
+    putString(CL_ORD_ID, CL_ORD_ID_LENGTH, replace.getClOrdId());
+    return LENGTH;
+  }
+
+  public ReplaceOrder decode(ReplaceOrder replace) {
+    checkTemplateId(MessageCodec.REPLACE_ORDER);
+    replace.setOrderId(orderId());
+    replace.setAccount(account());
+    replace.setPrice(price());
+    replace.setOrderQty(orderQty());
+    replace.setSymbol(symbol());
+    replace.setClOrdId(clOrdId());
+    return replace;
+  }
+
+  public long orderId() {
+    return buffer.getLong(offset + ORDER_ID);
+  }
+
+  public int account() {
+    return buffer.getInt(offset + ACCOUNT);
+  }
+
+  public BigDecimal price() {
+    return decimal(PRICE);
+  }
+
+  public BigDecimal orderQty() {
+    return decimal(ORDER_QTY);
+  }
+
+  public String symbol() {
+    return cachedString(SYMBOL);
+  }
+
+  public String clOrdId() {
+    return string(CL_ORD_ID);
+  }
+}
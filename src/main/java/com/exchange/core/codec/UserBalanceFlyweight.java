@@ -0,0 +1,52 @@
+package com.exchange.core.codec;
+
+import com.exchange.core.model.msg.UserBalance;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+
+/**
+ * Binary layout of UserBalance
+ */
+public class UserBalanceFlyweight extends Flyweight {
+
+  public static final int ACCOUNT = HEADER_LENGTH;
+  public static final int AMOUNT = ACCOUNT + Integer.BYTES;
+  public static final int ASSET = AMOUNT + DECIMAL_LENGTH;
+  public static final int LENGTH = ASSET + SYMBOL_LENGTH;
+
+  public UserBalanceFlyweight wrap(ByteBuffer buffer, int offset) {
+    wrapBuffer(buffer, offset);
+    return this;
+  }
+
+  /**
+   * @return length of encoded message
+   */
+  public int encode(UserBalance ub) {
+    putHeader(MessageCodec.USER_BALANCE, LENGTH);
+    buffer.putInt(offset + ACCOUNT, ub.getAccount());
+    putDecimal(AMOUNT, ub.getAmount());
+    putString(ASSET, SYMBOL_LENGTH, ub.getAsset());
+    return LENGTH;
+  }
+
+  public UserBalance decode(UserBalance ub) {
+    checkTemplateId(MessageCodec.USER_BALANCE);
+    ub.setAccount(account());
+    ub.setAmount(amount());
+    ub.setAsset(asset());
+    return ub;
+  }
+
+  public int account() {
+    return buffer.getInt(offset + ACCOUNT);
+  }
+
+  public BigDecimal amount() {
+    return decimal(AMOUNT);
+  }
+
+  public String asset() {
+    return cachedString(ASSET);
+  }
+}
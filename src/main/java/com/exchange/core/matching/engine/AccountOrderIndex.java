@@ -0,0 +1,103 @@
+package com.exchange.core.matching.engine;
+
+import com.exchange.core.matching.orderbook.map.LongObjectHashMap;
+import com.exchange.core.matching.orderbook.map.LongObjectMap;
+import com.exchange.core.model.msg.Order;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Resting orders of every account linked into intrusive lists through Order account/symbol links,
+ * so orders of account (or account and symbol) are found in O(k) without scanning order books
+ * Every resting order is in 2 lists: all orders of account, and orders of account for its symbol
+ * Heads of emptied lists are kept, so steady add/remove doesn't allocate
+ * Used only by matching thread
+ */
+class AccountOrderIndex {
+
+  private final LongObjectMap<AccountOrders> accounts = new LongObjectHashMap<>();
+
+  /**
+   * Link order which was added into order book
+   */
+  void add(Order order) {
+    AccountOrders orders = accounts.get(order.getAccount());
+    if (orders == null) {
+      orders = new AccountOrders();
+      accounts.put(order.getAccount(), orders);
+    }
+    order.accountPrev = null;
+    order.accountNext = orders.head;
+    if (orders.head != null) {
+      orders.head.accountPrev = order;
+    }
+    orders.head = order;
+    Order symbolHead = orders.symbolHeads.get(order.getSymbol());
+    order.symbolPrev = null;
+    order.symbolNext = symbolHead;
+    if (symbolHead != null) {
+      symbolHead.symbolPrev = order;
+    }
+    orders.symbolHeads.put(order.getSymbol(), order);
+  }
+
+  /**
+   * Unlink order which left order book, order which is not linked is ignored
+   */
+  void remove(Order order) {
+    AccountOrders orders = accounts.get(order.getAccount());
+    if (orders == null || (order.accountPrev == null && orders.head != order)) {
+      return;
+    }
+    if (order.accountPrev != null) {
+      order.accountPrev.accountNext = order.accountNext;
+    } else {
+      orders.head = order.accountNext;
+    }
+    if (order.accountNext != null) {
+      order.accountNext.accountPrev = order.accountPrev;
+    }
+    if (order.symbolPrev != null) {
+      order.symbolPrev.symbolNext = order.symbolNext;
+    } else {
+      orders.symbolHeads.put(order.getSymbol(), order.symbolNext);
+    }
+    if (order.symbolNext != null) {
+      order.symbolNext.symbolPrev = order.symbolPrev;
+    }
+    order.accountPrev = null;
+    order.accountNext = null;
+    order.symbolPrev = null;
+    order.symbolNext = null;
+  }
+
+  /**
+   * Unlink all orders of account and add them into list
+   * @param symbol - if not null, only orders of this symbol are removed
+   */
+  void removeAll(int account, String symbol, List<Order> removed) {
+    AccountOrders orders = accounts.get(account);
+    if (orders == null) {
+      return;
+    }
+    if (symbol == null) {
+      for (Order order = orders.head; order != null; order = orders.head) {
+        remove(order);
+        removed.add(order);
+      }
+    } else {
+      for (Order order = orders.symbolHeads.get(symbol); order != null;
+          order = orders.symbolHeads.get(symbol)) {
+        remove(order);
+        removed.add(order);
+      }
+    }
+  }
+
+  private static class AccountOrders {
+
+    Order head;
+    final Map<String, Order> symbolHeads = new HashMap<>();
+  }
+}
@@ -0,0 +1,58 @@
+package com.exchange.core.matching.engine;
+
+import com.exchange.core.matching.journal.Journal;
+import com.exchange.core.matching.waitstrategy.SleepWaitStrategy;
+import com.exchange.core.matching.waitstrategy.WaitStrategy;
+import com.exchange.core.model.enums.OrderBookType;
+import lombok.Data;
+
+/**
+ * Settings of SpotMatchingEngine, defaults are the same as of the shortest constructor except
+ * printInboundMsg
+ */
+@Data
+public class MatchingEngineConfig {
+
+  private OrderBookType orderBookType = OrderBookType.MAP;
+  private boolean printInboundMsg;
+  /**
+   * Run matching on scaled long values (InstrumentConfig priceScale/quantityScale), so no
+   * BigDecimal is allocated between inbound order and outbound messages. Supported only by ARRAY
+   * and OFF_HEAP order books
+   */
+  private boolean fixedPoint;
+  /**
+   * Execution reports are acquired from pool, so outbound consumer should call
+   * ExecutionReport.release() when report is processed, otherwise pool is always empty
+   * false - every report is new object, consumer may keep it
+   */
+  private boolean pooledExecutionReports;
+  /**
+   * Levels changed by order are sent as MarketDataUpdate, and every n-th update (by per-symbol
+   * seqNum) is replaced by full MarketData with the same seqNum for late joiners
+   * 1 - send full MarketData for every order that changed book
+   */
+  private int marketDataSnapshotInterval = 1;
+  /**
+   * What matching thread does when inbound queue is empty. SleepWaitStrategy adds up to 1ms to
+   * first order after idle period, use busy-spin or backoff for low latency. If
+   * BlockingWaitStrategy is used, producers should call its signal() after adding message to
+   * inbound
+   */
+  private WaitStrategy waitStrategy = new SleepWaitStrategy();
+  /**
+   * Max number of inbound messages processed before market data is published. Order books touched
+   * by the batch send one conflated update (or snapshot) after the batch, so bursts produce less
+   * market data. Execution reports are still sent for every order. 1 - market data is sent after
+   * every order
+   */
+  private int batchSize = 1;
+  /**
+   * Every inbound message is appended to journal before it's processed, on start messages
+   * journaled after the last snapshot are replayed, messages produced by replay aren't sent to
+   * outbound. Snapshots are written by replica, which applies journal on background thread,
+   * SnapshotMessage is only a barrier in journal, so matching thread isn't paused by snapshot
+   * null - journal isn't used, snapshot is written by matching thread
+   */
+  private Journal journal;
+}
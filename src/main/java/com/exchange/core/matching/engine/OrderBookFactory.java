@@ -0,0 +1,74 @@
+package com.exchange.core.matching.engine;
+
+import com.exchange.core.exceptions.AppException;
+import com.exchange.core.matching.orderbook.OrderBook;
+import com.exchange.core.matching.orderbook.book.ArrayOrderBook;
+import com.exchange.core.matching.orderbook.book.BitmapOrderBook;
+import com.exchange.core.matching.orderbook.book.IpqOrderBook;
+import com.exchange.core.matching.orderbook.book.MapOrderBook;
+import com.exchange.core.matching.orderbook.book.OffHeapOrderBook;
+import com.exchange.core.matching.orderbook.book.SlidingWindowOrderBook;
+import com.exchange.core.model.enums.OrderBookType;
+import com.exchange.core.model.msg.InstrumentConfig;
+import java.math.BigDecimal;
+
+/**
+ * Engine settings validation and order book creation shared by all engines
+ */
+final class OrderBookFactory {
+
+  private OrderBookFactory() {
+  }
+
+  static void validate(OrderBookType orderBookType, boolean fixedPoint,
+      int marketDataSnapshotInterval) {
+    if (marketDataSnapshotInterval < 1) {
+      throw new AppException("Market data snapshot interval should be positive: interval="
+          + marketDataSnapshotInterval);
+    }
+    if (fixedPoint && orderBookType != OrderBookType.ARRAY
+        && orderBookType != OrderBookType.OFF_HEAP) {
+      throw new AppException("Fixed-point mode is not supported: orderBookType=" + orderBookType);
+    }
+    if (!fixedPoint && orderBookType == OrderBookType.OFF_HEAP) {
+      throw new AppException("Order book supports only fixed-point mode: orderBookType="
+          + orderBookType);
+    }
+  }
+
+  /**
+   * Reject instrument whose order book can't be created, before instrument is added
+   */
+  static void validate(OrderBookType orderBookType, boolean fixedPoint, InstrumentConfig inst) {
+    if (fixedPoint || orderBookType == OrderBookType.IPQ
+        || orderBookType == OrderBookType.BITMAP) {
+      ArrayOrderBook.ladderTicks(ArrayOrderBook.DEFAULT_MAX_PRICE, inst.getPriceScale());
+    }
+  }
+
+  static OrderBook create(OrderBookType orderBookType, boolean fixedPoint, InstrumentConfig inst) {
+    final String symbol = inst.getSymbol();
+    if (fixedPoint) {
+      if (orderBookType == OrderBookType.OFF_HEAP) {
+        return new OffHeapOrderBook(symbol, inst.getPriceScale(), inst.getQuantityScale());
+      }
+      return new ArrayOrderBook(symbol, true, inst.getPriceScale(), inst.getQuantityScale());
+    }
+    // tick based books get tick size from price scale, so 30000.25 is tick 3000025 at scale 2
+    final BigDecimal tickSize = BigDecimal.ONE.scaleByPowerOfTen(-inst.getPriceScale());
+    return switch (orderBookType) {
+      case MAP -> new MapOrderBook(symbol);
+      case ARRAY -> new ArrayOrderBook(symbol);
+      case IPQ -> new IpqOrderBook(symbol, tickSize, maxTicks(inst) - 1, 1024, 256);
+      case BITMAP -> new BitmapOrderBook(symbol, tickSize, maxTicks(inst));
+      case SLIDING_WINDOW -> new SlidingWindowOrderBook(symbol, tickSize, 4096);
+      case OFF_HEAP -> throw new AppException(
+          "Order book supports only fixed-point mode: orderBookType=" + orderBookType);
+    };
+  }
+
+  private static int maxTicks(InstrumentConfig inst) {
+    return (int) ArrayOrderBook.ladderTicks(ArrayOrderBook.DEFAULT_MAX_PRICE,
+        inst.getPriceScale());
+  }
+}
@@ -0,0 +1,87 @@
+package com.exchange.core.matching.engine;
+
+import com.exchange.core.model.msg.Message;
+import com.exchange.core.model.msg.Order;
+import com.exchange.core.pool.ObjectPool;
+import com.exchange.core.pool.Poolable;
+import java.math.BigDecimal;
+
+/**
+ * Work item passed from matching stage to post-trade stage of PipelinedMatchingEngine
+ * Matching thread keeps changing leavesQty of resting orders and releases filled makers, so event
+ * carries its own copies of taker/maker taken at the moment of the event
+ * Acquired by matching thread and released by post-trade thread
+ */
+class PipelineEvent implements Poolable<PipelineEvent> {
+
+  enum Type {
+    // taker - new order
+    NEW,
+    // taker, maker and trade values
+    TRADE,
+    // taker - market order with leavesQty left after match or cancelled resting order
+    CANCEL,
+    // message - InstrumentConfig, which should be added to post-trade repository
+    INSTRUMENT,
+    // message - market data or error, which should be sent to outbound as is
+    MESSAGE
+  }
+
+  Type type;
+  final Order taker = new Order();
+  final Order maker = new Order();
+  BigDecimal tradeQty;
+  BigDecimal tradePrice;
+  BigDecimal tradeAmount;
+  long scaledTradeQty;
+  long scaledTradePrice;
+  long scaledTradeAmount;
+  Message message;
+  private ObjectPool<PipelineEvent> pool;
+
+  @Override
+  public void setPool(ObjectPool<PipelineEvent> pool) {
+    this.pool = pool;
+  }
+
+  @Override
+  public void release() {
+    final ObjectPool<PipelineEvent> pool = this.pool;
+    if (pool != null) {
+      this.pool = null;
+      pool.release(this);
+    }
+  }
+
+  @Override
+  public void reset() {
+    type = null;
+    taker.reset();
+    maker.reset();
+    tradeQty = null;
+    tradePrice = null;
+    tradeAmount = null;
+    scaledTradeQty = 0;
+    scaledTradePrice = 0;
+    scaledTradeAmount = 0;
+    message = null;
+  }
+
+  /**
+   * Copy fields used by post-trade checks, book links are not copied
+   */
+  static void copy(Order from, Order to) {
+    to.setSymbol(from.getSymbol());
+    to.setOrderId(from.getOrderId());
+    to.setClOrdId(from.getClOrdId());
+    to.setAccount(from.getAccount());
+    to.setSide(from.getSide());
+    to.setType(from.getType());
+    to.setOrderQty(from.getOrderQty());
+    to.setLeavesQty(from.getLeavesQty());
+    to.setQuoteOrderQty(from.getQuoteOrderQty());
+    to.setPrice(from.getPrice());
+    to.setScaledPrice(from.getScaledPrice());
+    to.setScaledLeavesQty(from.getScaledLeavesQty());
+  }
+}
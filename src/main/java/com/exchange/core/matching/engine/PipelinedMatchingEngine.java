@@ -0,0 +1,377 @@
+package com.exchange.core.matching.engine;
+
+import com.exchange.core.exceptions.AppException;
+import com.exchange.core.matching.counter.AtomicGlobalCounter;
+import com.exchange.core.matching.counter.GlobalCounter;
+import com.exchange.core.matching.engine.PipelineEvent.Type;
+import com.exchange.core.matching.orderbook.OrderBook;
+import com.exchange.core.matching.orderbook.TradeListener;
+import com.exchange.core.matching.orderchecks.PostOrderCheck;
+import com.exchange.core.matching.orderchecks.PostOrderCheckImpl;
+import com.exchange.core.matching.orderchecks.PreOrderCheck;
+import com.exchange.core.matching.orderchecks.PreOrderCheckImpl;
+import com.exchange.core.matching.waitstrategy.SleepWaitStrategy;
+import com.exchange.core.matching.waitstrategy.WaitStrategy;
+import com.exchange.core.model.enums.OrderBookType;
+import com.exchange.core.model.enums.OrderType;
+import com.exchange.core.model.msg.CancelOrder;
+import com.exchange.core.model.msg.ErrorMessage;
+import com.exchange.core.model.msg.InstrumentConfig;
+import com.exchange.core.model.msg.MarketDataUpdate;
+import com.exchange.core.model.msg.MassCancelOrder;
+import com.exchange.core.model.msg.Message;
+import com.exchange.core.model.msg.Order;
+import com.exchange.core.model.msg.ReplaceOrder;
+import com.exchange.core.model.msg.SnapshotMessage;
+import com.exchange.core.model.msg.UserBalance;
+import com.exchange.core.pool.ObjectPool;
+import com.exchange.core.pool.SpscObjectPool;
+import com.exchange.core.queue.SpscRingBufferQueue;
+import com.exchange.core.repository.AccountRepository;
+import com.exchange.core.repository.AccountRepositoryImpl;
+import com.exchange.core.repository.InstrumentRepository;
+import com.exchange.core.repository.InstrumentRepositoryImpl;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Same processing as SpotMatchingEngine split into 3 stages, each on its own thread, connected by
+ * SPSC ring buffers:
+ * RiskThread - PreOrderCheck: validation, orderId, balance lock; user balances
+ * MatchingThread - OrderBook match/add, market data building
+ * PostTradeThread - PostOrderCheck: settlement, execution reports; publication into outbound
+ * Every outbound message goes through all stages, so outbound order is the same as in serial
+ * engine, and only PostTradeThread writes into outbound
+ * Settlement happens after later orders may already be validated, so order which relies on
+ * proceeds of previous trade not yet settled may be rejected with insufficient balance
+ * Cancel is passed to matching stage as is, balance is released by post-trade stage
+ * Snapshots, replace and mass cancel are not supported yet, cause replace should check balance
+ * against state of resting order, which is known only to matching stage
+ */
+@Slf4j
+public class PipelinedMatchingEngine implements MatchingEngine {
+
+  private final Queue<Message> inbound;
+  private final Queue<Message> outbound;
+  private final Queue<Message> riskToMatching;
+  private final Queue<PipelineEvent> matchingToPostTrade;
+  private final WaitStrategy riskWait;
+  private final WaitStrategy matchingWait;
+  private final WaitStrategy postTradeWait;
+  private final OrderBookType orderBookType;
+  private final boolean fixedPoint;
+  private final int marketDataSnapshotInterval;
+  // risk stage
+  private final AccountRepository accountRepository;
+  private final InstrumentRepository riskInstruments;
+  private final PreOrderCheck preOrderCheck;
+  // matching stage
+  private final Map<String, OrderBook> orderBooks;
+  private final ObjectPool<PipelineEvent> eventPool;
+  private final TradeListener tradeListener = new EventTradeListener();
+  private final List<Order> filledMakers = new ArrayList<>();
+  // post-trade stage
+  private final InstrumentRepository postTradeInstruments;
+  private final PostOrderCheck postOrderCheck;
+
+  public PipelinedMatchingEngine(Queue<Message> inbound, Queue<Message> outbound) {
+    this(inbound, outbound, OrderBookType.MAP, false, 1, SleepWaitStrategy::new, 1 << 16);
+  }
+
+  /**
+   * @param waitStrategyFactory - creates wait strategy for every stage thread
+   * @param stageQueueCapacity  - capacity of ring between stages, should be power of 2
+   */
+  public PipelinedMatchingEngine(Queue<Message> inbound, Queue<Message> outbound,
+      OrderBookType orderBookType, boolean fixedPoint, int marketDataSnapshotInterval,
+      Supplier<WaitStrategy> waitStrategyFactory, int stageQueueCapacity) {
+    OrderBookFactory.validate(orderBookType, fixedPoint, marketDataSnapshotInterval);
+    this.inbound = inbound;
+    this.outbound = outbound;
+    this.orderBookType = orderBookType;
+    this.fixedPoint = fixedPoint;
+    this.marketDataSnapshotInterval = marketDataSnapshotInterval;
+    riskToMatching = new SpscRingBufferQueue<>(stageQueueCapacity);
+    matchingToPostTrade = new SpscRingBufferQueue<>(stageQueueCapacity);
+    riskWait = waitStrategyFactory.get();
+    matchingWait = waitStrategyFactory.get();
+    postTradeWait = waitStrategyFactory.get();
+    // orderId is taken by risk stage, execId by post-trade stage
+    GlobalCounter counter = new AtomicGlobalCounter();
+    accountRepository = new AccountRepositoryImpl();
+    riskInstruments = new InstrumentRepositoryImpl();
+    // validation errors go down the pipeline, so they keep their place in outbound
+    preOrderCheck = new PreOrderCheckImpl(counter, accountRepository, riskInstruments,
+        riskToMatching, fixedPoint);
+    orderBooks = new HashMap<>();
+    eventPool = new SpscObjectPool<>(PipelineEvent::new, stageQueueCapacity);
+    postTradeInstruments = new InstrumentRepositoryImpl();
+    postOrderCheck = new PostOrderCheckImpl(counter, accountRepository, postTradeInstruments,
+        outbound, fixedPoint);
+  }
+
+  @Override
+  public void start() {
+    log.info("Starting pipelined matching engine...");
+    new Thread(this::runPostTrade, "PostTradeThread").start();
+    new Thread(this::runMatching, "MatchingThread").start();
+    new Thread(this::runRisk, "RiskThread").start();
+  }
+
+  private void runRisk() {
+    while (true) {
+      Message msg = inbound.poll();
+      if (msg == null) {
+        riskWait.idle();
+        continue;
+      }
+      riskWait.reset();
+      try {
+        preOrderCheck.checkLimits(msg);
+        risk(msg);
+      } catch (Exception ex) {
+        riskToMatching.add(new ErrorMessage(ex.getMessage(), msg));
+      }
+      matchingWait.signal();
+    }
+  }
+
+  private void risk(Message msg) {
+    switch (msg) {
+      case InstrumentConfig inst -> {
+        OrderBookFactory.validate(orderBookType, fixedPoint, inst);
+        riskInstruments.add(inst);
+        riskToMatching.add(inst);
+      }
+      case Order order -> riskOrder(order);
+      case CancelOrder cancel -> riskToMatching.add(cancel);
+      case ReplaceOrder replace -> throw new AppException(
+          "Replace is not supported by pipelined engine");
+      case MassCancelOrder massCancel -> throw new AppException(
+          "Mass cancel is not supported by pipelined engine");
+      case UserBalance ub -> {
+        if (!riskInstruments.getAssets().contains(ub.getAsset())) {
+          throw new AppException("Asset not found: msg=" + ub);
+        }
+        accountRepository.addBalance(ub);
+      }
+      case SnapshotMessage snapshotMessage -> throw new AppException(
+          "Snapshot is not supported by pipelined engine");
+      case null, default -> throw new AppException("Undefined message: msg=" + msg);
+    }
+  }
+
+  private void riskOrder(Order order) {
+    final String symbol = order.getSymbol();
+    if (symbol == null) {
+      throw new AppException("Symbol of new order can't be null");
+    }
+    // every instrument has order book on matching stage
+    if (riskInstruments.getInstrument(symbol) == null) {
+      throw new AppException("OrderBook not found for symbol=" + symbol);
+    }
+    if (!preOrderCheck.validateOrder(order)) {
+      return;
+    }
+    preOrderCheck.updateNewOrder(order);
+    preOrderCheck.lockBalance(order);
+    riskToMatching.add(order);
+  }
+
+  private void runMatching() {
+    while (true) {
+      Message msg = riskToMatching.poll();
+      if (msg == null) {
+        matchingWait.idle();
+        continue;
+      }
+      matchingWait.reset();
+      try {
+        match(msg);
+      } catch (Exception ex) {
+        PipelineEvent event = newEvent(Type.MESSAGE);
+        event.message = new ErrorMessage(ex.getMessage(), msg);
+        publish(event);
+      }
+      postTradeWait.signal();
+    }
+  }
+
+  private void match(Message msg) {
+    switch (msg) {
+      case InstrumentConfig inst -> {
+        orderBooks.put(inst.getSymbol(), OrderBookFactory.create(orderBookType, fixedPoint, inst));
+        PipelineEvent event = newEvent(Type.INSTRUMENT);
+        event.message = inst;
+        publish(event);
+      }
+      case Order order -> matchOrder(order);
+      case CancelOrder cancel -> cancelOrder(cancel);
+      default -> {
+        // error from risk stage
+        PipelineEvent event = newEvent(Type.MESSAGE);
+        event.message = msg;
+        publish(event);
+      }
+    }
+  }
+
+  private void matchOrder(Order order) {
+    OrderBook ob = orderBooks.get(order.getSymbol());
+    publishOrder(Type.NEW, order);
+    ob.match(order, tradeListener);
+    // filled makers are already copied into events, so they can be returned into the pool
+    for (int i = 0; i < filledMakers.size(); i++) {
+      filledMakers.get(i).release();
+    }
+    filledMakers.clear();
+    boolean resting = false;
+    if (hasLeavesQty(order)) {
+      if (order.getType() == OrderType.MARKET) {
+        publishOrder(Type.CANCEL, order);
+      } else {
+        // off-heap book copies order into its slot, so order goes back into the pool
+        resting = ob.add(order) && orderBookType != OrderBookType.OFF_HEAP;
+      }
+    }
+    publishMarketData(ob);
+    if (!resting) {
+      order.release();
+    }
+  }
+
+  private void cancelOrder(CancelOrder cancel) {
+    OrderBook ob = orderBooks.get(cancel.getSymbol());
+    if (ob == null) {
+      throw new AppException("OrderBook not found for symbol=" + cancel.getSymbol());
+    }
+    Order order = ob.getOrder(cancel.getOrderId());
+    if (order == null || order.getAccount() != cancel.getAccount()) {
+      throw new AppException("Order not found: orderId=" + cancel.getOrderId());
+    }
+    ob.remove(order.getOrderId());
+    publishOrder(Type.CANCEL, order);
+    publishMarketData(ob);
+    order.release();
+  }
+
+  private void publishOrder(Type type, Order order) {
+    PipelineEvent event = newEvent(type);
+    PipelineEvent.copy(order, event.taker);
+    publish(event);
+  }
+
+  private void publishMarketData(OrderBook ob) {
+    MarketDataUpdate update = ob.buildMarketDataUpdate();
+    if (update == null) {
+      return;
+    }
+    PipelineEvent event = newEvent(Type.MESSAGE);
+    if (update.getSeqNum() % marketDataSnapshotInterval == 0) {
+      event.message = ob.buildMarketData();
+    } else {
+      event.message = update;
+    }
+    publish(event);
+  }
+
+  private PipelineEvent newEvent(Type type) {
+    PipelineEvent event = eventPool.acquire();
+    event.type = type;
+    return event;
+  }
+
+  private void publish(PipelineEvent event) {
+    matchingToPostTrade.add(event);
+  }
+
+  private boolean hasLeavesQty(Order order) {
+    return fixedPoint ? order.getScaledLeavesQty() > 0
+        : order.getLeavesQty().compareTo(BigDecimal.ZERO) > 0;
+  }
+
+  private void runPostTrade() {
+    while (true) {
+      PipelineEvent event = matchingToPostTrade.poll();
+      if (event == null) {
+        postTradeWait.idle();
+        continue;
+      }
+      postTradeWait.reset();
+      try {
+        postTrade(event);
+      } catch (Exception ex) {
+        // event is reused after release, so error gets its own copy of the order
+        Order order = new Order();
+        PipelineEvent.copy(event.taker, order);
+        outbound.add(new ErrorMessage(ex.getMessage(), event.message != null ? event.message
+            : order));
+      }
+      event.release();
+    }
+  }
+
+  private void postTrade(PipelineEvent event) {
+    switch (event.type) {
+      case NEW -> postOrderCheck.sendExecReportNew(event.taker);
+      case TRADE -> {
+        if (fixedPoint) {
+          postOrderCheck.settleTrade(event.taker, event.maker, event.scaledTradeQty,
+              event.scaledTradeAmount);
+          postOrderCheck.sendExecReportTrade(event.taker, event.maker, event.scaledTradeQty,
+              event.scaledTradePrice);
+        } else {
+          postOrderCheck.settleTrade(event.taker, event.maker, event.tradeQty,
+              event.tradeAmount);
+          postOrderCheck.sendExecReportTrade(event.taker, event.maker, event.tradeQty,
+              event.tradePrice);
+        }
+      }
+      case CANCEL -> postOrderCheck.cancelOrder(event.taker);
+      case INSTRUMENT -> postTradeInstruments.add((InstrumentConfig) event.message);
+      case MESSAGE -> outbound.add(event.message);
+    }
+  }
+
+  /**
+   * Copy every fill into event for post-trade stage
+   */
+  private class EventTradeListener implements TradeListener {
+
+    @Override
+    public void onTrade(Order taker, Order maker, BigDecimal tradeQty, BigDecimal tradePrice,
+        BigDecimal tradeAmount) {
+      PipelineEvent event = newTrade(taker, maker);
+      event.tradeQty = tradeQty;
+      event.tradePrice = tradePrice;
+      event.tradeAmount = tradeAmount;
+      publish(event);
+    }
+
+    @Override
+    public void onTrade(Order taker, Order maker, long tradeQty, long tradePrice,
+        long tradeAmount) {
+      PipelineEvent event = newTrade(taker, maker);
+      event.scaledTradeQty = tradeQty;
+      event.scaledTradePrice = tradePrice;
+      event.scaledTradeAmount = tradeAmount;
+      publish(event);
+    }
+
+    private PipelineEvent newTrade(Order taker, Order maker) {
+      PipelineEvent event = newEvent(Type.TRADE);
+      PipelineEvent.copy(taker, event.taker);
+      PipelineEvent.copy(maker, event.maker);
+      if (!hasLeavesQty(maker)) {
+        filledMakers.add(maker);
+      }
+      return event;
+    }
+  }
+}
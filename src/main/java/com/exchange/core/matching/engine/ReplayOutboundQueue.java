@@ -0,0 +1,78 @@
+package com.exchange.core.matching.engine;
+
+import com.exchange.core.model.msg.Message;
+import com.exchange.core.pool.Poolable;
+import java.util.AbstractQueue;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Queue;
+
+/**
+ * Outbound of engine with journal: passes messages to real outbound, but while journal is
+ * replayed messages are dropped (pooled ones are released), cause they were sent before restart
+ * Replay runs before matching thread starts, so flag doesn't need to be volatile
+ */
+class ReplayOutboundQueue extends AbstractQueue<Message> {
+
+  private final Queue<Message> outbound;
+  private boolean replaying;
+
+  ReplayOutboundQueue(Queue<Message> outbound) {
+    this.outbound = outbound;
+  }
+
+  /**
+   * Outbound of snapshot replica, everything is dropped
+   */
+  static ReplayOutboundQueue discarding() {
+    ReplayOutboundQueue queue = new ReplayOutboundQueue(new ArrayDeque<>());
+    queue.setReplaying(true);
+    return queue;
+  }
+
+  void setReplaying(boolean replaying) {
+    this.replaying = replaying;
+  }
+
+  @Override
+  public boolean offer(Message msg) {
+    if (replaying) {
+      if (msg instanceof Poolable<?> poolable) {
+        poolable.release();
+      }
+      return true;
+    }
+    return outbound.offer(msg);
+  }
+
+  /**
+   * Keep add() of real outbound, ring buffers wait for free slot instead of throwing
+   */
+  @Override
+  public boolean add(Message msg) {
+    if (replaying) {
+      return offer(msg);
+    }
+    return outbound.add(msg);
+  }
+
+  @Override
+  public Message poll() {
+    return outbound.poll();
+  }
+
+  @Override
+  public Message peek() {
+    return outbound.peek();
+  }
+
+  @Override
+  public int size() {
+    return outbound.size();
+  }
+
+  @Override
+  public Iterator<Message> iterator() {
+    return outbound.iterator();
+  }
+}
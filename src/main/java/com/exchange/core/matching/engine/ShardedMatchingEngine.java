@@ -0,0 +1,185 @@
+package com.exchange.core.matching.engine;
+
+import com.exchange.core.exceptions.AppException;
+import com.exchange.core.matching.counter.AtomicGlobalCounter;
+import com.exchange.core.matching.counter.GlobalCounter;
+import com.exchange.core.matching.waitstrategy.SleepWaitStrategy;
+import com.exchange.core.matching.waitstrategy.WaitStrategy;
+import com.exchange.core.model.enums.OrderBookType;
+import com.exchange.core.model.msg.CancelOrder;
+import com.exchange.core.model.msg.ErrorMessage;
+import com.exchange.core.model.msg.InstrumentConfig;
+import com.exchange.core.model.msg.MassCancelOrder;
+import com.exchange.core.model.msg.Message;
+import com.exchange.core.model.msg.Order;
+import com.exchange.core.model.msg.ReplaceOrder;
+import com.exchange.core.model.msg.SnapshotMessage;
+import com.exchange.core.model.msg.UserBalance;
+import com.exchange.core.queue.SpscRingBufferQueue;
+import com.exchange.core.repository.AccountRepository;
+import com.exchange.core.repository.AccountRepositoryImpl;
+import com.exchange.core.repository.InstrumentRepository;
+import com.exchange.core.repository.InstrumentRepositoryImpl;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Matching split into N shards, each shard is SpotMatchingEngine with own thread, inbound ring and
+ * disjoint set of order books, so symbols are matched in parallel
+ * Router thread reads inbound queue and dispatches messages:
+ * InstrumentConfig - symbol is assigned to next shard (round-robin) and sent to it
+ * Order, CancelOrder, ReplaceOrder - sent to shard which owns the symbol, so all orders of one
+ * symbol are matched in order
+ * MassCancelOrder - sent to shard of its symbol, or to all shards if symbol isn't set
+ * UserBalance - applied by router itself, since accounts are shared by all shards
+ * Balances stay consistent, cause positions are thread-safe and lock() reserves amount atomically,
+ * order which lost the race for balance is rejected with ErrorMessage. OrderId/execId are unique,
+ * cause all shards use one AtomicGlobalCounter
+ * Outbound is written by all shards and router, so it should support multiple producers
+ * Snapshots are not supported yet
+ */
+@Slf4j
+public class ShardedMatchingEngine implements MatchingEngine {
+
+  private final Queue<Message> inbound;
+  private final Queue<Message> outbound;
+  private final SpotMatchingEngine[] shards;
+  private final List<Queue<Message>> shardInbounds;
+  private final WaitStrategy[] shardWaitStrategies;
+  private final WaitStrategy waitStrategy;
+  private final AccountRepository accountRepository;
+  // used only by router thread
+  private final InstrumentRepository instrumentRepository;
+  private final Map<String, Integer> symbolShards;
+  private final OrderBookType orderBookType;
+  private final boolean fixedPoint;
+  private int nextShard;
+
+  public ShardedMatchingEngine(Queue<Message> inbound, Queue<Message> outbound, int shardCount) {
+    this(inbound, outbound, shardCount, OrderBookType.MAP, false, SleepWaitStrategy::new, 1 << 16);
+  }
+
+  /**
+   * @param waitStrategyFactory - creates wait strategy for router and every shard thread
+   * @param shardQueueCapacity  - capacity of ring between router and shard, should be power of 2
+   */
+  public ShardedMatchingEngine(Queue<Message> inbound, Queue<Message> outbound, int shardCount,
+      OrderBookType orderBookType, boolean fixedPoint, Supplier<WaitStrategy> waitStrategyFactory,
+      int shardQueueCapacity) {
+    if (shardCount < 1) {
+      throw new AppException("Shard count should be positive: shardCount=" + shardCount);
+    }
+    this.inbound = inbound;
+    this.outbound = outbound;
+    accountRepository = new AccountRepositoryImpl();
+    instrumentRepository = new InstrumentRepositoryImpl();
+    symbolShards = new HashMap<>();
+    this.orderBookType = orderBookType;
+    this.fixedPoint = fixedPoint;
+    waitStrategy = waitStrategyFactory.get();
+    GlobalCounter counter = new AtomicGlobalCounter();
+    shards = new SpotMatchingEngine[shardCount];
+    shardInbounds = new ArrayList<>(shardCount);
+    shardWaitStrategies = new WaitStrategy[shardCount];
+    for (int i = 0; i < shardCount; i++) {
+      shardInbounds.add(new SpscRingBufferQueue<>(shardQueueCapacity));
+      shardWaitStrategies[i] = waitStrategyFactory.get();
+      MatchingEngineConfig config = new MatchingEngineConfig();
+      config.setOrderBookType(orderBookType);
+      config.setFixedPoint(fixedPoint);
+      config.setWaitStrategy(shardWaitStrategies[i]);
+      shards[i] = new SpotMatchingEngine(shardInbounds.get(i), outbound, config, accountRepository,
+          counter);
+    }
+  }
+
+  @Override
+  public void start() {
+    log.info("Starting sharded matching engine: shards={}", shards.length);
+    for (int i = 0; i < shards.length; i++) {
+      shards[i].startMatchingThread("MatchingThread-" + i);
+    }
+    new Thread(this::run, "RouterThread").start();
+  }
+
+  private void run() {
+    while (true) {
+      Message msg = inbound.poll();
+      if (msg == null) {
+        waitStrategy.idle();
+        continue;
+      }
+      waitStrategy.reset();
+      try {
+        route(msg);
+      } catch (Exception ex) {
+        outbound.add(new ErrorMessage(ex.getMessage(), msg));
+      }
+    }
+  }
+
+  private void route(Message msg) {
+    switch (msg) {
+      case InstrumentConfig inst -> addInstrument(inst);
+      case Order order -> sendToShard(getShard(order.getSymbol()), order);
+      case CancelOrder cancel -> sendToShard(getShard(cancel.getSymbol()), cancel);
+      case ReplaceOrder replace -> sendToShard(getShard(replace.getSymbol()), replace);
+      case MassCancelOrder massCancel -> massCancel(massCancel);
+      case UserBalance userBalance -> addBalance(userBalance);
+      case SnapshotMessage snapshotMessage -> throw new AppException(
+          "Snapshot is not supported by sharded engine");
+      case null, default -> throw new AppException("Undefined message: msg=" + msg);
+    }
+  }
+
+  private void addInstrument(InstrumentConfig inst) {
+    // rejected by router, so instrument isn't added without order book in shard
+    OrderBookFactory.validate(orderBookType, fixedPoint, inst);
+    Integer shard = symbolShards.get(inst.getSymbol());
+    if (shard == null) {
+      shard = nextShard;
+      nextShard = (nextShard + 1) % shards.length;
+      symbolShards.put(inst.getSymbol(), shard);
+    }
+    instrumentRepository.add(inst);
+    sendToShard(shard, inst);
+  }
+
+  private void massCancel(MassCancelOrder massCancel) {
+    if (massCancel.getSymbol() != null) {
+      sendToShard(getShard(massCancel.getSymbol()), massCancel);
+      return;
+    }
+    for (int i = 0; i < shards.length; i++) {
+      sendToShard(i, massCancel);
+    }
+  }
+
+  private int getShard(String symbol) {
+    if (symbol == null) {
+      throw new AppException("Symbol of new order can't be null");
+    }
+    Integer shard = symbolShards.get(symbol);
+    if (shard == null) {
+      throw new AppException("OrderBook not found for symbol=" + symbol);
+    }
+    return shard;
+  }
+
+  private void sendToShard(int shard, Message msg) {
+    shardInbounds.get(shard).add(msg);
+    shardWaitStrategies[shard].signal();
+  }
+
+  private void addBalance(UserBalance ub) {
+    if (!instrumentRepository.getAssets().contains(ub.getAsset())) {
+      throw new AppException("Asset not found: msg=" + ub);
+    }
+    accountRepository.addBalance(ub);
+  }
+}
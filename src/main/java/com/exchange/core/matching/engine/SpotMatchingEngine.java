@@ -3,25 +3,25 @@ package com.exchange.core.matching.engine;
 import com.exchange.core.exceptions.AppException;
 import com.exchange.core.matching.counter.GlobalCounter;
 import com.exchange.core.matching.counter.SimpleGlobalCounter;
-import com.exchange.core.matching.orderbook.book.MapOrderBook;
+import com.exchange.core.matching.journal.Journal;
+import com.exchange.core.matching.journal.JournalTailer;
 import com.exchange.core.matching.orderbook.OrderBook;
-import com.exchange.core.matching.orderbook.book.ArrayOrderBook;
+import com.exchange.core.matching.orderbook.TradeListener;
 import com.exchange.core.matching.orderchecks.PostOrderCheck;
 import com.exchange.core.matching.orderchecks.PostOrderCheckImpl;
 import com.exchange.core.matching.orderchecks.PreOrderCheck;
 import com.exchange.core.matching.orderchecks.PreOrderCheckImpl;
 import com.exchange.core.matching.snapshot.Snapshotable;
-import com.exchange.core.matching.snapshot.converter.JsonObjectConverter;
+import com.exchange.core.matching.snapshot.codec.BinarySnapshotCodec;
 import com.exchange.core.matching.snapshot.manager.SnapshotManager;
 import com.exchange.core.matching.snapshot.manager.SnapshotManagerImpl;
 import com.exchange.core.matching.snapshot.storage.FileStorageWriter;
 import com.exchange.core.matching.snapshot.storage.StorageWriter;
-import com.exchange.core.matching.waitstrategy.SleepWaitStrategy;
 import com.exchange.core.matching.waitstrategy.WaitStrategy;
-import com.exchange.core.model.Trade;
 import com.exchange.core.model.enums.OrderBookType;
 import com.exchange.core.model.enums.OrderType;
 import com.exchange.core.model.msg.*;
+import com.exchange.core.pool.SpscObjectPool;
 import com.exchange.core.repository.AccountRepository;
 import com.exchange.core.repository.AccountRepositoryImpl;
 import com.exchange.core.repository.InstrumentRepository;
@@ -49,7 +49,33 @@ public class SpotMatchingEngine implements MatchingEngine {
   private final StorageWriter storageWriter;
   private final boolean printInboundMsg;
   private final String SNAPSHOT_BASE_DIR = System.getProperty("user.dir") + "/snapshots";
+  private static final int REPLICA_BATCH_SIZE = 1024;
+  private static final int EXEC_REPORT_POOL_SIZE = 4096;
+  // delta snapshots written between full ones
+  private static final int SNAPSHOT_MAX_DELTAS = 10;
   private final WaitStrategy waitStrategy;
+  private final boolean fixedPoint;
+  private final int marketDataSnapshotInterval;
+  private final int batchSize;
+  // order books changed by current batch, market data is sent for them after the batch
+  private final List<OrderBook> touchedBooks = new ArrayList<>();
+  private final TradeListener tradeListener = new SettlementTradeListener();
+  // reused for every order, filled makers are released only after order book unlinked them
+  private final List<Order> filledMakers = new ArrayList<>();
+  // reused for every replace request, only its values are copied into order book
+  private final Order replace = new Order();
+  // resting orders of every account, off-heap book doesn't keep Order objects, so isn't indexed
+  private final AccountOrderIndex accountOrders = new AccountOrderIndex();
+  private final boolean indexAccountOrders;
+  // reused by mass cancel
+  private final List<Order> cancelledOrders = new ArrayList<>();
+  private final Journal journal;
+  // drops messages produced by journal replay, null if journal isn't used
+  private final ReplayOutboundQueue replayOutbound;
+  // applies journal on its own thread and writes snapshots, null if journal isn't used
+  private final SpotMatchingEngine snapshotReplica;
+  // journal applied by snapshot replica, null for main engine
+  private JournalTailer tailer;
 
   public SpotMatchingEngine(Queue<Message> inbound, Queue<Message> outbound) {
     this(inbound, outbound, OrderBookType.MAP, true);
@@ -57,31 +83,123 @@ public class SpotMatchingEngine implements MatchingEngine {
 
   public SpotMatchingEngine(Queue<Message> inbound, Queue<Message> outbound,
                             OrderBookType orderBookType, boolean printInboundMsg) {
+    this(inbound, outbound, orderBookType, printInboundMsg, false);
+  }
+
+  public SpotMatchingEngine(Queue<Message> inbound, Queue<Message> outbound,
+                            OrderBookType orderBookType, boolean printInboundMsg,
+                            boolean fixedPoint) {
+    this(inbound, outbound, config(orderBookType, printInboundMsg, fixedPoint));
+  }
+
+  /**
+   * @param config - see MatchingEngineConfig for every setting and its default
+   */
+  public SpotMatchingEngine(Queue<Message> inbound, Queue<Message> outbound,
+                            MatchingEngineConfig config) {
+    this(inbound, outbound, config, new AccountRepositoryImpl(), new SimpleGlobalCounter());
+  }
+
+  /**
+   * Used by ShardedMatchingEngine: every shard owns its order books, but accounts and counter are
+   * shared by all shards
+   */
+  SpotMatchingEngine(Queue<Message> inbound, Queue<Message> outbound,
+                     MatchingEngineConfig config, AccountRepository accountRepository,
+                     GlobalCounter counter) {
+    final OrderBookType orderBookType = config.getOrderBookType();
+    final boolean fixedPoint = config.isFixedPoint();
+    final Journal journal = config.getJournal();
+    OrderBookFactory.validate(orderBookType, fixedPoint, config.getMarketDataSnapshotInterval());
+    if (config.getBatchSize() < 1) {
+      throw new AppException("Batch size should be positive: batchSize=" + config.getBatchSize());
+    }
     orderBooks = new HashMap<>();
-    accountRepository = new AccountRepositoryImpl();
+    this.accountRepository = accountRepository;
     instrumentRepository = new InstrumentRepositoryImpl();
-    counter = new SimpleGlobalCounter();
+    this.counter = counter;
+    this.journal = journal;
+    if (journal != null) {
+      replayOutbound = new ReplayOutboundQueue(outbound);
+      outbound = replayOutbound;
+    } else {
+      replayOutbound = null;
+    }
     preOrderCheck = new PreOrderCheckImpl(counter, accountRepository, instrumentRepository,
-        outbound);
+        outbound, fixedPoint);
     postOrderCheck = new PostOrderCheckImpl(counter, accountRepository, instrumentRepository,
-        outbound);
+        outbound, fixedPoint, config.isPooledExecutionReports()
+        ? new SpscObjectPool<>(ExecutionReport::new, EXEC_REPORT_POOL_SIZE) : null);
     this.inbound = inbound;
     this.outbound = outbound;
     this.orderBookType = orderBookType;
-    this.printInboundMsg = printInboundMsg;
+    this.printInboundMsg = config.isPrintInboundMsg();
+    this.fixedPoint = fixedPoint;
+    this.marketDataSnapshotInterval = config.getMarketDataSnapshotInterval();
     snapshotables = new ArrayList<>();
     snapshotables.add((Snapshotable) accountRepository);
     snapshotables.add((Snapshotable) instrumentRepository);
+    if (journal != null) {
+      snapshotables.add((Snapshotable) journal);
+    }
     storageWriter = new FileStorageWriter();
-    snapshotManager = new SnapshotManagerImpl(snapshotables,
-        new JsonObjectConverter(), storageWriter, SNAPSHOT_BASE_DIR);
-    waitStrategy = new SleepWaitStrategy();
+    // with journal snapshots are written by replica, so main engine doesn't collect changes
+    snapshotManager = new SnapshotManagerImpl(snapshotables, new BinarySnapshotCodec(),
+        storageWriter, SNAPSHOT_BASE_DIR, Runtime.getRuntime().availableProcessors(),
+        journal == null ? SNAPSHOT_MAX_DELTAS : 0);
+    this.waitStrategy = config.getWaitStrategy();
+    this.batchSize = config.getBatchSize();
+    indexAccountOrders = orderBookType != OrderBookType.OFF_HEAP;
+    snapshotReplica = journal == null ? null : new SpotMatchingEngine(journal.tailer(), config);
+  }
+
+  /**
+   * Snapshot replica: has its own state, built from the same snapshot and journal as main engine,
+   * so it reaches the same state at every SnapshotMessage barrier and writes snapshot there
+   * Everything it sends is dropped, market data is conflated into big batches
+   */
+  private SpotMatchingEngine(JournalTailer tailer, MatchingEngineConfig config) {
+    this(tailer, ReplayOutboundQueue.discarding(), replicaConfig(config),
+        new AccountRepositoryImpl(), new SimpleGlobalCounter());
+    snapshotables.add(tailer);
+    this.tailer = tailer;
+  }
+
+  private static MatchingEngineConfig config(OrderBookType orderBookType,
+      boolean printInboundMsg, boolean fixedPoint) {
+    MatchingEngineConfig config = new MatchingEngineConfig();
+    config.setOrderBookType(orderBookType);
+    config.setPrintInboundMsg(printInboundMsg);
+    config.setFixedPoint(fixedPoint);
+    return config;
+  }
+
+  private static MatchingEngineConfig replicaConfig(MatchingEngineConfig config) {
+    MatchingEngineConfig replica = config(config.getOrderBookType(), false, config.isFixedPoint());
+    replica.setMarketDataSnapshotInterval(config.getMarketDataSnapshotInterval());
+    replica.setBatchSize(REPLICA_BATCH_SIZE);
+    return replica;
   }
 
   public void start() {
     loadSnapshot();
+    if (snapshotReplica != null) {
+      // replica loads the same snapshot before journal is appended
+      snapshotReplica.loadSnapshot();
+    }
+    replayJournal();
+    if (snapshotReplica != null) {
+      snapshotReplica.startMatchingThread("SnapshotReplicaThread");
+    }
     log.info("Starting matching engine...");
-    new Thread(this::run, "MatchingThread").start();
+    startMatchingThread("MatchingThread");
+  }
+
+  /**
+   * Start matching without loading snapshot
+   */
+  void startMatchingThread(String threadName) {
+    new Thread(this::run, threadName).start();
   }
 
   private void loadSnapshot() {
@@ -96,68 +214,136 @@ public class SpotMatchingEngine implements MatchingEngine {
     if (filename != null) {
       // create order books
       log.info("Loading snapshot: name={}", filename);
-      snapshotManager.getSymbols(filename).forEach(symbol -> {
-        log.info("Adding order book: symbol={}", symbol);
-        addOrderBook(symbol);
+      snapshotManager.getInstruments(filename).forEach(inst -> {
+        log.info("Adding order book: symbol={}", inst.getSymbol());
+        addOrderBook(inst);
       });
       // load snapshots
       snapshotManager.loadSnapshot(filename);
+      indexLoadedOrders();
       // update counter for next orderId
       long lastOrderId = snapshotManager.getLastOrderId();
       log.info("Updating counter: lastOrderId={}", lastOrderId);
-      while (lastOrderId != counter.getNextOrderId()) {
-        waitStrategy.idle();
+      while (counter.getNextOrderId() < lastOrderId) {
+        // skip orderIds used before snapshot
       }
       log.info("Loaded snapshot: name={}", filename);
     }
   }
 
+  /**
+   * Apply messages journaled after loaded snapshot, they were already answered before restart, so
+   * execution reports, errors and market data of replay are dropped
+   * Corrupt journal or unexpected failure of replayed message stops startup, otherwise engine
+   * would continue from state different from the one before restart
+   */
+  private void replayJournal() {
+    if (journal == null) {
+      return;
+    }
+    replayOutbound.setReplaying(true);
+    journal.replay(msg -> {
+      try {
+        process(msg);
+      } catch (AppException ex) {
+        // message was rejected before restart as well
+      } catch (RuntimeException ex) {
+        throw new AppException("Failed to replay journal: msg=" + msg, ex);
+      }
+    });
+    flushMarketData();
+    replayOutbound.setReplaying(false);
+    journal.start();
+  }
+
+  private void indexLoadedOrders() {
+    if (!indexAccountOrders) {
+      return;
+    }
+    for (OrderBook ob : orderBooks.values()) {
+      ((Snapshotable) ob).forEachRecord(order -> accountOrders.add((Order) order));
+    }
+  }
+
   private void run() {
-    WaitStrategy wait = new SleepWaitStrategy();
     while (true) {
-      Message msg = inbound.poll();
-      if (msg == null) {
-        wait.idle();
-        continue;
-      }
-      if (printInboundMsg) {
-        log.info("Get inbound message: {}", msg);
+      int processed = 0;
+      Message msg;
+      while (processed < batchSize && (msg = inbound.poll()) != null) {
+        processed++;
+        if (printInboundMsg) {
+          log.info("Get inbound message: {}", msg);
+        }
+        try {
+          // rejected before journal, so journal keeps only messages it can encode
+          preOrderCheck.checkLimits(msg);
+          if (journal != null) {
+            journal.append(msg);
+          }
+          process(msg);
+        } catch (Exception ex) {
+          outbound.add(new ErrorMessage(ex.getMessage(), msg));
+        }
       }
-      try {
-        process(msg);
-      } catch (Exception ex) {
-        outbound.add(new ErrorMessage(ex.getMessage(), msg));
+      if (processed == 0) {
+        waitStrategy.idle();
+        continue;
       }
+      waitStrategy.reset();
+      flushMarketData();
     }
   }
 
-  private void process(Message msg) {
+
+  /**
+   * Handle single message without limits check, journal and market data, package-private so tests
+   * can drive matching path on their own thread
+   */
+  void process(Message msg) {
       switch (msg) {
           case InstrumentConfig symbol -> addInstrument(symbol);
           case Order order -> addOrder(order);
+          case CancelOrder cancel -> cancelOrder(cancel);
+          case ReplaceOrder replace -> replaceOrder(replace);
+          case MassCancelOrder massCancel -> massCancel(massCancel);
           case UserBalance userBalance -> addBalance(userBalance);
-          case SnapshotMessage snapshotMessage -> snapshotManager.makeSnapshot();
+          case SnapshotMessage snapshotMessage -> makeSnapshot();
           case null, default -> throw new AppException("Undefined message: msg=" + msg);
       }
   }
 
+  /**
+   * With replica, message is already appended to journal as barrier, so nothing is left to do
+   * Without it, snapshot is written here and trading is paused until it's done
+   * Replica deletes journal segments covered by written snapshot
+   */
+  private void makeSnapshot() {
+    if (snapshotReplica != null) {
+      return;
+    }
+    long start = System.nanoTime();
+    String name = snapshotManager.makeSnapshot();
+    log.info("Snapshot created: name={}, time={}us", name, (System.nanoTime() - start) / 1000);
+    if (tailer != null) {
+      tailer.truncate();
+    }
+  }
+
   private void addInstrument(InstrumentConfig msg) {
+    OrderBookFactory.validate(orderBookType, fixedPoint, msg);
     instrumentRepository.add(msg);
-    final String symbol = msg.getSymbol();
-    addOrderBook(symbol);
+    addOrderBook(msg);
   }
 
-  private void addOrderBook(String symbol) {
-    OrderBook ob = createNewOrderBook(symbol);
+  private void addOrderBook(InstrumentConfig inst) {
+    final String symbol = inst.getSymbol();
+    OrderBook ob = createNewOrderBook(inst);
     orderBooks.put(symbol, ob);
     snapshotables.add((Snapshotable) ob);
   }
 
-  private OrderBook createNewOrderBook(String symbol) {
-    return switch (orderBookType) {
-      case MAP -> new MapOrderBook(symbol);
-      case ARRAY -> new ArrayOrderBook(symbol);
-    };
+  private OrderBook createNewOrderBook(InstrumentConfig inst) {
+    return OrderBookFactory.create(orderBookType, fixedPoint, inst);
   }
 
   private void addOrder(Order order) {
@@ -165,11 +351,99 @@ public class SpotMatchingEngine implements MatchingEngine {
     if (symbol == null) {
       throw new AppException("Symbol of new order can't be null");
     }
+    handleOrder(getOrderBook(symbol), order);
+  }
+
+  OrderBook getOrderBook(String symbol) {
     OrderBook ob = orderBooks.get(symbol);
     if (ob == null) {
       throw new AppException("OrderBook not found for symbol=" + symbol);
     }
-    handleOrder(ob, order);
+    return ob;
+  }
+
+  /**
+   * Find resting order of account by orderId, book keeps orderId index, so lookup is O(1)
+   */
+  private Order getRestingOrder(OrderBook ob, long orderId, int account) {
+    Order order = ob.getOrder(orderId);
+    if (order == null || order.getAccount() != account) {
+      throw new AppException("Order not found: orderId=" + orderId);
+    }
+    return order;
+  }
+
+  private void cancelOrder(CancelOrder cancel) {
+    OrderBook ob = getOrderBook(cancel.getSymbol());
+    Order order = getRestingOrder(ob, cancel.getOrderId(), cancel.getAccount());
+    ob.remove(order.getOrderId());
+    unindex(order);
+    postOrderCheck.cancelOrder(order);
+    touch(ob);
+    order.release();
+  }
+
+  /**
+   * Orders of account are taken from account index, so only books which have them are touched
+   */
+  private void massCancel(MassCancelOrder msg) {
+    if (!indexAccountOrders) {
+      throw new AppException("Mass cancel is not supported: orderBookType=" + orderBookType);
+    }
+    if (msg.getSymbol() != null) {
+      getOrderBook(msg.getSymbol());
+    }
+    accountOrders.removeAll(msg.getAccount(), msg.getSymbol(), cancelledOrders);
+    for (int i = 0; i < cancelledOrders.size(); i++) {
+      Order order = cancelledOrders.get(i);
+      OrderBook ob = orderBooks.get(order.getSymbol());
+      ob.remove(order.getOrderId());
+      touch(ob);
+    }
+    postOrderCheck.cancelOrders(cancelledOrders);
+    for (int i = 0; i < cancelledOrders.size(); i++) {
+      cancelledOrders.get(i).release();
+    }
+    cancelledOrders.clear();
+  }
+
+  /**
+   * Quantity decrease with the same price is applied in place, so order keeps its priority
+   * Otherwise order is removed and handled as new taker with the same orderId: it's matched with
+   * new price and the rest is added to the end of the level
+   */
+  private void replaceOrder(ReplaceOrder msg) {
+    if (msg.getPrice() == null || msg.getOrderQty() == null) {
+      throw new AppException("Price and orderQty of replace can't be null");
+    }
+    OrderBook ob = getOrderBook(msg.getSymbol());
+    Order order = getRestingOrder(ob, msg.getOrderId(), msg.getAccount());
+    Order replace = this.replace;
+    replace.reset();
+    replace.setClOrdId(msg.getClOrdId());
+    replace.setPrice(msg.getPrice());
+    replace.setOrderQty(msg.getOrderQty());
+    preOrderCheck.updateReplaceOrder(order, replace);
+    if (!preOrderCheck.validateReplace(order, replace, msg)) {
+      return;
+    }
+    preOrderCheck.relockBalance(order, replace);
+    touch(ob);
+    if (keepsPriority(order, replace)) {
+      ob.update(replace);
+      postOrderCheck.sendExecReportReplace(replace);
+      return;
+    }
+    ob.remove(order.getOrderId());
+    unindex(order);
+    order.setClOrdId(replace.getClOrdId());
+    order.setPrice(replace.getPrice());
+    order.setOrderQty(replace.getOrderQty());
+    order.setLeavesQty(replace.getLeavesQty());
+    order.setScaledPrice(replace.getScaledPrice());
+    order.setScaledLeavesQty(replace.getScaledLeavesQty());
+    postOrderCheck.sendExecReportReplace(order);
+    matchAndAdd(ob, order);
   }
 
   private void handleOrder(OrderBook ob, Order order) {
@@ -179,25 +453,83 @@ public class SpotMatchingEngine implements MatchingEngine {
     preOrderCheck.updateNewOrder(order);
     preOrderCheck.lockBalance(order);
     postOrderCheck.sendExecReportNew(order);
-    List<Trade> trades = ob.match(order);
-    trades.forEach(trade -> {
-      Order taker = trade.getTaker();
-      Order maker = trade.getMaker();
-      BigDecimal tradeQty = trade.getTradeQty();
-      BigDecimal tradePrice = trade.getTradePrice();
-      BigDecimal tradeAmount = trade.getTradeAmount();
-      postOrderCheck.settleTrade(taker, maker, tradeQty, tradeAmount);
-      postOrderCheck.sendExecReportTrade(taker, maker, tradeQty, tradePrice);
-    });
+    matchAndAdd(ob, order);
+  }
+
+  private void matchAndAdd(OrderBook ob, Order order) {
+    ob.match(order, tradeListener);
+    // filled makers are already removed from order book, so they can be returned into the pool
+    // indexed loop, so no iterator is allocated per order
+    for (int i = 0; i < filledMakers.size(); i++) {
+      filledMakers.get(i).release();
+    }
+    filledMakers.clear();
     // if order not fully matched we should either add to order book or cancel if it's market order
-    if (order.getLeavesQty().compareTo(BigDecimal.ZERO) > 0) {
+    boolean resting = false;
+    if (hasLeavesQty(order)) {
       if (order.getType() == OrderType.MARKET) {
         postOrderCheck.cancelOrder(order);
       } else {
-        ob.add(order);
+        // off-heap book copies order into its slot, so order goes back into the pool
+        resting = ob.add(order) && indexAccountOrders;
+        if (resting) {
+          accountOrders.add(order);
+        }
       }
     }
-    postOrderCheck.sendMarketData(ob.buildMarketData());
+    touch(ob);
+    if (!resting) {
+      order.release();
+    }
+  }
+
+  private boolean keepsPriority(Order order, Order replace) {
+    if (fixedPoint) {
+      return replace.getScaledPrice() == order.getScaledPrice()
+          && replace.getScaledLeavesQty() <= order.getScaledLeavesQty();
+    }
+    return replace.getPrice().compareTo(order.getPrice()) == 0
+        && replace.getLeavesQty().compareTo(order.getLeavesQty()) <= 0;
+  }
+
+  private void unindex(Order order) {
+    if (indexAccountOrders) {
+      accountOrders.remove(order);
+    }
+  }
+
+  private void touch(OrderBook ob) {
+    if (!touchedBooks.contains(ob)) {
+      touchedBooks.add(ob);
+    }
+  }
+
+  /**
+   * Send market data for order books changed by current batch. Book accumulates changed levels
+   * until update is built, so many orders of one batch are conflated into single update
+   */
+  private void flushMarketData() {
+    for (int i = 0; i < touchedBooks.size(); i++) {
+      sendMarketData(touchedBooks.get(i));
+    }
+    touchedBooks.clear();
+  }
+
+  private void sendMarketData(OrderBook ob) {
+    MarketDataUpdate update = ob.buildMarketDataUpdate();
+    if (update == null) {
+      return;
+    }
+    if (update.getSeqNum() % marketDataSnapshotInterval == 0) {
+      postOrderCheck.sendMarketData(ob.buildMarketData());
+    } else {
+      postOrderCheck.sendMarketDataUpdate(update);
+    }
+  }
+
+  private boolean hasLeavesQty(Order order) {
+    return fixedPoint ? order.getScaledLeavesQty() > 0
+        : order.getLeavesQty().compareTo(BigDecimal.ZERO) > 0;
   }
 
   private void addBalance(UserBalance ab) {
@@ -206,4 +538,32 @@ public class SpotMatchingEngine implements MatchingEngine {
     }
     accountRepository.addBalance(ab);
   }
-}
\ No newline at end of file
+
+  /**
+   * Settle and report every fill while order book sweeps levels, so trades are never materialized
+   */
+  private class SettlementTradeListener implements TradeListener {
+
+    @Override
+    public void onTrade(Order taker, Order maker, BigDecimal tradeQty, BigDecimal tradePrice,
+        BigDecimal tradeAmount) {
+      postOrderCheck.settleTrade(taker, maker, tradeQty, tradeAmount);
+      postOrderCheck.sendExecReportTrade(taker, maker, tradeQty, tradePrice);
+      if (!hasLeavesQty(maker)) {
+        unindex(maker);
+        filledMakers.add(maker);
+      }
+    }
+
+    @Override
+    public void onTrade(Order taker, Order maker, long tradeQty, long tradePrice,
+        long tradeAmount) {
+      postOrderCheck.settleTrade(taker, maker, tradeQty, tradeAmount);
+      postOrderCheck.sendExecReportTrade(taker, maker, tradeQty, tradePrice);
+      if (!hasLeavesQty(maker)) {
+        unindex(maker);
+        filledMakers.add(maker);
+      }
+    }
+  }
+}
@@ -0,0 +1,401 @@
+package com.exchange.core.matching.journal;
+
+import com.exchange.core.codec.MessageCodec;
+import com.exchange.core.exceptions.AppException;
+import com.exchange.core.matching.snapshot.Snapshotable;
+import com.exchange.core.model.SnapshotItem;
+import com.exchange.core.model.enums.SnapshotType;
+import com.exchange.core.model.msg.Message;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Journal in memory-mapped segment files of fixed size, named by seq of their first message
+ * Record: int message length, 4 bytes padding, long seq, message encoded by MessageCodec, aligned
+ * to 8 bytes. Length is written last, so record with length 0 is the end of journal
+ * Matching thread encodes messages straight into mapped segment and publishes its end offset,
+ * commit thread wakes up every commit interval and flushes everything published since last flush
+ * with single msync (group commit), so matching thread never waits for disk
+ * Seq of the last message included into snapshot is saved as JOURNAL snapshot item
+ * Segments are linked, so tailer can follow them in memory from the first replayed one
+ * Segment is deleted once the next one starts after persisted snapshot seq: replay deletes segments
+ * covered by loaded snapshot, tailer deletes them after snapshot of its state is written
+ */
+@Slf4j
+public class FileJournal implements Journal, Snapshotable {
+
+  private static final String SUFFIX = ".journal";
+  private static final int RECORD_HEADER = 16;
+  private static final int SEQ_OFFSET = 8;
+  private static final int MAX_MESSAGE_LENGTH = 1 << 16;
+
+  private final Path dir;
+  private final int segmentSize;
+  private final long commitIntervalNanos;
+  private final MessageCodec codec = new MessageCodec();
+  // segments not fully flushed yet, the last one is written by matching thread
+  private final Queue<Segment> segments = new ConcurrentLinkedQueue<>();
+  // used only by matching thread
+  private Segment current;
+  private long lastSeq;
+  private long snapshotSeq;
+  private volatile long committedSeq;
+  private FileTailer tailer;
+
+  public FileJournal(Path dir) {
+    this(dir, 64 << 20, 1_000);
+  }
+
+  /**
+   * @param segmentSize          - size of journal file, new file is created when current is full
+   * @param commitIntervalMicros - how often appended messages are flushed to disk, messages
+   *                             appended during interval are flushed together
+   */
+  public FileJournal(Path dir, int segmentSize, long commitIntervalMicros) {
+    if (segmentSize < 2 * MAX_MESSAGE_LENGTH) {
+      throw new AppException("Segment size is too small: segmentSize=" + segmentSize);
+    }
+    this.dir = dir;
+    this.segmentSize = segmentSize;
+    commitIntervalNanos = TimeUnit.MICROSECONDS.toNanos(commitIntervalMicros);
+    try {
+      Files.createDirectories(dir);
+    } catch (IOException ex) {
+      throw new AppException("Failed to create journal directory: path=" + dir, ex);
+    }
+  }
+
+  @Override
+  public long replay(Consumer<Message> handler) {
+    if (current != null) {
+      throw new AppException("Journal is already replayed");
+    }
+    deleteSegments(snapshotSeq);
+    long replayed = 0;
+    Segment first = null;
+    for (Path file : listSegments()) {
+      Segment segment = new Segment(file);
+      if (first == null) {
+        first = segment;
+      } else {
+        current.next = segment;
+      }
+      MappedByteBuffer buffer = segment.buffer;
+      int position = 0;
+      int length;
+      while (position <= segmentSize - RECORD_HEADER && (length = buffer.getInt(position)) != 0) {
+        long seq = buffer.getLong(position + SEQ_OFFSET);
+        if (length < 0 || length > MAX_MESSAGE_LENGTH
+            || position + RECORD_HEADER + length > segmentSize) {
+          throw new AppException("Corrupt journal record: file=" + file + ", position=" + position
+              + ", length=" + length);
+        }
+        if (lastSeq == 0 && seq > snapshotSeq + 1) {
+          throw new AppException("Journal starts after snapshot: file=" + file + ", firstSeq="
+              + seq + ", snapshotSeq=" + snapshotSeq);
+        }
+        if (seq != lastSeq + 1 && lastSeq != 0) {
+          throw new AppException("Journal seq gap: file=" + file + ", expected=" + (lastSeq + 1)
+              + ", actual=" + seq);
+        }
+        if (seq > snapshotSeq) {
+          handler.accept(decode(buffer, position, file));
+          replayed++;
+        }
+        lastSeq = seq;
+        position += align(RECORD_HEADER + length);
+      }
+      segment.published = position;
+      segment.forced = position;
+      current = segment;
+    }
+    if (lastSeq == 0) {
+      // journal is empty, numbering continues after snapshot
+      lastSeq = snapshotSeq;
+    }
+    if (lastSeq < snapshotSeq) {
+      throw new AppException(
+          "Journal is behind snapshot: lastSeq=" + lastSeq + ", snapshotSeq=" + snapshotSeq);
+    }
+    if (current == null) {
+      current = new Segment(dir.resolve(segmentName(lastSeq + 1)));
+      first = current;
+    }
+    segments.add(current);
+    if (tailer != null) {
+      tailer.segment = first;
+    }
+    committedSeq = lastSeq;
+    log.info("Replayed journal: path={}, snapshotSeq={}, lastSeq={}, replayed={}", dir,
+        snapshotSeq, lastSeq, replayed);
+    return replayed;
+  }
+
+  private Message decode(MappedByteBuffer buffer, int position, Path file) {
+    try {
+      return codec.decode(buffer, position + RECORD_HEADER);
+    } catch (RuntimeException ex) {
+      throw new AppException(
+          "Corrupt journal record: file=" + file + ", position=" + position, ex);
+    }
+  }
+
+  /**
+   * Delete segments which have only messages up to seq, the last segment is always kept
+   * Safe to call from other thread: segments are never renamed, and mapped segment stays readable
+   * after its file is deleted
+   */
+  void deleteSegments(long seq) {
+    List<Path> files = listSegments();
+    for (int i = 0; i < files.size() - 1; i++) {
+      if (firstSeq(files.get(i + 1)) > seq + 1) {
+        return;
+      }
+      try {
+        Files.delete(files.get(i));
+        log.info("Deleted journal segment: path={}, snapshotSeq={}", files.get(i), seq);
+      } catch (IOException ex) {
+        throw new AppException("Failed to delete journal segment: path=" + files.get(i), ex);
+      }
+    }
+  }
+
+  private List<Path> listSegments() {
+    try (Stream<Path> files = Files.list(dir)) {
+      return files
+          .filter(f -> f.getFileName().toString().endsWith(SUFFIX))
+          .sorted()
+          .toList();
+    } catch (IOException ex) {
+      throw new AppException("Failed to list journal: path=" + dir, ex);
+    }
+  }
+
+  @Override
+  public long append(Message msg) {
+    if (current == null) {
+      throw new AppException("Journal should be replayed before append");
+    }
+    if (segmentSize - current.published < RECORD_HEADER + MAX_MESSAGE_LENGTH) {
+      roll();
+    }
+    final MappedByteBuffer buffer = current.buffer;
+    final int position = current.published;
+    final long seq = lastSeq + 1;
+    final int length;
+    try {
+      length = codec.encode(msg, buffer, position + RECORD_HEADER);
+    } catch (RuntimeException ex) {
+      // partially written message shouldn't be taken for record by replay
+      clear(buffer, position + RECORD_HEADER, MAX_MESSAGE_LENGTH);
+      throw ex;
+    }
+    buffer.putLong(position + SEQ_OFFSET, seq);
+    buffer.putInt(position, length);
+    lastSeq = seq;
+    current.publish(position + align(RECORD_HEADER + length), seq);
+    return seq;
+  }
+
+  private void roll() {
+    Segment next = new Segment(dir.resolve(segmentName(lastSeq + 1)));
+    // everything is published into current, so tailer can move to next segment
+    current.next = next;
+    current.sealed = true;
+    current = next;
+    segments.add(next);
+  }
+
+  /**
+   * Tailer starts from the first journal segment, messages are read from the same mapped memory
+   * as they are appended. Segments are kept until tailer passes them
+   */
+  @Override
+  public JournalTailer tailer() {
+    if (current != null) {
+      throw new AppException("Tailer should be created before replay");
+    }
+    if (tailer != null) {
+      throw new AppException("Journal supports only one tailer");
+    }
+    tailer = new FileTailer();
+    return tailer;
+  }
+
+  @Override
+  public void start() {
+    new Thread(this::run, "JournalCommitThread").start();
+  }
+
+  private void run() {
+    while (true) {
+      commit();
+      LockSupport.parkNanos(commitIntervalNanos);
+    }
+  }
+
+  /**
+   * Flush everything published since last call, sealed segments are dropped once flushed
+   */
+  void commit() {
+    Segment segment;
+    while ((segment = segments.peek()) != null) {
+      // sealed is read first, so if it's set, published values are final
+      final boolean sealed = segment.sealed;
+      final long seq = segment.publishedSeq;
+      final int published = segment.published;
+      if (published > segment.forced) {
+        segment.buffer.force(segment.forced, published - segment.forced);
+        segment.forced = published;
+      }
+      if (seq > committedSeq) {
+        committedSeq = seq;
+      }
+      if (!sealed) {
+        return;
+      }
+      segments.poll();
+    }
+  }
+
+  @Override
+  public long getLastSeq() {
+    return lastSeq;
+  }
+
+  @Override
+  public long getCommittedSeq() {
+    return committedSeq;
+  }
+
+  @Override
+  public SnapshotType getType() {
+    return SnapshotType.JOURNAL;
+  }
+
+  @Override
+  public SnapshotItem create() {
+    SnapshotItem item = new SnapshotItem();
+    item.setType(getType());
+    item.setData(lastSeq);
+    return item;
+  }
+
+  @Override
+  public void load(SnapshotItem data) {
+    snapshotSeq = (Long) data.getData();
+  }
+
+  @Override
+  public void loadRecord(Object record) {
+    snapshotSeq = (Long) record;
+  }
+
+  private String segmentName(long firstSeq) {
+    return String.format("%020d", firstSeq) + SUFFIX;
+  }
+
+  private static long firstSeq(Path file) {
+    String name = file.getFileName().toString();
+    return Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+  }
+
+  private static int align(int length) {
+    return (length + Long.BYTES - 1) & -Long.BYTES;
+  }
+
+  private static void clear(MappedByteBuffer buffer, int position, int length) {
+    int end = Math.min(position + length, buffer.capacity());
+    for (int i = position; i < end; i++) {
+      buffer.put(i, (byte) 0);
+    }
+  }
+
+  /**
+   * Mapped journal file, published/publishedSeq are written by matching thread, forced only by
+   * commit thread
+   */
+  private class Segment {
+
+    private final MappedByteBuffer buffer;
+    private volatile int published;
+    private volatile long publishedSeq;
+    private volatile boolean sealed;
+    private volatile Segment next;
+    private int forced;
+
+    private Segment(Path file) {
+      try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+          StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+        buffer = channel.map(MapMode.READ_WRITE, 0, segmentSize);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+      } catch (IOException ex) {
+        throw new AppException("Failed to map journal file: path=" + file, ex);
+      }
+    }
+
+    /**
+     * Offset is written before seq, commit thread reads them in reverse order, so flushed range
+     * always covers committed seq
+     */
+    private void publish(int position, long seq) {
+      published = position;
+      publishedSeq = seq;
+    }
+  }
+
+  /**
+   * Reads records published by matching thread, volatile published offset orders record bytes
+   * before tailer reads them. Segment is set by replay, which runs before tailer thread starts
+   */
+  private class FileTailer extends JournalTailer {
+
+    private final MessageCodec codec = new MessageCodec();
+    private Segment segment;
+    private int position;
+
+    @Override
+    public Message poll() {
+      while (segment != null) {
+        // next is read before published: if it's set, published value is final
+        final Segment next = segment.next;
+        if (position < segment.published) {
+          final MappedByteBuffer buffer = segment.buffer;
+          final int length = buffer.getInt(position);
+          final long seq = buffer.getLong(position + SEQ_OFFSET);
+          final int offset = position + RECORD_HEADER;
+          position += align(RECORD_HEADER + length);
+          if (seq > snapshotSeq) {
+            lastSeq = seq;
+            return codec.decode(buffer, offset);
+          }
+        } else if (next != null) {
+          segment = next;
+          position = 0;
+        } else {
+          return null;
+        }
+      }
+      return null;
+    }
+
+    @Override
+    public void truncate() {
+      deleteSegments(lastSeq);
+    }
+  }
+}
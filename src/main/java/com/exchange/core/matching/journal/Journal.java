@@ -0,0 +1,47 @@
+package com.exchange.core.matching.journal;
+
+import com.exchange.core.model.msg.Message;
+import java.util.function.Consumer;
+
+/**
+ * Append-only log of inbound messages accepted by matching engine, used to recover messages
+ * processed after the last snapshot: engine loads snapshot and replays journal tail on top of it
+ * Every message gets sequence number, snapshot keeps seq of the last message included into it
+ */
+public interface Journal {
+
+  /**
+   * Read messages written after the loaded snapshot (or all, if there is no snapshot), new messages
+   * are appended after the last one read. Should be called once before first append
+   * @param handler - called for every message in journal order
+   * @return number of replayed messages
+   */
+  long replay(Consumer<Message> handler);
+
+  /**
+   * Append message, called by matching thread, doesn't wait until message is written to disk
+   * @return seq of appended message
+   */
+  long append(Message msg);
+
+  /**
+   * Reader of journal for other thread, it returns messages from the first journaled one, including
+   * replayed and new ones. Should be created before replay
+   */
+  JournalTailer tailer();
+
+  /**
+   * Start background flushing of appended messages to disk
+   */
+  void start();
+
+  /**
+   * @return seq of the last appended message
+   */
+  long getLastSeq();
+
+  /**
+   * @return seq of the last message flushed to disk, all messages before it are flushed too
+   */
+  long getCommittedSeq();
+}
@@ -0,0 +1,80 @@
+package com.exchange.core.matching.journal;
+
+import com.exchange.core.matching.snapshot.Snapshotable;
+import com.exchange.core.model.SnapshotItem;
+import com.exchange.core.model.enums.SnapshotType;
+import com.exchange.core.model.msg.Message;
+import java.util.AbstractQueue;
+import java.util.Iterator;
+
+/**
+ * Read-only queue over journal for other thread: poll() returns journaled messages in journal
+ * order (every call decodes new object) or null if reader caught up with writer
+ * Messages included into loaded snapshot are skipped, snapshot of state built from polled messages
+ * keeps seq of the last polled one, so it's used as JOURNAL snapshotable of that state
+ * Should be used by single thread
+ */
+public abstract class JournalTailer extends AbstractQueue<Message> implements Snapshotable {
+
+  // messages with seq up to this one are already in loaded snapshot
+  protected long snapshotSeq;
+  protected long lastSeq;
+
+  /**
+   * @return seq of the last polled message
+   */
+  public long getLastSeq() {
+    return lastSeq;
+  }
+
+  /**
+   * Delete journal up to the last polled message, should be called after snapshot of state built
+   * from polled messages is persisted, so journal isn't needed to recover it
+   */
+  public abstract void truncate();
+
+  @Override
+  public boolean offer(Message msg) {
+    throw new UnsupportedOperationException("Journal is appended only by matching thread");
+  }
+
+  @Override
+  public Message peek() {
+    throw new UnsupportedOperationException("JournalTailer doesn't support peek");
+  }
+
+  @Override
+  public int size() {
+    throw new UnsupportedOperationException("JournalTailer doesn't support size");
+  }
+
+  @Override
+  public Iterator<Message> iterator() {
+    throw new UnsupportedOperationException("JournalTailer doesn't support iteration");
+  }
+
+  @Override
+  public SnapshotType getType() {
+    return SnapshotType.JOURNAL;
+  }
+
+  @Override
+  public SnapshotItem create() {
+    SnapshotItem item = new SnapshotItem();
+    item.setType(getType());
+    item.setData(lastSeq);
+    return item;
+  }
+
+  @Override
+  public void load(SnapshotItem data) {
+    snapshotSeq = (Long) data.getData();
+    lastSeq = snapshotSeq;
+  }
+
+  @Override
+  public void loadRecord(Object record) {
+    snapshotSeq = (Long) record;
+    lastSeq = snapshotSeq;
+  }
+}
@@ -2,7 +2,9 @@ package com.exchange.core.matching.orderbook;
 
 import com.exchange.core.model.Trade;
 import com.exchange.core.model.msg.MarketData;
+import com.exchange.core.model.msg.MarketDataUpdate;
 import com.exchange.core.model.msg.Order;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -16,7 +18,27 @@ public interface OrderBook {
    * @param order - taker order to be matched against current order book
    * @return list of trades produced by matching
    */
-  List<Trade> match(Order order);
+  default List<Trade> match(Order order) {
+    return match(order, new ArrayList<>());
+  }
+
+  /**
+   * Match order and append produced trades into provided list, so caller can reuse the same list
+   * @param order - taker order to be matched against current order book
+   * @param trades - list to which trades are added
+   * @return the same list of trades
+   */
+  default List<Trade> match(Order order, List<Trade> trades) {
+    match(order, new TradeCollector(trades));
+    return trades;
+  }
+
+  /**
+   * Match order and pass every fill to listener as soon as it's produced
+   * @param order - taker order to be matched against current order book
+   * @param listener - receives taker, maker, trade quantity, price and amount of every fill
+   */
+  void match(Order order, TradeListener listener);
 
   /**
    * Add order directly into order book
@@ -26,8 +48,10 @@ public interface OrderBook {
   boolean add(Order order);
 
   /**
-   * Modify existing order
-   * @param order - order object
+   * Modify existing order, leavesQty, orderQty and clOrdId are taken from provided order
+   * If price is the same, order is changed in place and keeps its priority in the queue,
+   * otherwise it's moved to the end of the new price level
+   * @param order - order object with orderId of existing order
    * @return true if modification was successful, false - if order already matched or doesn't exist
    */
   boolean update(Order order);
@@ -51,4 +75,11 @@ public interface OrderBook {
    * @return MarketData object
    */
   MarketData buildMarketData();
-}
\ No newline at end of file
+
+  /**
+   * Get levels changed by add/match/update/remove since previous call, changes are cleared
+   * MarketData built after this call has seqNum of returned update
+   * @return MarketDataUpdate with next per-symbol seqNum, null if no level changed
+   */
+  MarketDataUpdate buildMarketDataUpdate();
+}
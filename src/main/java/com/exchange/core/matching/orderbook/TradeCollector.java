@@ -0,0 +1,34 @@
+package com.exchange.core.matching.orderbook;
+
+import com.exchange.core.model.Trade;
+import com.exchange.core.model.msg.Order;
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Adapter from TradeListener to list of trades, used by list-returning OrderBook.match
+ */
+public class TradeCollector implements TradeListener {
+
+  private final List<Trade> trades;
+
+  public TradeCollector(List<Trade> trades) {
+    this.trades = trades;
+  }
+
+  @Override
+  public void onTrade(Order taker, Order maker, BigDecimal tradeQty, BigDecimal tradePrice,
+      BigDecimal tradeAmount) {
+    trades.add(new Trade(taker, maker, tradeQty, tradePrice, tradeAmount));
+  }
+
+  @Override
+  public void onTrade(Order taker, Order maker, long tradeQty, long tradePrice,
+      long tradeAmount) {
+    trades.add(new Trade(taker, maker, tradeQty, tradePrice, tradeAmount));
+  }
+
+  public List<Trade> getTrades() {
+    return trades;
+  }
+}
@@ -0,0 +1,20 @@
+package com.exchange.core.matching.orderbook;
+
+import com.exchange.core.model.msg.Order;
+import java.math.BigDecimal;
+
+/**
+ * Receive fills inline while order book sweeps price levels, so no Trade object is created
+ * Called after taker and maker leavesQty are updated, but before filled maker is unlinked from its
+ * level, so maker shouldn't be released from inside the callback
+ */
+public interface TradeListener {
+
+  void onTrade(Order taker, Order maker, BigDecimal tradeQty, BigDecimal tradePrice,
+      BigDecimal tradeAmount);
+
+  /**
+   * Fixed-point version: quantity has quantityScale, price priceScale, amount both scales
+   */
+  void onTrade(Order taker, Order maker, long tradeQty, long tradePrice, long tradeAmount);
+}
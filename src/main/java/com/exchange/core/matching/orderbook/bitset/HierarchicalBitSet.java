@@ -0,0 +1,206 @@
+package com.exchange.core.matching.orderbook.bitset;
+
+import com.exchange.core.exceptions.AppException;
+
+/**
+ * Fixed-size bitset with summary levels on top of leaf words
+ * Bit i of word w at level n+1 is set if word (w * 64 + i) at level n is not zero, so search for
+ * next/previous set bit skips empty words 64 at a time on each level. With 3 levels 262_144 bits
+ * are covered and any lookup touches at most 3 words up and 3 words down
+ * Words of every level are kept in pages allocated on first set, so memory depends on range of
+ * bits which are actually set, not on capacity
+ */
+public class HierarchicalBitSet {
+
+  private static final int WORD_BITS = 6;
+  private static final int WORD_MASK = 63;
+  private static final int PAGE_BITS = 10;
+  private static final int PAGE_MASK = (1 << PAGE_BITS) - 1;
+
+  // levels[0] - pages of leaf words, levels[levels.length - 1] - page with single top word
+  private final long[][][] levels;
+  // number of words on each level
+  private final int[] wordCounts;
+  private final int capacity;
+
+  /**
+   * @param capacity - number of bits, valid indexes are [0, capacity)
+   */
+  public HierarchicalBitSet(int capacity) {
+    if (capacity <= 0) {
+      throw new AppException("Capacity should be positive: capacity=" + capacity);
+    }
+    this.capacity = capacity;
+    int depth = 1;
+    int words = wordCount(capacity);
+    while (words > 1) {
+      words = wordCount(words);
+      depth++;
+    }
+    levels = new long[depth][][];
+    wordCounts = new int[depth];
+    words = capacity;
+    for (int i = 0; i < depth; i++) {
+      words = wordCount(words);
+      wordCounts[i] = words;
+      levels[i] = new long[((words - 1) >>> PAGE_BITS) + 1][];
+    }
+  }
+
+  private static int wordCount(int bits) {
+    return ((bits - 1) >>> WORD_BITS) + 1;
+  }
+
+  public int capacity() {
+    return capacity;
+  }
+
+  public boolean get(int index) {
+    checkIndex(index);
+    return (word(0, index >>> WORD_BITS) & (1L << index)) != 0;
+  }
+
+  public void set(int index) {
+    checkIndex(index);
+    for (long[][] level : levels) {
+      final int w = index >>> WORD_BITS;
+      long[] page = level[w >>> PAGE_BITS];
+      if (page == null) {
+        page = new long[1 << PAGE_BITS];
+        level[w >>> PAGE_BITS] = page;
+      }
+      final long word = page[w & PAGE_MASK];
+      page[w & PAGE_MASK] = word | (1L << index);
+      // upper levels already know that this word is not empty
+      if (word != 0) {
+        return;
+      }
+      index = w;
+    }
+  }
+
+  public void clear(int index) {
+    checkIndex(index);
+    for (long[][] level : levels) {
+      final int w = index >>> WORD_BITS;
+      final long[] page = level[w >>> PAGE_BITS];
+      // page isn't allocated, so bit isn't set on any level
+      if (page == null) {
+        return;
+      }
+      final long word = page[w & PAGE_MASK] & ~(1L << index);
+      page[w & PAGE_MASK] = word;
+      // word still has bits, so upper levels shouldn't change
+      if (word != 0) {
+        return;
+      }
+      index = w;
+    }
+  }
+
+  public boolean isEmpty() {
+    return word(levels.length - 1, 0) == 0;
+  }
+
+  private long word(int level, int w) {
+    final long[] page = levels[level][w >>> PAGE_BITS];
+    return page == null ? 0 : page[w & PAGE_MASK];
+  }
+
+  /**
+   * @return index of the lowest set bit, -1 if bitset is empty
+   */
+  public int first() {
+    return nextSetBit(0);
+  }
+
+  /**
+   * @return index of the highest set bit, -1 if bitset is empty
+   */
+  public int last() {
+    return prevSetBit(capacity - 1);
+  }
+
+  /**
+   * Find the lowest set bit with index greater or equal to from
+   * @return index of set bit, -1 if there is no such bit
+   */
+  public int nextSetBit(int from) {
+    if (from < 0) {
+      from = 0;
+    }
+    if (from >= capacity) {
+      return -1;
+    }
+    int level = 0;
+    int index = from;
+    // go up until word with set bit at or after index is found
+    while (true) {
+      if (level == levels.length) {
+        return -1;
+      }
+      final int w = index >>> WORD_BITS;
+      if (w >= wordCounts[level]) {
+        return -1;
+      }
+      final long word = word(level, w) & (-1L << (index & WORD_MASK));
+      if (word != 0) {
+        index = (w << WORD_BITS) + Long.numberOfTrailingZeros(word);
+        break;
+      }
+      index = w + 1;
+      level++;
+    }
+    // go down taking the lowest bit of each word
+    while (level > 0) {
+      level--;
+      index = (index << WORD_BITS) + Long.numberOfTrailingZeros(word(level, index));
+    }
+    return index;
+  }
+
+  /**
+   * Find the highest set bit with index less or equal to from
+   * @return index of set bit, -1 if there is no such bit
+   */
+  public int prevSetBit(int from) {
+    if (from < 0) {
+      return -1;
+    }
+    if (from >= capacity) {
+      from = capacity - 1;
+    }
+    int level = 0;
+    int index = from;
+    // go up until word with set bit at or before index is found
+    while (true) {
+      if (level == levels.length) {
+        return -1;
+      }
+      final int w = index >>> WORD_BITS;
+      final long word = word(level, w) & (-1L >>> (WORD_MASK - (index & WORD_MASK)));
+      if (word != 0) {
+        index = (w << WORD_BITS) + WORD_MASK - Long.numberOfLeadingZeros(word);
+        break;
+      }
+      if (w == 0) {
+        return -1;
+      }
+      index = w - 1;
+      level++;
+    }
+    // go down taking the highest bit of each word
+    while (level > 0) {
+      level--;
+      index = (index << WORD_BITS) + WORD_MASK
+          - Long.numberOfLeadingZeros(word(level, index));
+    }
+    return index;
+  }
+
+  private void checkIndex(int index) {
+    if (index < 0 || index >= capacity) {
+      throw new AppException("Index out of range: index=" + index + ", capacity=" + capacity);
+    }
+  }
+}
@@ -3,105 +3,172 @@ package com.exchange.core.matching.orderbook.book;
 import com.exchange.core.config.AppConstants;
 import com.exchange.core.exceptions.AppException;
 import com.exchange.core.matching.orderbook.OrderBook;
+import com.exchange.core.matching.orderbook.TradeListener;
+import com.exchange.core.matching.orderbook.depth.DepthChangeTracker;
+import com.exchange.core.matching.orderbook.depth.LevelSnapshotable;
 import com.exchange.core.matching.orderbook.level.LinkedListPriceLevel;
 import com.exchange.core.matching.orderbook.level.PriceLevel;
-import com.exchange.core.matching.snapshot.Snapshotable;
+import com.exchange.core.matching.orderbook.map.LongObjectHashMap;
+import com.exchange.core.matching.orderbook.map.LongObjectMap;
 import com.exchange.core.model.SnapshotItem;
-import com.exchange.core.model.Trade;
 import com.exchange.core.model.enums.OrderSide;
 import com.exchange.core.model.enums.OrderType;
 import com.exchange.core.model.enums.SnapshotType;
 import com.exchange.core.model.msg.MarketData;
+import com.exchange.core.model.msg.MarketDataUpdate;
 import com.exchange.core.model.msg.Order;
+import com.exchange.core.utils.FixedPoint;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
+import java.util.function.Consumer;
 
-public class ArrayOrderBook implements OrderBook, Snapshotable {
+/**
+ * Price is used as index into array of PriceLevel, so only integer prices are supported
+ * In fixed-point mode index is Order.scaledPrice, and all matching is done on scaled long values,
+ * BigDecimal is created only when MarketData or snapshot is built
+ * Array covers maxPrice * 10^priceScale ticks and is split into pages allocated on first use, so
+ * memory depends on range of prices which are actually traded, not on scale. Number of ticks
+ * should fit into int, so default max price allows price scale up to 3
+ */
+public class ArrayOrderBook implements OrderBook, LevelSnapshotable {
   // sorted in descending order => first bid is the highest price
   private final int[] bids;
   // sorted in ascending order => first ask is the lowest price
   private final int[] asks;
-  private final PriceLevel[] book;
+  private static final int PAGE_BITS = 16;
+  private static final int PAGE_MASK = (1 << PAGE_BITS) - 1;
+  public static final int DEFAULT_MAX_PRICE = 1_000_000;
+  private final PriceLevel[][] book;
+  // prices should be in range [0, maxTicks)
+  private final long maxTicks;
 
   private final String symbol;
   private final int priceLevelArrayDepth;
-  private final Map<Long, Order> orderIdMap = new HashMap<>();
+  private final LongObjectMap<Order> orderIdMap = new LongObjectHashMap<>();
+  private final boolean fixedPoint;
+  private final int priceScale;
+  private final int quantityScale;
+  private final DepthChangeTracker depthTracker;
 
 
-  public ArrayOrderBook(String symbol, int priceLevelArrayDepth, int maxPrice) {
+  public ArrayOrderBook(String symbol, int priceLevelArrayDepth, int maxPrice, boolean fixedPoint,
+      int priceScale, int quantityScale) {
     this.symbol = symbol;
     this.priceLevelArrayDepth = priceLevelArrayDepth;
+    this.fixedPoint = fixedPoint;
+    this.priceScale = priceScale;
+    this.quantityScale = quantityScale;
     bids = new int[priceLevelArrayDepth];
     asks = new int[priceLevelArrayDepth];
-    book = new PriceLevel[maxPrice+1];
+    maxTicks = ladderTicks(maxPrice, fixedPoint ? priceScale : 0);
+    book = new PriceLevel[(int) ((maxTicks + PAGE_MASK) >> PAGE_BITS)][];
+    depthTracker = new DepthChangeTracker(fixedPoint, priceScale, quantityScale);
+  }
+
+  public ArrayOrderBook(String symbol, int priceLevelArrayDepth, int maxPrice) {
+    this(symbol, priceLevelArrayDepth, maxPrice, false, 0, 0);
+  }
+
+  public ArrayOrderBook(String symbol, boolean fixedPoint, int priceScale, int quantityScale) {
+    this(symbol, 1024, DEFAULT_MAX_PRICE, fixedPoint, priceScale, quantityScale);
   }
 
   public ArrayOrderBook(String symbol) {
-    this(symbol, 1024, 1_000_000);
+    this(symbol, false, 0, 0);
+  }
+
+  /**
+   * @return number of ticks covering prices [0, maxPrice] with priceScale, index of tick is int
+   * @throws AppException if ticks don't fit into int, so instrument with such scale is rejected
+   */
+  public static long ladderTicks(int maxPrice, int priceScale) {
+    if (priceScale < 0 || priceScale > 9
+        || (long) maxPrice * FixedPoint.pow10(priceScale) >= Integer.MAX_VALUE) {
+      throw new AppException("Price ladder is too big: maxPrice=" + maxPrice + ", priceScale="
+          + priceScale);
+    }
+    return (long) maxPrice * FixedPoint.pow10(priceScale) + 1;
   }
 
   @Override
-  public List<Trade> match(Order taker) {
-    List<Trade> trades = new ArrayList<>();
+  public void match(Order taker, TradeListener listener) {
     if (taker.getSide() == OrderSide.BUY) {
       int posShift = 0;
       for (int i = 0; i < priceLevelArrayDepth; i++) {
-        PriceLevel level = book[asks[i]];
-        if (level == null || taker.getLeavesQty().compareTo(BigDecimal.ZERO) == 0) {
+        PriceLevel level = level(asks[i]);
+        if (level == null || isFilled(taker)) {
           break;
         }
         if (taker.getType() == OrderType.LIMIT) {
-          if (taker.getPrice().compareTo(level.getPrice()) < 0) {
+          if (comparePrice(taker, level) < 0) {
             break;
           }
-          matchLimit(taker, level, trades);
+          matchLimit(taker, level, listener);
         } else {
-          matchMarket(taker, level, trades);
+          matchMarket(taker, level, listener);
         }
+        depthTracker.mark(OrderSide.SELL, level);
         // check if level is empty and remove PriceLevel from array
-        if (!level.hasNext()){
+        if (level.isEmpty()){
           posShift++;
         }
       }
       // shift array left for n positions
       if (posShift > 0){
-        moveLeft(0, posShift, asks, book);
+        moveLeft(0, posShift, asks);
       }
     } else {
       int posShift = 0;
       for (int i = 0; i < priceLevelArrayDepth; i++) {
-        PriceLevel level = book[bids[i]];
-        if (level == null || taker.getLeavesQty().compareTo(BigDecimal.ZERO) == 0) {
+        PriceLevel level = level(bids[i]);
+        if (level == null || isFilled(taker)) {
           break;
         }
         if (taker.getType() == OrderType.LIMIT) {
-          if (taker.getPrice().compareTo(level.getPrice()) > 0) {
+          if (comparePrice(taker, level) > 0) {
             break;
           }
-          matchLimit(taker, level, trades);
+          matchLimit(taker, level, listener);
         } else {
-          matchMarket(taker, level, trades);
+          matchMarket(taker, level, listener);
         }
+        depthTracker.mark(OrderSide.BUY, level);
         // check if level is empty and remove PriceLevel from array
-        if (!level.hasNext()){
+        if (level.isEmpty()){
           posShift++;
         }
       }
       // shift array left for n positions
       if (posShift > 0){
-        moveLeft(0, posShift, bids, book);
+        moveLeft(0, posShift, bids);
       }
     }
-    return trades;
   }
 
 
-  private void matchLimit(Order taker, PriceLevel level, List<Trade> trades) {
+  private boolean isFilled(Order order) {
+    if (fixedPoint) {
+      return order.getScaledLeavesQty() == 0;
+    }
+    return order.getLeavesQty().compareTo(BigDecimal.ZERO) == 0;
+  }
+
+  private int comparePrice(Order taker, PriceLevel level) {
+    if (fixedPoint) {
+      return Long.compare(taker.getScaledPrice(), level.getScaledPrice());
+    }
+    return taker.getPrice().compareTo(level.getPrice());
+  }
+
+  private void matchLimit(Order taker, PriceLevel level, TradeListener listener) {
+    if (fixedPoint) {
+      matchLimitScaled(taker, level, listener);
+      return;
+    }
     final BigDecimal tradePrice = level.getPrice();
     level.resetIterator();
     while (level.hasNext() && taker.getLeavesQty().compareTo(BigDecimal.ZERO) > 0) {
@@ -109,9 +176,9 @@ public class ArrayOrderBook implements OrderBook, Snapshotable {
       BigDecimal tradeQty = taker.getLeavesQty().min(maker.getLeavesQty());
       BigDecimal tradeAmount = tradeQty.multiply(tradePrice);
       taker.setLeavesQty(taker.getLeavesQty().subtract(tradeQty));
-      maker.setLeavesQty(maker.getLeavesQty().subtract(tradeQty));
+      level.updateQty(maker, maker.getLeavesQty().subtract(tradeQty));
 
-      trades.add(new Trade(taker, maker, tradeQty, tradePrice, tradeAmount));
+      listener.onTrade(taker, maker, tradeQty, tradePrice, tradeAmount);
 
       if (maker.getLeavesQty().compareTo(BigDecimal.ZERO) == 0) {
         orderIdMap.remove(maker.getOrderId());
@@ -120,7 +187,11 @@ public class ArrayOrderBook implements OrderBook, Snapshotable {
     }
   }
 
-  private void matchMarket(Order taker, PriceLevel level, List<Trade> trades) {
+  private void matchMarket(Order taker, PriceLevel level, TradeListener listener) {
+    if (fixedPoint) {
+      matchMarketScaled(taker, level, listener);
+      return;
+    }
     level.resetIterator();
     BigDecimal tradePrice = level.getPrice();
     while (level.hasNext() && taker.getLeavesQty().compareTo(BigDecimal.ZERO) > 0) {
@@ -138,16 +209,16 @@ public class ArrayOrderBook implements OrderBook, Snapshotable {
         }
 
         taker.setLeavesQty(taker.getLeavesQty().subtract(tradeAmount));
-        maker.setLeavesQty(maker.getLeavesQty().subtract(tradeQty));
+        level.updateQty(maker, maker.getLeavesQty().subtract(tradeQty));
 
       } else {
         tradeQty = taker.getLeavesQty().min(maker.getLeavesQty());
         tradeAmount = tradeQty.multiply(tradePrice);
         taker.setLeavesQty(taker.getLeavesQty().subtract(tradeQty));
-        maker.setLeavesQty(maker.getLeavesQty().subtract(tradeQty));
+        level.updateQty(maker, maker.getLeavesQty().subtract(tradeQty));
       }
 
-      trades.add(new Trade(taker, maker, tradeQty, tradePrice, tradeAmount));
+      listener.onTrade(taker, maker, tradeQty, tradePrice, tradeAmount);
       if (maker.getLeavesQty().compareTo(BigDecimal.ZERO) == 0) {
         orderIdMap.remove(maker.getOrderId());
         level.remove();
@@ -155,25 +226,122 @@ public class ArrayOrderBook implements OrderBook, Snapshotable {
     }
   }
 
+  private void matchLimitScaled(Order taker, PriceLevel level, TradeListener listener) {
+    final long tradePrice = level.getScaledPrice();
+    level.resetIterator();
+    while (level.hasNext() && taker.getScaledLeavesQty() > 0) {
+      Order maker = level.next();
+      long tradeQty = Math.min(taker.getScaledLeavesQty(), maker.getScaledLeavesQty());
+      long tradeAmount = FixedPoint.multiply(tradeQty, tradePrice);
+      taker.setScaledLeavesQty(taker.getScaledLeavesQty() - tradeQty);
+      level.updateScaledQty(maker, maker.getScaledLeavesQty() - tradeQty);
+
+      listener.onTrade(taker, maker, tradeQty, tradePrice, tradeAmount);
+
+      if (maker.getScaledLeavesQty() == 0) {
+        orderIdMap.remove(maker.getOrderId());
+        level.remove();
+      }
+    }
+  }
+
+  /**
+   * For market buy leavesQty is amount with scale priceScale + quantityScale,
+   * so dividing it by scaled price gives quantity with quantityScale rounded down
+   */
+  private void matchMarketScaled(Order taker, PriceLevel level, TradeListener listener) {
+    level.resetIterator();
+    final long tradePrice = level.getScaledPrice();
+    while (level.hasNext() && taker.getScaledLeavesQty() > 0) {
+      Order maker = level.next();
+      long tradeQty, tradeAmount;
+      if (taker.getSide() == OrderSide.BUY) {
+        long takerTradeAmount = taker.getScaledLeavesQty();
+        long takerTradeQty = takerTradeAmount / tradePrice;
+
+        tradeQty = Math.min(takerTradeQty, maker.getScaledLeavesQty());
+        tradeAmount = FixedPoint.multiply(tradeQty, tradePrice);
+        if (maker.getScaledLeavesQty() > takerTradeQty) {
+          tradeAmount = takerTradeAmount;
+        }
+
+        taker.setScaledLeavesQty(taker.getScaledLeavesQty() - tradeAmount);
+        level.updateScaledQty(maker, maker.getScaledLeavesQty() - tradeQty);
+      } else {
+        tradeQty = Math.min(taker.getScaledLeavesQty(), maker.getScaledLeavesQty());
+        tradeAmount = FixedPoint.multiply(tradeQty, tradePrice);
+        taker.setScaledLeavesQty(taker.getScaledLeavesQty() - tradeQty);
+        level.updateScaledQty(maker, maker.getScaledLeavesQty() - tradeQty);
+      }
+
+      listener.onTrade(taker, maker, tradeQty, tradePrice, tradeAmount);
+      if (maker.getScaledLeavesQty() == 0) {
+        orderIdMap.remove(maker.getOrderId());
+        level.remove();
+      }
+    }
+  }
+
+  private int getPriceIndex(Order order) {
+    if (fixedPoint) {
+      return (int) order.getScaledPrice();
+    }
+    return order.getPrice().intValue();
+  }
+
+  private PriceLevel level(int price) {
+    PriceLevel[] page = book[price >>> PAGE_BITS];
+    return page == null ? null : page[price & PAGE_MASK];
+  }
+
+  private void setLevel(int price, PriceLevel level) {
+    PriceLevel[] page = book[price >>> PAGE_BITS];
+    if (page == null) {
+      page = new PriceLevel[1 << PAGE_BITS];
+      book[price >>> PAGE_BITS] = page;
+    }
+    page[price & PAGE_MASK] = level;
+  }
+
+  /**
+   * Orders coming from outside (update/snapshot) have only BigDecimal values
+   */
+  private void scale(Order order) {
+    order.setScaledPrice(FixedPoint.toLong(order.getPrice(), priceScale));
+    order.setScaledLeavesQty(FixedPoint.toLong(order.getLeavesQty(), quantityScale));
+  }
+
   @Override
   public boolean add(Order order) {
+    insert(order);
+    depthTracker.mark(order.getSide(), order.level);
+    return true;
+  }
+
+  private void insert(Order order) {
+    long ticks = fixedPoint ? order.getScaledPrice() : order.getPrice().longValue();
+    if (ticks < 0 || ticks >= maxTicks) {
+      throw new AppException("Price out of range: price=" + order.getPrice()
+          + ", maxTicks=" + maxTicks);
+    }
     orderIdMap.put(order.getOrderId(), order);
-    int price = order.getPrice().intValue();
-    if (book[price] != null){
-      book[price].add(order);
-      return true;
+    int price = (int) ticks;
+    PriceLevel existing = level(price);
+    if (existing != null && !existing.isEmpty()){
+      existing.add(order);
+      return;
     }
     if (order.getSide() == OrderSide.BUY) {
       for (int i = 0; i < priceLevelArrayDepth; i++) {
         int bidPrice = bids[i];
         if (bidPrice == 0) {
           bids[i] = price;
-          book[price] = new LinkedListPriceLevel(order);
-          return true;
+          setLevel(price, newLevel(price, order));
+          return;
         }
         if (price > bidPrice) {
-          moveRight(i, new LinkedListPriceLevel(order), price, bids, book, OrderSide.BUY);
-          return true;
+          moveRight(i, order, price, bids, OrderSide.BUY);
+          return;
         }
       }
     } else {
@@ -181,18 +349,31 @@ public class ArrayOrderBook implements OrderBook, Snapshotable {
         int askPrice = asks[i];
         if (askPrice == 0) {
           asks[i] = price;
-          book[price] = new LinkedListPriceLevel(order);
-          return true;
+          setLevel(price, newLevel(price, order));
+          return;
         }
         if (price < askPrice) {
-          moveRight(i, new LinkedListPriceLevel(order), price, asks, book, OrderSide.SELL);
-          return true;
+          moveRight(i, order, price, asks, OrderSide.SELL);
+          return;
         }
       }
     }
     throw new AppException("PriceLevel array overflow: failed to add");
   }
 
+  /**
+   * Empty levels stay in book array and are reused by the next order with the same price,
+   * so PriceLevel is allocated only once per price
+   */
+  private PriceLevel newLevel(int price, Order order) {
+    PriceLevel level = level(price);
+    if (level == null) {
+      return new LinkedListPriceLevel(order, fixedPoint);
+    }
+    level.add(order);
+    return level;
+  }
+
   @Override
   public boolean update(Order order) {
     final long orderId = order.getOrderId();
@@ -200,8 +381,15 @@ public class ArrayOrderBook implements OrderBook, Snapshotable {
     if (o == null) {
       return false;
     }
-    // update quantity
-    o.setLeavesQty(order.getLeavesQty());
+    // update quantity in place, so order keeps its priority
+    o.level.updateQty(o, order.getLeavesQty());
+    o.setOrderQty(order.getOrderQty());
+    o.setClOrdId(order.getClOrdId());
+    if (fixedPoint) {
+      scale(order);
+      o.level.updateScaledQty(o, order.getScaledLeavesQty());
+    }
+    depthTracker.mark(o.getSide(), o.level);
     // if price changed, we need to move order into new PriceLevel
     if (order.getPrice().compareTo(o.getPrice()) != 0) {
       remove(orderId);
@@ -217,16 +405,16 @@ public class ArrayOrderBook implements OrderBook, Snapshotable {
     if (order == null){
       return false;
     }
-    int price = order.getPrice().intValue();
-    PriceLevel level = book[price];
+    int price = getPriceIndex(order);
+    PriceLevel level = level(price);
     if (level == null){
       System.exit(0);
     }
     level.resetIterator();
     level.remove(order);
+    depthTracker.mark(order.getSide(), level);
     // if level has no orders, remove it
-    if (!level.hasNext()){
-      book[price] = null;
+    if (level.isEmpty()){
       int[] arr = order.getSide() == OrderSide.BUY ? bids : asks;
       for (int i = 0; i < priceLevelArrayDepth; i++) {
         if (price == arr[i]){
@@ -247,18 +435,16 @@ public class ArrayOrderBook implements OrderBook, Snapshotable {
     return orderIdMap.get(orderId);
   }
 
-  private void moveLeft(int start, int shift, int[] arr, PriceLevel[] bookArr){
-    for (int i = start; i < priceLevelArrayDepth - shift; i++) {
-      if (arr[i + shift] == 0){
-        break;
-      }
-      bookArr[arr[i]] = null;
-      arr[i] = arr[i + shift];
-      arr[i+shift] = 0;
-    }
+  /**
+   * Remove shift levels starting from start and move the rest of levels left
+   * Removed levels are empty and stay in book array for reuse
+   */
+  private void moveLeft(int start, int shift, int[] arr){
+    System.arraycopy(arr, start + shift, arr, start, priceLevelArrayDepth - start - shift);
+    Arrays.fill(arr, priceLevelArrayDepth - shift, priceLevelArrayDepth, 0);
   }
 
-  private void moveRight(int index, PriceLevel level, int price, int[] arr, PriceLevel[] bookArr, OrderSide side) {
+  private void moveRight(int index, Order order, int price, int[] arr, OrderSide side) {
     int len = arr.length;
     if (arr[len - 1] != 0) {
       throw new AppException((side == OrderSide.BUY ? "Bids" : "Asks") +
@@ -275,7 +461,7 @@ public class ArrayOrderBook implements OrderBook, Snapshotable {
       arr[i] = arr[i-1];
     }
     arr[index] = price;
-    bookArr[price] = level;
+    setLevel(price, newLevel(price, order));
   }
 
   @Override
@@ -301,32 +487,34 @@ public class ArrayOrderBook implements OrderBook, Snapshotable {
     md.setDepth(depth);
     md.setSymbol(symbol);
     md.setTransactTime(System.currentTimeMillis());
+    md.setSeqNum(depthTracker.getSeqNum());
 
     BigDecimal[][] bids = new BigDecimal[bidSize][];
     BigDecimal[][] asks = new BigDecimal[askSize][];
     for (int i = 0; i < bidSize; i++) {
-      BigDecimal cumulativeQuantity = BigDecimal.ZERO;
-      PriceLevel level = book[this.bids[i]];
-      level.resetIterator();
-      while (level.hasNext()) {
-        cumulativeQuantity = cumulativeQuantity.add(level.next().getLeavesQty());
-      }
-      bids[i] = new BigDecimal[]{level.getPrice(), cumulativeQuantity};
+      bids[i] = buildLevel(level(this.bids[i]));
     }
     for (int i = 0; i < askSize; i++) {
-      BigDecimal cumulativeQuantity = BigDecimal.ZERO;
-      PriceLevel level = book[this.asks[i]];
-      level.resetIterator();
-      while (level.hasNext()) {
-        cumulativeQuantity = cumulativeQuantity.add(level.next().getLeavesQty());
-      }
-      asks[i] = new BigDecimal[]{level.getPrice(), cumulativeQuantity};
+      asks[i] = buildLevel(level(this.asks[i]));
     }
     md.setBids(bids);
     md.setAsks(asks);
     return md;
   }
 
+  private BigDecimal[] buildLevel(PriceLevel level) {
+    if (fixedPoint) {
+      return new BigDecimal[]{FixedPoint.toBigDecimal(level.getScaledPrice(), priceScale),
+          FixedPoint.toBigDecimal(level.getScaledTotalQty(), quantityScale)};
+    }
+    return new BigDecimal[]{level.getPrice(), level.getTotalQty()};
+  }
+
+  @Override
+  public MarketDataUpdate buildMarketDataUpdate() {
+    return depthTracker.build(symbol);
+  }
+
   @Override
   public SnapshotType getType() {
     return SnapshotType.ORDER_BOOK;
@@ -335,29 +523,68 @@ public class ArrayOrderBook implements OrderBook, Snapshotable {
   @Override
   public SnapshotItem create() {
     List<Order> orders = new ArrayList<>();
-    for (int price: bids) {
-      PriceLevel level = book[price];
-      level.resetIterator();
-      while (level.hasNext()) {
-        orders.add(level.next());
-      }
-    }
-    for (int price: asks) {
-      PriceLevel level = book[price];
-      level.resetIterator();
-      while (level.hasNext()) {
-        orders.add(level.next());
-      }
-    }
+    forEachOrder(orders::add);
     SnapshotItem item = new SnapshotItem();
     item.setType(getType());
     item.setData(orders);
     return item;
   }
 
+  @Override
+  public void forEachRecord(Consumer<Object> consumer) {
+    forEachOrder(consumer::accept);
+  }
+
+  @Override
+  public DepthChangeTracker getDepthTracker() {
+    return depthTracker;
+  }
+
+  @Override
+  public void forEachLevelOrder(OrderSide side, BigDecimal price, Consumer<Order> consumer) {
+    long ticks = fixedPoint ? FixedPoint.toLong(price, priceScale) : price.longValue();
+    PriceLevel level = ticks < 0 || ticks >= maxTicks ? null : level((int) ticks);
+    if (level != null) {
+      forEachLevelOrder(level, consumer);
+    }
+  }
+
+  private void forEachOrder(Consumer<Order> consumer) {
+    forEachSideOrder(bids, consumer);
+    forEachSideOrder(asks, consumer);
+  }
+
+  private void forEachSideOrder(int[] prices, Consumer<Order> consumer) {
+    for (int price : prices) {
+      if (price == 0) {
+        break;
+      }
+      forEachLevelOrder(level(price), consumer);
+    }
+  }
+
+  private void forEachLevelOrder(PriceLevel level, Consumer<Order> consumer) {
+    level.resetIterator();
+    while (level.hasNext()) {
+      Order order = level.next();
+      if (fixedPoint) {
+        order.setLeavesQty(FixedPoint.toBigDecimal(order.getScaledLeavesQty(), quantityScale));
+      }
+      consumer.accept(order);
+    }
+  }
+
   @Override
   public void load(SnapshotItem data) {
-    ((List<Order>) data.getData())
-            .forEach(this::add);
+    ((List<Order>) data.getData()).forEach(this::loadRecord);
+  }
+
+  @Override
+  public void loadRecord(Object record) {
+    Order order = (Order) record;
+    if (fixedPoint) {
+      scale(order);
+    }
+    add(order);
   }
 }
\ No newline at end of file
@@ -0,0 +1,353 @@
+package com.exchange.core.matching.orderbook.book;
+
+import com.exchange.core.config.AppConstants;
+import com.exchange.core.exceptions.AppException;
+import com.exchange.core.matching.orderbook.OrderBook;
+import com.exchange.core.matching.orderbook.TradeListener;
+import com.exchange.core.matching.orderbook.depth.DepthChangeTracker;
+import com.exchange.core.matching.orderbook.depth.LevelSnapshotable;
+import com.exchange.core.matching.orderbook.bitset.HierarchicalBitSet;
+import com.exchange.core.matching.orderbook.level.LinkedListPriceLevel;
+import com.exchange.core.matching.orderbook.level.PriceLevel;
+import com.exchange.core.matching.orderbook.map.LongObjectHashMap;
+import com.exchange.core.matching.orderbook.map.LongObjectMap;
+import com.exchange.core.model.SnapshotItem;
+import com.exchange.core.model.enums.OrderSide;
+import com.exchange.core.model.enums.OrderType;
+import com.exchange.core.model.enums.SnapshotType;
+import com.exchange.core.model.msg.MarketData;
+import com.exchange.core.model.msg.MarketDataUpdate;
+import com.exchange.core.model.msg.Order;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Price ladder indexed by tick (price / tickSize): PriceLevel array holds levels, and 2
+ * HierarchicalBitSet mark which ticks have bids/asks
+ * Best bid is the highest set bit, best ask is the lowest one, next level is found with
+ * next/prevSetBit, so adding or removing a level doesn't shift any array unlike ArrayOrderBook
+ * Level array is split into pages allocated on first use like in ArrayOrderBook, so memory depends
+ * on range of prices which are actually traded, not on maxTicks
+ */
+public class BitmapOrderBook implements OrderBook, LevelSnapshotable {
+
+  private static final int PAGE_BITS = 16;
+  private static final int PAGE_MASK = (1 << PAGE_BITS) - 1;
+  private final String symbol;
+  private final BigDecimal tickSize;
+  private final PriceLevel[][] book;
+  private final int maxTicks;
+  private final HierarchicalBitSet bids;
+  private final HierarchicalBitSet asks;
+  private final LongObjectMap<Order> orderIdMap = new LongObjectHashMap<>();
+  private final DepthChangeTracker depthTracker = new DepthChangeTracker();
+
+  public BitmapOrderBook(String symbol) {
+    this(symbol, BigDecimal.ONE, 1_000_000);
+  }
+
+  /**
+   * @param tickSize - min price step, every price should be multiple of it
+   * @param maxTicks - max price in ticks, prices should be in range [0, maxTicks)
+   */
+  public BitmapOrderBook(String symbol, BigDecimal tickSize, int maxTicks) {
+    this.symbol = symbol;
+    this.tickSize = tickSize;
+    this.maxTicks = maxTicks;
+    book = new PriceLevel[(maxTicks >>> PAGE_BITS) + 1][];
+    bids = new HierarchicalBitSet(maxTicks);
+    asks = new HierarchicalBitSet(maxTicks);
+  }
+
+  @Override
+  public void match(Order taker, TradeListener listener) {
+    if (taker.getSide() == OrderSide.BUY) {
+      int tick = asks.first();
+      while (tick != -1 && taker.getLeavesQty().compareTo(BigDecimal.ZERO) != 0) {
+        PriceLevel level = level(tick);
+        if (taker.getType() == OrderType.LIMIT) {
+          if (taker.getPrice().compareTo(level.getPrice()) < 0) {
+            break;
+          }
+          matchLimit(taker, level, listener);
+        } else {
+          matchMarket(taker, level, listener);
+        }
+        depthTracker.mark(OrderSide.SELL, level);
+        if (level.isEmpty()) {
+          asks.clear(tick);
+        }
+        tick = asks.nextSetBit(tick + 1);
+      }
+    } else {
+      int tick = bids.last();
+      while (tick != -1 && taker.getLeavesQty().compareTo(BigDecimal.ZERO) != 0) {
+        PriceLevel level = level(tick);
+        if (taker.getType() == OrderType.LIMIT) {
+          if (taker.getPrice().compareTo(level.getPrice()) > 0) {
+            break;
+          }
+          matchLimit(taker, level, listener);
+        } else {
+          matchMarket(taker, level, listener);
+        }
+        depthTracker.mark(OrderSide.BUY, level);
+        if (level.isEmpty()) {
+          bids.clear(tick);
+        }
+        tick = bids.prevSetBit(tick - 1);
+      }
+    }
+  }
+
+  private void matchLimit(Order taker, PriceLevel level, TradeListener listener) {
+    final BigDecimal tradePrice = level.getPrice();
+    level.resetIterator();
+    while (level.hasNext() && taker.getLeavesQty().compareTo(BigDecimal.ZERO) > 0) {
+      Order maker = level.next();
+      BigDecimal tradeQty = taker.getLeavesQty().min(maker.getLeavesQty());
+      BigDecimal tradeAmount = tradeQty.multiply(tradePrice);
+      taker.setLeavesQty(taker.getLeavesQty().subtract(tradeQty));
+      level.updateQty(maker, maker.getLeavesQty().subtract(tradeQty));
+
+      listener.onTrade(taker, maker, tradeQty, tradePrice, tradeAmount);
+
+      if (maker.getLeavesQty().compareTo(BigDecimal.ZERO) == 0) {
+        orderIdMap.remove(maker.getOrderId());
+        level.remove();
+      }
+    }
+  }
+
+  private void matchMarket(Order taker, PriceLevel level, TradeListener listener) {
+    level.resetIterator();
+    BigDecimal tradePrice = level.getPrice();
+    while (level.hasNext() && taker.getLeavesQty().compareTo(BigDecimal.ZERO) > 0) {
+      Order maker = level.next();
+      BigDecimal tradeQty, tradeAmount;
+      if (taker.getSide() == OrderSide.BUY) {
+        BigDecimal takerTradeAmount = taker.getLeavesQty();
+        BigDecimal takerTradeQty = takerTradeAmount.divide(tradePrice, AppConstants.ROUNDING_SCALE,
+            RoundingMode.DOWN);
+
+        tradeQty = takerTradeQty.min(maker.getLeavesQty());
+        tradeAmount = tradeQty.multiply(tradePrice);
+        if (maker.getLeavesQty().compareTo(takerTradeQty) > 0) {
+          tradeAmount = takerTradeAmount;
+        }
+
+        taker.setLeavesQty(taker.getLeavesQty().subtract(tradeAmount));
+        level.updateQty(maker, maker.getLeavesQty().subtract(tradeQty));
+
+      } else {
+        tradeQty = taker.getLeavesQty().min(maker.getLeavesQty());
+        tradeAmount = tradeQty.multiply(tradePrice);
+        taker.setLeavesQty(taker.getLeavesQty().subtract(tradeQty));
+        level.updateQty(maker, maker.getLeavesQty().subtract(tradeQty));
+      }
+
+      listener.onTrade(taker, maker, tradeQty, tradePrice, tradeAmount);
+      if (maker.getLeavesQty().compareTo(BigDecimal.ZERO) == 0) {
+        orderIdMap.remove(maker.getOrderId());
+        level.remove();
+      }
+    }
+  }
+
+  private PriceLevel level(int tick) {
+    PriceLevel[] page = book[tick >>> PAGE_BITS];
+    return page == null ? null : page[tick & PAGE_MASK];
+  }
+
+  private void setLevel(int tick, PriceLevel level) {
+    PriceLevel[] page = book[tick >>> PAGE_BITS];
+    if (page == null) {
+      page = new PriceLevel[1 << PAGE_BITS];
+      book[tick >>> PAGE_BITS] = page;
+    }
+    page[tick & PAGE_MASK] = level;
+  }
+
+  private int getTick(BigDecimal price) {
+    try {
+      return price.divide(tickSize).intValueExact();
+    } catch (ArithmeticException ex) {
+      throw new AppException("Price should be multiple of tickSize: price=" + price
+          + ", tickSize=" + tickSize, ex);
+    }
+  }
+
+  @Override
+  public boolean add(Order order) {
+    final int tick = getTick(order.getPrice());
+    if (tick < 0 || tick >= maxTicks) {
+      throw new AppException("Price out of range: price=" + order.getPrice()
+          + ", maxTicks=" + maxTicks);
+    }
+    orderIdMap.put(order.getOrderId(), order);
+    HierarchicalBitSet side = order.getSide() == OrderSide.BUY ? bids : asks;
+    PriceLevel level = level(tick);
+    // empty levels stay in book array, so PriceLevel is allocated only once per tick
+    if (level == null) {
+      setLevel(tick, new LinkedListPriceLevel(order));
+    } else {
+      level.add(order);
+    }
+    side.set(tick);
+    depthTracker.mark(order.getSide(), order.level);
+    return true;
+  }
+
+  @Override
+  public boolean update(Order order) {
+    final long orderId = order.getOrderId();
+    Order o = orderIdMap.get(orderId);
+    if (o == null) {
+      return false;
+    }
+    // update quantity in place, so order keeps its priority
+    o.level.updateQty(o, order.getLeavesQty());
+    o.setOrderQty(order.getOrderQty());
+    o.setClOrdId(order.getClOrdId());
+    depthTracker.mark(o.getSide(), o.level);
+    // if price changed, we need to move order into new PriceLevel
+    if (order.getPrice().compareTo(o.getPrice()) != 0) {
+      remove(orderId);
+      add(order);
+    }
+    return true;
+  }
+
+  @Override
+  public boolean remove(long orderId) {
+    Order order = orderIdMap.remove(orderId);
+    if (order == null) {
+      return false;
+    }
+    final int tick = getTick(order.getPrice());
+    PriceLevel level = level(tick);
+    level.resetIterator();
+    level.remove(order);
+    depthTracker.mark(order.getSide(), level);
+    if (level.isEmpty()) {
+      (order.getSide() == OrderSide.BUY ? bids : asks).clear(tick);
+    }
+    return true;
+  }
+
+  @Override
+  public Order getOrder(long orderId) {
+    return orderIdMap.get(orderId);
+  }
+
+  @Override
+  public MarketData buildMarketData() {
+    BigDecimal[][] bidLevels = new BigDecimal[countLevels(bids, true)][];
+    BigDecimal[][] askLevels = new BigDecimal[countLevels(asks, false)][];
+    int tick = bids.last();
+    for (int i = 0; i < bidLevels.length; i++) {
+      bidLevels[i] = buildLevel(level(tick));
+      tick = bids.prevSetBit(tick - 1);
+    }
+    tick = asks.first();
+    for (int i = 0; i < askLevels.length; i++) {
+      askLevels[i] = buildLevel(level(tick));
+      tick = asks.nextSetBit(tick + 1);
+    }
+    MarketData md = new MarketData();
+    md.setDepth(Math.max(bidLevels.length, askLevels.length));
+    md.setSymbol(symbol);
+    md.setTransactTime(System.currentTimeMillis());
+    md.setSeqNum(depthTracker.getSeqNum());
+    md.setBids(bidLevels);
+    md.setAsks(askLevels);
+    return md;
+  }
+
+  /**
+   * Count levels from the best price, but not more than default depth
+   */
+  private int countLevels(HierarchicalBitSet side, boolean desc) {
+    int count = 0;
+    int tick = desc ? side.last() : side.first();
+    while (tick != -1 && count < AppConstants.DEFAULT_DEPTH) {
+      count++;
+      tick = desc ? side.prevSetBit(tick - 1) : side.nextSetBit(tick + 1);
+    }
+    return count;
+  }
+
+  private BigDecimal[] buildLevel(PriceLevel level) {
+    return new BigDecimal[]{level.getPrice(), level.getTotalQty()};
+  }
+
+  @Override
+  public MarketDataUpdate buildMarketDataUpdate() {
+    return depthTracker.build(symbol);
+  }
+
+  @Override
+  public SnapshotType getType() {
+    return SnapshotType.ORDER_BOOK;
+  }
+
+  @Override
+  public SnapshotItem create() {
+    List<Order> orders = new ArrayList<>();
+    forEachOrder(orders::add);
+    SnapshotItem item = new SnapshotItem();
+    item.setType(getType());
+    item.setData(orders);
+    return item;
+  }
+
+  @Override
+  public void forEachRecord(Consumer<Object> consumer) {
+    forEachOrder(consumer::accept);
+  }
+
+  @Override
+  public DepthChangeTracker getDepthTracker() {
+    return depthTracker;
+  }
+
+  @Override
+  public void forEachLevelOrder(OrderSide side, BigDecimal price, Consumer<Order> consumer) {
+    int tick = getTick(price);
+    if ((side == OrderSide.BUY ? bids : asks).get(tick)) {
+      forEachLevelOrder(level(tick), consumer);
+    }
+  }
+
+  private void forEachOrder(Consumer<Order> consumer) {
+    forEachSideOrder(bids, consumer);
+    forEachSideOrder(asks, consumer);
+  }
+
+  private void forEachSideOrder(HierarchicalBitSet side, Consumer<Order> consumer) {
+    for (int tick = side.first(); tick != -1; tick = side.nextSetBit(tick + 1)) {
+      forEachLevelOrder(level(tick), consumer);
+    }
+  }
+
+  private void forEachLevelOrder(PriceLevel level, Consumer<Order> consumer) {
+    level.resetIterator();
+    while (level.hasNext()) {
+      consumer.accept(level.next());
+    }
+  }
+
+  @Override
+  public void load(SnapshotItem data) {
+    ((List<Order>) data.getData())
+        .forEach(this::add);
+  }
+
+  @Override
+  public void loadRecord(Object record) {
+    add((Order) record);
+  }
+}
@@ -1,34 +1,44 @@
 package com.exchange.core.matching.orderbook.book;
 
 import com.exchange.core.config.AppConstants;
+import com.exchange.core.exceptions.AppException;
 import com.exchange.core.matching.orderbook.OrderBook;
-import com.exchange.core.matching.orderbook.ipq.IndexedPriorityQueue;
-import com.exchange.core.matching.orderbook.ipq.MapIndexedPriorityQueue;
+import com.exchange.core.matching.orderbook.TradeListener;
+import com.exchange.core.matching.orderbook.depth.DepthChangeTracker;
+import com.exchange.core.matching.orderbook.depth.LevelSnapshotable;
+import com.exchange.core.matching.orderbook.ipq.IntIndexedPriorityQueue;
 import com.exchange.core.matching.orderbook.ipq.SortOrder;
 import com.exchange.core.matching.orderbook.level.LinkedListPriceLevel;
 import com.exchange.core.matching.orderbook.level.PriceLevel;
-import com.exchange.core.model.Trade;
+import com.exchange.core.matching.orderbook.map.LongObjectHashMap;
+import com.exchange.core.matching.orderbook.map.LongObjectMap;
+import com.exchange.core.model.SnapshotItem;
 import com.exchange.core.model.enums.OrderSide;
 import com.exchange.core.model.enums.OrderType;
+import com.exchange.core.model.enums.SnapshotType;
 import com.exchange.core.model.msg.MarketData;
+import com.exchange.core.model.msg.MarketDataUpdate;
 import com.exchange.core.model.msg.Order;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * Using custom data structures known as IndexedPriorityQueue to store bids/asks
  * PriorityQueue is enough to store bids/asks, and indexed means we can fetch any PriceLevel by price as index
+ * Prices are converted into int ticks (price / tickSize), so both queues are plain arrays indexed by tick
  */
-public class IpqOrderBook implements OrderBook {
+public class IpqOrderBook implements OrderBook, LevelSnapshotable {
     private final String symbol;
-    private final IndexedPriorityQueue<BigDecimal, PriceLevel> bidsQueue;
-    private final IndexedPriorityQueue<BigDecimal, PriceLevel> asksQueue;
-    Map<Long, Order> orderIdMap = new HashMap<>();
+    private final BigDecimal tickSize;
+    private final int maxTicks;
+    private final IntIndexedPriorityQueue<PriceLevel> bidsQueue;
+    private final IntIndexedPriorityQueue<PriceLevel> asksQueue;
+    private final LongObjectMap<Order> orderIdMap = new LongObjectHashMap<>();
+    private final DepthChangeTracker depthTracker = new DepthChangeTracker();
 
 
     public IpqOrderBook(String symbol){
@@ -36,14 +46,24 @@ public class IpqOrderBook implements OrderBook {
     }
 
     public IpqOrderBook(String symbol, int initialBookSize, int bookGrowSize){
+        this(symbol, BigDecimal.ONE, 1_000_000, initialBookSize, bookGrowSize);
+    }
+
+    /**
+     * @param tickSize - min price step, every price should be multiple of it
+     * @param maxTicks - max price in ticks, prices should be in range [0, maxTicks]
+     */
+    public IpqOrderBook(String symbol, BigDecimal tickSize, int maxTicks, int initialBookSize,
+        int bookGrowSize){
         this.symbol = symbol;
-        bidsQueue = new MapIndexedPriorityQueue<>(SortOrder.DESC, initialBookSize, bookGrowSize);
-        asksQueue = new MapIndexedPriorityQueue<>(SortOrder.ASC, initialBookSize, bookGrowSize);
+        this.tickSize = tickSize;
+        this.maxTicks = maxTicks;
+        bidsQueue = new IntIndexedPriorityQueue<>(SortOrder.DESC, initialBookSize, bookGrowSize, maxTicks);
+        asksQueue = new IntIndexedPriorityQueue<>(SortOrder.ASC, initialBookSize, bookGrowSize, maxTicks);
     }
 
     @Override
-    public List<Trade> match(Order taker) {
-        List<Trade> trades = new ArrayList<>();
+    public void match(Order taker, TradeListener listener) {
         if (taker.getSide() == OrderSide.BUY) {
             while (asksQueue.size() > 0 && taker.getLeavesQty().compareTo(BigDecimal.ZERO) != 0){
                 PriceLevel level = asksQueue.peek();
@@ -51,11 +71,12 @@ public class IpqOrderBook implements OrderBook {
                     if (taker.getPrice().compareTo(level.getPrice()) < 0) {
                         break;
                     }
-                    matchLimit(taker, level, trades);
+                    matchLimit(taker, level, listener);
                 } else {
-                    matchMarket(taker, level, trades);
+                    matchMarket(taker, level, listener);
                 }
-                if (!level.hasNext()){
+                depthTracker.mark(OrderSide.SELL, level);
+                if (level.isEmpty()){
                     asksQueue.poll();
                 }
             }
@@ -66,21 +87,21 @@ public class IpqOrderBook implements OrderBook {
                     if (taker.getPrice().compareTo(level.getPrice()) > 0) {
                         break;
                     }
-                    matchLimit(taker, level, trades);
+                    matchLimit(taker, level, listener);
                 } else {
-                    matchMarket(taker, level, trades);
+                    matchMarket(taker, level, listener);
                 }
+                depthTracker.mark(OrderSide.BUY, level);
                 // check if level is empty and remove PriceLevel from array
-                if (!level.hasNext()){
+                if (level.isEmpty()){
                     bidsQueue.poll();
                 }
             }
         }
-        return trades;
     }
 
 
-    private void matchLimit(Order taker, PriceLevel level, List<Trade> trades) {
+    private void matchLimit(Order taker, PriceLevel level, TradeListener listener) {
         final BigDecimal tradePrice = level.getPrice();
         level.resetIterator();
         while (level.hasNext() && taker.getLeavesQty().compareTo(BigDecimal.ZERO) > 0) {
@@ -88,9 +109,9 @@ public class IpqOrderBook implements OrderBook {
             BigDecimal tradeQty = taker.getLeavesQty().min(maker.getLeavesQty());
             BigDecimal tradeAmount = tradeQty.multiply(tradePrice);
             taker.setLeavesQty(taker.getLeavesQty().subtract(tradeQty));
-            maker.setLeavesQty(maker.getLeavesQty().subtract(tradeQty));
+            level.updateQty(maker, maker.getLeavesQty().subtract(tradeQty));
 
-            trades.add(new Trade(taker, maker, tradeQty, tradePrice, tradeAmount));
+            listener.onTrade(taker, maker, tradeQty, tradePrice, tradeAmount);
 
             if (maker.getLeavesQty().compareTo(BigDecimal.ZERO) == 0) {
                 orderIdMap.remove(maker.getOrderId());
@@ -99,7 +120,7 @@ public class IpqOrderBook implements OrderBook {
         }
     }
 
-    private void matchMarket(Order taker, PriceLevel level, List<Trade> trades) {
+    private void matchMarket(Order taker, PriceLevel level, TradeListener listener) {
         level.resetIterator();
         BigDecimal tradePrice = level.getPrice();
         while (level.hasNext() && taker.getLeavesQty().compareTo(BigDecimal.ZERO) > 0) {
@@ -117,16 +138,16 @@ public class IpqOrderBook implements OrderBook {
                 }
 
                 taker.setLeavesQty(taker.getLeavesQty().subtract(tradeAmount));
-                maker.setLeavesQty(maker.getLeavesQty().subtract(tradeQty));
+                level.updateQty(maker, maker.getLeavesQty().subtract(tradeQty));
 
             } else {
                 tradeQty = taker.getLeavesQty().min(maker.getLeavesQty());
                 tradeAmount = tradeQty.multiply(tradePrice);
                 taker.setLeavesQty(taker.getLeavesQty().subtract(tradeQty));
-                maker.setLeavesQty(maker.getLeavesQty().subtract(tradeQty));
+                level.updateQty(maker, maker.getLeavesQty().subtract(tradeQty));
             }
 
-            trades.add(new Trade(taker, maker, tradeQty, tradePrice, tradeAmount));
+            listener.onTrade(taker, maker, tradeQty, tradePrice, tradeAmount);
             if (maker.getLeavesQty().compareTo(BigDecimal.ZERO) == 0) {
                 orderIdMap.remove(maker.getOrderId());
                 level.remove();
@@ -134,19 +155,33 @@ public class IpqOrderBook implements OrderBook {
         }
     }
 
+    private int getTick(BigDecimal price) {
+        try {
+            return price.divide(tickSize).intValueExact();
+        } catch (ArithmeticException ex) {
+            throw new AppException("Price should be multiple of tickSize: price=" + price
+                + ", tickSize=" + tickSize, ex);
+        }
+    }
+
     @Override
     public boolean add(Order order) {
-        IndexedPriorityQueue<BigDecimal, PriceLevel> pq = order.getSide() == OrderSide.BUY ? bidsQueue : asksQueue;
-
-        PriceLevel level = pq.getExact(order.getPrice());
-        if (level != null){
-            level.add(order);
-            return true;
+        IntIndexedPriorityQueue<PriceLevel> pq = order.getSide() == OrderSide.BUY ? bidsQueue : asksQueue;
+        final int tick = getTick(order.getPrice());
+        if (tick < 0 || tick > maxTicks) {
+            throw new AppException("Price out of range: price=" + order.getPrice()
+                + ", maxTicks=" + maxTicks);
         }
-        level = new LinkedListPriceLevel(order);
-        pq.offer(level.getPrice(), level);
         orderIdMap.put(order.getOrderId(), order);
 
+        PriceLevel level = pq.getExact(tick);
+        if (level == null){
+            level = new LinkedListPriceLevel(order);
+            pq.offer(tick, level);
+        } else {
+            level.add(order);
+        }
+        depthTracker.mark(order.getSide(), level);
         return true;
     }
 
@@ -157,8 +192,11 @@ public class IpqOrderBook implements OrderBook {
         if (o == null) {
             return false;
         }
-        // update quantity
-        o.setQuoteOrderQty(order.getQuoteOrderQty());
+        // update quantity in place, so order keeps its priority
+        o.level.updateQty(o, order.getLeavesQty());
+        o.setOrderQty(order.getOrderQty());
+        o.setClOrdId(order.getClOrdId());
+        depthTracker.mark(o.getSide(), o.level);
         // if price changed, we need to move order into new PriceLevel
         if (order.getPrice().compareTo(o.getPrice()) != 0) {
             remove(orderId);
@@ -173,17 +211,14 @@ public class IpqOrderBook implements OrderBook {
         if (order == null){
             return false;
         }
-        IndexedPriorityQueue<BigDecimal, PriceLevel> queue = order.getSide() == OrderSide.BUY ? bidsQueue : asksQueue;
-        PriceLevel level = queue.getExact(order.getPrice());
+        IntIndexedPriorityQueue<PriceLevel> queue = order.getSide() == OrderSide.BUY ? bidsQueue : asksQueue;
+        final int tick = getTick(order.getPrice());
+        PriceLevel level = queue.getExact(tick);
         level.resetIterator();
         level.remove(order);
-        if (!level.hasNext()){
-            queue.resetIterator();
-            while (queue.hasNext()){
-                if (level == queue.next()){
-                    queue.remove();
-                }
-            }
+        depthTracker.mark(order.getSide(), level);
+        if (level.isEmpty()){
+            queue.remove(tick);
         }
         return true;
     }
@@ -202,6 +237,7 @@ public class IpqOrderBook implements OrderBook {
         md.setDepth(depth);
         md.setSymbol(symbol);
         md.setTransactTime(System.currentTimeMillis());
+        md.setSeqNum(depthTracker.getSeqNum());
 
         BigDecimal[][] bids = new BigDecimal[bidSize][];
         BigDecimal[][] asks = new BigDecimal[askSize][];
@@ -210,26 +246,86 @@ public class IpqOrderBook implements OrderBook {
 
         bidsQueue.resetIterator();
         while (bidsQueue.hasNext() && bidsIndex < bidSize){
-            BigDecimal cumulativeQuantity = BigDecimal.ZERO;
             PriceLevel level = bidsQueue.next();
-            level.resetIterator();
-            while (level.hasNext()) {
-                cumulativeQuantity = cumulativeQuantity.add(level.next().getLeavesQty());
-            }
-            bids[bidsIndex++] = new BigDecimal[]{level.getPrice(), cumulativeQuantity};
+            bids[bidsIndex++] = new BigDecimal[]{level.getPrice(), level.getTotalQty()};
         }
         asksQueue.resetIterator();
         while (asksQueue.hasNext() && asksIndex < askSize){
-            BigDecimal cumulativeQuantity = BigDecimal.ZERO;
             PriceLevel level = asksQueue.next();
-            level.resetIterator();
-            while (level.hasNext()) {
-                cumulativeQuantity = cumulativeQuantity.add(level.next().getLeavesQty());
-            }
-            asks[asksIndex++] = new BigDecimal[]{level.getPrice(), cumulativeQuantity};
+            asks[asksIndex++] = new BigDecimal[]{level.getPrice(), level.getTotalQty()};
         }
         md.setBids(bids);
         md.setAsks(asks);
         return md;
     }
+
+    @Override
+    public MarketDataUpdate buildMarketDataUpdate() {
+        return depthTracker.build(symbol);
+    }
+
+    @Override
+    public SnapshotType getType() {
+        return SnapshotType.ORDER_BOOK;
+    }
+
+    @Override
+    public SnapshotItem create() {
+        List<Order> orders = new ArrayList<>();
+        forEachOrder(orders::add);
+        SnapshotItem item = new SnapshotItem();
+        item.setType(getType());
+        item.setData(orders);
+        return item;
+    }
+
+    @Override
+    public void forEachRecord(Consumer<Object> consumer) {
+        forEachOrder(consumer::accept);
+    }
+
+    @Override
+    public DepthChangeTracker getDepthTracker() {
+        return depthTracker;
+    }
+
+    @Override
+    public void forEachLevelOrder(OrderSide side, BigDecimal price, Consumer<Order> consumer) {
+        IntIndexedPriorityQueue<PriceLevel> queue = side == OrderSide.BUY ? bidsQueue : asksQueue;
+        PriceLevel level = queue.getExact(getTick(price));
+        if (level != null) {
+          forEachLevelOrder(level, consumer);
+        }
+    }
+
+    private void forEachOrder(Consumer<Order> consumer) {
+        forEachQueueOrder(bidsQueue, consumer);
+        forEachQueueOrder(asksQueue, consumer);
+    }
+
+    private void forEachQueueOrder(IntIndexedPriorityQueue<PriceLevel> queue,
+                                   Consumer<Order> consumer) {
+        queue.resetIterator();
+        while (queue.hasNext()) {
+            forEachLevelOrder(queue.next(), consumer);
+        }
+    }
+
+    private void forEachLevelOrder(PriceLevel level, Consumer<Order> consumer) {
+        level.resetIterator();
+        while (level.hasNext()) {
+            consumer.accept(level.next());
+        }
+    }
+
+    @Override
+    public void load(SnapshotItem data) {
+        ((List<Order>) data.getData())
+                .forEach(this::add);
+    }
+
+    @Override
+    public void loadRecord(Object record) {
+        add((Order) record);
+    }
 }
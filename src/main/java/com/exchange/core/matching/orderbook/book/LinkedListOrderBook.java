@@ -2,36 +2,42 @@ package com.exchange.core.matching.orderbook.book;
 
 import com.exchange.core.config.AppConstants;
 import com.exchange.core.matching.orderbook.OrderBook;
+import com.exchange.core.matching.orderbook.TradeListener;
+import com.exchange.core.matching.orderbook.depth.DepthChangeTracker;
+import com.exchange.core.matching.orderbook.depth.LevelSnapshotable;
 import com.exchange.core.matching.orderbook.level.OrderBookLevel;
 import com.exchange.core.matching.orderbook.level.PriceLevel;
-import com.exchange.core.model.Trade;
+import com.exchange.core.matching.orderbook.map.LongObjectHashMap;
+import com.exchange.core.matching.orderbook.map.LongObjectMap;
+import com.exchange.core.model.SnapshotItem;
 import com.exchange.core.model.enums.OrderSide;
 import com.exchange.core.model.enums.OrderType;
+import com.exchange.core.model.enums.SnapshotType;
 import com.exchange.core.model.msg.MarketData;
+import com.exchange.core.model.msg.MarketDataUpdate;
 import com.exchange.core.model.msg.Order;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.function.Consumer;
 
-public class LinkedListOrderBook implements OrderBook {
+public class LinkedListOrderBook implements OrderBook, LevelSnapshotable {
     private OrderBookLevel bestBid;
     private OrderBookLevel bestAsk;
 
     private final String symbol;
-    private final Map<Long, Order> orderIdMap;
+    private final LongObjectMap<Order> orderIdMap;
+    private final DepthChangeTracker depthTracker = new DepthChangeTracker();
 
     public LinkedListOrderBook(String symbol) {
         this.symbol = symbol;
-        orderIdMap = new HashMap<>();
+        orderIdMap = new LongObjectHashMap<>();
     }
 
     @Override
-    public List<Trade> match(Order taker) {
-        List<Trade> trades = new ArrayList<>();
+    public void match(Order taker, TradeListener listener) {
         if (taker.getSide() == OrderSide.BUY) {
             OrderBookLevel level = bestAsk;
             while (level != null) {
@@ -42,12 +48,13 @@ public class LinkedListOrderBook implements OrderBook {
                     if (taker.getPrice().compareTo(level.getPrice()) < 0) {
                         break;
                     }
-                    matchLimit(taker, level, trades);
+                    matchLimit(taker, level, listener);
                 } else {
-                    matchMarket(taker, level, trades);
+                    matchMarket(taker, level, listener);
                 }
+                depthTracker.mark(OrderSide.SELL, level);
                 // remove level if it fully matched
-                if (!level.hasNext()) {
+                if (level.isEmpty()) {
                     bestAsk = level.next;
                     if (bestAsk != null){
                         bestAsk.prev = null;
@@ -65,12 +72,13 @@ public class LinkedListOrderBook implements OrderBook {
                     if (taker.getPrice().compareTo(level.getPrice()) > 0) {
                         break;
                     }
-                    matchLimit(taker, level, trades);
+                    matchLimit(taker, level, listener);
                 } else {
-                    matchMarket(taker, level, trades);
+                    matchMarket(taker, level, listener);
                 }
+                depthTracker.mark(OrderSide.BUY, level);
                 // remove level if it fully matched
-                if (!level.hasNext()) {
+                if (level.isEmpty()) {
                     bestBid = level.next;
                     if (bestBid != null){
                         bestBid.prev = null;
@@ -79,10 +87,9 @@ public class LinkedListOrderBook implements OrderBook {
                 level = level.next;
             }
         }
-        return trades;
     }
 
-    private void matchLimit(Order taker, PriceLevel level, List<Trade> trades) {
+    private void matchLimit(Order taker, PriceLevel level, TradeListener listener) {
         final BigDecimal tradePrice = level.getPrice();
         level.resetIterator();
         while (level.hasNext() && taker.getLeavesQty().compareTo(BigDecimal.ZERO) > 0) {
@@ -90,9 +97,9 @@ public class LinkedListOrderBook implements OrderBook {
             BigDecimal tradeQty = taker.getLeavesQty().min(maker.getLeavesQty());
             BigDecimal tradeAmount = tradeQty.multiply(tradePrice);
             taker.setLeavesQty(taker.getLeavesQty().subtract(tradeQty));
-            maker.setLeavesQty(maker.getLeavesQty().subtract(tradeQty));
+            level.updateQty(maker, maker.getLeavesQty().subtract(tradeQty));
 
-            trades.add(new Trade(taker, maker, tradeQty, tradePrice, tradeAmount));
+            listener.onTrade(taker, maker, tradeQty, tradePrice, tradeAmount);
 
             if (maker.getLeavesQty().compareTo(BigDecimal.ZERO) == 0) {
                 orderIdMap.remove(maker.getOrderId());
@@ -101,7 +108,7 @@ public class LinkedListOrderBook implements OrderBook {
         }
     }
 
-    private void matchMarket(Order taker, PriceLevel level, List<Trade> trades) {
+    private void matchMarket(Order taker, PriceLevel level, TradeListener listener) {
         level.resetIterator();
         BigDecimal tradePrice = level.getPrice();
         while (level.hasNext() && taker.getLeavesQty().compareTo(BigDecimal.ZERO) > 0) {
@@ -119,16 +126,16 @@ public class LinkedListOrderBook implements OrderBook {
                 }
 
                 taker.setLeavesQty(taker.getLeavesQty().subtract(tradeAmount));
-                maker.setLeavesQty(maker.getLeavesQty().subtract(tradeQty));
+                level.updateQty(maker, maker.getLeavesQty().subtract(tradeQty));
 
             } else {
                 tradeQty = taker.getLeavesQty().min(maker.getLeavesQty());
                 tradeAmount = tradeQty.multiply(tradePrice);
                 taker.setLeavesQty(taker.getLeavesQty().subtract(tradeQty));
-                maker.setLeavesQty(maker.getLeavesQty().subtract(tradeQty));
+                level.updateQty(maker, maker.getLeavesQty().subtract(tradeQty));
             }
 
-            trades.add(new Trade(taker, maker, tradeQty, tradePrice, tradeAmount));
+            listener.onTrade(taker, maker, tradeQty, tradePrice, tradeAmount);
             if (maker.getLeavesQty().compareTo(BigDecimal.ZERO) == 0) {
                 orderIdMap.remove(maker.getOrderId());
                 level.remove();
@@ -220,6 +227,7 @@ public class LinkedListOrderBook implements OrderBook {
                 newLevel.prev = last;
             }
         }
+        depthTracker.mark(order.getSide(), order.level);
         return true;
     }
 
@@ -230,8 +238,11 @@ public class LinkedListOrderBook implements OrderBook {
         if (o == null) {
             return false;
         }
-        // update quantity
-        o.setQuoteOrderQty(order.getQuoteOrderQty());
+        // update quantity in place, so order keeps its priority
+        o.level.updateQty(o, order.getLeavesQty());
+        o.setOrderQty(order.getOrderQty());
+        o.setClOrdId(order.getClOrdId());
+        depthTracker.mark(o.getSide(), o.level);
         // if price changed, we need to move order into new PriceLevel
         if (order.getPrice().compareTo(o.getPrice()) != 0) {
             remove(orderId);
@@ -249,19 +260,18 @@ public class LinkedListOrderBook implements OrderBook {
         OrderBookLevel level = (OrderBookLevel) order.level;
         level.resetIterator();
         level.remove(order);
-        if (!level.hasNext()){
-            // remove current level
-            if (level.next == null){
-                if (order.getSide() == OrderSide.BUY){
-                    bestBid = null;
-                } else {
-                    bestAsk = null;
-                }
+        depthTracker.mark(order.getSide(), level);
+        if (level.isEmpty()){
+            // remove current level, if it's the best one next level becomes the best
+            if (level.prev != null){
+                level.prev.next = level.next;
+            } else if (order.getSide() == OrderSide.BUY){
+                bestBid = level.next;
             } else {
+                bestAsk = level.next;
+            }
+            if (level.next != null){
                 level.next.prev = level.prev;
-                if (level.prev != null){
-                    level.prev.next = level.next;
-                }
             }
         }
         return true;
@@ -294,28 +304,19 @@ public class LinkedListOrderBook implements OrderBook {
         md.setDepth(depth);
         md.setSymbol(symbol);
         md.setTransactTime(System.currentTimeMillis());
+        md.setSeqNum(depthTracker.getSeqNum());
 
         BigDecimal[][] bids = new BigDecimal[bidSize][];
         BigDecimal[][] asks = new BigDecimal[askSize][];
         int bidIndex = 0, askIndex = 0;
         bidLvl = bestBid;
         while (bidLvl != null && bidIndex < bidSize) {
-            BigDecimal cumulativeQuantity = BigDecimal.ZERO;
-            bidLvl.resetIterator();
-            while (bidLvl.hasNext()) {
-                cumulativeQuantity = cumulativeQuantity.add(bidLvl.next().getLeavesQty());
-            }
-            bids[bidIndex++] = new BigDecimal[]{bidLvl.getPrice(), cumulativeQuantity};
+            bids[bidIndex++] = new BigDecimal[]{bidLvl.getPrice(), bidLvl.getTotalQty()};
             bidLvl = bidLvl.next;
         }
         askLvl = bestAsk;
         while (askLvl != null && askIndex < askSize) {
-            BigDecimal cumulativeQuantity = BigDecimal.ZERO;
-            askLvl.resetIterator();
-            while (askLvl.hasNext()) {
-                cumulativeQuantity = cumulativeQuantity.add(askLvl.next().getLeavesQty());
-            }
-            asks[askIndex++] = new BigDecimal[]{askLvl.getPrice(), cumulativeQuantity};
+            asks[askIndex++] = new BigDecimal[]{askLvl.getPrice(), askLvl.getTotalQty()};
             askLvl = askLvl.next;
         }
 
@@ -323,4 +324,71 @@ public class LinkedListOrderBook implements OrderBook {
         md.setAsks(asks);
         return md;
     }
+
+    @Override
+    public MarketDataUpdate buildMarketDataUpdate() {
+        return depthTracker.build(symbol);
+    }
+
+    @Override
+    public SnapshotType getType() {
+        return SnapshotType.ORDER_BOOK;
+    }
+
+    @Override
+    public SnapshotItem create() {
+        List<Order> orders = new ArrayList<>();
+        forEachRecord(order -> orders.add((Order) order));
+        SnapshotItem item = new SnapshotItem();
+        item.setType(getType());
+        item.setData(orders);
+        return item;
+    }
+
+    @Override
+    public void forEachRecord(Consumer<Object> consumer) {
+        for (OrderBookLevel level = bestBid; level != null; level = level.next) {
+            forEachLevelOrder(level, consumer::accept);
+        }
+        for (OrderBookLevel level = bestAsk; level != null; level = level.next) {
+            forEachLevelOrder(level, consumer::accept);
+        }
+    }
+
+    @Override
+    public DepthChangeTracker getDepthTracker() {
+        return depthTracker;
+    }
+
+    /**
+     * Levels are linked list, so level is found by walking from the best price
+     */
+    @Override
+    public void forEachLevelOrder(OrderSide side, BigDecimal price, Consumer<Order> consumer) {
+        OrderBookLevel level = side == OrderSide.BUY ? bestBid : bestAsk;
+        while (level != null) {
+            if (level.getPrice().compareTo(price) == 0) {
+                forEachLevelOrder(level, consumer);
+                return;
+            }
+            level = level.next;
+        }
+    }
+
+    private void forEachLevelOrder(PriceLevel level, Consumer<Order> consumer) {
+        level.resetIterator();
+        while (level.hasNext()) {
+            consumer.accept(level.next());
+        }
+    }
+
+    @Override
+    public void load(SnapshotItem data) {
+        ((List<Order>) data.getData()).forEach(this::add);
+    }
+
+    @Override
+    public void loadRecord(Object record) {
+        add((Order) record);
+    }
 }
\ No newline at end of file
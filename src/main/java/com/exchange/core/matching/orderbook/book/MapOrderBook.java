@@ -2,32 +2,37 @@ package com.exchange.core.matching.orderbook.book;
 
 import com.exchange.core.config.AppConstants;
 import com.exchange.core.matching.orderbook.OrderBook;
+import com.exchange.core.matching.orderbook.TradeListener;
+import com.exchange.core.matching.orderbook.depth.DepthChangeTracker;
+import com.exchange.core.matching.orderbook.depth.LevelSnapshotable;
 import com.exchange.core.matching.orderbook.level.LinkedListPriceLevel;
 import com.exchange.core.matching.orderbook.level.PriceLevel;
-import com.exchange.core.matching.snapshot.Snapshotable;
+import com.exchange.core.matching.orderbook.map.LongObjectHashMap;
+import com.exchange.core.matching.orderbook.map.LongObjectMap;
 import com.exchange.core.model.SnapshotItem;
-import com.exchange.core.model.Trade;
 import com.exchange.core.model.enums.OrderSide;
 import com.exchange.core.model.enums.SnapshotType;
 import com.exchange.core.model.msg.MarketData;
+import com.exchange.core.model.msg.MarketDataUpdate;
 import com.exchange.core.model.msg.Order;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.util.ArrayList;
 import java.util.Comparator;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.NavigableMap;
 import java.util.TreeMap;
+import java.util.function.Consumer;
 
-public class MapOrderBook implements OrderBook, Snapshotable {
+public class MapOrderBook implements OrderBook, LevelSnapshotable {
 
   private final NavigableMap<BigDecimal, PriceLevel> bids = new TreeMap<>(
           Comparator.reverseOrder());
   private final NavigableMap<BigDecimal, PriceLevel> asks = new TreeMap<>();
-  private final Map<Long, Order> orderIdMap = new HashMap<>();
+  private final LongObjectMap<Order> orderIdMap = new LongObjectHashMap<>();
+  private final DepthChangeTracker depthTracker = new DepthChangeTracker();
   private final String symbol;
 
   public MapOrderBook(String symbol) {
@@ -35,15 +40,14 @@ public class MapOrderBook implements OrderBook, Snapshotable {
   }
 
   @Override
-  public List<Trade> match(Order taker) {
-    return switch (taker.getType()) {
-      case MARKET -> matchMarket(taker);
-      case LIMIT -> matchLimit(taker);
-    };
+  public void match(Order taker, TradeListener listener) {
+    switch (taker.getType()) {
+      case MARKET -> matchMarket(taker, listener);
+      case LIMIT -> matchLimit(taker, listener);
+    }
   }
 
-  private List<Trade> matchMarket(Order taker) {
-    List<Trade> trades = new ArrayList<>();
+  private void matchMarket(Order taker, TradeListener listener) {
     Map<BigDecimal, PriceLevel> counterMap = taker.getSide() == OrderSide.BUY ? asks : bids;
     Iterator<BigDecimal> iterator = counterMap.keySet().iterator();
     while (iterator.hasNext() && taker.getLeavesQty().compareTo(BigDecimal.ZERO) > 0) {
@@ -69,31 +73,30 @@ public class MapOrderBook implements OrderBook, Snapshotable {
           }
 
           taker.setLeavesQty(taker.getLeavesQty().subtract(tradeAmount));
-          maker.setLeavesQty(maker.getLeavesQty().subtract(tradeQty));
+          level.updateQty(maker, maker.getLeavesQty().subtract(tradeQty));
 
         } else {
           tradeQty = taker.getLeavesQty().min(maker.getLeavesQty());
           tradeAmount = tradeQty.multiply(tradePrice);
           taker.setLeavesQty(taker.getLeavesQty().subtract(tradeQty));
-          maker.setLeavesQty(maker.getLeavesQty().subtract(tradeQty));
+          level.updateQty(maker, maker.getLeavesQty().subtract(tradeQty));
         }
 
-        trades.add(new Trade(taker, maker, tradeQty, tradePrice, tradeAmount));
+        listener.onTrade(taker, maker, tradeQty, tradePrice, tradeAmount);
         if (maker.getLeavesQty().compareTo(BigDecimal.ZERO) == 0) {
           level.remove();
           orderIdMap.remove(maker.getOrderId());
         }
       }
-      if (!level.hasNext()) {
+      depthTracker.mark(taker.getSide() == OrderSide.BUY ? OrderSide.SELL : OrderSide.BUY, level);
+      if (level.isEmpty()) {
         iterator.remove();
       }
     }
-    return trades;
   }
 
 
-  private List<Trade> matchLimit(Order taker) {
-    List<Trade> trades = new ArrayList<>();
+  private void matchLimit(Order taker, TradeListener listener) {
     Map<BigDecimal, PriceLevel> counterMap;
     if (taker.getSide() == OrderSide.BUY) {
       counterMap = asks.headMap(taker.getPrice(), true);
@@ -113,20 +116,20 @@ public class MapOrderBook implements OrderBook, Snapshotable {
         BigDecimal tradeQty = taker.getLeavesQty().min(maker.getLeavesQty());
         BigDecimal tradeAmount = tradeQty.multiply(tradePrice);
         taker.setLeavesQty(taker.getLeavesQty().subtract(tradeQty));
-        maker.setLeavesQty(maker.getLeavesQty().subtract(tradeQty));
+        level.updateQty(maker, maker.getLeavesQty().subtract(tradeQty));
 
-        trades.add(new Trade(taker, maker, tradeQty, tradePrice, tradeAmount));
+        listener.onTrade(taker, maker, tradeQty, tradePrice, tradeAmount);
 
         if (maker.getLeavesQty().compareTo(BigDecimal.ZERO) == 0) {
           level.remove();
           orderIdMap.remove(maker.getOrderId());
         }
       }
-      if (!level.hasNext()) {
+      depthTracker.mark(taker.getSide() == OrderSide.BUY ? OrderSide.SELL : OrderSide.BUY, level);
+      if (level.isEmpty()) {
         iterator.remove();
       }
     }
-    return trades;
   }
 
   @Override
@@ -137,6 +140,7 @@ public class MapOrderBook implements OrderBook, Snapshotable {
       return o;
     });
     orderIdMap.put(order.getOrderId(), order);
+    depthTracker.mark(order.getSide(), order.level);
     return true;
   }
 
@@ -147,8 +151,11 @@ public class MapOrderBook implements OrderBook, Snapshotable {
     if (o == null) {
       return false;
     }
-    // update quantity
-    o.setQuoteOrderQty(order.getQuoteOrderQty());
+    // update quantity in place, so order keeps its priority
+    o.level.updateQty(o, order.getLeavesQty());
+    o.setOrderQty(order.getOrderQty());
+    o.setClOrdId(order.getClOrdId());
+    depthTracker.mark(o.getSide(), o.level);
     // if price changed, we need to move order into new PriceLevel
     if (order.getPrice().compareTo(o.getPrice()) != 0) {
       remove(orderId);
@@ -167,7 +174,8 @@ public class MapOrderBook implements OrderBook, Snapshotable {
     PriceLevel level = book.get(order.getPrice());
     level.resetIterator();
     level.remove(order);
-    if (!level.hasNext()){
+    depthTracker.mark(order.getSide(), level);
+    if (level.isEmpty()){
       book.remove(level.getPrice());
     }
     return true;
@@ -188,30 +196,19 @@ public class MapOrderBook implements OrderBook, Snapshotable {
     md.setDepth(depth);
     md.setSymbol(symbol);
     md.setTransactTime(System.currentTimeMillis());
+    md.setSeqNum(depthTracker.getSeqNum());
 
     BigDecimal[][] bids = new BigDecimal[bidSize][];
     BigDecimal[][] asks = new BigDecimal[askSize][];
     int bidIndex = 0, asksIndex = 0;
     for (Map.Entry<BigDecimal, PriceLevel> e : this.bids.entrySet()) {
-      BigDecimal cumulativeQuantity = BigDecimal.ZERO;
-      PriceLevel level = e.getValue();
-      level.resetIterator();
-      while (level.hasNext()) {
-        cumulativeQuantity = cumulativeQuantity.add(level.next().getLeavesQty());
-      }
-      bids[bidIndex++] = new BigDecimal[]{e.getKey(), cumulativeQuantity};
+      bids[bidIndex++] = new BigDecimal[]{e.getKey(), e.getValue().getTotalQty()};
       if (bidIndex == bidSize) {
         break;
       }
     }
     for (Map.Entry<BigDecimal, PriceLevel> e : this.asks.entrySet()) {
-      BigDecimal cumulativeQuantity = BigDecimal.ZERO;
-      PriceLevel level = e.getValue();
-      level.resetIterator();
-      while (level.hasNext()) {
-        cumulativeQuantity = cumulativeQuantity.add(level.next().getLeavesQty());
-      }
-      asks[asksIndex++] = new BigDecimal[]{e.getKey(), cumulativeQuantity};
+      asks[asksIndex++] = new BigDecimal[]{e.getKey(), e.getValue().getTotalQty()};
       if (asksIndex == askSize) {
         break;
       }
@@ -221,6 +218,11 @@ public class MapOrderBook implements OrderBook, Snapshotable {
     return md;
   }
 
+  @Override
+  public MarketDataUpdate buildMarketDataUpdate() {
+    return depthTracker.build(symbol);
+  }
+
   @Override
   public SnapshotType getType() {
     return SnapshotType.ORDER_BOOK;
@@ -229,27 +231,51 @@ public class MapOrderBook implements OrderBook, Snapshotable {
   @Override
   public SnapshotItem create() {
     List<Order> orders = new ArrayList<>();
-    bids.values().forEach(level -> {
-      level.resetIterator();
-      while (level.hasNext()) {
-        orders.add(level.next());
-      }
-    });
-    asks.values().forEach(level -> {
-      level.resetIterator();
-      while (level.hasNext()) {
-        orders.add(level.next());
-      }
-    });
+    forEachOrder(orders::add);
     SnapshotItem item = new SnapshotItem();
     item.setType(getType());
     item.setData(orders);
     return item;
   }
 
+  @Override
+  public void forEachRecord(Consumer<Object> consumer) {
+    forEachOrder(consumer::accept);
+  }
+
+  @Override
+  public DepthChangeTracker getDepthTracker() {
+    return depthTracker;
+  }
+
+  @Override
+  public void forEachLevelOrder(OrderSide side, BigDecimal price, Consumer<Order> consumer) {
+    PriceLevel level = (side == OrderSide.BUY ? bids : asks).get(price);
+    if (level != null) {
+      forEachLevelOrder(level, consumer);
+    }
+  }
+
+  private void forEachOrder(Consumer<Order> consumer) {
+    bids.values().forEach(level -> forEachLevelOrder(level, consumer));
+    asks.values().forEach(level -> forEachLevelOrder(level, consumer));
+  }
+
+  private void forEachLevelOrder(PriceLevel level, Consumer<Order> consumer) {
+    level.resetIterator();
+    while (level.hasNext()) {
+      consumer.accept(level.next());
+    }
+  }
+
   @Override
   public void load(SnapshotItem data) {
     ((List<Order>) data.getData())
             .forEach(this::add);
   }
+
+  @Override
+  public void loadRecord(Object record) {
+    add((Order) record);
+  }
 }
\ No newline at end of file
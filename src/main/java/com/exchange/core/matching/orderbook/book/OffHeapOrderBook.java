@@ -0,0 +1,446 @@
+package com.exchange.core.matching.orderbook.book;
+
+import com.exchange.core.config.AppConstants;
+import com.exchange.core.exceptions.AppException;
+import com.exchange.core.matching.orderbook.OrderBook;
+import com.exchange.core.matching.orderbook.TradeListener;
+import com.exchange.core.matching.orderbook.bitset.HierarchicalBitSet;
+import com.exchange.core.matching.orderbook.depth.DepthChangeTracker;
+import com.exchange.core.matching.orderbook.depth.LevelSnapshotable;
+import com.exchange.core.matching.orderbook.map.LongIntHashMap;
+import com.exchange.core.matching.orderbook.offheap.OffHeapOrderStore;
+import com.exchange.core.model.SnapshotItem;
+import com.exchange.core.model.enums.OrderSide;
+import com.exchange.core.model.enums.OrderType;
+import com.exchange.core.model.enums.SnapshotType;
+import com.exchange.core.model.msg.MarketData;
+import com.exchange.core.model.msg.MarketDataUpdate;
+import com.exchange.core.model.msg.Order;
+import com.exchange.core.utils.FixedPoint;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Fixed-point order book which keeps resting orders in OffHeapOrderStore slots instead of Order
+ * objects, so heap and GC marking time don't grow with number of resting orders
+ * Price ladder is indexed by Order.scaledPrice like ArrayOrderBook in fixed-point mode. Levels are
+ * kept as arrays over ticks (head/tail slot of FIFO list and total quantity), orders of a level
+ * are linked by slot prev/next handles, and 2 HierarchicalBitSet mark ticks with bids/asks
+ * Level arrays are split into pages allocated on first use like in ArrayOrderBook, so ladder size
+ * follows price scale while memory depends on range of prices which are actually traded
+ * Order passed to add is copied into slot and is not retained. Maker passed to TradeListener is
+ * a single view reused for every fill, getOrder builds new Order from slot
+ */
+public class OffHeapOrderBook implements OrderBook, LevelSnapshotable {
+
+  private static final int NONE = OffHeapOrderStore.NONE;
+  private static final int PAGE_BITS = 16;
+  private static final int PAGE_MASK = (1 << PAGE_BITS) - 1;
+
+  private final String symbol;
+  private final int priceScale;
+  private final int quantityScale;
+  private final int maxTicks;
+  private final OffHeapOrderStore store;
+  private final LongIntHashMap orderIdMap = new LongIntHashMap();
+  private final int[][] head;
+  private final int[][] tail;
+  private final long[][] totalQty;
+  private final HierarchicalBitSet bids;
+  private final HierarchicalBitSet asks;
+  private final DepthChangeTracker depthTracker;
+  private final Order maker = new Order();
+
+  public OffHeapOrderBook(String symbol, int priceScale, int quantityScale) {
+    this(symbol, priceScale, quantityScale,
+        (int) ArrayOrderBook.ladderTicks(ArrayOrderBook.DEFAULT_MAX_PRICE, priceScale),
+        new OffHeapOrderStore());
+  }
+
+  /**
+   * @param maxTicks - max scaled price, prices should be in range (0, maxTicks)
+   */
+  public OffHeapOrderBook(String symbol, int priceScale, int quantityScale, int maxTicks,
+      OffHeapOrderStore store) {
+    this.symbol = symbol;
+    this.priceScale = priceScale;
+    this.quantityScale = quantityScale;
+    this.maxTicks = maxTicks;
+    this.store = store;
+    final int pages = (maxTicks >>> PAGE_BITS) + 1;
+    head = new int[pages][];
+    tail = new int[pages][];
+    totalQty = new long[pages][];
+    bids = new HierarchicalBitSet(maxTicks);
+    asks = new HierarchicalBitSet(maxTicks);
+    depthTracker = new DepthChangeTracker(true, priceScale, quantityScale);
+  }
+
+  @Override
+  public void match(Order taker, TradeListener listener) {
+    if (taker.getSide() == OrderSide.BUY) {
+      int tick = asks.first();
+      while (tick != -1 && taker.getScaledLeavesQty() > 0) {
+        if (taker.getType() == OrderType.LIMIT && taker.getScaledPrice() < tick) {
+          break;
+        }
+        matchLevel(taker, tick, listener);
+        depthTracker.mark(OrderSide.SELL, tick, totalQty(tick));
+        if (head(tick) == NONE) {
+          asks.clear(tick);
+        }
+        tick = asks.nextSetBit(tick + 1);
+      }
+    } else {
+      int tick = bids.last();
+      while (tick != -1 && taker.getScaledLeavesQty() > 0) {
+        if (taker.getType() == OrderType.LIMIT && taker.getScaledPrice() > tick) {
+          break;
+        }
+        matchLevel(taker, tick, listener);
+        depthTracker.mark(OrderSide.BUY, tick, totalQty(tick));
+        if (head(tick) == NONE) {
+          bids.clear(tick);
+        }
+        tick = bids.prevSetBit(tick - 1);
+      }
+    }
+  }
+
+  /**
+   * Same arithmetic as ArrayOrderBook in fixed-point mode, for market buy leavesQty is amount
+   * with scale priceScale + quantityScale
+   */
+  private void matchLevel(Order taker, int tick, TradeListener listener) {
+    final long tradePrice = tick;
+    int handle = head(tick);
+    while (handle != NONE && taker.getScaledLeavesQty() > 0) {
+      final int next = store.getNext(handle);
+      final long makerQty = store.getLeavesQty(handle);
+      long tradeQty, tradeAmount;
+      if (taker.getType() == OrderType.MARKET && taker.getSide() == OrderSide.BUY) {
+        long takerTradeAmount = taker.getScaledLeavesQty();
+        long takerTradeQty = takerTradeAmount / tradePrice;
+
+        tradeQty = Math.min(takerTradeQty, makerQty);
+        tradeAmount = FixedPoint.multiply(tradeQty, tradePrice);
+        if (makerQty > takerTradeQty) {
+          tradeAmount = takerTradeAmount;
+        }
+        taker.setScaledLeavesQty(taker.getScaledLeavesQty() - tradeAmount);
+      } else {
+        tradeQty = Math.min(taker.getScaledLeavesQty(), makerQty);
+        tradeAmount = FixedPoint.multiply(tradeQty, tradePrice);
+        taker.setScaledLeavesQty(taker.getScaledLeavesQty() - tradeQty);
+      }
+      store.setLeavesQty(handle, makerQty - tradeQty);
+      addQty(tick, -tradeQty);
+
+      listener.onTrade(taker, fillView(handle), tradeQty, tradePrice, tradeAmount);
+
+      if (makerQty == tradeQty) {
+        orderIdMap.remove(store.getOrderId(handle));
+        unlink(tick, handle);
+        store.free(handle);
+      }
+      handle = next;
+    }
+  }
+
+  @Override
+  public boolean add(Order order) {
+    final long price = order.getScaledPrice();
+    if (price <= 0 || price >= maxTicks) {
+      throw new AppException("Price out of range: price=" + order.getPrice()
+          + ", maxTicks=" + maxTicks);
+    }
+    final int tick = (int) price;
+    final long orderQty = FixedPoint.toLong(order.getOrderQty(), quantityScale);
+    final int handle = store.allocate();
+    store.setOrderId(handle, order.getOrderId());
+    store.setPrice(handle, price);
+    store.setLeavesQty(handle, order.getScaledLeavesQty());
+    store.setOrderQty(handle, orderQty);
+    store.setAccount(handle, order.getAccount());
+    store.setSide(handle, order.getSide());
+    store.setClOrdId(handle, order.getClOrdId());
+    orderIdMap.put(order.getOrderId(), handle);
+    allocatePage(tick);
+    // append to the tail of level FIFO
+    final int last = tail(tick);
+    store.setNext(handle, NONE);
+    store.setPrev(handle, last);
+    if (last == NONE) {
+      setHead(tick, handle);
+    } else {
+      store.setNext(last, handle);
+    }
+    setTail(tick, handle);
+    addQty(tick, order.getScaledLeavesQty());
+    (order.getSide() == OrderSide.BUY ? bids : asks).set(tick);
+    depthTracker.mark(order.getSide(), tick, totalQty(tick));
+    return true;
+  }
+
+  @Override
+  public boolean update(Order order) {
+    final long orderId = order.getOrderId();
+    final int handle = orderIdMap.get(orderId);
+    if (handle == NONE) {
+      return false;
+    }
+    scale(order);
+    // if price changed, we need to move order into new level
+    if (order.getScaledPrice() != store.getPrice(handle)) {
+      remove(orderId);
+      add(order);
+      return true;
+    }
+    final int tick = (int) order.getScaledPrice();
+    addQty(tick, order.getScaledLeavesQty() - store.getLeavesQty(handle));
+    store.setLeavesQty(handle, order.getScaledLeavesQty());
+    if (order.getOrderQty() != null) {
+      store.setOrderQty(handle, FixedPoint.toLong(order.getOrderQty(), quantityScale));
+    }
+    store.setClOrdId(handle, order.getClOrdId());
+    depthTracker.mark(store.getSide(handle), tick, totalQty(tick));
+    return true;
+  }
+
+  @Override
+  public boolean remove(long orderId) {
+    final int handle = orderIdMap.remove(orderId);
+    if (handle == NONE) {
+      return false;
+    }
+    final int tick = (int) store.getPrice(handle);
+    final OrderSide side = store.getSide(handle);
+    unlink(tick, handle);
+    addQty(tick, -store.getLeavesQty(handle));
+    store.free(handle);
+    if (head(tick) == NONE) {
+      (side == OrderSide.BUY ? bids : asks).clear(tick);
+    }
+    depthTracker.mark(side, tick, totalQty(tick));
+    return true;
+  }
+
+  private void unlink(int tick, int handle) {
+    final int prev = store.getPrev(handle);
+    final int next = store.getNext(handle);
+    if (prev == NONE) {
+      setHead(tick, next);
+    } else {
+      store.setNext(prev, next);
+    }
+    if (next == NONE) {
+      setTail(tick, prev);
+    } else {
+      store.setPrev(next, prev);
+    }
+  }
+
+  /**
+   * Pages of all level arrays are allocated together, so only add needs to check them
+   */
+  private void allocatePage(int tick) {
+    final int page = tick >>> PAGE_BITS;
+    if (head[page] == null) {
+      head[page] = new int[1 << PAGE_BITS];
+      tail[page] = new int[1 << PAGE_BITS];
+      Arrays.fill(head[page], NONE);
+      Arrays.fill(tail[page], NONE);
+      totalQty[page] = new long[1 << PAGE_BITS];
+    }
+  }
+
+  private int head(int tick) {
+    int[] page = head[tick >>> PAGE_BITS];
+    return page == null ? NONE : page[tick & PAGE_MASK];
+  }
+
+  private int tail(int tick) {
+    int[] page = tail[tick >>> PAGE_BITS];
+    return page == null ? NONE : page[tick & PAGE_MASK];
+  }
+
+  private long totalQty(int tick) {
+    long[] page = totalQty[tick >>> PAGE_BITS];
+    return page == null ? 0 : page[tick & PAGE_MASK];
+  }
+
+  private void setHead(int tick, int handle) {
+    head[tick >>> PAGE_BITS][tick & PAGE_MASK] = handle;
+  }
+
+  private void setTail(int tick, int handle) {
+    tail[tick >>> PAGE_BITS][tick & PAGE_MASK] = handle;
+  }
+
+  private void addQty(int tick, long qty) {
+    totalQty[tick >>> PAGE_BITS][tick & PAGE_MASK] += qty;
+  }
+
+  @Override
+  public Order getOrder(long orderId) {
+    final int handle = orderIdMap.get(orderId);
+    if (handle == NONE) {
+      return null;
+    }
+    return toOrder(handle);
+  }
+
+  /**
+   * Build new Order from slot with both BigDecimal and scaled values
+   */
+  private Order toOrder(int handle) {
+    Order order = new Order();
+    fill(order, handle);
+    order.setLeavesQty(FixedPoint.toBigDecimal(store.getLeavesQty(handle), quantityScale));
+    return order;
+  }
+
+  /**
+   * Fill reused maker view, BigDecimal leavesQty is not set, fixed-point consumers use scaled one
+   */
+  private Order fillView(int handle) {
+    fill(maker, handle);
+    return maker;
+  }
+
+  private void fill(Order order, int handle) {
+    order.setSymbol(symbol);
+    order.setOrderId(store.getOrderId(handle));
+    order.setClOrdId(store.getClOrdId(handle));
+    order.setAccount(store.getAccount(handle));
+    order.setSide(store.getSide(handle));
+    order.setType(OrderType.LIMIT);
+    order.setScaledPrice(store.getPrice(handle));
+    order.setScaledLeavesQty(store.getLeavesQty(handle));
+    order.setPrice(FixedPoint.toBigDecimal(store.getPrice(handle), priceScale));
+    order.setOrderQty(FixedPoint.toBigDecimal(store.getOrderQty(handle), quantityScale));
+  }
+
+  /**
+   * Orders coming from outside (update/snapshot) have only BigDecimal values
+   */
+  private void scale(Order order) {
+    order.setScaledPrice(FixedPoint.toLong(order.getPrice(), priceScale));
+    order.setScaledLeavesQty(FixedPoint.toLong(order.getLeavesQty(), quantityScale));
+  }
+
+  @Override
+  public MarketData buildMarketData() {
+    BigDecimal[][] bidLevels = new BigDecimal[countLevels(bids, true)][];
+    BigDecimal[][] askLevels = new BigDecimal[countLevels(asks, false)][];
+    int tick = bids.last();
+    for (int i = 0; i < bidLevels.length; i++) {
+      bidLevels[i] = buildLevel(tick);
+      tick = bids.prevSetBit(tick - 1);
+    }
+    tick = asks.first();
+    for (int i = 0; i < askLevels.length; i++) {
+      askLevels[i] = buildLevel(tick);
+      tick = asks.nextSetBit(tick + 1);
+    }
+    MarketData md = new MarketData();
+    md.setDepth(Math.max(bidLevels.length, askLevels.length));
+    md.setSymbol(symbol);
+    md.setTransactTime(System.currentTimeMillis());
+    md.setSeqNum(depthTracker.getSeqNum());
+    md.setBids(bidLevels);
+    md.setAsks(askLevels);
+    return md;
+  }
+
+  /**
+   * Count levels from the best price, but not more than default depth
+   */
+  private int countLevels(HierarchicalBitSet side, boolean desc) {
+    int count = 0;
+    int tick = desc ? side.last() : side.first();
+    while (tick != -1 && count < AppConstants.DEFAULT_DEPTH) {
+      count++;
+      tick = desc ? side.prevSetBit(tick - 1) : side.nextSetBit(tick + 1);
+    }
+    return count;
+  }
+
+  private BigDecimal[] buildLevel(int tick) {
+    return new BigDecimal[]{FixedPoint.toBigDecimal(tick, priceScale),
+        FixedPoint.toBigDecimal(totalQty(tick), quantityScale)};
+  }
+
+  @Override
+  public MarketDataUpdate buildMarketDataUpdate() {
+    return depthTracker.build(symbol);
+  }
+
+  @Override
+  public SnapshotType getType() {
+    return SnapshotType.ORDER_BOOK;
+  }
+
+  @Override
+  public SnapshotItem create() {
+    List<Order> orders = new ArrayList<>();
+    forEachOrder(orders::add);
+    SnapshotItem item = new SnapshotItem();
+    item.setType(getType());
+    item.setData(orders);
+    return item;
+  }
+
+  /**
+   * Every order is a new object built from off-heap store
+   */
+  @Override
+  public void forEachRecord(Consumer<Object> consumer) {
+    forEachOrder(consumer::accept);
+  }
+
+  @Override
+  public DepthChangeTracker getDepthTracker() {
+    return depthTracker;
+  }
+
+  @Override
+  public void forEachLevelOrder(OrderSide side, BigDecimal price, Consumer<Order> consumer) {
+    int tick = (int) FixedPoint.toLong(price, priceScale);
+    if ((side == OrderSide.BUY ? bids : asks).get(tick)) {
+      forEachTickOrder(tick, consumer);
+    }
+  }
+
+  private void forEachOrder(Consumer<Order> consumer) {
+    forEachSideOrder(bids, consumer);
+    forEachSideOrder(asks, consumer);
+  }
+
+  private void forEachSideOrder(HierarchicalBitSet side, Consumer<Order> consumer) {
+    for (int tick = side.first(); tick != -1; tick = side.nextSetBit(tick + 1)) {
+      forEachTickOrder(tick, consumer);
+    }
+  }
+
+  private void forEachTickOrder(int tick, Consumer<Order> consumer) {
+    for (int handle = head(tick); handle != NONE; handle = store.getNext(handle)) {
+      consumer.accept(toOrder(handle));
+    }
+  }
+
+  @Override
+  public void load(SnapshotItem data) {
+    ((List<Order>) data.getData()).forEach(this::loadRecord);
+  }
+
+  @Override
+  public void loadRecord(Object record) {
+    Order order = (Order) record;
+    scale(order);
+    add(order);
+  }
+}
@@ -0,0 +1,361 @@
+package com.exchange.core.matching.orderbook.book;
+
+import com.exchange.core.config.AppConstants;
+import com.exchange.core.exceptions.AppException;
+import com.exchange.core.matching.orderbook.OrderBook;
+import com.exchange.core.matching.orderbook.TradeListener;
+import com.exchange.core.matching.orderbook.depth.DepthChangeTracker;
+import com.exchange.core.matching.orderbook.depth.LevelSnapshotable;
+import com.exchange.core.matching.orderbook.level.LinkedListPriceLevel;
+import com.exchange.core.matching.orderbook.level.PriceLevel;
+import com.exchange.core.matching.orderbook.map.LongObjectHashMap;
+import com.exchange.core.matching.orderbook.map.LongObjectMap;
+import com.exchange.core.matching.orderbook.window.PriceLevelWindow;
+import com.exchange.core.model.SnapshotItem;
+import com.exchange.core.model.enums.OrderSide;
+import com.exchange.core.model.enums.OrderType;
+import com.exchange.core.model.enums.SnapshotType;
+import com.exchange.core.model.msg.MarketData;
+import com.exchange.core.model.msg.MarketDataUpdate;
+import com.exchange.core.model.msg.Order;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Same idea as ArrayOrderBook (price in ticks is index of PriceLevel), but instead of array of
+ * maxPrice size only a window of ticks around mid price is kept in array, far-away levels are kept
+ * in sorted overflow (see PriceLevelWindow). When mid price leaves the central half of the window,
+ * window is re-centred on it, so memory per symbol depends on window size and active depth
+ */
+public class SlidingWindowOrderBook implements OrderBook, LevelSnapshotable {
+
+  private final String symbol;
+  private final BigDecimal tickSize;
+  private final PriceLevelWindow bids;
+  private final PriceLevelWindow asks;
+  private final LongObjectMap<Order> orderIdMap = new LongObjectHashMap<>();
+  private final DepthChangeTracker depthTracker = new DepthChangeTracker();
+
+  public SlidingWindowOrderBook(String symbol) {
+    this(symbol, BigDecimal.ONE, 4096);
+  }
+
+  /**
+   * @param tickSize - min price step, every price should be multiple of it
+   * @param windowSize - number of ticks kept in array for each side, rounded up to power of 2
+   */
+  public SlidingWindowOrderBook(String symbol, BigDecimal tickSize, int windowSize) {
+    this.symbol = symbol;
+    this.tickSize = tickSize;
+    bids = new PriceLevelWindow(windowSize);
+    asks = new PriceLevelWindow(windowSize);
+  }
+
+  @Override
+  public void match(Order taker, TradeListener listener) {
+    final BigDecimal leavesQty = taker.getLeavesQty();
+    if (taker.getSide() == OrderSide.BUY) {
+      long tick = asks.first();
+      while (tick != PriceLevelWindow.NONE
+          && taker.getLeavesQty().compareTo(BigDecimal.ZERO) != 0) {
+        PriceLevel level = asks.get(tick);
+        if (taker.getType() == OrderType.LIMIT) {
+          if (taker.getPrice().compareTo(level.getPrice()) < 0) {
+            break;
+          }
+          matchLimit(taker, level, listener);
+        } else {
+          matchMarket(taker, level, listener);
+        }
+        depthTracker.mark(OrderSide.SELL, level);
+        if (level.isEmpty()) {
+          asks.remove(tick);
+        }
+        tick = asks.next(tick + 1);
+      }
+    } else {
+      long tick = bids.last();
+      while (tick != PriceLevelWindow.NONE
+          && taker.getLeavesQty().compareTo(BigDecimal.ZERO) != 0) {
+        PriceLevel level = bids.get(tick);
+        if (taker.getType() == OrderType.LIMIT) {
+          if (taker.getPrice().compareTo(level.getPrice()) > 0) {
+            break;
+          }
+          matchLimit(taker, level, listener);
+        } else {
+          matchMarket(taker, level, listener);
+        }
+        depthTracker.mark(OrderSide.BUY, level);
+        if (level.isEmpty()) {
+          bids.remove(tick);
+        }
+        tick = bids.prev(tick - 1);
+      }
+    }
+    if (taker.getLeavesQty().compareTo(leavesQty) != 0) {
+      recenter();
+    }
+  }
+
+  private void matchLimit(Order taker, PriceLevel level, TradeListener listener) {
+    final BigDecimal tradePrice = level.getPrice();
+    level.resetIterator();
+    while (level.hasNext() && taker.getLeavesQty().compareTo(BigDecimal.ZERO) > 0) {
+      Order maker = level.next();
+      BigDecimal tradeQty = taker.getLeavesQty().min(maker.getLeavesQty());
+      BigDecimal tradeAmount = tradeQty.multiply(tradePrice);
+      taker.setLeavesQty(taker.getLeavesQty().subtract(tradeQty));
+      level.updateQty(maker, maker.getLeavesQty().subtract(tradeQty));
+
+      listener.onTrade(taker, maker, tradeQty, tradePrice, tradeAmount);
+
+      if (maker.getLeavesQty().compareTo(BigDecimal.ZERO) == 0) {
+        orderIdMap.remove(maker.getOrderId());
+        level.remove();
+      }
+    }
+  }
+
+  private void matchMarket(Order taker, PriceLevel level, TradeListener listener) {
+    level.resetIterator();
+    BigDecimal tradePrice = level.getPrice();
+    while (level.hasNext() && taker.getLeavesQty().compareTo(BigDecimal.ZERO) > 0) {
+      Order maker = level.next();
+      BigDecimal tradeQty, tradeAmount;
+      if (taker.getSide() == OrderSide.BUY) {
+        BigDecimal takerTradeAmount = taker.getLeavesQty();
+        BigDecimal takerTradeQty = takerTradeAmount.divide(tradePrice, AppConstants.ROUNDING_SCALE,
+            RoundingMode.DOWN);
+
+        tradeQty = takerTradeQty.min(maker.getLeavesQty());
+        tradeAmount = tradeQty.multiply(tradePrice);
+        if (maker.getLeavesQty().compareTo(takerTradeQty) > 0) {
+          tradeAmount = takerTradeAmount;
+        }
+
+        taker.setLeavesQty(taker.getLeavesQty().subtract(tradeAmount));
+        level.updateQty(maker, maker.getLeavesQty().subtract(tradeQty));
+
+      } else {
+        tradeQty = taker.getLeavesQty().min(maker.getLeavesQty());
+        tradeAmount = tradeQty.multiply(tradePrice);
+        taker.setLeavesQty(taker.getLeavesQty().subtract(tradeQty));
+        level.updateQty(maker, maker.getLeavesQty().subtract(tradeQty));
+      }
+
+      listener.onTrade(taker, maker, tradeQty, tradePrice, tradeAmount);
+      if (maker.getLeavesQty().compareTo(BigDecimal.ZERO) == 0) {
+        orderIdMap.remove(maker.getOrderId());
+        level.remove();
+      }
+    }
+  }
+
+  /**
+   * Re-centre both windows on mid price (or on best price if only one side exists), if it moved
+   * out of the central half of the window. Half-window margin avoids moving window back and forth
+   * on every small price change
+   */
+  private void recenter() {
+    final long bid = bids.last();
+    final long ask = asks.first();
+    final long mid;
+    if (bid == PriceLevelWindow.NONE) {
+      mid = ask;
+    } else if (ask == PriceLevelWindow.NONE) {
+      mid = bid;
+    } else {
+      mid = (bid + ask) >>> 1;
+    }
+    if (mid == PriceLevelWindow.NONE) {
+      return;
+    }
+    final int size = bids.getSize();
+    final long lo = bids.getLo();
+    if (mid < lo + size / 4 || mid >= lo + size - size / 4) {
+      final long newLo = Math.max(0, mid - size / 2);
+      bids.recenter(newLo);
+      asks.recenter(newLo);
+    }
+  }
+
+  private long getTick(BigDecimal price) {
+    final long tick;
+    try {
+      tick = price.divide(tickSize).longValueExact();
+    } catch (ArithmeticException ex) {
+      throw new AppException("Price should be multiple of tickSize: price=" + price
+          + ", tickSize=" + tickSize, ex);
+    }
+    if (tick < 0) {
+      throw new AppException("Price should be non-negative: price=" + price);
+    }
+    return tick;
+  }
+
+  private PriceLevelWindow getWindow(Order order) {
+    return order.getSide() == OrderSide.BUY ? bids : asks;
+  }
+
+  @Override
+  public boolean add(Order order) {
+    final long tick = getTick(order.getPrice());
+    orderIdMap.put(order.getOrderId(), order);
+    PriceLevelWindow window = getWindow(order);
+    PriceLevel level = window.get(tick);
+    if (level != null) {
+      level.add(order);
+      depthTracker.mark(order.getSide(), level);
+      return true;
+    }
+    window.put(tick, new LinkedListPriceLevel(order));
+    depthTracker.mark(order.getSide(), order.level);
+    // new best price may move mid price
+    if (tick == bids.last() || tick == asks.first()) {
+      recenter();
+    }
+    return true;
+  }
+
+  @Override
+  public boolean update(Order order) {
+    final long orderId = order.getOrderId();
+    Order o = orderIdMap.get(orderId);
+    if (o == null) {
+      return false;
+    }
+    // update quantity in place, so order keeps its priority
+    o.level.updateQty(o, order.getLeavesQty());
+    o.setOrderQty(order.getOrderQty());
+    o.setClOrdId(order.getClOrdId());
+    depthTracker.mark(o.getSide(), o.level);
+    // if price changed, we need to move order into new PriceLevel
+    if (order.getPrice().compareTo(o.getPrice()) != 0) {
+      remove(orderId);
+      add(order);
+    }
+    return true;
+  }
+
+  @Override
+  public boolean remove(long orderId) {
+    Order order = orderIdMap.remove(orderId);
+    if (order == null) {
+      return false;
+    }
+    final long tick = getTick(order.getPrice());
+    PriceLevelWindow window = getWindow(order);
+    PriceLevel level = window.get(tick);
+    level.resetIterator();
+    level.remove(order);
+    depthTracker.mark(order.getSide(), level);
+    if (level.isEmpty()) {
+      window.remove(tick);
+    }
+    return true;
+  }
+
+  @Override
+  public Order getOrder(long orderId) {
+    return orderIdMap.get(orderId);
+  }
+
+  @Override
+  public MarketData buildMarketData() {
+    int bidSize = Math.min(bids.getLevelCount(), AppConstants.DEFAULT_DEPTH);
+    int askSize = Math.min(asks.getLevelCount(), AppConstants.DEFAULT_DEPTH);
+    BigDecimal[][] bidLevels = new BigDecimal[bidSize][];
+    BigDecimal[][] askLevels = new BigDecimal[askSize][];
+    long tick = bids.last();
+    for (int i = 0; i < bidSize; i++) {
+      bidLevels[i] = buildLevel(bids.get(tick));
+      tick = bids.prev(tick - 1);
+    }
+    tick = asks.first();
+    for (int i = 0; i < askSize; i++) {
+      askLevels[i] = buildLevel(asks.get(tick));
+      tick = asks.next(tick + 1);
+    }
+    MarketData md = new MarketData();
+    md.setDepth(Math.max(bidSize, askSize));
+    md.setSymbol(symbol);
+    md.setTransactTime(System.currentTimeMillis());
+    md.setSeqNum(depthTracker.getSeqNum());
+    md.setBids(bidLevels);
+    md.setAsks(askLevels);
+    return md;
+  }
+
+  private BigDecimal[] buildLevel(PriceLevel level) {
+    return new BigDecimal[]{level.getPrice(), level.getTotalQty()};
+  }
+
+  @Override
+  public MarketDataUpdate buildMarketDataUpdate() {
+    return depthTracker.build(symbol);
+  }
+
+  @Override
+  public SnapshotType getType() {
+    return SnapshotType.ORDER_BOOK;
+  }
+
+  @Override
+  public SnapshotItem create() {
+    List<Order> orders = new ArrayList<>();
+    forEachOrder(orders::add);
+    SnapshotItem item = new SnapshotItem();
+    item.setType(getType());
+    item.setData(orders);
+    return item;
+  }
+
+  @Override
+  public void forEachRecord(Consumer<Object> consumer) {
+    forEachOrder(consumer::accept);
+  }
+
+  @Override
+  public DepthChangeTracker getDepthTracker() {
+    return depthTracker;
+  }
+
+  @Override
+  public void forEachLevelOrder(OrderSide side, BigDecimal price, Consumer<Order> consumer) {
+    PriceLevel level = (side == OrderSide.BUY ? bids : asks).get(getTick(price));
+    if (level != null) {
+      forEachLevelOrder(level, consumer);
+    }
+  }
+
+  private void forEachOrder(Consumer<Order> consumer) {
+    for (long tick = bids.last(); tick != PriceLevelWindow.NONE; tick = bids.prev(tick - 1)) {
+      forEachLevelOrder(bids.get(tick), consumer);
+    }
+    for (long tick = asks.first(); tick != PriceLevelWindow.NONE; tick = asks.next(tick + 1)) {
+      forEachLevelOrder(asks.get(tick), consumer);
+    }
+  }
+
+  private void forEachLevelOrder(PriceLevel level, Consumer<Order> consumer) {
+    level.resetIterator();
+    while (level.hasNext()) {
+      consumer.accept(level.next());
+    }
+  }
+
+  @Override
+  public void load(SnapshotItem data) {
+    ((List<Order>) data.getData())
+        .forEach(this::add);
+  }
+
+  @Override
+  public void loadRecord(Object record) {
+    add((Order) record);
+  }
+}
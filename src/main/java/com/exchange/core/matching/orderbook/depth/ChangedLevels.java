@@ -0,0 +1,90 @@
+package com.exchange.core.matching.orderbook.depth;
+
+import com.exchange.core.matching.orderbook.map.LongIntHashMap;
+import com.exchange.core.model.SnapshotLevel;
+import com.exchange.core.model.enums.OrderSide;
+import com.exchange.core.model.msg.Order;
+import com.exchange.core.utils.FixedPoint;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+
+/**
+ * Price levels changed since the last snapshot of order book, so delta snapshot has only them
+ * Levels are collected only after the first clear(), so book which is never written as delta
+ * doesn't keep them. Fixed-point levels are found by scaled price first (bids positive key, asks
+ * negative), so marking already changed level doesn't allocate
+ * Delta reads only changed levels of the book, so its cost doesn't depend on book size
+ */
+class ChangedLevels {
+
+  private final int priceScale;
+  private final LongIntHashMap scaledPrices = new LongIntHashMap();
+  private final NavigableSet<BigDecimal> bids = new TreeSet<>();
+  private final NavigableSet<BigDecimal> asks = new TreeSet<>();
+  private boolean tracking;
+
+  ChangedLevels(int priceScale) {
+    this.priceScale = priceScale;
+  }
+
+  void mark(OrderSide side, BigDecimal price) {
+    if (tracking) {
+      prices(side).add(price);
+    }
+  }
+
+  void mark(OrderSide side, long scaledPrice) {
+    if (tracking && !scaledPrices.containsKey(key(side, scaledPrice))) {
+      scaledPrices.put(key(side, scaledPrice), 0);
+      prices(side).add(FixedPoint.toBigDecimal(scaledPrice, priceScale));
+    }
+  }
+
+  /**
+   * Every changed level is passed as SnapshotLevel with its orders taken from the book (empty if
+   * level was removed or now holds orders of another side) and levels are cleared
+   */
+  void forEach(LevelSnapshotable book, Consumer<Object> consumer) {
+    if (bids.isEmpty() && asks.isEmpty()) {
+      tracking = true;
+      return;
+    }
+    forEach(OrderSide.BUY, bids, book, consumer);
+    forEach(OrderSide.SELL, asks, book, consumer);
+    clear();
+  }
+
+  void clear() {
+    if (!scaledPrices.isEmpty()) {
+      scaledPrices.clear();
+    }
+    bids.clear();
+    asks.clear();
+    tracking = true;
+  }
+
+  private void forEach(OrderSide side, NavigableSet<BigDecimal> prices, LevelSnapshotable book,
+      Consumer<Object> consumer) {
+    for (BigDecimal price : prices) {
+      List<Order> orders = new ArrayList<>();
+      book.forEachLevelOrder(side, price, order -> {
+        if (order.getSide() == side) {
+          orders.add(order);
+        }
+      });
+      consumer.accept(new SnapshotLevel(side, price, orders));
+    }
+  }
+
+  private NavigableSet<BigDecimal> prices(OrderSide side) {
+    return side == OrderSide.BUY ? bids : asks;
+  }
+
+  private static long key(OrderSide side, long scaledPrice) {
+    return side == OrderSide.BUY ? scaledPrice : -scaledPrice;
+  }
+}
@@ -0,0 +1,178 @@
+package com.exchange.core.matching.orderbook.depth;
+
+import com.exchange.core.matching.orderbook.level.PriceLevel;
+import com.exchange.core.model.enums.OrderSide;
+import com.exchange.core.model.msg.MarketDataUpdate;
+import com.exchange.core.utils.FixedPoint;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Collect price levels changed by order book operations, so only changed levels are published
+ * Levels are read when update is built, so level changed many times by one order is sent once
+ * with its final quantity. Level is reported as removed (quantity 0) if it's empty or now holds
+ * orders of another side (emptied level reused by ArrayOrderBook/BitmapOrderBook)
+ * Books without PriceLevel objects mark level by scaled price and pass its total quantity
+ * The same marks collect levels changed since the last snapshot, so book writes only them into
+ * delta snapshot
+ */
+public class DepthChangeTracker {
+
+  private final boolean fixedPoint;
+  private final int priceScale;
+  private final int quantityScale;
+  private PriceLevel[] levels = new PriceLevel[16];
+  private OrderSide[] sides = new OrderSide[16];
+  // used only for levels marked by price, level is null for them
+  private long[] prices = new long[16];
+  private long[] totals = new long[16];
+  private int size;
+  // levels of update marked before the last snapshot, they're collected again if marked again
+  private int changedFrom;
+  private long seqNum;
+  private final ChangedLevels changedLevels;
+
+  public DepthChangeTracker() {
+    this(false, 0, 0);
+  }
+
+  /**
+   * @param fixedPoint - if true, price and quantity are built from scaled level values
+   */
+  public DepthChangeTracker(boolean fixedPoint, int priceScale, int quantityScale) {
+    this.fixedPoint = fixedPoint;
+    this.priceScale = priceScale;
+    this.quantityScale = quantityScale;
+    changedLevels = new ChangedLevels(priceScale);
+  }
+
+  /**
+   * Mark level as changed, level should be marked after change even if it became empty
+   */
+  public void mark(OrderSide side, PriceLevel level) {
+    for (int i = size - 1; i >= 0; i--) {
+      if (levels[i] == level && sides[i] == side) {
+        if (i < changedFrom) {
+          markChanged(side, level);
+        }
+        return;
+      }
+    }
+    markChanged(side, level);
+    ensureCapacity();
+    levels[size] = level;
+    sides[size] = side;
+    size++;
+  }
+
+  /**
+   * Mark level of fixed-point book by its scaled price, the last total for the same level wins
+   * @param scaledTotalQty - total quantity after change, 0 if level was removed
+   */
+  public void mark(OrderSide side, long scaledPrice, long scaledTotalQty) {
+    for (int i = size - 1; i >= 0; i--) {
+      if (levels[i] == null && sides[i] == side && prices[i] == scaledPrice) {
+        totals[i] = scaledTotalQty;
+        if (i < changedFrom) {
+          changedLevels.mark(side, scaledPrice);
+        }
+        return;
+      }
+    }
+    changedLevels.mark(side, scaledPrice);
+    ensureCapacity();
+    sides[size] = side;
+    prices[size] = scaledPrice;
+    totals[size] = scaledTotalQty;
+    size++;
+  }
+
+  private void markChanged(OrderSide side, PriceLevel level) {
+    if (fixedPoint) {
+      changedLevels.mark(side, level.getScaledPrice());
+    } else {
+      changedLevels.mark(side, level.getPrice());
+    }
+  }
+
+  /**
+   * Pass every level changed since previous call as SnapshotLevel and start collecting again
+   * @param book - book which marks levels in this tracker, orders of changed levels are read from it
+   */
+  public void forEachChangedLevel(LevelSnapshotable book, Consumer<Object> consumer) {
+    changedLevels.forEach(book, consumer);
+    changedFrom = size;
+  }
+
+  public void clearChangedLevels() {
+    changedLevels.clear();
+    changedFrom = size;
+  }
+
+  private void ensureCapacity() {
+    if (size == levels.length) {
+      levels = Arrays.copyOf(levels, size * 2);
+      sides = Arrays.copyOf(sides, size * 2);
+      prices = Arrays.copyOf(prices, size * 2);
+      totals = Arrays.copyOf(totals, size * 2);
+    }
+  }
+
+  /**
+   * @return seqNum of the last built update, 0 if no update was built
+   */
+  public long getSeqNum() {
+    return seqNum;
+  }
+
+  /**
+   * Build update from all marked levels and clear them
+   * @return update with next seqNum, null if no level changed
+   */
+  public MarketDataUpdate build(String symbol) {
+    if (size == 0) {
+      return null;
+    }
+    int bidSize = 0;
+    for (int i = 0; i < size; i++) {
+      if (sides[i] == OrderSide.BUY) {
+        bidSize++;
+      }
+    }
+    BigDecimal[][] bids = new BigDecimal[bidSize][];
+    BigDecimal[][] asks = new BigDecimal[size - bidSize][];
+    int bidIndex = 0, askIndex = 0;
+    for (int i = 0; i < size; i++) {
+      BigDecimal[] level = levels[i] == null
+          ? new BigDecimal[]{FixedPoint.toBigDecimal(prices[i], priceScale),
+          FixedPoint.toBigDecimal(totals[i], quantityScale)}
+          : buildLevel(sides[i], levels[i]);
+      if (sides[i] == OrderSide.BUY) {
+        bids[bidIndex++] = level;
+      } else {
+        asks[askIndex++] = level;
+      }
+      levels[i] = null;
+      sides[i] = null;
+    }
+    size = 0;
+    changedFrom = 0;
+    MarketDataUpdate update = new MarketDataUpdate();
+    update.setSymbol(symbol);
+    update.setSeqNum(++seqNum);
+    update.setTransactTime(System.currentTimeMillis());
+    update.setBids(bids);
+    update.setAsks(asks);
+    return update;
+  }
+
+  private BigDecimal[] buildLevel(OrderSide side, PriceLevel level) {
+    final boolean removed = level.isEmpty() || level.getSide() != side;
+    if (fixedPoint) {
+      return new BigDecimal[]{FixedPoint.toBigDecimal(level.getScaledPrice(), priceScale),
+          FixedPoint.toBigDecimal(removed ? 0 : level.getScaledTotalQty(), quantityScale)};
+    }
+    return new BigDecimal[]{level.getPrice(), removed ? BigDecimal.ZERO : level.getTotalQty()};
+  }
+}
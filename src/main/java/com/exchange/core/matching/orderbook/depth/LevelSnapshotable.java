@@ -0,0 +1,40 @@
+package com.exchange.core.matching.orderbook.depth;
+
+import com.exchange.core.matching.snapshot.Snapshotable;
+import com.exchange.core.model.enums.OrderSide;
+import com.exchange.core.model.enums.SnapshotType;
+import com.exchange.core.model.msg.Order;
+import java.math.BigDecimal;
+import java.util.function.Consumer;
+
+/**
+ * Order book snapshot which writes delta from levels marked by its DepthChangeTracker, orders of
+ * every changed level are looked up by side and price, so the rest of the book isn't read
+ */
+public interface LevelSnapshotable extends Snapshotable {
+
+  DepthChangeTracker getDepthTracker();
+
+  /**
+   * Pass orders of price level in queue order, nothing if book has no such level
+   */
+  void forEachLevelOrder(OrderSide side, BigDecimal price, Consumer<Order> consumer);
+
+  /**
+   * Changed price levels are passed as SnapshotLevel with all their orders
+   */
+  @Override
+  default void forEachChangedRecord(Consumer<Object> consumer) {
+    getDepthTracker().forEachChangedLevel(this, consumer);
+  }
+
+  @Override
+  default SnapshotType getChangeType() {
+    return SnapshotType.ORDER_BOOK_LEVEL;
+  }
+
+  @Override
+  default void clearChanges() {
+    getDepthTracker().clearChangedLevels();
+  }
+}
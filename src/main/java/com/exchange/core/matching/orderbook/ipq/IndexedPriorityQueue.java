@@ -44,6 +44,13 @@ public interface IndexedPriorityQueue<K extends Comparable<K>, V> {
      */
     V getExact(K key);
 
+    /**
+     * Remove element by key from any position of the queue
+     * @param key - key
+     * @return V - removed value, null if no such value for key
+     */
+    V remove(K key);
+
 
     /*
      * *****************************ITERATOR**********************************************
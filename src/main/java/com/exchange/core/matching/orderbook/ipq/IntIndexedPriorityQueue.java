@@ -3,23 +3,44 @@ package com.exchange.core.matching.orderbook.ipq;
 import java.util.Arrays;
 
 /**
- * Use this as base case for IndexedPriorityQueue
+ * Array-based indexed priority queue for int keys in range [0, maxPrice], usually price in ticks
+ * pq - binary heap of keys (1-based), qp - position of key inside heap (0 if absent), map - values
+ * qp and map are indexed by key and split into pages allocated on first use, so memory depends on
+ * range of keys which are actually offered, not on maxPrice
  * https://algs4.cs.princeton.edu/24pq/
+ *
+ * Iteration is ordered and doesn't modify the heap: we keep second small heap of heap positions,
+ * start from the root and on every next() pop best position and push its 2 children.
+ * So iterating over first k elements costs O(k log k) and doesn't allocate
+ * Methods with int key don't box it, Integer versions of IndexedPriorityQueue delegate to them
  */
 public class IntIndexedPriorityQueue<V> implements IndexedPriorityQueue<Integer, V> {
+    private static final int PAGE_BITS = 16;
+    private static final int PAGE_MASK = (1 << PAGE_BITS) - 1;
     private final int maxPrice;
     private final int growSize;
     private final SortOrder sortOrder;
     private int[] pq;
-    private V[] map;
+    private final int[][] qp;
+    // values of type V, cast on read
+    private final Object[][] map;
 
     private int size;
-    private int iterationIndex;
+
+    // iteration heap of positions inside pq
+    private int[] iter;
+    private int iterSize;
+    private int lastKey;
+    // set after remove during iteration, already returned keys are skipped
+    private boolean skipReturned;
 
 
     public IntIndexedPriorityQueue(SortOrder sortOrder, int capacity, int growSize, int maxPrice){
-        map = (V[]) new Object[maxPrice + 1];
+        final int pages = (maxPrice >>> PAGE_BITS) + 1;
+        map = new Object[pages][];
+        qp = new int[pages][];
         pq = new int[capacity];
+        iter = new int[capacity + 1];
         this.growSize = growSize;
         this.maxPrice = maxPrice;
         this.sortOrder = sortOrder;
@@ -27,6 +48,7 @@ public class IntIndexedPriorityQueue<V> implements IndexedPriorityQueue<Integer,
 
     private void grow(){
         pq = Arrays.copyOf(pq, pq.length + growSize);
+        iter = Arrays.copyOf(iter, pq.length + 1);
     }
 
     private void swim(int k) {
@@ -46,28 +68,75 @@ public class IntIndexedPriorityQueue<V> implements IndexedPriorityQueue<Integer,
         }
     }
 
+    /**
+     * @return true - if key at position i should go after key at position j
+     */
     private boolean compare(int i, int j) {
-        return sortOrder == SortOrder.ASC ? pq[i] > pq[j] : pq[i] < pq[j];
+        return after(pq[i], pq[j]);
+    }
+
+    private boolean after(int a, int b) {
+        return sortOrder == SortOrder.ASC ? a > b : a < b;
+    }
+
+    private int qp(int key) {
+        int[] page = qp[key >>> PAGE_BITS];
+        return page == null ? 0 : page[key & PAGE_MASK];
+    }
+
+    private void setQp(int key, int position) {
+        int[] page = qp[key >>> PAGE_BITS];
+        if (page == null) {
+            page = new int[1 << PAGE_BITS];
+            qp[key >>> PAGE_BITS] = page;
+        }
+        page[key & PAGE_MASK] = position;
+    }
+
+    @SuppressWarnings("unchecked")
+    private V value(int key) {
+        Object[] page = map[key >>> PAGE_BITS];
+        return page == null ? null : (V) page[key & PAGE_MASK];
+    }
+
+    private void setValue(int key, V value) {
+        Object[] page = map[key >>> PAGE_BITS];
+        if (page == null) {
+            page = new Object[1 << PAGE_BITS];
+            map[key >>> PAGE_BITS] = page;
+        }
+        page[key & PAGE_MASK] = value;
     }
 
     private void swap(int i, int j) {
         int swap = pq[i];
         pq[i] = pq[j];
         pq[j] = swap;
+        setQp(pq[i], i);
+        setQp(pq[j], j);
     }
 
 
     @Override
     public boolean offer(Integer key, V value) {
-        if (key > maxPrice){
+        return offer(key.intValue(), value);
+    }
+
+    public boolean offer(int key, V value) {
+        if (key < 0 || key > maxPrice){
             throw new RuntimeException("MaxPrice exceeded");
         }
-        map[key] = value;
+        setValue(key, value);
+        if (qp(key) != 0){
+            // already in the queue, only value replaced
+            return true;
+        }
         // add to PQ
         if (pq.length - 1 == size){
             grow();
         }
         pq[++size] = key;
+        setQp(key, size);
         swim(size);
         return true;
     }
@@ -78,18 +147,22 @@ public class IntIndexedPriorityQueue<V> implements IndexedPriorityQueue<Integer,
             throw new RuntimeException("Queue is empty");
         }
         int max = pq[1];
-        V value = map[max];
+        V value = value(max);
         swap(1, size--);
         sink(1);
         pq[size+1] = 0;
-        map[max] = null;
+        setQp(max, 0);
+        setValue(max, null);
         return value;
 
     }
 
     @Override
     public V peek() {
-        return map[pq[1]];
+        if (size == 0){
+            return null;
+        }
+        return value(pq[1]);
     }
 
     @Override
@@ -99,28 +172,123 @@ public class IntIndexedPriorityQueue<V> implements IndexedPriorityQueue<Integer,
 
     @Override
     public V getExact(Integer key) {
-        return map[key];
+        return getExact(key.intValue());
+    }
+
+    public V getExact(int key) {
+        if (key < 0 || key > maxPrice){
+            return null;
+        }
+        return value(key);
+    }
+
+    @Override
+    public V remove(Integer key) {
+        return remove(key.intValue());
+    }
+
+    public V remove(int key) {
+        if (key < 0 || key > maxPrice){
+            return null;
+        }
+        int i = qp(key);
+        if (i == 0){
+            return null;
+        }
+        V value = value(key);
+        swap(i, size--);
+        if (i <= size){
+            swim(i);
+            sink(i);
+        }
+        pq[size+1] = 0;
+        setQp(key, 0);
+        setValue(key, null);
+        return value;
     }
 
 
     @Override
     public void resetIterator() {
-        iterationIndex = 1;
+        skipReturned = false;
+        restartIteration();
+    }
+
+    private void restartIteration() {
+        iterSize = 0;
+        if (size > 0){
+            iterPush(1);
+        }
     }
 
     @Override
     public boolean hasNext() {
-        return iterationIndex <= size;
+        if (skipReturned){
+            // drop already returned keys, but keep their children in iteration
+            while (iterSize > 0 && !after(pq[iter[1]], lastKey)){
+                iterPushChildren(iterPoll());
+            }
+        }
+        return iterSize > 0;
     }
 
     @Override
     public V next() {
-        return map[pq[iterationIndex++]];
+        if (!hasNext()){
+            return null;
+        }
+        int i = iterPoll();
+        iterPushChildren(i);
+        lastKey = pq[i];
+        return value(lastKey);
     }
 
+    /**
+     * Remove element returned by last next() call, iteration continues from the next element
+     */
     @Override
     public void remove() {
-        size--;
-        sink(iterationIndex);
+        remove(lastKey);
+        // heap positions changed, start again from the root and skip already returned keys
+        skipReturned = true;
+        restartIteration();
+    }
+
+    private void iterPushChildren(int i) {
+        if (2*i <= size){
+            iterPush(2*i);
+        }
+        if (2*i + 1 <= size){
+            iterPush(2*i + 1);
+        }
+    }
+
+    private void iterPush(int position) {
+        int k = ++iterSize;
+        iter[k] = position;
+        while (k > 1 && after(pq[iter[k/2]], pq[iter[k]])) {
+            iterSwap(k/2, k);
+            k = k/2;
+        }
+    }
+
+    private int iterPoll() {
+        int top = iter[1];
+        iterSwap(1, iterSize--);
+        int k = 1;
+        while (2*k <= iterSize) {
+            int j = 2*k;
+            if (j < iterSize && after(pq[iter[j]], pq[iter[j+1]])) j++;
+            if (!after(pq[iter[k]], pq[iter[j]])) break;
+            iterSwap(k, j);
+            k = j;
+        }
+        return top;
+    }
+
+    private void iterSwap(int i, int j) {
+        int swap = iter[i];
+        iter[i] = iter[j];
+        iter[j] = swap;
     }
 }
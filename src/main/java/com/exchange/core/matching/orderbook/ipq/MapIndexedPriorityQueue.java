@@ -60,6 +60,11 @@ public class MapIndexedPriorityQueue<K extends Comparable<K>, V> implements Inde
         return map.get(key);
     }
 
+    @Override
+    public V remove(K key) {
+        return map.remove(key);
+    }
+
     private Iterator<V> iterator;
     @Override
     public void resetIterator() {
@@ -1,6 +1,7 @@
 package com.exchange.core.matching.orderbook.level;
 
 import com.exchange.core.exceptions.AppException;
+import com.exchange.core.model.enums.OrderSide;
 import com.exchange.core.model.msg.Order;
 
 import java.math.BigDecimal;
@@ -14,6 +15,12 @@ import java.util.ConcurrentModificationException;
  */
 public class LinkedListPriceLevel implements PriceLevel{
   private final BigDecimal price;
+  private final long scaledPrice;
+  private final boolean fixedPoint;
+  // sum of leaves quantity of all orders, only one of them is kept depending on fixedPoint
+  private BigDecimal totalQty = BigDecimal.ZERO;
+  private long scaledTotalQty;
+  private int orderCount;
 
   // keep track of first order
   private Order first;
@@ -21,12 +28,24 @@ public class LinkedListPriceLevel implements PriceLevel{
   private Order last;
   // current order used in iteration
   private Order order;
+  // last order returned by next, removed by remove()
+  private Order lastReturned;
 
   public LinkedListPriceLevel(Order order){
+    this(order, false);
+  }
+
+  /**
+   * @param fixedPoint - if true, total quantity is kept as sum of Order.scaledLeavesQty,
+   *                   otherwise as sum of Order.leavesQty
+   */
+  public LinkedListPriceLevel(Order order, boolean fixedPoint){
     if (order == null){
       throw new AppException("Fail to add order: order is null");
     }
     price = order.getPrice();
+    scaledPrice = order.getScaledPrice();
+    this.fixedPoint = fixedPoint;
     add(order);
   }
 
@@ -35,12 +54,18 @@ public class LinkedListPriceLevel implements PriceLevel{
     return price;
   }
 
+  @Override
+  public long getScaledPrice() {
+    return scaledPrice;
+  }
+
   @Override
   public void add(Order order) {
     if (order == null){
       throw new AppException("Fail to add order: order is null");
     }
-    if (price.compareTo(order.getPrice()) != 0) {
+    if (fixedPoint ? scaledPrice != order.getScaledPrice()
+        : price.compareTo(order.getPrice()) != 0) {
       throw new AppException("Fail to add order: price mismatch");
     }
     // add to the last
@@ -53,14 +78,69 @@ public class LinkedListPriceLevel implements PriceLevel{
     order.prev = last;
     last = order;
     order.level = this;
+    orderCount++;
+    if (fixedPoint) {
+      scaledTotalQty += order.getScaledLeavesQty();
+    } else if (order.getLeavesQty() != null) {
+      totalQty = totalQty.add(order.getLeavesQty());
+    }
+  }
+
+  @Override
+  public BigDecimal getTotalQty() {
+    if (fixedPoint) {
+      throw new AppException("Total quantity is kept as scaled value in fixed-point mode");
+    }
+    return totalQty;
+  }
+
+  @Override
+  public long getScaledTotalQty() {
+    return scaledTotalQty;
+  }
+
+  @Override
+  public OrderSide getSide() {
+    return first == null ? null : first.getSide();
+  }
+
+  @Override
+  public int getOrderCount() {
+    return orderCount;
+  }
+
+  @Override
+  public void updateQty(Order order, BigDecimal leavesQty) {
+    if (!fixedPoint) {
+      subtractQty(order);
+      totalQty = totalQty.add(leavesQty);
+    }
+    order.setLeavesQty(leavesQty);
+  }
+
+  @Override
+  public void updateScaledQty(Order order, long scaledLeavesQty) {
+    if (fixedPoint) {
+      scaledTotalQty += scaledLeavesQty - order.getScaledLeavesQty();
+    }
+    order.setScaledLeavesQty(scaledLeavesQty);
+  }
+
+  private void subtractQty(Order order) {
+    if (fixedPoint) {
+      scaledTotalQty -= order.getScaledLeavesQty();
+    } else if (order.getLeavesQty() != null && order.getLeavesQty().signum() != 0) {
+      totalQty = totalQty.subtract(order.getLeavesQty());
+    }
   }
 
   @Override
   public void remove() {
-    if (order == null){
+    if (lastReturned == null){
       return;
     }
-    delete(order);
+    delete(lastReturned);
+    lastReturned = null;
   }
 
   @Override
@@ -69,21 +149,30 @@ public class LinkedListPriceLevel implements PriceLevel{
       throw new ConcurrentModificationException("You can't remove by object during iteration");
     }
     delete(o);
+    resetIterator();
   }
 
+  /**
+   * Unlink order from the list, so it has no references to other orders and can be reused
+   */
   private void delete(Order o){
     Order prev = o.prev;
     Order next = o.next;
-
     if (prev == null){
-      first = null;
-      resetIterator();
+      first = next;
     } else {
       prev.next = next;
-      if (next != null){
-        next.prev = prev;
-      }
     }
+    if (next == null){
+      last = prev;
+    } else {
+      next.prev = prev;
+    }
+    o.prev = null;
+    o.next = null;
+    o.level = null;
+    orderCount--;
+    subtractQty(o);
   }
 
   @Override
@@ -93,9 +182,15 @@ public class LinkedListPriceLevel implements PriceLevel{
     }
     Order current = order;
     order = order.next;
+    lastReturned = current;
     return current;
   }
 
+  @Override
+  public boolean isEmpty() {
+    return first == null;
+  }
+
   @Override
   public boolean hasNext() {
     return order != null;
@@ -104,5 +199,6 @@ public class LinkedListPriceLevel implements PriceLevel{
   @Override
   public void resetIterator() {
     order = first;
+    lastReturned = null;
   }
 }
\ No newline at end of file
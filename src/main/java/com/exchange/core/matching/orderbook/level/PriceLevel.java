@@ -1,5 +1,6 @@
 package com.exchange.core.matching.orderbook.level;
 
+import com.exchange.core.model.enums.OrderSide;
 import com.exchange.core.model.msg.Order;
 import java.math.BigDecimal;
 
@@ -13,10 +14,51 @@ public interface PriceLevel {
      */
     BigDecimal getPrice();
 
+    /**
+     * Get level price in fixed-point representation
+     * @return price - Order.scaledPrice of orders for this particular level
+     */
+    long getScaledPrice();
+
     void add(Order order);
 
     /**
-     * Remove current Order from the list of orders
+     * Get sum of leavesQty of all orders, kept up to date on add/remove/updateQty,
+     * so market data doesn't need to iterate over orders
+     * @return total quantity, not supported for fixed-point level
+     */
+    BigDecimal getTotalQty();
+
+    /**
+     * Get sum of scaledLeavesQty of all orders for fixed-point level
+     * @return total quantity in fixed-point representation
+     */
+    long getScaledTotalQty();
+
+    /**
+     * @return side of orders in level, null if level is empty
+     */
+    OrderSide getSide();
+
+    /**
+     * @return number of orders in level
+     */
+    int getOrderCount();
+
+    /**
+     * Set leavesQty of order in this level and adjust total quantity
+     * Orders inside level should be changed only by this method, not by Order.setLeavesQty
+     */
+    void updateQty(Order order, BigDecimal leavesQty);
+
+    /**
+     * Set scaledLeavesQty of order in this level and adjust total quantity
+     */
+    void updateScaledQty(Order order, long scaledLeavesQty);
+
+    /**
+     * Remove Order returned by the last next() call from the list of orders
+     * Iteration continues from the order following removed one
      */
     void remove();
 
@@ -27,6 +69,12 @@ public interface PriceLevel {
      */
     void remove(Order order);
 
+    /**
+     * Check if level has no orders, doesn't depend on iteration state
+     * @return true - if all orders removed from level
+     */
+    boolean isEmpty();
+
     /**
      * Check if there is next order in the sequence
      * @return true - if next order exist in iteration
@@ -0,0 +1,182 @@
+package com.exchange.core.matching.orderbook.map;
+
+import com.exchange.core.exceptions.AppException;
+import java.util.Arrays;
+
+/**
+ * Open-addressing map from long to int with the same layout as LongObjectHashMap, used to index
+ * off-heap order slots by orderId. Both arrays are primitive, so GC doesn't trace any entry
+ * NO_VALUE marks free slot and is returned for missing key, so it can't be stored as value
+ * Not thread-safe
+ */
+public class LongIntHashMap {
+
+  public static final int NO_VALUE = -1;
+  private static final int MAX_CAPACITY = 1 << 30;
+  private static final long PHI = 0x9E3779B97F4A7C15L;
+
+  private final float loadFactor;
+  private long[] keys;
+  private int[] values;
+  private int mask;
+  private int shift;
+  private int size;
+  private int resizeThreshold;
+
+  public LongIntHashMap() {
+    this(1024);
+  }
+
+  public LongIntHashMap(int initialCapacity) {
+    this(initialCapacity, 0.6f);
+  }
+
+  public LongIntHashMap(int initialCapacity, float loadFactor) {
+    if (loadFactor <= 0 || loadFactor >= 1) {
+      throw new AppException("LoadFactor should be between 0 and 1: loadFactor=" + loadFactor);
+    }
+    if (initialCapacity < 0) {
+      throw new AppException("InitialCapacity should be positive: initialCapacity="
+          + initialCapacity);
+    }
+    this.loadFactor = loadFactor;
+    allocate(tableSizeFor((int) Math.ceil(initialCapacity / loadFactor)));
+  }
+
+  /**
+   * Add or replace value for key
+   * @return previous value for key, NO_VALUE if there was no value
+   */
+  public int put(long key, int value) {
+    if (value == NO_VALUE) {
+      throw new AppException("Fail to put value: value is NO_VALUE");
+    }
+    int index = hash(key);
+    while (values[index] != NO_VALUE) {
+      if (keys[index] == key) {
+        int prev = values[index];
+        values[index] = value;
+        return prev;
+      }
+      index = (index + 1) & mask;
+    }
+    keys[index] = key;
+    values[index] = value;
+    if (++size > resizeThreshold) {
+      resize();
+    }
+    return NO_VALUE;
+  }
+
+  /**
+   * @return value for key, NO_VALUE if no such value for key
+   */
+  public int get(long key) {
+    int index = hash(key);
+    int value;
+    while ((value = values[index]) != NO_VALUE) {
+      if (keys[index] == key) {
+        return value;
+      }
+      index = (index + 1) & mask;
+    }
+    return NO_VALUE;
+  }
+
+  /**
+   * @return removed value, NO_VALUE if no such value for key
+   */
+  public int remove(long key) {
+    int index = hash(key);
+    int value;
+    while ((value = values[index]) != NO_VALUE) {
+      if (keys[index] == key) {
+        shiftBack(index);
+        size--;
+        return value;
+      }
+      index = (index + 1) & mask;
+    }
+    return NO_VALUE;
+  }
+
+  public boolean containsKey(long key) {
+    return get(key) != NO_VALUE;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public void clear() {
+    Arrays.fill(values, NO_VALUE);
+    size = 0;
+  }
+
+  /**
+   * Backward-shift deletion, same as LongObjectHashMap.shiftBack
+   */
+  private void shiftBack(int free) {
+    int j = free;
+    while (true) {
+      j = (j + 1) & mask;
+      if (values[j] == NO_VALUE) {
+        break;
+      }
+      int home = hash(keys[j]);
+      if (((j - home) & mask) >= ((j - free) & mask)) {
+        keys[free] = keys[j];
+        values[free] = values[j];
+        free = j;
+      }
+    }
+    values[free] = NO_VALUE;
+  }
+
+  private void resize() {
+    if (keys.length == MAX_CAPACITY) {
+      throw new AppException("LongIntHashMap max capacity exceeded: size=" + size);
+    }
+    long[] oldKeys = keys;
+    int[] oldValues = values;
+    allocate(keys.length << 1);
+    for (int i = 0; i < oldValues.length; i++) {
+      int value = oldValues[i];
+      if (value != NO_VALUE) {
+        int index = hash(oldKeys[i]);
+        while (values[index] != NO_VALUE) {
+          index = (index + 1) & mask;
+        }
+        keys[index] = oldKeys[i];
+        values[index] = value;
+      }
+    }
+  }
+
+  private void allocate(int capacity) {
+    keys = new long[capacity];
+    values = new int[capacity];
+    Arrays.fill(values, NO_VALUE);
+    mask = capacity - 1;
+    shift = Long.numberOfLeadingZeros(mask);
+    resizeThreshold = Math.min((int) (capacity * loadFactor), capacity - 1);
+  }
+
+  private int hash(long key) {
+    return (int) ((key * PHI) >>> shift);
+  }
+
+  private static int tableSizeFor(int capacity) {
+    if (capacity <= 2) {
+      return 2;
+    }
+    if (capacity >= MAX_CAPACITY) {
+      return MAX_CAPACITY;
+    }
+    return Integer.highestOneBit(capacity - 1) << 1;
+  }
+}
@@ -0,0 +1,184 @@
+package com.exchange.core.matching.orderbook.map;
+
+import com.exchange.core.exceptions.AppException;
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash map with linear probing, keys and values are stored in 2 parallel arrays
+ * Compared to HashMap<Long, V> there is no Long boxing and no Node allocation per entry
+ * Remove uses backward-shift deletion: entries after removed slot are moved back into their
+ * probe chain, so there are no tombstones and lookup cost doesn't degrade after many removes
+ * Not thread-safe
+ */
+public class LongObjectHashMap<V> implements LongObjectMap<V> {
+
+  private static final int MAX_CAPACITY = 1 << 30;
+  private static final long PHI = 0x9E3779B97F4A7C15L;
+
+  private final float loadFactor;
+  private long[] keys;
+  private V[] values;
+  private int mask;
+  private int shift;
+  private int size;
+  private int resizeThreshold;
+
+  public LongObjectHashMap() {
+    this(1024);
+  }
+
+  public LongObjectHashMap(int initialCapacity) {
+    this(initialCapacity, 0.6f);
+  }
+
+  public LongObjectHashMap(int initialCapacity, float loadFactor) {
+    if (loadFactor <= 0 || loadFactor >= 1) {
+      throw new AppException("LoadFactor should be between 0 and 1: loadFactor=" + loadFactor);
+    }
+    if (initialCapacity < 0) {
+      throw new AppException("InitialCapacity should be positive: initialCapacity="
+          + initialCapacity);
+    }
+    this.loadFactor = loadFactor;
+    allocate(tableSizeFor((int) Math.ceil(initialCapacity / loadFactor)));
+  }
+
+  @Override
+  public V put(long key, V value) {
+    if (value == null) {
+      throw new AppException("Fail to put value: value is null");
+    }
+    int index = hash(key);
+    while (values[index] != null) {
+      if (keys[index] == key) {
+        V prev = values[index];
+        values[index] = value;
+        return prev;
+      }
+      index = (index + 1) & mask;
+    }
+    keys[index] = key;
+    values[index] = value;
+    if (++size > resizeThreshold) {
+      resize();
+    }
+    return null;
+  }
+
+  @Override
+  public V get(long key) {
+    int index = hash(key);
+    V value;
+    while ((value = values[index]) != null) {
+      if (keys[index] == key) {
+        return value;
+      }
+      index = (index + 1) & mask;
+    }
+    return null;
+  }
+
+  @Override
+  public V remove(long key) {
+    int index = hash(key);
+    V value;
+    while ((value = values[index]) != null) {
+      if (keys[index] == key) {
+        shiftBack(index);
+        size--;
+        return value;
+      }
+      index = (index + 1) & mask;
+    }
+    return null;
+  }
+
+  @Override
+  public boolean containsKey(long key) {
+    return get(key) != null;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  @Override
+  public void clear() {
+    Arrays.fill(values, null);
+    size = 0;
+  }
+
+  /**
+   * Free slot by moving next entries of the probe chain into it
+   * Entry at index j can be moved into free slot only if its home slot is not inside (free, j]
+   * otherwise it would become unreachable from its home slot
+   */
+  private void shiftBack(int free) {
+    int j = free;
+    while (true) {
+      j = (j + 1) & mask;
+      if (values[j] == null) {
+        break;
+      }
+      int home = hash(keys[j]);
+      if (((j - home) & mask) >= ((j - free) & mask)) {
+        keys[free] = keys[j];
+        values[free] = values[j];
+        free = j;
+      }
+    }
+    values[free] = null;
+  }
+
+  private void resize() {
+    if (keys.length == MAX_CAPACITY) {
+      throw new AppException("LongObjectHashMap max capacity exceeded: size=" + size);
+    }
+    long[] oldKeys = keys;
+    V[] oldValues = values;
+    allocate(keys.length << 1);
+    for (int i = 0; i < oldValues.length; i++) {
+      V value = oldValues[i];
+      if (value != null) {
+        int index = hash(oldKeys[i]);
+        while (values[index] != null) {
+          index = (index + 1) & mask;
+        }
+        keys[index] = oldKeys[i];
+        values[index] = value;
+      }
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private void allocate(int capacity) {
+    keys = new long[capacity];
+    values = (V[]) new Object[capacity];
+    mask = capacity - 1;
+    shift = Long.numberOfLeadingZeros(mask);
+    resizeThreshold = Math.min((int) (capacity * loadFactor), capacity - 1);
+  }
+
+  /**
+   * Fibonacci hashing: sequential orderIds are spread over the whole table instead of clustering
+   */
+  private int hash(long key) {
+    return (int) ((key * PHI) >>> shift);
+  }
+
+  private static int tableSizeFor(int capacity) {
+    if (capacity <= 2) {
+      return 2;
+    }
+    if (capacity >= MAX_CAPACITY) {
+      return MAX_CAPACITY;
+    }
+    return Integer.highestOneBit(capacity - 1) << 1;
+  }
+}
@@ -0,0 +1,40 @@
+package com.exchange.core.matching.orderbook.map;
+
+/**
+ * Map with primitive long keys, used to index orders by orderId without boxing keys into Long
+ * Null values are not supported, null is returned when there is no value for the key
+ *
+ * @param <V> - value, would store Order
+ */
+public interface LongObjectMap<V> {
+
+  /**
+   * Add or replace value for key
+   * @param key - key
+   * @param value - non-null value
+   * @return previous value for key, null if there was no value
+   */
+  V put(long key, V value);
+
+  /**
+   * Fetch value by key
+   * @param key - key
+   * @return V - if value exists for key, null if no such value for key
+   */
+  V get(long key);
+
+  /**
+   * Remove value by key
+   * @param key - key
+   * @return removed value, null if no such value for key
+   */
+  V remove(long key);
+
+  boolean containsKey(long key);
+
+  int size();
+
+  boolean isEmpty();
+
+  void clear();
+}
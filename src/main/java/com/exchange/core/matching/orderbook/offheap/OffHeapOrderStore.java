@@ -0,0 +1,191 @@
+package com.exchange.core.matching.orderbook.offheap;
+
+import com.exchange.core.exceptions.AppException;
+import com.exchange.core.model.enums.OrderSide;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Resting order state in fixed-size slots of direct memory, order is referenced by int handle
+ * Slots are allocated in chunks of direct ByteBuffer, so store grows without copying and is not
+ * limited by 2GB size of single buffer. Freed slots are linked into free list by next field
+ * Only fixed-point values are kept: price and quantities are scaled longs
+ * Client order id is opaque string, it's kept on heap in parallel array (null for most orders)
+ * Not thread-safe
+ */
+public class OffHeapOrderStore {
+
+  public static final int NONE = -1;
+
+  // slot layout, 48 bytes
+  private static final int ORDER_ID = 0;
+  private static final int PRICE = 8;
+  private static final int LEAVES_QTY = 16;
+  private static final int ORDER_QTY = 24;
+  private static final int ACCOUNT = 32;
+  private static final int PREV = 36;
+  private static final int NEXT = 40;
+  private static final int SIDE = 44;
+  static final int SLOT_SIZE = 48;
+
+  private final int chunkShift;
+  private final int chunkMask;
+  private ByteBuffer[] chunks = new ByteBuffer[16];
+  private String[][] clOrdIds = new String[16][];
+  private int chunkCount;
+  // slots above this handle were never used
+  private int limit;
+  private int freeHead = NONE;
+  private int size;
+
+  public OffHeapOrderStore() {
+    this(1 << 16);
+  }
+
+  /**
+   * @param chunkSlots - number of slots in one chunk, should be power of 2
+   */
+  public OffHeapOrderStore(int chunkSlots) {
+    if (chunkSlots <= 0 || Integer.bitCount(chunkSlots) != 1
+        || (long) chunkSlots * SLOT_SIZE > Integer.MAX_VALUE) {
+      throw new AppException("Chunk size should be power of 2: chunkSlots=" + chunkSlots);
+    }
+    chunkShift = Integer.numberOfTrailingZeros(chunkSlots);
+    chunkMask = chunkSlots - 1;
+  }
+
+  /**
+   * Take free slot, its content is undefined until written
+   * @return handle of slot
+   */
+  public int allocate() {
+    int handle;
+    if (freeHead != NONE) {
+      handle = freeHead;
+      freeHead = getNext(handle);
+    } else {
+      if (limit == Integer.MAX_VALUE) {
+        throw new AppException("OffHeapOrderStore max capacity exceeded: size=" + size);
+      }
+      handle = limit++;
+      if ((handle >>> chunkShift) == chunkCount) {
+        addChunk();
+      }
+    }
+    size++;
+    return handle;
+  }
+
+  public void free(int handle) {
+    setClOrdId(handle, null);
+    setNext(handle, freeHead);
+    freeHead = handle;
+    size--;
+  }
+
+  /**
+   * @return number of allocated slots
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * @return number of slots backed by direct memory
+   */
+  public long capacity() {
+    return (long) chunkCount << chunkShift;
+  }
+
+  private void addChunk() {
+    if (chunkCount == chunks.length) {
+      chunks = Arrays.copyOf(chunks, chunkCount * 2);
+      clOrdIds = Arrays.copyOf(clOrdIds, chunkCount * 2);
+    }
+    chunks[chunkCount] = ByteBuffer.allocateDirect((chunkMask + 1) * SLOT_SIZE)
+        .order(ByteOrder.nativeOrder());
+    clOrdIds[chunkCount] = new String[chunkMask + 1];
+    chunkCount++;
+  }
+
+  private ByteBuffer chunk(int handle) {
+    return chunks[handle >>> chunkShift];
+  }
+
+  private int offset(int handle, int field) {
+    return (handle & chunkMask) * SLOT_SIZE + field;
+  }
+
+  public long getOrderId(int handle) {
+    return chunk(handle).getLong(offset(handle, ORDER_ID));
+  }
+
+  public void setOrderId(int handle, long orderId) {
+    chunk(handle).putLong(offset(handle, ORDER_ID), orderId);
+  }
+
+  public long getPrice(int handle) {
+    return chunk(handle).getLong(offset(handle, PRICE));
+  }
+
+  public void setPrice(int handle, long price) {
+    chunk(handle).putLong(offset(handle, PRICE), price);
+  }
+
+  public long getLeavesQty(int handle) {
+    return chunk(handle).getLong(offset(handle, LEAVES_QTY));
+  }
+
+  public void setLeavesQty(int handle, long leavesQty) {
+    chunk(handle).putLong(offset(handle, LEAVES_QTY), leavesQty);
+  }
+
+  public long getOrderQty(int handle) {
+    return chunk(handle).getLong(offset(handle, ORDER_QTY));
+  }
+
+  public void setOrderQty(int handle, long orderQty) {
+    chunk(handle).putLong(offset(handle, ORDER_QTY), orderQty);
+  }
+
+  public int getAccount(int handle) {
+    return chunk(handle).getInt(offset(handle, ACCOUNT));
+  }
+
+  public void setAccount(int handle, int account) {
+    chunk(handle).putInt(offset(handle, ACCOUNT), account);
+  }
+
+  public OrderSide getSide(int handle) {
+    return chunk(handle).get(offset(handle, SIDE)) == 0 ? OrderSide.BUY : OrderSide.SELL;
+  }
+
+  public void setSide(int handle, OrderSide side) {
+    chunk(handle).put(offset(handle, SIDE), (byte) (side == OrderSide.BUY ? 0 : 1));
+  }
+
+  public int getPrev(int handle) {
+    return chunk(handle).getInt(offset(handle, PREV));
+  }
+
+  public void setPrev(int handle, int prev) {
+    chunk(handle).putInt(offset(handle, PREV), prev);
+  }
+
+  public int getNext(int handle) {
+    return chunk(handle).getInt(offset(handle, NEXT));
+  }
+
+  public void setNext(int handle, int next) {
+    chunk(handle).putInt(offset(handle, NEXT), next);
+  }
+
+  public String getClOrdId(int handle) {
+    return clOrdIds[handle >>> chunkShift][handle & chunkMask];
+  }
+
+  public void setClOrdId(int handle, String clOrdId) {
+    clOrdIds[handle >>> chunkShift][handle & chunkMask] = clOrdId;
+  }
+}
@@ -0,0 +1,219 @@
+package com.exchange.core.matching.orderbook.window;
+
+import com.exchange.core.exceptions.AppException;
+import com.exchange.core.matching.orderbook.bitset.HierarchicalBitSet;
+import com.exchange.core.matching.orderbook.level.PriceLevel;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Price levels of one side of order book indexed by tick
+ * Ticks in range [lo, lo + size) are kept in ring array (slot = tick & mask) with bitset of
+ * non-empty slots, all other ticks are kept in sorted overflow map. Memory depends on window size
+ * and number of far-away levels, not on max price
+ * Ticks should be non-negative
+ */
+public class PriceLevelWindow {
+
+  public static final long NONE = -1;
+
+  private final PriceLevel[] levels;
+  private final HierarchicalBitSet slots;
+  private final int size;
+  private final int mask;
+  private final TreeMap<Long, PriceLevel> overflow = new TreeMap<>();
+  // first tick of the window
+  private long lo;
+  private int levelCount;
+
+  /**
+   * @param size - number of ticks in window, rounded up to power of 2
+   */
+  public PriceLevelWindow(int size) {
+    if (size <= 0) {
+      throw new AppException("Window size should be positive: size=" + size);
+    }
+    this.size = Integer.highestOneBit(Math.max(size, 2) - 1) << 1;
+    mask = this.size - 1;
+    levels = new PriceLevel[this.size];
+    slots = new HierarchicalBitSet(this.size);
+  }
+
+  public int getSize() {
+    return size;
+  }
+
+  public long getLo() {
+    return lo;
+  }
+
+  /**
+   * @return number of levels in the window and overflow
+   */
+  public int getLevelCount() {
+    return levelCount;
+  }
+
+  public int getOverflowCount() {
+    return overflow.size();
+  }
+
+  public boolean isEmpty() {
+    return levelCount == 0;
+  }
+
+  private boolean inWindow(long tick) {
+    return tick >= lo && tick < lo + size;
+  }
+
+  private int slot(long tick) {
+    return (int) (tick & mask);
+  }
+
+  private long tickOf(int slot) {
+    final int loSlot = slot(lo);
+    return slot >= loSlot ? lo + (slot - loSlot) : lo + (size - loSlot) + slot;
+  }
+
+  public PriceLevel get(long tick) {
+    if (inWindow(tick)) {
+      return levels[slot(tick)];
+    }
+    return overflow.isEmpty() ? null : overflow.get(tick);
+  }
+
+  /**
+   * Add new level, there should be no level for this tick
+   */
+  public void put(long tick, PriceLevel level) {
+    if (tick < 0) {
+      throw new AppException("Tick should be non-negative: tick=" + tick);
+    }
+    if (inWindow(tick)) {
+      final int s = slot(tick);
+      levels[s] = level;
+      slots.set(s);
+    } else {
+      overflow.put(tick, level);
+    }
+    levelCount++;
+  }
+
+  public void remove(long tick) {
+    if (inWindow(tick)) {
+      final int s = slot(tick);
+      if (levels[s] == null) {
+        return;
+      }
+      levels[s] = null;
+      slots.clear(s);
+    } else if (overflow.remove(tick) == null) {
+      return;
+    }
+    levelCount--;
+  }
+
+  /**
+   * @return the lowest tick with level greater or equal to from, NONE if not found
+   */
+  public long next(long from) {
+    long result = NONE;
+    if (from < lo + size) {
+      result = windowNext(Math.max(from, lo));
+    }
+    // overflow can have smaller tick only below the window
+    if (!overflow.isEmpty() && (result == NONE || from < lo)) {
+      Long key = overflow.ceilingKey(from);
+      if (key != null && (result == NONE || key < result)) {
+        result = key;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * @return the highest tick with level less or equal to from, NONE if not found
+   */
+  public long prev(long from) {
+    long result = NONE;
+    if (from >= lo) {
+      result = windowPrev(Math.min(from, lo + size - 1));
+    }
+    // overflow can have bigger tick only above the window
+    if (!overflow.isEmpty() && (result == NONE || from >= lo + size)) {
+      Long key = overflow.floorKey(from);
+      if (key != null && (result == NONE || key > result)) {
+        result = key;
+      }
+    }
+    return result;
+  }
+
+  public long first() {
+    return next(0);
+  }
+
+  public long last() {
+    return prev(Long.MAX_VALUE);
+  }
+
+  private long windowNext(long tick) {
+    final int s = slot(tick);
+    final int loSlot = slot(lo);
+    int r = slots.nextSetBit(s);
+    if (s >= loSlot) {
+      if (r != -1) {
+        return tickOf(r);
+      }
+      // wrap around to the start of array
+      r = slots.nextSetBit(0);
+    }
+    return r != -1 && r < loSlot ? tickOf(r) : NONE;
+  }
+
+  private long windowPrev(long tick) {
+    final int s = slot(tick);
+    final int loSlot = slot(lo);
+    int r = slots.prevSetBit(s);
+    if (s < loSlot) {
+      if (r != -1) {
+        return tickOf(r);
+      }
+      // wrap around to the end of array
+      r = slots.prevSetBit(size - 1);
+    }
+    return r >= loSlot ? tickOf(r) : NONE;
+  }
+
+  /**
+   * Move window to start from newLo: levels leaving the window go into overflow, overflow levels
+   * inside new window go into array. Cost depends on number of levels, not on window size
+   */
+  public void recenter(long newLo) {
+    if (newLo == lo) {
+      return;
+    }
+    final long newHi = newLo + size;
+    for (int r = slots.nextSetBit(0); r != -1; r = slots.nextSetBit(r + 1)) {
+      long tick = tickOf(r);
+      if (tick < newLo || tick >= newHi) {
+        overflow.put(tick, levels[r]);
+        levels[r] = null;
+        slots.clear(r);
+      }
+    }
+    lo = newLo;
+    if (!overflow.isEmpty()) {
+      Iterator<Map.Entry<Long, PriceLevel>> it =
+          overflow.subMap(newLo, true, newHi, false).entrySet().iterator();
+      while (it.hasNext()) {
+        Map.Entry<Long, PriceLevel> entry = it.next();
+        final int s = slot(entry.getKey());
+        levels[s] = entry.getValue();
+        slots.set(s);
+        it.remove();
+      }
+    }
+  }
+}
@@ -1,8 +1,10 @@
 package com.exchange.core.matching.orderchecks;
 
 import com.exchange.core.model.msg.MarketData;
+import com.exchange.core.model.msg.MarketDataUpdate;
 import com.exchange.core.model.msg.Order;
 import java.math.BigDecimal;
+import java.util.List;
 
 public interface PostOrderCheck {
 
@@ -12,7 +14,26 @@ public interface PostOrderCheck {
 
   void sendMarketData(MarketData marketData);
 
+  void sendMarketDataUpdate(MarketDataUpdate update);
+
   void settleTrade(Order taker, Order maker, BigDecimal tradeQty, BigDecimal tradeAmount);
 
+  /**
+   * Fixed-point versions: quantity has quantityScale, price priceScale, amount both scales
+   */
+  void sendExecReportTrade(Order taker, Order maker, long tradeQty, long tradePrice);
+
+  void settleTrade(Order taker, Order maker, long tradeQty, long tradeAmount);
+
   void cancelOrder(Order order);
+
+  /**
+   * Cancel orders of one account, locked balance is released with one unlock per asset
+   */
+  void cancelOrders(List<Order> orders);
+
+  /**
+   * Send REPLACED report with new price/quantity of order, balance is already relocked
+   */
+  void sendExecReportReplace(Order order);
 }
\ No newline at end of file
@@ -7,12 +7,18 @@ import com.exchange.core.model.enums.OrderType;
 import com.exchange.core.model.msg.ExecutionReport;
 import com.exchange.core.model.msg.InstrumentConfig;
 import com.exchange.core.model.msg.MarketData;
+import com.exchange.core.model.msg.MarketDataUpdate;
 import com.exchange.core.model.msg.Message;
 import com.exchange.core.model.msg.Order;
+import com.exchange.core.pool.ObjectPool;
 import com.exchange.core.repository.AccountRepository;
 import com.exchange.core.repository.InstrumentRepository;
 import com.exchange.core.user.Position;
+import com.exchange.core.utils.FixedPoint;
 import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Queue;
 
 public class PostOrderCheckImpl implements PostOrderCheck {
@@ -21,13 +27,37 @@ public class PostOrderCheckImpl implements PostOrderCheck {
   private final AccountRepository accountRepository;
   private final InstrumentRepository instrumentRepository;
   private final Queue<Message> outbound;
+  private final boolean fixedPoint;
+  private final ObjectPool<ExecutionReport> execReportPool;
 
   public PostOrderCheckImpl(GlobalCounter counter, AccountRepository accountRepository,
       InstrumentRepository instrumentRepository, Queue<Message> outbound) {
+    this(counter, accountRepository, instrumentRepository, outbound, false);
+  }
+
+  /**
+   * @param fixedPoint - if true, execution reports carry scaled leavesQty/lastQty/lastPx,
+   *                   BigDecimal values are created lazily by report consumer
+   */
+  public PostOrderCheckImpl(GlobalCounter counter, AccountRepository accountRepository,
+      InstrumentRepository instrumentRepository, Queue<Message> outbound, boolean fixedPoint) {
+    this(counter, accountRepository, instrumentRepository, outbound, fixedPoint, null);
+  }
+
+  /**
+   * @param execReportPool - execution reports are acquired from this pool,
+   *                       outbound consumer returns them with ExecutionReport.release()
+   *                       null - every report is new object
+   */
+  public PostOrderCheckImpl(GlobalCounter counter, AccountRepository accountRepository,
+      InstrumentRepository instrumentRepository, Queue<Message> outbound, boolean fixedPoint,
+      ObjectPool<ExecutionReport> execReportPool) {
+    this.execReportPool = execReportPool;
     this.counter = counter;
     this.accountRepository = accountRepository;
     this.instrumentRepository = instrumentRepository;
     this.outbound = outbound;
+    this.fixedPoint = fixedPoint;
   }
 
   @Override
@@ -63,11 +93,48 @@ public class PostOrderCheckImpl implements PostOrderCheck {
     outbound.add(execMaker);
   }
 
+  @Override
+  public void sendExecReportTrade(Order taker, Order maker, long tradeQty, long tradePrice) {
+    InstrumentConfig inst = instrumentRepository.getInstrument(taker.getSymbol());
+    ExecutionReport execTaker = orderToExecReport(taker);
+    execTaker.setIsTaker(true);
+    execTaker.setCounterOrderId(maker.getOrderId());
+    execTaker.setStatus(OrderStatus.PARTIALLY_FILLED);
+    if (taker.getScaledLeavesQty() == 0) {
+      execTaker.setStatus(OrderStatus.FILLED);
+    }
+    setLastTrade(execTaker, inst, tradeQty, tradePrice);
+    ExecutionReport execMaker = orderToExecReport(maker);
+    execMaker.setIsTaker(false);
+    execMaker.setCounterOrderId(taker.getOrderId());
+    execMaker.setStatus(OrderStatus.PARTIALLY_FILLED);
+    if (maker.getScaledLeavesQty() == 0) {
+      execMaker.setStatus(OrderStatus.FILLED);
+    }
+    setLastTrade(execMaker, inst, tradeQty, tradePrice);
+
+    outbound.add(execTaker);
+    outbound.add(execMaker);
+  }
+
+  private void setLastTrade(ExecutionReport exec, InstrumentConfig inst, long tradeQty,
+      long tradePrice) {
+    exec.setScaledLastQty(tradeQty);
+    exec.setLastQtyScale(inst.getQuantityScale());
+    exec.setScaledLastPx(tradePrice);
+    exec.setLastPxScale(inst.getPriceScale());
+  }
+
   @Override
   public void sendMarketData(MarketData marketData) {
     outbound.add(marketData);
   }
 
+  @Override
+  public void sendMarketDataUpdate(MarketDataUpdate update) {
+    outbound.add(update);
+  }
+
   @Override
   public void settleTrade(Order taker, Order maker, BigDecimal tradeQty, BigDecimal tradeAmount) {
     InstrumentConfig inst = instrumentRepository.getInstrument(taker.getSymbol());
@@ -93,23 +160,108 @@ public class PostOrderCheckImpl implements PostOrderCheck {
     }
   }
 
+  @Override
+  public void settleTrade(Order taker, Order maker, long tradeQty, long tradeAmount) {
+    InstrumentConfig inst = instrumentRepository.getInstrument(taker.getSymbol());
+    final int qtyScale = inst.getQuantityScale();
+    final int amountScale = inst.getPriceScale() + inst.getQuantityScale();
+    Position takerBasePosition = accountRepository.getAccountPosition(taker.getAccount(),
+        inst.getBase());
+    Position makerBasePosition = accountRepository.getAccountPosition(maker.getAccount(),
+        inst.getBase());
+    Position takerQuotePosition = accountRepository.getAccountPosition(taker.getAccount(),
+        inst.getQuote());
+    Position makerQuotePosition = accountRepository.getAccountPosition(maker.getAccount(),
+        inst.getQuote());
+
+    if (taker.getSide() == OrderSide.BUY) {
+      takerQuotePosition.freeLocked(tradeAmount, amountScale);
+      takerBasePosition.add(tradeQty, qtyScale);
+      makerBasePosition.freeLocked(tradeQty, qtyScale);
+      makerQuotePosition.add(tradeAmount, amountScale);
+    } else {
+      takerBasePosition.freeLocked(tradeQty, qtyScale);
+      takerQuotePosition.add(tradeAmount, amountScale);
+      makerQuotePosition.freeLocked(tradeAmount, amountScale);
+      makerBasePosition.add(tradeQty, qtyScale);
+    }
+  }
+
   @Override
   public void cancelOrder(Order order) {
     // free locked balance
     InstrumentConfig inst = instrumentRepository.getInstrument(order.getSymbol());
     String asset = order.getSide() == OrderSide.BUY ? inst.getQuote() : inst.getBase();
     Position position = accountRepository.getAccountPosition(order.getAccount(), asset);
-    BigDecimal amount = getTradeAmount(order);
-    position.unlock(amount);
+    if (fixedPoint) {
+      long amount = order.getScaledLeavesQty();
+      int amountScale = getLeavesQtyScale(order, inst);
+      if (order.getSide() == OrderSide.BUY && order.getType() == OrderType.LIMIT) {
+        amount = FixedPoint.multiply(amount, order.getScaledPrice());
+        amountScale = inst.getPriceScale() + inst.getQuantityScale();
+      }
+      position.unlock(amount, amountScale);
+    } else {
+      BigDecimal amount = getTradeAmount(order);
+      position.unlock(amount);
+    }
     // send cancellation execution report
     ExecutionReport exec = orderToExecReport(order);
     exec.setStatus(OrderStatus.CANCELLED);
     outbound.add(exec);
   }
 
+  @Override
+  public void cancelOrders(List<Order> orders) {
+    if (orders.isEmpty()) {
+      return;
+    }
+    Map<String, BigDecimal> amounts = new HashMap<>();
+    for (int i = 0; i < orders.size(); i++) {
+      Order order = orders.get(i);
+      InstrumentConfig inst = instrumentRepository.getInstrument(order.getSymbol());
+      String asset = order.getSide() == OrderSide.BUY ? inst.getQuote() : inst.getBase();
+      amounts.merge(asset, getLockedAmount(order, inst), BigDecimal::add);
+    }
+    final int account = orders.get(0).getAccount();
+    amounts.forEach((asset, amount) ->
+        accountRepository.getAccountPosition(account, asset).unlock(amount));
+    for (int i = 0; i < orders.size(); i++) {
+      ExecutionReport exec = orderToExecReport(orders.get(i));
+      exec.setStatus(OrderStatus.CANCELLED);
+      outbound.add(exec);
+    }
+  }
+
+  /**
+   * Locked amount of resting limit order, scaled values are used in fixed-point mode
+   */
+  private BigDecimal getLockedAmount(Order order, InstrumentConfig inst) {
+    if (fixedPoint) {
+      if (order.getSide() == OrderSide.BUY) {
+        return FixedPoint.toBigDecimal(
+            FixedPoint.multiply(order.getScaledLeavesQty(), order.getScaledPrice()),
+            inst.getPriceScale() + inst.getQuantityScale());
+      }
+      return FixedPoint.toBigDecimal(order.getScaledLeavesQty(), inst.getQuantityScale());
+    }
+    return getTradeAmount(order);
+  }
+
+  @Override
+  public void sendExecReportReplace(Order order) {
+    ExecutionReport exec = orderToExecReport(order);
+    exec.setStatus(OrderStatus.REPLACED);
+    outbound.add(exec);
+  }
+
+  /**
+   * Locked amount of order leavesQty: quote amount for limit buy, for market buy leavesQty is
+   * already in quote asset, sell orders lock base quantity
+   */
   private BigDecimal getTradeAmount(Order order) {
     BigDecimal amount;
-    if (order.getType() == OrderType.LIMIT) {
+    if (order.getSide() == OrderSide.BUY && order.getType() == OrderType.LIMIT) {
       amount = order.getLeavesQty().multiply(order.getPrice());
     } else {
       amount = order.getLeavesQty();
@@ -118,14 +270,33 @@ public class PostOrderCheckImpl implements PostOrderCheck {
   }
 
   private ExecutionReport orderToExecReport(Order order) {
-    ExecutionReport exec = new ExecutionReport();
+    ExecutionReport exec = execReportPool == null ? new ExecutionReport()
+        : execReportPool.acquire();
     exec.setExecId(counter.getNextExecutionId());
     exec.setOrderId(order.getOrderId());
     exec.setClOrdId(order.getClOrdId());
     exec.setSymbol(order.getSymbol());
     exec.setPrice(order.getPrice());
     exec.setOrderQty(order.getOrderQty());
-    exec.setLeavesQty(order.getLeavesQty());
+    if (fixedPoint) {
+      // BigDecimal leavesQty is created lazily by consumer
+      InstrumentConfig inst = instrumentRepository.getInstrument(order.getSymbol());
+      exec.setFixedPoint(true);
+      exec.setScaledLeavesQty(order.getScaledLeavesQty());
+      exec.setLeavesQtyScale(getLeavesQtyScale(order, inst));
+    } else {
+      exec.setLeavesQty(order.getLeavesQty());
+    }
     return exec;
   }
+
+  /**
+   * leavesQty of market buy is amount in quote asset, for all other orders it's quantity
+   */
+  private int getLeavesQtyScale(Order order, InstrumentConfig inst) {
+    if (order.getType() == OrderType.MARKET && order.getSide() == OrderSide.BUY) {
+      return inst.getPriceScale() + inst.getQuantityScale();
+    }
+    return inst.getQuantityScale();
+  }
 }
\ No newline at end of file
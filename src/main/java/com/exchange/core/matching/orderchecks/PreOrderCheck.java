@@ -1,12 +1,41 @@
 package com.exchange.core.matching.orderchecks;
 
+import com.exchange.core.model.msg.Message;
 import com.exchange.core.model.msg.Order;
+import com.exchange.core.model.msg.ReplaceOrder;
 
 public interface PreOrderCheck {
 
+  /**
+   * Check that inbound message fits binary layout of journal and market gateways, so it's accepted
+   * or rejected the same way whether journal is used or not. Limits:
+   * symbol, asset - up to 15 ASCII chars
+   * clOrdId - up to 39 ASCII chars
+   * decimal - unscaled value fits into long, scale up to 127
+   * @throws com.exchange.core.exceptions.AppException if message exceeds limits
+   */
+  void checkLimits(Message msg);
+
   boolean validateOrder(Order order);
 
   void updateNewOrder(Order order);
 
   void lockBalance(Order order);
+
+  /**
+   * Set leavesQty of replace from its orderQty and quantity already filled by original order,
+   * other fields which are not part of replace request are copied from original order
+   */
+  void updateReplaceOrder(Order order, Order replace);
+
+  /**
+   * Check that replace leaves some quantity and available balance covers increase of locked amount
+   * Error is sent with msg as payload, cause replace can be reused by caller for the next request
+   */
+  boolean validateReplace(Order order, Order replace, ReplaceOrder msg);
+
+  /**
+   * Change locked balance from amount of original order to amount of replace
+   */
+  void relockBalance(Order order, Order replace);
 }
\ No newline at end of file
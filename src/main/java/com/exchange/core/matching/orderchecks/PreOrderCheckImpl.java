@@ -1,31 +1,89 @@
 package com.exchange.core.matching.orderchecks;
 
+import com.exchange.core.codec.Flyweight;
+import com.exchange.core.exceptions.AppException;
 import com.exchange.core.matching.counter.GlobalCounter;
 import com.exchange.core.model.enums.OrderSide;
 import com.exchange.core.model.enums.OrderType;
+import com.exchange.core.model.msg.CancelOrder;
 import com.exchange.core.model.msg.ErrorMessage;
 import com.exchange.core.model.msg.InstrumentConfig;
+import com.exchange.core.model.msg.MassCancelOrder;
 import com.exchange.core.model.msg.Message;
 import com.exchange.core.model.msg.Order;
+import com.exchange.core.model.msg.ReplaceOrder;
+import com.exchange.core.model.msg.UserBalance;
 import com.exchange.core.repository.AccountRepository;
 import com.exchange.core.repository.InstrumentRepository;
 import com.exchange.core.user.Position;
+import com.exchange.core.utils.FixedPoint;
 import java.math.BigDecimal;
 import java.util.Queue;
 
 public class PreOrderCheckImpl implements PreOrderCheck {
 
+  public static final int MAX_SYMBOL_LENGTH = Flyweight.SYMBOL_LENGTH - 1;
+  public static final int MAX_CL_ORD_ID_LENGTH = Flyweight.CL_ORD_ID_LENGTH - 1;
+  private static final int MAX_DECIMAL_SCALE = Byte.MAX_VALUE;
+
   private final GlobalCounter counter;
   private final AccountRepository accountRepository;
   private final InstrumentRepository instrumentRepository;
   private final Queue<Message> outbound;
+  private final boolean fixedPoint;
 
   public PreOrderCheckImpl(GlobalCounter counter, AccountRepository accountRepository,
       InstrumentRepository instrumentRepository, Queue<Message> outbound) {
+    this(counter, accountRepository, instrumentRepository, outbound, false);
+  }
+
+  /**
+   * @param fixedPoint - if true, scaled price/leavesQty are set for new order and balance is locked
+   *                   with scaled long values
+   */
+  public PreOrderCheckImpl(GlobalCounter counter, AccountRepository accountRepository,
+      InstrumentRepository instrumentRepository, Queue<Message> outbound, boolean fixedPoint) {
     this.counter = counter;
     this.accountRepository = accountRepository;
     this.instrumentRepository = instrumentRepository;
     this.outbound = outbound;
+    this.fixedPoint = fixedPoint;
+  }
+
+  @Override
+  public void checkLimits(Message msg) {
+    switch (msg) {
+      case Order order -> {
+        checkText("symbol", order.getSymbol(), MAX_SYMBOL_LENGTH);
+        checkText("clOrdId", order.getClOrdId(), MAX_CL_ORD_ID_LENGTH);
+        checkDecimal("orderQty", order.getOrderQty());
+        checkDecimal("quoteOrderQty", order.getQuoteOrderQty());
+        checkDecimal("price", order.getPrice());
+      }
+      case CancelOrder cancel -> {
+        checkText("symbol", cancel.getSymbol(), MAX_SYMBOL_LENGTH);
+        checkText("clOrdId", cancel.getClOrdId(), MAX_CL_ORD_ID_LENGTH);
+      }
+      case ReplaceOrder replace -> {
+        checkText("symbol", replace.getSymbol(), MAX_SYMBOL_LENGTH);
+        checkText("clOrdId", replace.getClOrdId(), MAX_CL_ORD_ID_LENGTH);
+        checkDecimal("orderQty", replace.getOrderQty());
+        checkDecimal("price", replace.getPrice());
+      }
+      case MassCancelOrder massCancel ->
+          checkText("symbol", massCancel.getSymbol(), MAX_SYMBOL_LENGTH);
+      case InstrumentConfig inst -> {
+        checkText("symbol", inst.getSymbol(), MAX_SYMBOL_LENGTH);
+        checkText("base", inst.getBase(), MAX_SYMBOL_LENGTH);
+        checkText("quote", inst.getQuote(), MAX_SYMBOL_LENGTH);
+      }
+      case UserBalance balance -> {
+        checkText("asset", balance.getAsset(), MAX_SYMBOL_LENGTH);
+        checkDecimal("amount", balance.getAmount());
+      }
+      case null, default -> {
+      }
+    }
   }
 
   @Override
@@ -52,15 +110,127 @@ public class PreOrderCheckImpl implements PreOrderCheck {
     if (order.getType() == OrderType.MARKET && order.getSide() == OrderSide.BUY) {
       order.setLeavesQty(order.getQuoteOrderQty());
     }
+    if (fixedPoint) {
+      InstrumentConfig inst = instrumentRepository.getInstrument(order.getSymbol());
+      order.setScaledPrice(FixedPoint.toLong(order.getPrice(), inst.getPriceScale()));
+      order.setScaledLeavesQty(
+          FixedPoint.toLong(order.getLeavesQty(), getLeavesQtyScale(order, inst)));
+    }
   }
 
   @Override
   public void lockBalance(Order order) {
     Position position = getUserPosition(order);
+    if (fixedPoint) {
+      InstrumentConfig inst = instrumentRepository.getInstrument(order.getSymbol());
+      long amount = order.getScaledLeavesQty();
+      if (order.getSide() == OrderSide.BUY && order.getType() == OrderType.LIMIT) {
+        amount = FixedPoint.multiply(amount, order.getScaledPrice());
+      }
+      position.lock(amount, getTradeAmountScale(order, inst));
+      return;
+    }
     BigDecimal amount = getTradeAmount(order);
     position.lock(amount);
   }
 
+  @Override
+  public void updateReplaceOrder(Order order, Order replace) {
+    replace.setSymbol(order.getSymbol());
+    replace.setOrderId(order.getOrderId());
+    replace.setAccount(order.getAccount());
+    replace.setSide(order.getSide());
+    replace.setType(order.getType());
+    if (fixedPoint) {
+      InstrumentConfig inst = instrumentRepository.getInstrument(order.getSymbol());
+      final int qtyScale = inst.getQuantityScale();
+      long filledQty = FixedPoint.toLong(order.getOrderQty(), qtyScale)
+          - order.getScaledLeavesQty();
+      replace.setScaledPrice(FixedPoint.toLong(replace.getPrice(), inst.getPriceScale()));
+      replace.setScaledLeavesQty(FixedPoint.toLong(replace.getOrderQty(), qtyScale) - filledQty);
+      replace.setLeavesQty(FixedPoint.toBigDecimal(replace.getScaledLeavesQty(), qtyScale));
+      return;
+    }
+    BigDecimal filledQty = order.getOrderQty().subtract(order.getLeavesQty());
+    replace.setLeavesQty(replace.getOrderQty().subtract(filledQty));
+  }
+
+  @Override
+  public boolean validateReplace(Order order, Order replace, ReplaceOrder msg) {
+    if (order.getType() != OrderType.LIMIT) {
+      outbound.add(new ErrorMessage("Invalid replace order", msg));
+      return false;
+    }
+    if (replace.getLeavesQty().signum() <= 0) {
+      outbound.add(new ErrorMessage("Replace quantity should be greater than filled", msg));
+      return false;
+    }
+    Position position = getUserPosition(order);
+    if (fixedPoint) {
+      InstrumentConfig inst = instrumentRepository.getInstrument(order.getSymbol());
+      long amount = getScaledLockedAmount(replace) - getScaledLockedAmount(order);
+      if (amount > 0 && !position.isAvailable(amount, getTradeAmountScale(order, inst))) {
+        outbound.add(new ErrorMessage("Balance insufficient", msg));
+        return false;
+      }
+      return true;
+    }
+    BigDecimal amount = getLockedAmount(replace).subtract(getLockedAmount(order));
+    if (amount.signum() > 0 && position.getBalance().compareTo(amount) < 0) {
+      outbound.add(new ErrorMessage("Balance insufficient", msg));
+      return false;
+    }
+    return true;
+  }
+
+  @Override
+  public void relockBalance(Order order, Order replace) {
+    Position position = getUserPosition(order);
+    if (fixedPoint) {
+      InstrumentConfig inst = instrumentRepository.getInstrument(order.getSymbol());
+      final int amountScale = getTradeAmountScale(order, inst);
+      long amount = getScaledLockedAmount(replace) - getScaledLockedAmount(order);
+      if (amount > 0) {
+        position.lock(amount, amountScale);
+      } else if (amount < 0) {
+        position.unlock(-amount, amountScale);
+      }
+      return;
+    }
+    BigDecimal amount = getLockedAmount(replace).subtract(getLockedAmount(order));
+    if (amount.signum() > 0) {
+      position.lock(amount);
+    } else if (amount.signum() < 0) {
+      position.unlock(amount.negate());
+    }
+  }
+
+
+  private static void checkText(String field, String value, int maxLength) {
+    if (value == null) {
+      return;
+    }
+    if (value.length() > maxLength) {
+      throw new AppException(
+          "Field too long: field=" + field + ", value=" + value + ", maxLength=" + maxLength);
+    }
+    for (int i = 0; i < value.length(); i++) {
+      if (value.charAt(i) > Byte.MAX_VALUE) {
+        throw new AppException("Field should be ASCII: field=" + field + ", value=" + value);
+      }
+    }
+  }
+
+  private static void checkDecimal(String field, BigDecimal value) {
+    if (value == null) {
+      return;
+    }
+    int scale = Math.max(value.scale(), 0);
+    if (scale > MAX_DECIMAL_SCALE
+        || value.setScale(scale).unscaledValue().bitLength() >= Long.SIZE) {
+      throw new AppException("Decimal out of range: field=" + field + ", value=" + value);
+    }
+  }
 
   private boolean validateAccount(Order order) {
     return accountRepository.getAccount(order.getAccount()) != null;
@@ -68,6 +238,11 @@ public class PreOrderCheckImpl implements PreOrderCheck {
 
   private boolean validateBalance(Order order) {
     Position position = getUserPosition(order);
+    if (fixedPoint) {
+      InstrumentConfig inst = instrumentRepository.getInstrument(order.getSymbol());
+      return position.isAvailable(getScaledTradeAmount(order, inst),
+          getTradeAmountScale(order, inst));
+    }
     BigDecimal amount = getTradeAmount(order);
     return position.getBalance().compareTo(amount) >= 0;
   }
@@ -103,4 +278,55 @@ public class PreOrderCheckImpl implements PreOrderCheck {
       return order.getOrderQty();
     }
   }
-}
\ No newline at end of file
+
+  /**
+   * Amount locked by resting limit order: leavesQty * price for buy, leavesQty for sell
+   */
+  private BigDecimal getLockedAmount(Order order) {
+    if (order.getSide() == OrderSide.BUY) {
+      return order.getLeavesQty().multiply(order.getPrice());
+    }
+    return order.getLeavesQty();
+  }
+
+  private long getScaledLockedAmount(Order order) {
+    if (order.getSide() == OrderSide.BUY) {
+      return FixedPoint.multiply(order.getScaledLeavesQty(), order.getScaledPrice());
+    }
+    return order.getScaledLeavesQty();
+  }
+
+  private long getScaledTradeAmount(Order order, InstrumentConfig inst) {
+    if (order.getSide() == OrderSide.BUY) {
+      if (order.getType() == OrderType.LIMIT) {
+        return FixedPoint.multiply(
+            FixedPoint.toLong(order.getOrderQty(), inst.getQuantityScale()),
+            FixedPoint.toLong(order.getPrice(), inst.getPriceScale()));
+      } else {
+        return FixedPoint.toLong(order.getQuoteOrderQty(), getLeavesQtyScale(order, inst));
+      }
+    } else {
+      return FixedPoint.toLong(order.getOrderQty(), inst.getQuantityScale());
+    }
+  }
+
+  /**
+   * Buy orders lock quote asset: quantity * price, sell orders lock base asset: quantity
+   */
+  private int getTradeAmountScale(Order order, InstrumentConfig inst) {
+    if (order.getSide() == OrderSide.BUY) {
+      return inst.getPriceScale() + inst.getQuantityScale();
+    }
+    return inst.getQuantityScale();
+  }
+
+  /**
+   * leavesQty of market buy is amount in quote asset, for all other orders it's quantity
+   */
+  private int getLeavesQtyScale(Order order, InstrumentConfig inst) {
+    if (order.getType() == OrderType.MARKET && order.getSide() == OrderSide.BUY) {
+      return inst.getPriceScale() + inst.getQuantityScale();
+    }
+    return inst.getQuantityScale();
+  }
+}
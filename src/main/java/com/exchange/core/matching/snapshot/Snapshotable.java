@@ -2,6 +2,9 @@ package com.exchange.core.matching.snapshot;
 
 import com.exchange.core.model.SnapshotItem;
 import com.exchange.core.model.enums.SnapshotType;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
 
 public interface Snapshotable {
 
@@ -10,4 +13,51 @@ public interface Snapshotable {
   SnapshotItem create();
 
   void load(SnapshotItem data);
-}
\ No newline at end of file
+
+  /**
+   * Pass state to consumer record by record (elements of SnapshotItem data), so snapshot can be
+   * streamed without collecting the whole state. Default implementation goes through create()
+   */
+  default void forEachRecord(Consumer<Object> consumer) {
+    Object data = create().getData();
+    if (data instanceof Collection<?> records) {
+      records.forEach(consumer);
+    } else if (data != null) {
+      consumer.accept(data);
+    }
+  }
+
+  /**
+   * Load one record produced by forEachRecord. Default implementation passes it to load() as
+   * single-element list, so snapshotables whose data isn't a list should override it
+   */
+  default void loadRecord(Object record) {
+    SnapshotItem item = new SnapshotItem();
+    item.setType(getType());
+    item.setData(List.of(record));
+    load(item);
+  }
+
+  /**
+   * Pass records changed since the previous snapshot, so delta snapshot has only them, and start
+   * collecting changes again. Records have type getChangeType(). Default implementation passes all
+   * records
+   */
+  default void forEachChangedRecord(Consumer<Object> consumer) {
+    forEachRecord(consumer);
+  }
+
+  /**
+   * Type of item written by forEachChangedRecord. Default implementation writes the whole state,
+   * so item has the same type as full snapshot and replaces state of older snapshots on load
+   */
+  default SnapshotType getChangeType() {
+    return getType();
+  }
+
+  /**
+   * Forget collected changes, called when the whole state is written or loaded
+   */
+  default void clearChanges() {
+  }
+}
@@ -0,0 +1,557 @@
+package com.exchange.core.matching.snapshot.codec;
+
+import com.exchange.core.exceptions.AppException;
+import com.exchange.core.matching.snapshot.Snapshotable;
+import com.exchange.core.matching.snapshot.converter.JsonObjectConverter;
+import com.exchange.core.model.SnapshotItem;
+import com.exchange.core.model.SnapshotLevel;
+import com.exchange.core.model.enums.OrderSide;
+import com.exchange.core.model.enums.OrderType;
+import com.exchange.core.model.enums.SnapshotType;
+import com.exchange.core.model.msg.InstrumentConfig;
+import com.exchange.core.model.msg.Order;
+import com.exchange.core.user.Account;
+import com.exchange.core.user.Position;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.SequenceInputStream;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Compact versioned binary snapshot, decoded straight into target objects without intermediate
+ * maps or strings. Records are streamed through a buffer of one chunk, so memory used by codec
+ * doesn't depend on size of the state
+ * File: magic (int), version (short), items, end marker (byte 0xFF)
+ * Item: type ordinal (byte), chunks, 0 (int)
+ * Chunk: length (int), records. Chunk is flushed once it reaches CHUNK_SIZE, records never span
+ * chunks. Length allows to skip items which aren't needed or whose type is unknown to this version
+ * Records:
+ * INSTRUMENT - symbol, base, quote, priceScale, quantityScale
+ * ACCOUNT - accountId, position count, then asset, balance, locked, scale per position
+ * (unscaled values with common scale). If scales differ or values don't fit into long, scale is
+ * WIDE_POSITION and balance and locked follow as arbitrary-precision decimals
+ * ORDER_BOOK - orderId, clOrdId, account, symbol, side, type, orderQty, leavesQty,
+ * quoteOrderQty, price
+ * JOURNAL - seq
+ * ORDER_BOOK_LEVEL - side, price, order count, then orders as in ORDER_BOOK (delta snapshot)
+ * Integers are varints (zigzag for signed values), decimals are scale byte + mantissa, symbols and
+ * assets are written once per chunk and then referenced by number, see SnapshotOutput
+ * Items don't depend on each other, so mapped snapshot is loaded by one task per item (every
+ * order book, accounts, instruments) in parallel
+ * Version 1 (item count, then type, body length and record count per item) is decoded in memory
+ */
+public class BinarySnapshotCodec implements SnapshotCodec {
+
+  // "SNAP" in little-endian
+  public static final int MAGIC = 0x50414E53;
+  public static final short VERSION = 2;
+  public static final int CHUNK_SIZE = 1 << 16;
+  private static final int WIDE_POSITION = 0xFF;
+  private static final int HEADER_SIZE = Integer.BYTES + Short.BYTES;
+  private static final int END = 0xFF;
+  private static final SnapshotType[] TYPES = SnapshotType.values();
+  private static final OrderSide[] SIDES = OrderSide.values();
+  private static final OrderType[] ORDER_TYPES = OrderType.values();
+
+  // snapshots written before binary format
+  private final SnapshotCodec jsonCodec = new JsonSnapshotCodec(new JsonObjectConverter());
+
+  @Override
+  public byte[] encode(List<SnapshotItem> items) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    ItemWriter writer = new ItemWriter(Channels.newChannel(bytes));
+    for (SnapshotItem item : items) {
+      writer.startItem(item.getType());
+      if (item.getData() instanceof Collection<?> records) {
+        records.forEach(writer);
+      } else if (item.getData() != null) {
+        writer.accept(item.getData());
+      }
+      writer.endItem();
+    }
+    writer.end();
+    return bytes.toByteArray();
+  }
+
+  @Override
+  public void write(List<Snapshotable> snapshotables, WritableByteChannel channel) {
+    write(snapshotables, channel, false);
+  }
+
+  @Override
+  public void writeChanges(List<Snapshotable> snapshotables, WritableByteChannel channel) {
+    write(snapshotables, channel, true);
+  }
+
+  private void write(List<Snapshotable> snapshotables, WritableByteChannel channel,
+      boolean changes) {
+    ItemWriter writer = new ItemWriter(channel);
+    for (Snapshotable s : snapshotables) {
+      if (changes) {
+        writer.startItem(s.getChangeType());
+        s.forEachChangedRecord(writer);
+      } else {
+        writer.startItem(s.getType());
+        s.forEachRecord(writer);
+      }
+      writer.endItem();
+    }
+    writer.end();
+  }
+
+  @Override
+  public List<SnapshotItem> decode(byte[] data) {
+    return decode(data, null);
+  }
+
+  @Override
+  public List<SnapshotItem> decode(byte[] data, SnapshotType type) {
+    if (!isBinary(data)) {
+      return type == null ? jsonCodec.decode(data) : jsonCodec.decode(data, type);
+    }
+    SnapshotInput in = new SnapshotInput(data);
+    in.getInt();
+    int version = in.getShort();
+    if (version == 1) {
+      return decodeVersion1(in, type);
+    }
+    checkVersion(version);
+    List<SnapshotItem> items = new ArrayList<>();
+    readItems(Channels.newChannel(new ByteArrayInputStream(data, HEADER_SIZE,
+        data.length - HEADER_SIZE)), t -> {
+      if (type != null && t != type) {
+        return null;
+      }
+      SnapshotItem item = new SnapshotItem();
+      item.setType(t);
+      items.add(item);
+      if (t == SnapshotType.JOURNAL) {
+        return item::setData;
+      }
+      List<Object> records = new ArrayList<>();
+      item.setData(records);
+      return records::add;
+    });
+    return items;
+  }
+
+  /**
+   * Records are decoded chunk by chunk and passed to consumer before the next chunk is read
+   */
+  @Override
+  public void read(ReadableByteChannel channel,
+      Function<SnapshotType, Consumer<Object>> itemReader) {
+    ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    readFully(channel, header, false);
+    header.flip();
+    if (header.remaining() < HEADER_SIZE || header.getInt(0) != MAGIC
+        || header.getShort(Integer.BYTES) == 1) {
+      // json or version 1 snapshot is decoded in memory
+      ReadableByteChannel whole = Channels.newChannel(new SequenceInputStream(
+          new ByteArrayInputStream(header.array(), 0, header.remaining()),
+          Channels.newInputStream(channel)));
+      SnapshotCodec.super.read(whole, itemReader);
+      return;
+    }
+    checkVersion(header.getShort(Integer.BYTES));
+    readItems(channel, itemReader);
+  }
+
+  /**
+   * Chunk lengths are used to find where every item starts, then items are decoded on pool
+   * straight from mapped buffer. Waits for all items, failure of any item is rethrown
+   */
+  @Override
+  public void read(ByteBuffer data, Function<SnapshotType, Consumer<Object>> itemReader,
+      ForkJoinPool pool) {
+    ByteBuffer buffer = data.slice().order(ByteOrder.LITTLE_ENDIAN);
+    if (buffer.remaining() < HEADER_SIZE || buffer.getInt(0) != MAGIC
+        || buffer.getShort(Integer.BYTES) == 1) {
+      SnapshotCodec.super.read(data, itemReader, pool);
+      return;
+    }
+    checkVersion(buffer.getShort(Integer.BYTES));
+    List<ForkJoinTask<?>> tasks = new ArrayList<>();
+    int position = HEADER_SIZE;
+    for (int ordinal = getByte(buffer, position++); ordinal != END;
+        ordinal = getByte(buffer, position++)) {
+      int itemStart = position;
+      for (int length = getInt(buffer, position); length != 0; length = getInt(buffer, position)) {
+        if (length < 0) {
+          throw new AppException("Malformed snapshot chunk: length=" + length);
+        }
+        position += Integer.BYTES + length;
+      }
+      position += Integer.BYTES;
+      SnapshotType type = ordinal < TYPES.length ? TYPES[ordinal] : null;
+      Consumer<Object> consumer = type == null ? null : itemReader.apply(type);
+      if (consumer != null) {
+        // every task has its own view of buffer
+        ByteBuffer itemBuffer = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        tasks.add(pool.submit(() -> readChunks(itemBuffer, itemStart, type, consumer)));
+      }
+    }
+    RuntimeException failure = null;
+    for (ForkJoinTask<?> task : tasks) {
+      try {
+        task.join();
+      } catch (RuntimeException ex) {
+        if (failure == null) {
+          failure = ex;
+        }
+      }
+    }
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  private void readChunks(ByteBuffer buffer, int position, SnapshotType type,
+      Consumer<Object> consumer) {
+    SnapshotInput in = new SnapshotInput();
+    byte[] chunk = new byte[CHUNK_SIZE];
+    for (int length = getInt(buffer, position); length != 0; length = getInt(buffer, position)) {
+      position += Integer.BYTES;
+      if (length > chunk.length) {
+        chunk = new byte[length];
+      }
+      checkRemaining(buffer, position, length);
+      buffer.get(position, chunk, 0, length);
+      position += length;
+      in.wrap(chunk, length);
+      while (in.remaining() > 0) {
+        consumer.accept(decodeRecord(in, type));
+      }
+    }
+  }
+
+  private void readItems(ReadableByteChannel channel,
+      Function<SnapshotType, Consumer<Object>> itemReader) {
+    ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+    SnapshotInput in = new SnapshotInput();
+    byte[] chunk = new byte[CHUNK_SIZE];
+    for (int ordinal = readByte(channel, buffer); ordinal != END;
+        ordinal = readByte(channel, buffer)) {
+      SnapshotType type = ordinal < TYPES.length ? TYPES[ordinal] : null;
+      Consumer<Object> consumer = type == null ? null : itemReader.apply(type);
+      for (int length = readInt(channel, buffer); length != 0; length = readInt(channel, buffer)) {
+        if (length < 0) {
+          throw new AppException("Malformed snapshot chunk: length=" + length);
+        }
+        if (length > chunk.length) {
+          chunk = new byte[length];
+        }
+        readFully(channel, ByteBuffer.wrap(chunk, 0, length), true);
+        if (consumer == null) {
+          continue;
+        }
+        in.wrap(chunk, length);
+        while (in.remaining() > 0) {
+          consumer.accept(decodeRecord(in, type));
+        }
+      }
+    }
+  }
+
+  private List<SnapshotItem> decodeVersion1(SnapshotInput in, SnapshotType type) {
+    int count = in.getVarInt();
+    List<SnapshotItem> items = new ArrayList<>(Math.min(count, in.remaining()));
+    for (int i = 0; i < count; i++) {
+      int ordinal = in.getByte();
+      int length = in.getInt();
+      int end = in.position() + length;
+      if (ordinal >= TYPES.length || (type != null && TYPES[ordinal] != type)) {
+        in.position(end);
+        continue;
+      }
+      SnapshotItem item = new SnapshotItem();
+      item.setType(TYPES[ordinal]);
+      in.resetSymbols();
+      if (item.getType() == SnapshotType.JOURNAL) {
+        item.setData(decodeRecord(in, item.getType()));
+      } else {
+        int recordCount = in.getVarInt();
+        List<Object> records = new ArrayList<>(Math.min(recordCount, in.remaining()));
+        for (int r = 0; r < recordCount; r++) {
+          records.add(decodeRecord(in, item.getType()));
+        }
+        item.setData(records);
+      }
+      if (in.position() != end) {
+        throw new AppException(
+            "Snapshot item length mismatch: type=" + item.getType() + ", expected=" + end
+                + ", actual=" + in.position());
+      }
+      items.add(item);
+    }
+    return items;
+  }
+
+  private static void checkVersion(int version) {
+    if (version > VERSION) {
+      throw new AppException(
+          "Unsupported snapshot version: version=" + version + ", supported=" + VERSION);
+    }
+  }
+
+  private static boolean isBinary(byte[] data) {
+    return data.length >= Integer.BYTES
+        && (data[0] & 0xFF | (data[1] & 0xFF) << 8 | (data[2] & 0xFF) << 16
+        | (data[3] & 0xFF) << 24) == MAGIC;
+  }
+
+  private static int getByte(ByteBuffer buffer, int position) {
+    checkRemaining(buffer, position, 1);
+    return buffer.get(position) & 0xFF;
+  }
+
+  private static int getInt(ByteBuffer buffer, int position) {
+    checkRemaining(buffer, position, Integer.BYTES);
+    return buffer.getInt(position);
+  }
+
+  private static void checkRemaining(ByteBuffer buffer, int position, int length) {
+    if (position < 0 || position > buffer.limit() - length) {
+      throw new AppException(
+          "Snapshot is truncated: position=" + position + ", length=" + length + ", size="
+              + buffer.limit());
+    }
+  }
+
+  private static int readByte(ReadableByteChannel channel, ByteBuffer buffer) {
+    buffer.clear().limit(1);
+    readFully(channel, buffer, true);
+    return buffer.get(0) & 0xFF;
+  }
+
+  private static int readInt(ReadableByteChannel channel, ByteBuffer buffer) {
+    buffer.clear();
+    readFully(channel, buffer, true);
+    return buffer.getInt(0);
+  }
+
+  /**
+   * @param required - fail if channel ends before buffer is full
+   */
+  private static void readFully(ReadableByteChannel channel, ByteBuffer buffer,
+      boolean required) {
+    try {
+      while (buffer.hasRemaining()) {
+        if (channel.read(buffer) < 0) {
+          if (required) {
+            throw new AppException("Snapshot is truncated: missing=" + buffer.remaining());
+          }
+          return;
+        }
+      }
+    } catch (IOException ex) {
+      throw new AppException("Failed to read snapshot", ex);
+    }
+  }
+
+  private void encodeRecord(SnapshotOutput out, SnapshotType type, Object record) {
+    switch (type) {
+      case INSTRUMENT -> encodeInstrument(out, (InstrumentConfig) record);
+      case ACCOUNT -> encodeAccount(out, (Account) record);
+      case ORDER_BOOK -> encodeOrder(out, (Order) record);
+      case JOURNAL -> out.putSignedVarLong((Long) record);
+      case ORDER_BOOK_LEVEL -> encodeLevel(out, (SnapshotLevel) record);
+    }
+  }
+
+  private Object decodeRecord(SnapshotInput in, SnapshotType type) {
+    return switch (type) {
+      case INSTRUMENT -> decodeInstrument(in);
+      case ACCOUNT -> decodeAccount(in);
+      case ORDER_BOOK -> decodeOrder(in);
+      case JOURNAL -> in.getSignedVarLong();
+      case ORDER_BOOK_LEVEL -> decodeLevel(in);
+    };
+  }
+
+  private void encodeInstrument(SnapshotOutput out, InstrumentConfig inst) {
+    out.putSymbol(inst.getSymbol());
+    out.putSymbol(inst.getBase());
+    out.putSymbol(inst.getQuote());
+    out.putVarLong(inst.getPriceScale());
+    out.putVarLong(inst.getQuantityScale());
+  }
+
+  private InstrumentConfig decodeInstrument(SnapshotInput in) {
+    InstrumentConfig inst = new InstrumentConfig();
+    inst.setSymbol(in.getSymbol());
+    inst.setBase(in.getSymbol());
+    inst.setQuote(in.getSymbol());
+    inst.setPriceScale(in.getVarInt());
+    inst.setQuantityScale(in.getVarInt());
+    return inst;
+  }
+
+  private void encodeAccount(SnapshotOutput out, Account account) {
+    // positions can be added by matching shards while snapshot is written
+    List<Position> positions = new ArrayList<>(account.getPositions().values());
+    out.putVarLong(account.getAccountId());
+    out.putVarLong(positions.size());
+    for (Position position : positions) {
+      BigDecimal balance;
+      BigDecimal locked;
+      synchronized (position) {
+        balance = position.getBalance();
+        locked = position.getLocked();
+      }
+      out.putSymbol(position.getSymbol());
+      int scale = balance.scale();
+      if (scale == locked.scale() && scale >= 0 && scale < WIDE_POSITION
+          && balance.unscaledValue().bitLength() < Long.SIZE
+          && locked.unscaledValue().bitLength() < Long.SIZE) {
+        out.putSignedVarLong(balance.unscaledValue().longValue());
+        out.putSignedVarLong(locked.unscaledValue().longValue());
+        out.putVarLong(scale);
+      } else {
+        out.putSignedVarLong(0);
+        out.putSignedVarLong(0);
+        out.putVarLong(WIDE_POSITION);
+        out.putBigDecimal(balance);
+        out.putBigDecimal(locked);
+      }
+    }
+  }
+
+  private Account decodeAccount(SnapshotInput in) {
+    Account account = new Account(in.getVarInt());
+    Map<String, Position> positions = account.getPositions();
+    int positionCount = in.getVarInt();
+    for (int p = 0; p < positionCount; p++) {
+      String asset = in.getSymbol();
+      long balance = in.getSignedVarLong();
+      long locked = in.getSignedVarLong();
+      int scale = in.getVarInt();
+      positions.put(asset, scale == WIDE_POSITION
+          ? new Position(asset, in.getBigDecimal(), in.getBigDecimal())
+          : new Position(asset, balance, locked, scale));
+    }
+    return account;
+  }
+
+  private void encodeOrder(SnapshotOutput out, Order order) {
+    out.putVarLong(order.getOrderId());
+    out.putString(order.getClOrdId());
+    out.putVarLong(order.getAccount());
+    out.putSymbol(order.getSymbol());
+    out.putEnum(order.getSide());
+    out.putEnum(order.getType());
+    out.putDecimal(order.getOrderQty());
+    out.putDecimal(order.getLeavesQty());
+    out.putDecimal(order.getQuoteOrderQty());
+    out.putDecimal(order.getPrice());
+  }
+
+  private Order decodeOrder(SnapshotInput in) {
+    Order order = new Order();
+    order.setOrderId(in.getVarLong());
+    order.setClOrdId(in.getString());
+    order.setAccount(in.getVarInt());
+    order.setSymbol(in.getSymbol());
+    order.setSide(in.getEnum(SIDES));
+    order.setType(in.getEnum(ORDER_TYPES));
+    order.setOrderQty(in.getDecimal());
+    order.setLeavesQty(in.getDecimal());
+    order.setQuoteOrderQty(in.getDecimal());
+    order.setPrice(in.getDecimal());
+    return order;
+  }
+
+  private void encodeLevel(SnapshotOutput out, SnapshotLevel level) {
+    out.putEnum(level.getSide());
+    out.putDecimal(level.getPrice());
+    out.putVarLong(level.getOrders().size());
+    for (Order order : level.getOrders()) {
+      encodeOrder(out, order);
+    }
+  }
+
+  private SnapshotLevel decodeLevel(SnapshotInput in) {
+    OrderSide side = in.getEnum(SIDES);
+    BigDecimal price = in.getDecimal();
+    int orderCount = in.getVarInt();
+    List<Order> orders = new ArrayList<>(Math.min(orderCount, in.remaining()));
+    for (int i = 0; i < orderCount; i++) {
+      orders.add(decodeOrder(in));
+    }
+    return new SnapshotLevel(side, price, orders);
+  }
+
+  /**
+   * Accepts records of current item, whole chunks are flushed to channel
+   */
+  private class ItemWriter implements Consumer<Object> {
+
+    private final SnapshotOutput out = new SnapshotOutput(CHUNK_SIZE + (CHUNK_SIZE >> 2));
+    private final WritableByteChannel channel;
+    private SnapshotType type;
+    // index of length of current chunk
+    private int chunkStart;
+
+    ItemWriter(WritableByteChannel channel) {
+      this.channel = channel;
+      out.putInt(MAGIC);
+      out.putShort(VERSION);
+    }
+
+    void startItem(SnapshotType type) {
+      this.type = type;
+      out.putByte(type.ordinal());
+      startChunk();
+    }
+
+    @Override
+    public void accept(Object record) {
+      encodeRecord(out, type, record);
+      if (out.position() - chunkStart >= CHUNK_SIZE) {
+        endChunk();
+        out.flush(channel);
+        startChunk();
+      }
+    }
+
+    void endItem() {
+      endChunk();
+      out.putInt(0);
+    }
+
+    void end() {
+      out.putByte(END);
+      out.flush(channel);
+    }
+
+    private void startChunk() {
+      chunkStart = out.position();
+      out.putInt(0);
+      out.resetSymbols();
+    }
+
+    private void endChunk() {
+      int length = out.position() - chunkStart - Integer.BYTES;
+      if (length == 0) {
+        // empty chunk would be read as end of item
+        out.position(chunkStart);
+      } else {
+        out.putInt(chunkStart, length);
+      }
+    }
+  }
+}
@@ -0,0 +1,78 @@
+package com.exchange.core.matching.snapshot.codec;
+
+import com.exchange.core.matching.snapshot.converter.ObjectConverter;
+import com.exchange.core.model.SnapshotItem;
+import com.exchange.core.model.SnapshotLevel;
+import com.exchange.core.model.enums.SnapshotType;
+import com.exchange.core.model.msg.InstrumentConfig;
+import com.exchange.core.model.msg.Order;
+import com.exchange.core.user.Account;
+import com.fasterxml.jackson.core.type.TypeReference;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Snapshot as one JSON array of items. Item data is parsed into maps first, so it's written back
+ * to string and parsed again with type of the item
+ */
+public class JsonSnapshotCodec implements SnapshotCodec {
+
+  private final ObjectConverter converter;
+
+  public JsonSnapshotCodec(ObjectConverter converter) {
+    this.converter = converter;
+  }
+
+  @Override
+  public byte[] encode(List<SnapshotItem> items) {
+    return converter.objToString(items).getBytes(StandardCharsets.UTF_8);
+  }
+
+  @Override
+  public List<SnapshotItem> decode(byte[] data) {
+    List<SnapshotItem> items = parse(data);
+    items.forEach(i -> i.setData(cast(i)));
+    return items;
+  }
+
+  @Override
+  public List<SnapshotItem> decode(byte[] data, SnapshotType type) {
+    List<SnapshotItem> items = parse(data)
+        .stream()
+        .filter(i -> i.getType() == type)
+        .toList();
+    items.forEach(i -> i.setData(cast(i)));
+    return items;
+  }
+
+  private List<SnapshotItem> parse(byte[] data) {
+    return converter.stringToObj(new String(data, StandardCharsets.UTF_8),
+        new TypeReference<>() {
+        });
+  }
+
+  private Object cast(SnapshotItem item) {
+    return switch (item.getType()) {
+      case ACCOUNT -> converter.stringToObj(
+          converter.objToString(item.getData()),
+          new TypeReference<List<Account>>() {
+          });
+      case INSTRUMENT -> converter.stringToObj(
+          converter.objToString(item.getData()),
+          new TypeReference<List<InstrumentConfig>>() {
+          });
+      case ORDER_BOOK -> converter.stringToObj(
+          converter.objToString(item.getData()),
+          new TypeReference<List<Order>>() {
+          });
+      case JOURNAL -> converter.stringToObj(
+          converter.objToString(item.getData()),
+          new TypeReference<Long>() {
+          });
+      case ORDER_BOOK_LEVEL -> converter.stringToObj(
+          converter.objToString(item.getData()),
+          new TypeReference<List<SnapshotLevel>>() {
+          });
+    };
+  }
+}
@@ -0,0 +1,115 @@
+package com.exchange.core.matching.snapshot.codec;
+
+import com.exchange.core.exceptions.AppException;
+import com.exchange.core.matching.snapshot.Snapshotable;
+import com.exchange.core.model.SnapshotItem;
+import com.exchange.core.model.enums.SnapshotType;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Converts snapshot items into file content and back, decoded items have typed data:
+ * ACCOUNT - List of Account, INSTRUMENT - List of InstrumentConfig, ORDER_BOOK - List of Order,
+ * JOURNAL - Long, ORDER_BOOK_LEVEL - List of SnapshotLevel
+ * Streaming methods work with records (elements of item data), default implementations build the
+ * whole snapshot in memory
+ */
+public interface SnapshotCodec {
+
+  byte[] encode(List<SnapshotItem> items);
+
+  List<SnapshotItem> decode(byte[] data);
+
+  /**
+   * Decode only items of given type, others are skipped if format allows it
+   */
+  List<SnapshotItem> decode(byte[] data, SnapshotType type);
+
+  /**
+   * Write one item per snapshotable into channel
+   */
+  default void write(List<Snapshotable> snapshotables, WritableByteChannel channel) {
+    List<SnapshotItem> items = new ArrayList<>();
+    for (Snapshotable s : snapshotables) {
+      items.add(s.create());
+    }
+    writeItems(items, channel);
+  }
+
+  /**
+   * Write one item per snapshotable with records changed since previous snapshot, so delta
+   * snapshot has the same items as full one
+   */
+  default void writeChanges(List<Snapshotable> snapshotables, WritableByteChannel channel) {
+    List<SnapshotItem> items = new ArrayList<>();
+    for (Snapshotable s : snapshotables) {
+      List<Object> records = new ArrayList<>();
+      s.forEachChangedRecord(records::add);
+      SnapshotItem item = new SnapshotItem();
+      item.setType(s.getChangeType());
+      item.setData(s.getType() != SnapshotType.JOURNAL ? records
+          : records.isEmpty() ? null : records.get(0));
+      items.add(item);
+    }
+    writeItems(items, channel);
+  }
+
+  private void writeItems(List<SnapshotItem> items, WritableByteChannel channel) {
+    ByteBuffer buffer = ByteBuffer.wrap(encode(items));
+    try {
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+    } catch (IOException ex) {
+      throw new AppException("Failed to write snapshot", ex);
+    }
+  }
+
+  /**
+   * Read items from channel in the order they were written
+   * @param itemReader - returns consumer of records for item type, null - item is skipped
+   */
+  default void read(ReadableByteChannel channel,
+      Function<SnapshotType, Consumer<Object>> itemReader) {
+    byte[] data;
+    try {
+      data = Channels.newInputStream(channel).readAllBytes();
+    } catch (IOException ex) {
+      throw new AppException("Failed to read snapshot", ex);
+    }
+    for (SnapshotItem item : decode(data)) {
+      Consumer<Object> consumer = itemReader.apply(item.getType());
+      if (consumer == null) {
+        continue;
+      }
+      if (item.getData() instanceof Collection<?> records) {
+        records.forEach(consumer);
+      } else if (item.getData() != null) {
+        consumer.accept(item.getData());
+      }
+    }
+  }
+
+  /**
+   * Read items of snapshot mapped into memory, items may be loaded in parallel on pool.
+   * Default implementation reads them one by one on caller thread
+   * @param itemReader - called on caller thread in the order items were written, returned
+   *                   consumer gets all records of the item in order on one thread
+   */
+  default void read(ByteBuffer data, Function<SnapshotType, Consumer<Object>> itemReader,
+      ForkJoinPool pool) {
+    byte[] bytes = new byte[data.remaining()];
+    data.duplicate().get(bytes);
+    read(Channels.newChannel(new ByteArrayInputStream(bytes)), itemReader);
+  }
+}
@@ -0,0 +1,158 @@
+package com.exchange.core.matching.snapshot.codec;
+
+import com.exchange.core.exceptions.AppException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reader of SnapshotOutput encodings, fails on truncated data instead of reading garbage
+ */
+class SnapshotInput {
+
+  private byte[] data;
+  private int limit;
+  private int position;
+  private final List<String> symbols = new ArrayList<>();
+
+  SnapshotInput() {
+    this(new byte[0]);
+  }
+
+  SnapshotInput(byte[] data) {
+    wrap(data, data.length);
+  }
+
+  /**
+   * Read first limit bytes of data from the beginning with empty symbol dictionary, so one
+   * instance reads all chunks of snapshot
+   */
+  void wrap(byte[] data, int limit) {
+    this.data = data;
+    this.limit = limit;
+    position = 0;
+    symbols.clear();
+  }
+
+  int position() {
+    return position;
+  }
+
+  void position(int position) {
+    check(position - this.position);
+    this.position = position;
+  }
+
+  void resetSymbols() {
+    symbols.clear();
+  }
+
+  int remaining() {
+    return limit - position;
+  }
+
+  int getByte() {
+    check(1);
+    return data[position++] & 0xFF;
+  }
+
+  int getShort() {
+    check(Short.BYTES);
+    int value = (data[position] & 0xFF) | (data[position + 1] & 0xFF) << 8;
+    position += Short.BYTES;
+    return value;
+  }
+
+  int getInt() {
+    check(Integer.BYTES);
+    int value = (data[position] & 0xFF)
+        | (data[position + 1] & 0xFF) << 8
+        | (data[position + 2] & 0xFF) << 16
+        | (data[position + 3] & 0xFF) << 24;
+    position += Integer.BYTES;
+    return value;
+  }
+
+  long getVarLong() {
+    long value = 0;
+    for (int shift = 0; shift < Long.SIZE; shift += 7) {
+      int b = getByte();
+      value |= (long) (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+    }
+    throw new AppException("Malformed varint: position=" + position);
+  }
+
+  int getVarInt() {
+    return (int) getVarLong();
+  }
+
+  long getSignedVarLong() {
+    long value = getVarLong();
+    return (value >>> 1) ^ -(value & 1);
+  }
+
+  BigDecimal getDecimal() {
+    int scale = getByte();
+    if (scale == 0) {
+      return null;
+    }
+    return BigDecimal.valueOf(getSignedVarLong(), scale - 1);
+  }
+
+  BigDecimal getBigDecimal() {
+    int scale = (int) getSignedVarLong();
+    int length = getVarInt();
+    check(length);
+    BigInteger mantissa = new BigInteger(data, position, length);
+    position += length;
+    return new BigDecimal(mantissa, scale);
+  }
+
+  String getString() {
+    int length = getVarInt() - 1;
+    if (length < 0) {
+      return null;
+    }
+    check(length);
+    String value = new String(data, position, length, StandardCharsets.UTF_8);
+    position += length;
+    return value;
+  }
+
+  /**
+   * Repeated symbols are returned as the same string instance
+   */
+  String getSymbol() {
+    int ref = getVarInt();
+    if (ref == 0) {
+      return null;
+    }
+    if (ref == 1) {
+      String value = getString();
+      symbols.add(value);
+      return value;
+    }
+    if (ref - 2 >= symbols.size()) {
+      throw new AppException("Unknown symbol reference: ref=" + (ref - 2));
+    }
+    return symbols.get(ref - 2);
+  }
+
+  <E extends Enum<E>> E getEnum(E[] values) {
+    int value = getByte();
+    return value == 0 ? null : values[value - 1];
+  }
+
+  private void check(int length) {
+    if (length < 0 || position + length > limit) {
+      throw new AppException(
+          "Snapshot is truncated: position=" + position + ", length=" + length + ", size="
+              + limit);
+    }
+  }
+}
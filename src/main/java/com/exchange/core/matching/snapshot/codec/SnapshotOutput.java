@@ -0,0 +1,184 @@
+package com.exchange.core.matching.snapshot.codec;
+
+import com.exchange.core.exceptions.AppException;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Growable little-endian byte array with compact encodings, see BinarySnapshotCodec for format
+ * Used as write buffer of one chunk, it grows only if single record doesn't fit
+ */
+class SnapshotOutput {
+
+  private byte[] data;
+  private int position;
+  // symbols/assets already written in current item, later occurrences are written as reference
+  private final Map<String, Integer> symbols = new HashMap<>();
+
+  SnapshotOutput(int capacity) {
+    data = new byte[capacity];
+  }
+
+  int position() {
+    return position;
+  }
+
+  void position(int position) {
+    this.position = position;
+  }
+
+  /**
+   * Start new symbol dictionary, so every chunk can be decoded without previous ones
+   */
+  void resetSymbols() {
+    symbols.clear();
+  }
+
+  byte[] toByteArray() {
+    return Arrays.copyOf(data, position);
+  }
+
+  /**
+   * Write everything put so far into channel and start from the beginning of buffer
+   */
+  void flush(WritableByteChannel channel) {
+    ByteBuffer buffer = ByteBuffer.wrap(data, 0, position);
+    try {
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+    } catch (IOException ex) {
+      throw new AppException("Failed to write snapshot", ex);
+    }
+    position = 0;
+  }
+
+  void putByte(int value) {
+    ensureCapacity(1);
+    data[position++] = (byte) value;
+  }
+
+  void putShort(int value) {
+    ensureCapacity(Short.BYTES);
+    data[position++] = (byte) value;
+    data[position++] = (byte) (value >>> 8);
+  }
+
+  void putInt(int value) {
+    ensureCapacity(Integer.BYTES);
+    putInt(position, value);
+    position += Integer.BYTES;
+  }
+
+  void putInt(int index, int value) {
+    data[index] = (byte) value;
+    data[index + 1] = (byte) (value >>> 8);
+    data[index + 2] = (byte) (value >>> 16);
+    data[index + 3] = (byte) (value >>> 24);
+  }
+
+  /**
+   * Unsigned LEB128: 7 bits per byte, high bit means more bytes follow
+   */
+  void putVarLong(long value) {
+    ensureCapacity(10);
+    while ((value & ~0x7FL) != 0) {
+      data[position++] = (byte) ((value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    data[position++] = (byte) value;
+  }
+
+  /**
+   * Zigzag encoding, so small negative values also take few bytes
+   */
+  void putSignedVarLong(long value) {
+    putVarLong((value << 1) ^ (value >> 63));
+  }
+
+  /**
+   * Scale + 1 byte (0 means null), then signed mantissa
+   */
+  void putDecimal(BigDecimal value) {
+    if (value == null) {
+      putByte(0);
+      return;
+    }
+    if (value.scale() < 0) {
+      value = value.setScale(0);
+    }
+    if (value.scale() >= Byte.MAX_VALUE) {
+      throw new AppException("Decimal scale out of range: value=" + value);
+    }
+    long mantissa;
+    try {
+      mantissa = value.unscaledValue().longValueExact();
+    } catch (ArithmeticException ex) {
+      throw new AppException("Decimal doesn't fit into long: value=" + value, ex);
+    }
+    putByte(value.scale() + 1);
+    putSignedVarLong(mantissa);
+  }
+
+  /**
+   * Signed scale, then length and bytes of two's-complement mantissa, for values which don't fit
+   * into putDecimal
+   */
+  void putBigDecimal(BigDecimal value) {
+    byte[] bytes = value.unscaledValue().toByteArray();
+    putSignedVarLong(value.scale());
+    putVarLong(bytes.length);
+    ensureCapacity(bytes.length);
+    System.arraycopy(bytes, 0, data, position, bytes.length);
+    position += bytes.length;
+  }
+
+  /**
+   * Length + 1 (0 means null), then UTF-8 bytes
+   */
+  void putString(String value) {
+    if (value == null) {
+      putVarLong(0);
+      return;
+    }
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    putVarLong(bytes.length + 1);
+    ensureCapacity(bytes.length);
+    System.arraycopy(bytes, 0, data, position, bytes.length);
+    position += bytes.length;
+  }
+
+  /**
+   * 0 - null, 1 - new symbol, string follows, n > 1 - reference to symbol number n - 2
+   */
+  void putSymbol(String value) {
+    if (value == null) {
+      putVarLong(0);
+      return;
+    }
+    Integer ref = symbols.get(value);
+    if (ref != null) {
+      putVarLong(ref + 2);
+      return;
+    }
+    symbols.put(value, symbols.size());
+    putVarLong(1);
+    putString(value);
+  }
+
+  void putEnum(Enum<?> value) {
+    putByte(value == null ? 0 : value.ordinal() + 1);
+  }
+
+  private void ensureCapacity(int length) {
+    if (position + length > data.length) {
+      data = Arrays.copyOf(data, Math.max(data.length * 2, position + length));
+    }
+  }
+}
@@ -1,5 +1,6 @@
 package com.exchange.core.matching.snapshot.manager;
 
+import com.exchange.core.model.msg.InstrumentConfig;
 import java.util.List;
 
 public interface SnapshotManager {
@@ -10,5 +11,7 @@ public interface SnapshotManager {
 
   List<String> getSymbols(String name);
 
+  List<InstrumentConfig> getInstruments(String name);
+
   long getLastOrderId();
 }
@@ -2,118 +2,293 @@ package com.exchange.core.matching.snapshot.manager;
 
 import com.exchange.core.exceptions.AppException;
 import com.exchange.core.matching.snapshot.Snapshotable;
+import com.exchange.core.matching.snapshot.codec.JsonSnapshotCodec;
+import com.exchange.core.matching.snapshot.codec.SnapshotCodec;
 import com.exchange.core.matching.snapshot.converter.ObjectConverter;
 import com.exchange.core.matching.snapshot.storage.StorageWriter;
-import com.exchange.core.model.SnapshotItem;
+import com.exchange.core.model.SnapshotLevel;
+import com.exchange.core.model.enums.OrderSide;
 import com.exchange.core.model.enums.SnapshotType;
 import com.exchange.core.model.msg.InstrumentConfig;
 import com.exchange.core.model.msg.Order;
 import com.exchange.core.user.Account;
-import com.fasterxml.jackson.core.type.TypeReference;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import lombok.Getter;
 
+/**
+ * Full snapshot (base) is named snap_{millis}, delta snapshots written after it are named
+ * snap_{millis}_delta_{n}, n starts from 1. Delta has the same items as full snapshot, but only
+ * with records changed since the previous snapshot: accounts with changed positions, changed price
+ * levels of order books. Instruments and journal seq are small, so they're written whole
+ * Every maxDeltas deltas the next snapshot is full again, so it compacts base and deltas into new
+ * base from state in memory and restore never reads more than maxDeltas deltas. Snapshot is also
+ * full if snapshotable was added after base
+ */
 public class SnapshotManagerImpl implements SnapshotManager {
 
+  private static final String DELTA = "_delta_";
+
   private final List<Snapshotable> snapshotables;
-  private final ObjectConverter converter;
+  private final SnapshotCodec codec;
   private final StorageWriter storageWriter;
   private final String basePath;
+  // threads used to load items of snapshot
+  private final int loadParallelism;
+  // deltas written after every base, 0 - every snapshot is full
+  private final int maxDeltas;
+  // base of the last written or loaded snapshot, null - next snapshot is full
+  private String baseName;
+  private int deltaCount;
+  // snapshotables of base, added ones (new order books) don't have changes since it
+  private int baseSize;
+  private long lastBaseTime;
 
   @Getter
   private long lastOrderId;
 
   public SnapshotManagerImpl(List<Snapshotable> snapshotables, ObjectConverter objectConverter,
       StorageWriter storageWriter, String basePath) {
+    this(snapshotables, new JsonSnapshotCodec(objectConverter), storageWriter, basePath);
+  }
+
+  public SnapshotManagerImpl(List<Snapshotable> snapshotables, SnapshotCodec codec,
+      StorageWriter storageWriter, String basePath) {
+    this(snapshotables, codec, storageWriter, basePath,
+        Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * @param loadParallelism - snapshot is loaded by this number of threads, every order book and
+   *                        account repository is loaded by one of them
+   */
+  public SnapshotManagerImpl(List<Snapshotable> snapshotables, SnapshotCodec codec,
+      StorageWriter storageWriter, String basePath, int loadParallelism) {
+    this(snapshotables, codec, storageWriter, basePath, loadParallelism, 0);
+  }
+
+  /**
+   * @param maxDeltas - number of delta snapshots written after every full one, 0 - only full
+   *                  snapshots are written
+   */
+  public SnapshotManagerImpl(List<Snapshotable> snapshotables, SnapshotCodec codec,
+      StorageWriter storageWriter, String basePath, int loadParallelism, int maxDeltas) {
     if (snapshotables.size() == 0) {
       throw new AppException("List of Snapshotable should be provided");
     }
+    if (loadParallelism < 1) {
+      throw new AppException("Load parallelism should be positive: parallelism="
+          + loadParallelism);
+    }
+    if (maxDeltas < 0) {
+      throw new AppException("Max deltas should not be negative: maxDeltas=" + maxDeltas);
+    }
     this.snapshotables = snapshotables;
-    this.converter = objectConverter;
+    this.codec = codec;
     this.storageWriter = storageWriter;
     this.basePath = basePath;
+    this.loadParallelism = loadParallelism;
+    this.maxDeltas = maxDeltas;
   }
 
+  /**
+   * Records are streamed from snapshotables into file, so whole snapshot is never kept in memory
+   * Changes are taken from snapshotables while delta is written, so if it fails the next snapshot
+   * is full
+   */
   @Override
   public String makeSnapshot() {
-    List<SnapshotItem> snapshots = new ArrayList<>();
-    for (Snapshotable s : snapshotables) {
-      snapshots.add(s.create());
+    String base = baseName;
+    baseName = null;
+    if (base == null || deltaCount >= maxDeltas || snapshotables.size() != baseSize) {
+      // new base never replaces the previous one, which can still have deltas
+      lastBaseTime = Math.max(System.currentTimeMillis(), lastBaseTime + 1);
+      String filename = "snap_" + lastBaseTime;
+      if (maxDeltas > 0) {
+        // changes made while snapshot is written are written again by the next delta
+        snapshotables.forEach(Snapshotable::clearChanges);
+      }
+      storageWriter.write(basePath + "/" + filename,
+          channel -> codec.write(snapshotables, channel));
+      baseName = maxDeltas > 0 ? filename : null;
+      deltaCount = 0;
+      baseSize = snapshotables.size();
+      return filename;
     }
-    String snapshotStr = converter.objToString(snapshots);
-    String filename = "snap_" + System.currentTimeMillis();
-    String path = basePath + "/" + filename;
-    storageWriter.write(path, snapshotStr);
+    String filename = base + DELTA + (deltaCount + 1);
+    storageWriter.write(basePath + "/" + filename,
+        channel -> codec.writeChanges(snapshotables, channel));
+    baseName = base;
+    deltaCount++;
     return filename;
   }
 
+  /**
+   * Items of the same type (order books) are loaded into snapshotables of that type in the order
+   * they were written. Snapshot is mapped into memory and items are loaded in parallel, so every
+   * snapshotable is loaded by one thread, but different snapshotables concurrently
+   * Delta is loaded with its base and all deltas before it, from the newest to base. State loaded
+   * from newer snapshot isn't overwritten by older one: instruments and journal seq are taken only
+   * from the newest, account position and price level - from the newest snapshot which has it,
+   * order book written in full (not by levels) - from the newest snapshot
+   */
   @Override
   public void loadSnapshot(String name) {
-    List<SnapshotItem> snapshots = loadSnapshots(name);
-    for (Snapshotable s : snapshotables) {
-      for (SnapshotItem i : snapshots) {
-        if (i.getType() == s.getType()) {
-          i.setData(cast(i));
-          if (i.getType() == SnapshotType.ORDER_BOOK) {
-            updateLastOrderId(i.getData());
-          }
-          s.load(i);
-          break;
-        }
+    List<String> chain = chain(name);
+    LongAccumulator maxOrderId = new LongAccumulator(Math::max, lastOrderId);
+    // every book is loaded by one task per snapshot, and snapshots are read one by one
+    Map<Snapshotable, LoadedLevels> loadedLevels = new IdentityHashMap<>();
+    // books written in full by newer snapshot, older snapshots of them are skipped
+    Set<Snapshotable> loadedBooks = Collections.newSetFromMap(new IdentityHashMap<>());
+    Map<Integer, Set<String>> loadedPositions = new HashMap<>();
+    for (int i = 0; i < chain.size(); i++) {
+      final boolean newest = i == 0;
+      final boolean base = i == chain.size() - 1;
+      Map<SnapshotType, Queue<Snapshotable>> targets = new EnumMap<>(SnapshotType.class);
+      for (Snapshotable s : snapshotables) {
+        targets.computeIfAbsent(s.getType(), t -> new ArrayDeque<>()).add(s);
       }
+      read(chain.get(i), type -> {
+        Queue<Snapshotable> queue = targets.get(
+            type == SnapshotType.ORDER_BOOK_LEVEL ? SnapshotType.ORDER_BOOK : type);
+        Snapshotable s = queue == null ? null : queue.poll();
+        if (s == null) {
+          return null;
+        }
+        return switch (type) {
+          case ORDER_BOOK -> {
+            if (!loadedBooks.add(s)) {
+              yield null;
+            }
+            LoadedLevels levels = loadedLevels.get(s);
+            yield record -> {
+              Order order = (Order) record;
+              maxOrderId.accumulate(order.getOrderId());
+              if (levels == null || !levels.contains(order.getSide(), order.getPrice())) {
+                s.loadRecord(order);
+              }
+            };
+          }
+          case ORDER_BOOK_LEVEL -> {
+            LoadedLevels levels = loadedLevels.computeIfAbsent(s, k -> new LoadedLevels());
+            yield record -> {
+              SnapshotLevel level = (SnapshotLevel) record;
+              level.getOrders().forEach(order -> maxOrderId.accumulate(order.getOrderId()));
+              if (levels.add(level.getSide(), level.getPrice())) {
+                level.getOrders().forEach(s::loadRecord);
+              }
+            };
+          }
+          case ACCOUNT -> chain.size() == 1 ? s::loadRecord : record -> {
+            Account account = (Account) record;
+            Set<String> loaded = base ? loadedPositions.get(account.getAccountId())
+                : loadedPositions.computeIfAbsent(account.getAccountId(), id -> new HashSet<>());
+            if (loaded != null) {
+              account.getPositions().keySet().removeIf(asset -> base
+                  ? loaded.contains(asset) : !loaded.add(asset));
+            }
+            s.loadRecord(account);
+          };
+          default -> newest ? s::loadRecord : null;
+        };
+      });
     }
+    lastOrderId = maxOrderId.get();
+    if (maxDeltas > 0) {
+      // loaded state is the same as in snapshot, so the next delta is written on top of it
+      snapshotables.forEach(Snapshotable::clearChanges);
+      baseName = chain.get(chain.size() - 1);
+      deltaCount = chain.size() - 1;
+      baseSize = snapshotables.size();
+    }
+  }
+
+  /**
+   * @return names of snapshots which should be loaded to restore given one, from the newest to base
+   */
+  private List<String> chain(String name) {
+    List<String> chain = new ArrayList<>();
+    chain.add(name);
+    int index = name.lastIndexOf(DELTA);
+    if (index < 0) {
+      return chain;
+    }
+    String base = name.substring(0, index);
+    int count;
+    try {
+      count = Integer.parseInt(name.substring(index + DELTA.length()));
+    } catch (NumberFormatException ex) {
+      throw new AppException("Invalid delta snapshot name: name=" + name, ex);
+    }
+    for (int n = count - 1; n >= 1; n--) {
+      chain.add(base + DELTA + n);
+    }
+    chain.add(base);
+    return chain;
   }
 
 
   @Override
   public List<String> getSymbols(String name) {
     List<String> symbols = new ArrayList<>();
-    Object instruments = loadSnapshots(name)
-        .stream()
-        .filter(s -> s.getType() == SnapshotType.INSTRUMENT)
-        .findFirst()
-        .map(this::cast)
-        .orElse(null);
-    if (instruments != null) {
-      ((List<InstrumentConfig>) instruments)
-          .forEach(i -> symbols.add(i.getSymbol()));
-    }
+    getInstruments(name).forEach(i -> symbols.add(i.getSymbol()));
     return symbols;
   }
 
-  public void updateLastOrderId(Object orders) {
-    if (orders != null) {
-      lastOrderId = ((List<Order>) orders)
-          .stream()
-          .map(Order::getOrderId)
-          .max(Comparator.naturalOrder())
-          .get();
-    }
+  @Override
+  public List<InstrumentConfig> getInstruments(String name) {
+    List<InstrumentConfig> instruments = new ArrayList<>();
+    read(name, type -> type == SnapshotType.INSTRUMENT
+        ? record -> instruments.add((InstrumentConfig) record) : null);
+    return instruments;
   }
 
-  private List<SnapshotItem> loadSnapshots(String name) {
+  /**
+   * Returns after all items are loaded, snapshot which can't be mapped is streamed on caller thread
+   */
+  private void read(String name, Function<SnapshotType, Consumer<Object>> itemReader) {
     String path = basePath + "/" + name;
-    String snapshotStr = storageWriter.read(path);
-    return converter.stringToObj(snapshotStr, new TypeReference<>() {
-    });
+    ByteBuffer data = storageWriter.map(path);
+    if (data == null) {
+      storageWriter.read(path, channel -> codec.read(channel, itemReader));
+      return;
+    }
+    try (ForkJoinPool pool = new ForkJoinPool(loadParallelism)) {
+      codec.read(data, itemReader, pool);
+    }
   }
 
-  private Object cast(SnapshotItem item) {
-    return switch (item.getType()) {
-      case ACCOUNT -> converter.stringToObj(
-          converter.objToString(item.getData()),
-          new TypeReference<List<Account>>() {
-          });
-      case INSTRUMENT -> converter.stringToObj(
-          converter.objToString(item.getData()),
-          new TypeReference<List<InstrumentConfig>>() {
-          });
-      case ORDER_BOOK -> converter.stringToObj(
-          converter.objToString(item.getData()),
-          new TypeReference<List<Order>>() {
-          });
-    };
+  /**
+   * Prices of order book levels loaded from newer snapshots, level is compared by price value
+   */
+  private static class LoadedLevels {
+
+    private final NavigableSet<BigDecimal> bids = new TreeSet<>();
+    private final NavigableSet<BigDecimal> asks = new TreeSet<>();
+
+    boolean add(OrderSide side, BigDecimal price) {
+      return (side == OrderSide.BUY ? bids : asks).add(price);
+    }
+
+    boolean contains(OrderSide side, BigDecimal price) {
+      return (side == OrderSide.BUY ? bids : asks).contains(price);
+    }
   }
-}
\ No newline at end of file
+}
@@ -7,10 +7,24 @@ import java.io.File;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.Arrays;
+import java.util.Comparator;
+import java.util.function.Consumer;
 
 public class FileStorageWriter implements StorageWriter {
 
+  // streamed file is written under this suffix and renamed when complete
+  private static final String TMP_SUFFIX = ".tmp";
+
   @Override
   public void write(String path, String data) {
     try {
@@ -36,6 +50,70 @@ public class FileStorageWriter implements StorageWriter {
     }
   }
 
+  @Override
+  public void write(String path, byte[] data) {
+    try {
+      Files.write(Path.of(path), data);
+    } catch (IOException ex) {
+      throw new AppException("Failed to write: path=" + path, ex);
+    }
+  }
+
+  @Override
+  public byte[] readBytes(String path) {
+    try {
+      return Files.readAllBytes(Path.of(path));
+    } catch (IOException ex) {
+      throw new AppException("Failed to read: path=" + path, ex);
+    }
+  }
+
+  @Override
+  public void write(String path, Consumer<WritableByteChannel> writer) {
+    Path tmp = Path.of(path + TMP_SUFFIX);
+    try {
+      try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+          StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+        writer.accept(channel);
+        channel.force(false);
+      }
+      Files.move(tmp, Path.of(path), StandardCopyOption.ATOMIC_MOVE,
+          StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException | RuntimeException ex) {
+      try {
+        Files.deleteIfExists(tmp);
+      } catch (IOException deleteEx) {
+        ex.addSuppressed(deleteEx);
+      }
+      if (ex instanceof AppException appEx) {
+        throw appEx;
+      }
+      throw new AppException("Failed to write: path=" + path, ex);
+    }
+  }
+
+  @Override
+  public void read(String path, Consumer<ReadableByteChannel> reader) {
+    try (FileChannel channel = FileChannel.open(Path.of(path), StandardOpenOption.READ)) {
+      reader.accept(channel);
+    } catch (IOException ex) {
+      throw new AppException("Failed to read: path=" + path, ex);
+    }
+  }
+
+  @Override
+  public ByteBuffer map(String path) {
+    try (FileChannel channel = FileChannel.open(Path.of(path), StandardOpenOption.READ)) {
+      if (channel.size() > Integer.MAX_VALUE) {
+        return null;
+      }
+      // mapping stays valid after channel is closed
+      return channel.map(MapMode.READ_ONLY, 0, channel.size());
+    } catch (IOException ex) {
+      throw new AppException("Failed to map: path=" + path, ex);
+    }
+  }
+
   @Override
   public String getLastModifiedFilename(String path) {
     File[] files = new File(path).listFiles();
@@ -44,9 +122,14 @@ public class FileStorageWriter implements StorageWriter {
     }
     return Arrays.stream(files)
         .filter(File::isFile)
-        .sorted((f1, f2) -> Math.toIntExact(f2.lastModified() - f1.lastModified()))
+        .filter(f -> !f.getName().endsWith(TMP_SUFFIX))
+        // delta written in the same millisecond as its base has longer name
+        .sorted(Comparator.comparingLong(File::lastModified)
+            .thenComparingInt(f -> f.getName().length())
+            .thenComparing(File::getName)
+            .reversed())
         .map(File::getName)
         .findFirst()
-        .get();
+        .orElse(null);
   }
 }
@@ -1,10 +1,36 @@
 package com.exchange.core.matching.snapshot.storage;
 
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.function.Consumer;
+
 public interface StorageWriter {
 
   void write(String path, String data);
 
   String read(String path);
 
+  void write(String path, byte[] data);
+
+  byte[] readBytes(String path);
+
+  /**
+   * Stream data into file through channel, which is closed after writer returns. File appears
+   * under path only if writer completed, so half-written file is never read
+   */
+  void write(String path, Consumer<WritableByteChannel> writer);
+
+  /**
+   * Stream file content from channel, which is closed after reader returns
+   */
+  void read(String path, Consumer<ReadableByteChannel> reader);
+
+  /**
+   * Map whole file into memory read-only
+   * @return buffer with file content, null if file is too big to be mapped as one buffer
+   */
+  ByteBuffer map(String path);
+
   String getLastModifiedFilename(String path);
 }
@@ -0,0 +1,67 @@
+package com.exchange.core.matching.waitstrategy;
+
+import com.exchange.core.exceptions.AppException;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Progressive backoff: busy spin, then spin with Thread.onSpinWait, then yield, then park with
+ * doubling time up to maxParkNanos. Message after short pause is picked up by spinning thread,
+ * while long idle period costs almost no CPU
+ */
+public class BackoffWaitStrategy implements WaitStrategy {
+
+  private final long maxSpins;
+  private final long maxOnSpinWaits;
+  private final long maxYields;
+  private final long minParkNanos;
+  private final long maxParkNanos;
+  private long counter;
+  private long parkNanos;
+
+  public BackoffWaitStrategy() {
+    this(100, 1000, 100, 1_000, 1_000_000);
+  }
+
+  /**
+   * @param maxSpins       - number of idle() calls which return immediately
+   * @param maxOnSpinWaits - number of next calls with Thread.onSpinWait
+   * @param maxYields      - number of next calls with Thread.yield
+   */
+  public BackoffWaitStrategy(long maxSpins, long maxOnSpinWaits, long maxYields,
+      long minParkNanos, long maxParkNanos) {
+    if (maxSpins < 0 || maxOnSpinWaits < 0 || maxYields < 0 || minParkNanos <= 0
+        || maxParkNanos < minParkNanos) {
+      throw new AppException("Invalid backoff: maxSpins=" + maxSpins + ", maxOnSpinWaits="
+          + maxOnSpinWaits + ", maxYields=" + maxYields + ", minParkNanos=" + minParkNanos
+          + ", maxParkNanos=" + maxParkNanos);
+    }
+    this.maxSpins = maxSpins;
+    this.maxOnSpinWaits = maxSpins + maxOnSpinWaits;
+    this.maxYields = this.maxOnSpinWaits + maxYields;
+    this.minParkNanos = minParkNanos;
+    this.maxParkNanos = maxParkNanos;
+    parkNanos = minParkNanos;
+  }
+
+  @Override
+  public void idle() {
+    if (counter < maxSpins) {
+      counter++;
+    } else if (counter < maxOnSpinWaits) {
+      counter++;
+      Thread.onSpinWait();
+    } else if (counter < maxYields) {
+      counter++;
+      Thread.yield();
+    } else {
+      LockSupport.parkNanos(parkNanos);
+      parkNanos = Math.min(parkNanos << 1, maxParkNanos);
+    }
+  }
+
+  @Override
+  public void reset() {
+    counter = 0;
+    parkNanos = minParkNanos;
+  }
+}
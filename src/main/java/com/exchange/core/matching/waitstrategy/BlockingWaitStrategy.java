@@ -0,0 +1,54 @@
+package com.exchange.core.matching.waitstrategy;
+
+import com.exchange.core.exceptions.AppException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Consumer parks until producer calls signal(), so idle consumer uses no CPU, but every message
+ * after idle period pays for thread wake up
+ * Signal sent before consumer parked is not lost: flag stays set and next idle() returns at once
+ * Park is limited by timeout, so message from producer which doesn't signal is still picked up
+ */
+public class BlockingWaitStrategy implements WaitStrategy {
+
+  private final long timeoutNanos;
+  private final AtomicBoolean signalled = new AtomicBoolean();
+  private volatile Thread waiter;
+
+  public BlockingWaitStrategy() {
+    this(1_000_000);
+  }
+
+  public BlockingWaitStrategy(long timeoutNanos) {
+    if (timeoutNanos <= 0) {
+      throw new AppException("Timeout should be positive: timeoutNanos=" + timeoutNanos);
+    }
+    this.timeoutNanos = timeoutNanos;
+  }
+
+  @Override
+  public void idle() {
+    if (signalled.getAndSet(false)) {
+      return;
+    }
+    waiter = Thread.currentThread();
+    // check again, signal could come before waiter was set
+    if (!signalled.get()) {
+      LockSupport.parkNanos(this, timeoutNanos);
+    }
+    waiter = null;
+    signalled.set(false);
+  }
+
+  @Override
+  public void signal() {
+    if (!signalled.get()) {
+      signalled.set(true);
+      Thread thread = waiter;
+      if (thread != null) {
+        LockSupport.unpark(thread);
+      }
+    }
+  }
+}
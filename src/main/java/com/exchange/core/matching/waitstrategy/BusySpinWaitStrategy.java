@@ -0,0 +1,12 @@
+package com.exchange.core.matching.waitstrategy;
+
+/**
+ * Lowest latency: never gives up CPU, so consumer thread should have dedicated core
+ */
+public class BusySpinWaitStrategy implements WaitStrategy {
+
+  @Override
+  public void idle() {
+    Thread.onSpinWait();
+  }
+}
@@ -1,6 +1,23 @@
 package com.exchange.core.matching.waitstrategy;
 
+/**
+ * What consumer thread does when queue is empty
+ * Consumer calls idle() for every empty poll and reset() once it got message, so stateful
+ * strategies can start waiting from the cheapest step again
+ */
 public interface WaitStrategy {
 
   void idle();
+
+  /**
+   * Called by consumer after it got work
+   */
+  default void reset() {
+  }
+
+  /**
+   * Called by producer after it added message, wakes up consumer blocked in idle()
+   */
+  default void signal() {
+  }
 }
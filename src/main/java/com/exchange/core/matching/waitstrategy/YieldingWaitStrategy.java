@@ -0,0 +1,26 @@
+package com.exchange.core.matching.waitstrategy;
+
+/**
+ * Spins for a while, then gives CPU to other threads, good when there are more busy threads than
+ * cores
+ */
+public class YieldingWaitStrategy implements WaitStrategy {
+
+  private static final int SPIN_TRIES = 100;
+  private int counter;
+
+  @Override
+  public void idle() {
+    if (counter < SPIN_TRIES) {
+      counter++;
+      Thread.onSpinWait();
+    } else {
+      Thread.yield();
+    }
+  }
+
+  @Override
+  public void reset() {
+    counter = 0;
+  }
+}
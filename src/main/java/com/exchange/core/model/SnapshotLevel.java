@@ -0,0 +1,27 @@
+package com.exchange.core.model;
+
+import com.exchange.core.model.enums.OrderSide;
+import com.exchange.core.model.msg.Order;
+import java.math.BigDecimal;
+import java.util.List;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Price level of order book in delta snapshot: all its orders in queue order, empty if level was
+ * removed since previous snapshot
+ */
+@Data
+@NoArgsConstructor
+public class SnapshotLevel {
+
+  private OrderSide side;
+  private BigDecimal price;
+  private List<Order> orders;
+
+  public SnapshotLevel(OrderSide side, BigDecimal price, List<Order> orders) {
+    this.side = side;
+    this.price = price;
+    this.orders = orders;
+  }
+}
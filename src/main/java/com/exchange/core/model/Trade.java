@@ -1,17 +1,81 @@
 package com.exchange.core.model;
 
 import com.exchange.core.model.msg.Order;
+import com.exchange.core.pool.ObjectPool;
+import com.exchange.core.pool.Poolable;
 import java.math.BigDecimal;
-import lombok.AllArgsConstructor;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 @Data
-@AllArgsConstructor
-public class Trade {
+@NoArgsConstructor
+public class Trade implements Poolable<Trade> {
 
   private Order taker;
   private Order maker;
   private BigDecimal tradeQty;
   private BigDecimal tradePrice;
   private BigDecimal tradeAmount;
+  /**
+   * Fixed-point values, filled only by order books running in fixed-point mode
+   */
+  private long scaledTradeQty;
+  private long scaledTradePrice;
+  private long scaledTradeAmount;
+  @ToString.Exclude
+  @EqualsAndHashCode.Exclude
+  @Getter(AccessLevel.NONE)
+  private ObjectPool<Trade> pool;
+
+  public Trade(Order taker, Order maker, BigDecimal tradeQty, BigDecimal tradePrice,
+      BigDecimal tradeAmount) {
+    this.taker = taker;
+    this.maker = maker;
+    this.tradeQty = tradeQty;
+    this.tradePrice = tradePrice;
+    this.tradeAmount = tradeAmount;
+  }
+
+  public Trade(Order taker, Order maker, long scaledTradeQty, long scaledTradePrice,
+      long scaledTradeAmount) {
+    set(taker, maker, scaledTradeQty, scaledTradePrice, scaledTradeAmount);
+  }
+
+  /**
+   * Fill fixed-point trade, used to initialize trade acquired from the pool
+   */
+  public Trade set(Order taker, Order maker, long scaledTradeQty, long scaledTradePrice,
+      long scaledTradeAmount) {
+    this.taker = taker;
+    this.maker = maker;
+    this.scaledTradeQty = scaledTradeQty;
+    this.scaledTradePrice = scaledTradePrice;
+    this.scaledTradeAmount = scaledTradeAmount;
+    return this;
+  }
+
+  @Override
+  public void release() {
+    final ObjectPool<Trade> pool = this.pool;
+    if (pool != null) {
+      this.pool = null;
+      pool.release(this);
+    }
+  }
+
+  @Override
+  public void reset() {
+    taker = null;
+    maker = null;
+    tradeQty = null;
+    tradePrice = null;
+    tradeAmount = null;
+    scaledTradeQty = 0;
+    scaledTradePrice = 0;
+    scaledTradeAmount = 0;
+  }
 }
@@ -2,5 +2,10 @@ package com.exchange.core.model.enums;
 
 public enum OrderBookType {
   MAP,
-  ARRAY
+  ARRAY,
+  IPQ,
+  BITMAP,
+  SLIDING_WINDOW,
+  // fixed-point only, resting orders are kept in direct memory
+  OFF_HEAP
 }
@@ -4,5 +4,6 @@ public enum OrderStatus {
   NEW,
   PARTIALLY_FILLED,
   FILLED,
-  CANCELLED
+  CANCELLED,
+  REPLACED
 }
@@ -1,7 +1,14 @@
 package com.exchange.core.model.enums;
 
+/**
+ * Binary snapshot stores ordinal, so new types should be added to the end
+ */
 public enum SnapshotType {
   INSTRUMENT,
   ACCOUNT,
-  ORDER_BOOK
+  ORDER_BOOK,
+  // seq of the last journaled message included into snapshot
+  JOURNAL,
+  // changed price levels of order book in delta snapshot
+  ORDER_BOOK_LEVEL
 }
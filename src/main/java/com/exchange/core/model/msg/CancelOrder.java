@@ -0,0 +1,16 @@
+package com.exchange.core.model.msg;
+
+import lombok.Data;
+
+/**
+ * Request to remove resting order from order book, order is found by symbol and orderId
+ * Locked balance of order leavesQty is released and CANCELLED report is sent
+ */
+@Data
+public class CancelOrder implements Message {
+
+  private String symbol;
+  private long orderId;
+  private String clOrdId;
+  private int account;
+}
@@ -1,11 +1,26 @@
 package com.exchange.core.model.msg;
 
 import com.exchange.core.model.enums.OrderStatus;
+import com.exchange.core.pool.ObjectPool;
+import com.exchange.core.pool.Poolable;
+import com.exchange.core.utils.FixedPoint;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import java.math.BigDecimal;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
 
+/**
+ * In fixed-point mode engine sets scaled values instead of leavesQty/lastQty/lastPx, and BigDecimal
+ * is created by getter on first call, so conversion happens on consumer thread, not on matching.
+ * lastQty/lastPx exist only for trade reports (isTaker is set)
+ * If engine pools reports (MatchingEngineConfig.pooledExecutionReports), consumer should call
+ * release() when report is processed, to return it into the pool
+ */
 @Data
-public class ExecutionReport implements Message {
+public class ExecutionReport implements Message, Poolable<ExecutionReport> {
 
   private String symbol;
   private long execId;
@@ -19,4 +34,91 @@ public class ExecutionReport implements Message {
   private BigDecimal lastQty;
   private BigDecimal lastPx;
   private OrderStatus status;
-}
\ No newline at end of file
+
+  @ToString.Exclude
+  @EqualsAndHashCode.Exclude
+  @JsonIgnore
+  private boolean fixedPoint;
+  @ToString.Exclude
+  @EqualsAndHashCode.Exclude
+  @JsonIgnore
+  private long scaledLeavesQty;
+  @ToString.Exclude
+  @EqualsAndHashCode.Exclude
+  @JsonIgnore
+  private int leavesQtyScale;
+  @ToString.Exclude
+  @EqualsAndHashCode.Exclude
+  @JsonIgnore
+  private long scaledLastQty;
+  @ToString.Exclude
+  @EqualsAndHashCode.Exclude
+  @JsonIgnore
+  private int lastQtyScale;
+  @ToString.Exclude
+  @EqualsAndHashCode.Exclude
+  @JsonIgnore
+  private long scaledLastPx;
+  @ToString.Exclude
+  @EqualsAndHashCode.Exclude
+  @JsonIgnore
+  private int lastPxScale;
+  @ToString.Exclude
+  @EqualsAndHashCode.Exclude
+  @JsonIgnore
+  @Getter(AccessLevel.NONE)
+  private ObjectPool<ExecutionReport> pool;
+
+  public BigDecimal getLeavesQty() {
+    if (leavesQty == null && fixedPoint) {
+      leavesQty = FixedPoint.toBigDecimal(scaledLeavesQty, leavesQtyScale);
+    }
+    return leavesQty;
+  }
+
+  public BigDecimal getLastQty() {
+    if (lastQty == null && fixedPoint && isTaker != null) {
+      lastQty = FixedPoint.toBigDecimal(scaledLastQty, lastQtyScale);
+    }
+    return lastQty;
+  }
+
+  public BigDecimal getLastPx() {
+    if (lastPx == null && fixedPoint && isTaker != null) {
+      lastPx = FixedPoint.toBigDecimal(scaledLastPx, lastPxScale);
+    }
+    return lastPx;
+  }
+
+  @Override
+  public void release() {
+    final ObjectPool<ExecutionReport> pool = this.pool;
+    if (pool != null) {
+      this.pool = null;
+      pool.release(this);
+    }
+  }
+
+  @Override
+  public void reset() {
+    symbol = null;
+    execId = 0;
+    orderId = 0;
+    clOrdId = null;
+    counterOrderId = 0;
+    isTaker = null;
+    orderQty = null;
+    leavesQty = null;
+    price = null;
+    lastQty = null;
+    lastPx = null;
+    status = null;
+    fixedPoint = false;
+    scaledLeavesQty = 0;
+    leavesQtyScale = 0;
+    scaledLastQty = 0;
+    lastQtyScale = 0;
+    scaledLastPx = 0;
+    lastPxScale = 0;
+  }
+}
@@ -1,5 +1,7 @@
 package com.exchange.core.model.msg;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
 import lombok.Data;
 
 @Data
@@ -8,4 +10,12 @@ public class InstrumentConfig implements Message {
   private String symbol;
   private String base;
   private String quote;
-}
\ No newline at end of file
+  /**
+   * Number of digits after decimal point for price and quantity, used by fixed-point mode
+   * Amounts (quantity * price) are kept with scale priceScale + quantityScale
+   */
+  @JsonInclude(Include.NON_DEFAULT)
+  private int priceScale;
+  @JsonInclude(Include.NON_DEFAULT)
+  private int quantityScale;
+}
@@ -1,5 +1,7 @@
 package com.exchange.core.model.msg;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
 import java.math.BigDecimal;
 import lombok.Data;
 
@@ -9,6 +11,11 @@ public class MarketData implements Message {
   private String symbol;
   private int depth;
   private long transactTime;
+  /**
+   * seqNum of the last MarketDataUpdate included into this snapshot
+   */
+  @JsonInclude(Include.NON_DEFAULT)
+  private long seqNum;
   private BigDecimal[][] bids;
   private BigDecimal[][] asks;
 }
@@ -0,0 +1,19 @@
+package com.exchange.core.model.msg;
+
+import java.math.BigDecimal;
+import lombok.Data;
+
+/**
+ * Levels changed by single order, each level is {price, new total quantity}, quantity 0 means level
+ * was removed. Client applies updates in seqNum order on top of MarketData with smaller seqNum
+ */
+@Data
+public class MarketDataUpdate implements Message {
+
+  private String symbol;
+  // per-symbol sequence number, increased by one for every update
+  private long seqNum;
+  private long transactTime;
+  private BigDecimal[][] bids;
+  private BigDecimal[][] asks;
+}
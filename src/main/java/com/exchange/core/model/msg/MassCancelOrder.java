@@ -0,0 +1,17 @@
+package com.exchange.core.model.msg;
+
+import lombok.Data;
+
+/**
+ * Request to cancel all resting orders of account, e.g. when market maker is disconnected
+ * CANCELLED report is sent for every order, locked balance is released once per asset
+ */
+@Data
+public class MassCancelOrder implements Message {
+
+  private int account;
+  /**
+   * If set, only orders of this symbol are cancelled, otherwise orders of all symbols
+   */
+  private String symbol;
+}
@@ -3,15 +3,19 @@ package com.exchange.core.model.msg;
 import com.exchange.core.matching.orderbook.level.PriceLevel;
 import com.exchange.core.model.enums.OrderSide;
 import com.exchange.core.model.enums.OrderType;
+import com.exchange.core.pool.ObjectPool;
+import com.exchange.core.pool.Poolable;
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AccessLevel;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.ToString;
 
 import java.math.BigDecimal;
 
 @Data
-public class Order implements Message {
+public class Order implements Message, Poolable<Order> {
   private String symbol;
   private long orderId;
   private String clOrdId;
@@ -22,6 +26,19 @@ public class Order implements Message {
   private BigDecimal leavesQty;
   private BigDecimal quoteOrderQty;
   private BigDecimal price;
+  /**
+   * Fixed-point copies of price/leavesQty used by order books in fixed-point mode
+   * price is scaled by priceScale, leavesQty by quantityScale
+   * (priceScale + quantityScale for market buy)
+   */
+  @ToString.Exclude
+  @JsonIgnore
+  @EqualsAndHashCode.Exclude
+  private long scaledPrice;
+  @ToString.Exclude
+  @JsonIgnore
+  @EqualsAndHashCode.Exclude
+  private long scaledLeavesQty;
 
   /**
    * These  fields used only for linked list iteration for PriceLevel
@@ -42,4 +59,64 @@ public class Order implements Message {
   @EqualsAndHashCode.Exclude
   @JsonIgnore
   public PriceLevel level;
-}
\ No newline at end of file
+  /**
+   * Links of intrusive lists of resting orders: all orders of account (account*) and orders of
+   * account for this symbol (symbol*), used by mass cancel to find orders without scanning books
+   */
+  @ToString.Exclude
+  @JsonIgnore
+  @EqualsAndHashCode.Exclude
+  public Order accountPrev;
+  @ToString.Exclude
+  @JsonIgnore
+  @EqualsAndHashCode.Exclude
+  public Order accountNext;
+  @ToString.Exclude
+  @JsonIgnore
+  @EqualsAndHashCode.Exclude
+  public Order symbolPrev;
+  @ToString.Exclude
+  @JsonIgnore
+  @EqualsAndHashCode.Exclude
+  public Order symbolNext;
+  /**
+   * Pool from which order was acquired, null for orders created with new
+   */
+  @ToString.Exclude
+  @EqualsAndHashCode.Exclude
+  @JsonIgnore
+  @Getter(AccessLevel.NONE)
+  private ObjectPool<Order> pool;
+
+  @Override
+  public void release() {
+    final ObjectPool<Order> pool = this.pool;
+    if (pool != null) {
+      this.pool = null;
+      pool.release(this);
+    }
+  }
+
+  @Override
+  public void reset() {
+    symbol = null;
+    orderId = 0;
+    clOrdId = null;
+    account = 0;
+    side = null;
+    type = null;
+    orderQty = null;
+    leavesQty = null;
+    quoteOrderQty = null;
+    price = null;
+    scaledPrice = 0;
+    scaledLeavesQty = 0;
+    prev = null;
+    next = null;
+    level = null;
+    accountPrev = null;
+    accountNext = null;
+    symbolPrev = null;
+    symbolNext = null;
+  }
+}
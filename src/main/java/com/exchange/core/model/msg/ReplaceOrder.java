@@ -0,0 +1,21 @@
+package com.exchange.core.model.msg;
+
+import java.math.BigDecimal;
+import lombok.Data;
+
+/**
+ * Request to change price and/or quantity of resting limit order
+ * orderQty is new total quantity, so leavesQty = orderQty - already filled quantity
+ * Quantity decrease with the same price keeps order place in the queue, any other change moves
+ * order to the end of the queue and it can be matched with new price
+ */
+@Data
+public class ReplaceOrder implements Message {
+
+  private String symbol;
+  private long orderId;
+  private String clOrdId;
+  private int account;
+  private BigDecimal price;
+  private BigDecimal orderQty;
+}
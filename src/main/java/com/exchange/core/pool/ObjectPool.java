@@ -0,0 +1,29 @@
+package com.exchange.core.pool;
+
+/**
+ * Pool of reusable objects, used to avoid allocation of messages on matching path
+ * If pool is empty, new object is created, if pool is full, released object is dropped
+ *
+ * @param <T> - pooled object
+ */
+public interface ObjectPool<T extends Poolable<T>> {
+
+  /**
+   * Take object from the pool, or create new one if pool is empty
+   * @return object with default state
+   */
+  T acquire();
+
+  /**
+   * Reset object and return it into the pool
+   * Object shouldn't be used by caller after this call
+   * @param obj - object acquired from this pool
+   */
+  void release(T obj);
+
+  /**
+   * Get number of objects available for acquire
+   * @return int size
+   */
+  int size();
+}
@@ -0,0 +1,27 @@
+package com.exchange.core.pool;
+
+/**
+ * Object that can be returned into the pool it was acquired from
+ * Objects created with new don't have pool, so release for them does nothing
+ *
+ * @param <T> - pooled object
+ */
+public interface Poolable<T extends Poolable<T>> {
+
+  /**
+   * Set pool to which object would be returned on release, called by pool on every acquire
+   */
+  void setPool(ObjectPool<T> pool);
+
+  /**
+   * Return object into the pool, object shouldn't be used after this call
+   * Pool is cleared before object is returned and set again on acquire, so second release of the
+   * same object does nothing instead of putting it into the pool twice
+   */
+  void release();
+
+  /**
+   * Clear all fields except pool, called by pool before object is reused
+   */
+  void reset();
+}
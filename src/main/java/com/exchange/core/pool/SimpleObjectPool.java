@@ -0,0 +1,46 @@
+package com.exchange.core.pool;
+
+import java.util.function.Supplier;
+
+/**
+ * Array-based stack of free objects, acquire and release should be called from the same thread
+ */
+public class SimpleObjectPool<T extends Poolable<T>> implements ObjectPool<T> {
+
+  private final Supplier<T> factory;
+  // objects of type T, cast on read
+  private final Object[] objects;
+  private int size;
+
+  public SimpleObjectPool(Supplier<T> factory, int capacity) {
+    this.factory = factory;
+    objects = new Object[capacity];
+  }
+
+  @Override
+  public T acquire() {
+    if (size == 0) {
+      T obj = factory.get();
+      obj.setPool(this);
+      return obj;
+    }
+    @SuppressWarnings("unchecked")
+    T obj = (T) objects[--size];
+    objects[size] = null;
+    obj.setPool(this);
+    return obj;
+  }
+
+  @Override
+  public void release(T obj) {
+    obj.reset();
+    if (size < objects.length) {
+      objects[size++] = obj;
+    }
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+}
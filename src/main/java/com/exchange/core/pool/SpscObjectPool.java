@@ -0,0 +1,64 @@
+package com.exchange.core.pool;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Ring buffer of free objects for the case when objects are acquired by one thread
+ * and released by another, like ExecutionReport created by matching engine and released by
+ * outbound consumer. Single producer (releasing thread) single consumer (acquiring thread)
+ */
+public class SpscObjectPool<T extends Poolable<T>> implements ObjectPool<T> {
+
+  private final Supplier<T> factory;
+  // objects of type T, cast on read
+  private final Object[] objects;
+  private final int mask;
+  // next index to acquire, written only by acquiring thread
+  private final AtomicLong head = new AtomicLong();
+  // next index to release, written only by releasing thread
+  private final AtomicLong tail = new AtomicLong();
+
+  /**
+   * @param capacity - rounded up to power of 2
+   */
+  public SpscObjectPool(Supplier<T> factory, int capacity) {
+    this.factory = factory;
+    int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+    objects = new Object[size];
+    mask = size - 1;
+  }
+
+  @Override
+  public T acquire() {
+    final long h = head.get();
+    if (h == tail.get()) {
+      T obj = factory.get();
+      obj.setPool(this);
+      return obj;
+    }
+    final int index = (int) (h & mask);
+    @SuppressWarnings("unchecked")
+    T obj = (T) objects[index];
+    objects[index] = null;
+    head.lazySet(h + 1);
+    obj.setPool(this);
+    return obj;
+  }
+
+  @Override
+  public void release(T obj) {
+    obj.reset();
+    final long t = tail.get();
+    if (t - head.get() == objects.length) {
+      return;
+    }
+    objects[(int) (t & mask)] = obj;
+    tail.lazySet(t + 1);
+  }
+
+  @Override
+  public int size() {
+    return (int) (tail.get() - head.get());
+  }
+}
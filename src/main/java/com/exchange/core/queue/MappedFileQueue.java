@@ -0,0 +1,292 @@
+package com.exchange.core.queue;
+
+import com.exchange.core.codec.ExecutionReportFlyweight;
+import com.exchange.core.codec.MessageCodec;
+import com.exchange.core.codec.OrderFlyweight;
+import com.exchange.core.exceptions.AppException;
+import com.exchange.core.model.msg.ExecutionReport;
+import com.exchange.core.model.msg.Message;
+import com.exchange.core.model.msg.Order;
+import com.exchange.core.pool.ObjectPool;
+import com.exchange.core.pool.Poolable;
+import com.exchange.core.pool.SpscObjectPool;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractQueue;
+import java.util.Iterator;
+import java.util.Objects;
+
+/**
+ * Queue of messages in memory-mapped file, so gateways and engine in different processes on the
+ * same host exchange messages through shared memory without copying them through the kernel
+ * File is a ring of records: int length + message encoded by MessageCodec, aligned to 8 bytes
+ * Producers (any thread of any process) claim space by CAS on tail, write message and publish it by
+ * writing record length with release, so record with length 0 isn't published yet
+ * Single consumer decodes record at head in place, zeroes it and moves head forward, which frees
+ * space for producers. Record which doesn't fit before end of ring is preceded by padding record
+ * with negative length
+ * Tail and head (consumer cursor) live in file header, so either side can be restarted and
+ * continue from the same position
+ * poll/peek/size should be called only by the single consumer thread
+ */
+public class MappedFileQueue extends AbstractQueue<Message> {
+
+  private static final VarHandle INT = MethodHandles.byteBufferViewVarHandle(int[].class,
+      ByteOrder.LITTLE_ENDIAN);
+  private static final VarHandle LONG = MethodHandles.byteBufferViewVarHandle(long[].class,
+      ByteOrder.LITTLE_ENDIAN);
+  private static final int MAGIC = 0x4D514631;
+  private static final int MAGIC_OFFSET = 0;
+  private static final int CAPACITY_OFFSET = 4;
+  // tail and head on separate cache lines, cause they are written by different processes
+  private static final int TAIL_OFFSET = 64;
+  private static final int HEAD_OFFSET = 128;
+  private static final int HEADER_LENGTH = 192;
+  // length of record is int, next 4 bytes keep message aligned to 8
+  private static final int RECORD_HEADER = 8;
+  private static final int MAX_MESSAGE_LENGTH = 1 << 16;
+
+  private final Path file;
+  private final ByteBuffer buffer;
+  private final int capacity;
+  private final int mask;
+  private final ThreadLocal<Encoder> encoders;
+  // used only by consumer thread
+  private final MessageCodec codec = new MessageCodec();
+  private final OrderFlyweight orderFlyweight = new OrderFlyweight();
+  private final ExecutionReportFlyweight execFlyweight = new ExecutionReportFlyweight();
+  private final ObjectPool<Order> orderPool;
+  private final ObjectPool<ExecutionReport> execReportPool;
+
+  public MappedFileQueue(Path file, int capacity) {
+    this(file, capacity, false);
+  }
+
+  /**
+   * @param capacity - size of ring in bytes, should be power of 2, all processes should open file
+   *                 with the same capacity
+   * @param pooled   - poll() decodes orders and execution reports into pooled objects, returned
+   *                 with release(), should be true only if they are released by single thread
+   */
+  public MappedFileQueue(Path file, int capacity, boolean pooled) {
+    if (capacity < 64 || Integer.bitCount(capacity) != 1) {
+      throw new AppException("Capacity should be power of 2: capacity=" + capacity);
+    }
+    this.file = file;
+    this.capacity = capacity;
+    mask = capacity - 1;
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+        StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      // mapping stays valid after channel is closed
+      buffer = channel.map(MapMode.READ_WRITE, 0, HEADER_LENGTH + capacity)
+          .order(ByteOrder.LITTLE_ENDIAN);
+    } catch (IOException ex) {
+      throw new AppException("Failed to map queue file: file=" + file, ex);
+    }
+    initHeader(MAGIC_OFFSET, MAGIC);
+    initHeader(CAPACITY_OFFSET, capacity);
+    final int scratchSize = Math.min(capacity, MAX_MESSAGE_LENGTH);
+    encoders = ThreadLocal.withInitial(() -> new Encoder(scratchSize));
+    orderPool = pooled ? new SpscObjectPool<>(Order::new, 4096) : null;
+    execReportPool = pooled ? new SpscObjectPool<>(ExecutionReport::new, 4096) : null;
+  }
+
+  /**
+   * First process writes header value into new file, others check that it's the same
+   */
+  private void initHeader(int offset, int value) {
+    if (!INT.compareAndSet(buffer, offset, 0, value)) {
+      int actual = (int) INT.getVolatile(buffer, offset);
+      if (actual != value) {
+        throw new AppException(
+            "Queue file header mismatch: file=" + file + ", expected=" + value + ", actual="
+                + actual);
+      }
+    }
+  }
+
+  /**
+   * Encode message and append it to the ring, pooled message is released once encoded
+   * @return false if there is no space for the message
+   */
+  @Override
+  public boolean offer(Message msg) {
+    Objects.requireNonNull(msg);
+    Encoder encoder = encoders.get();
+    int length = encoder.codec.encode(msg, encoder.buffer, 0);
+    if (!append(encoder.buffer, length)) {
+      return false;
+    }
+    if (msg instanceof Poolable<?> poolable) {
+      poolable.release();
+    }
+    return true;
+  }
+
+  /**
+   * Wait for free space instead of throwing IllegalStateException when ring is full, so producer
+   * is slowed down to consumer speed (back-pressure) and message is never dropped
+   */
+  @Override
+  public boolean add(Message msg) {
+    while (!offer(msg)) {
+      Thread.yield();
+    }
+    return true;
+  }
+
+  private boolean append(ByteBuffer src, int length) {
+    final int recordLength = align(RECORD_HEADER + length);
+    if (recordLength > capacity) {
+      throw new AppException(
+          "Message too big for queue: length=" + length + ", capacity=" + capacity);
+    }
+    long tail;
+    int index;
+    int padding;
+    do {
+      tail = (long) LONG.getVolatile(buffer, TAIL_OFFSET);
+      index = index(tail);
+      padding = index + recordLength > capacity ? capacity - index : 0;
+      long head = (long) LONG.getAcquire(buffer, HEAD_OFFSET);
+      if (tail + padding + recordLength - head > capacity) {
+        return false;
+      }
+    } while (!LONG.compareAndSet(buffer, TAIL_OFFSET, tail, tail + padding + recordLength));
+    if (padding > 0) {
+      INT.setRelease(buffer, HEADER_LENGTH + index, -padding);
+      index = 0;
+    }
+    final int position = HEADER_LENGTH + index;
+    buffer.put(position + RECORD_HEADER, src, 0, length);
+    INT.setRelease(buffer, position, length);
+    return true;
+  }
+
+  @Override
+  public Message poll() {
+    final long head = skipPadding();
+    final int position = HEADER_LENGTH + index(head);
+    final int length = (int) INT.getAcquire(buffer, position);
+    if (length == 0) {
+      return null;
+    }
+    Message msg = decode(position + RECORD_HEADER);
+    final int recordLength = align(RECORD_HEADER + length);
+    clear(position, recordLength);
+    LONG.setRelease(buffer, HEAD_OFFSET, head + recordLength);
+    return msg;
+  }
+
+  @Override
+  public Message peek() {
+    final int position = HEADER_LENGTH + index(skipPadding());
+    if ((int) INT.getAcquire(buffer, position) == 0) {
+      return null;
+    }
+    return codec.decode(buffer, position + RECORD_HEADER);
+  }
+
+  /**
+   * Consume padding record at head, if any
+   * @return head after padding
+   */
+  private long skipPadding() {
+    long head = (long) LONG.get(buffer, HEAD_OFFSET);
+    final int position = HEADER_LENGTH + index(head);
+    final int length = (int) INT.getAcquire(buffer, position);
+    if (length < 0) {
+      clear(position, -length);
+      head -= length;
+      LONG.setRelease(buffer, HEAD_OFFSET, head);
+    }
+    return head;
+  }
+
+  private Message decode(int position) {
+    short templateId = codec.templateId(buffer, position);
+    if (templateId == MessageCodec.ORDER && orderPool != null) {
+      return orderFlyweight.wrap(buffer, position).decode(orderPool.acquire());
+    }
+    if (templateId == MessageCodec.EXECUTION_REPORT && execReportPool != null) {
+      return execFlyweight.wrap(buffer, position).decode(execReportPool.acquire());
+    }
+    return codec.decode(buffer, position);
+  }
+
+  /**
+   * Zero consumed record, so producer which claims this space later starts from length 0
+   */
+  private void clear(int position, int length) {
+    for (int i = 0; i < length; i += Long.BYTES) {
+      buffer.putLong(position + i, 0);
+    }
+  }
+
+  /**
+   * Number of published messages, walks all records, so should be used only for monitoring
+   */
+  @Override
+  public int size() {
+    long head = (long) LONG.get(buffer, HEAD_OFFSET);
+    final long tail = (long) LONG.getAcquire(buffer, TAIL_OFFSET);
+    int size = 0;
+    while (head < tail) {
+      int length = (int) INT.getAcquire(buffer, HEADER_LENGTH + index(head));
+      if (length == 0) {
+        break;
+      }
+      if (length > 0) {
+        size++;
+        head += align(RECORD_HEADER + length);
+      } else {
+        head -= length;
+      }
+    }
+    return size;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return (long) LONG.getAcquire(buffer, HEAD_OFFSET) >= (long) LONG.getAcquire(buffer,
+        TAIL_OFFSET);
+  }
+
+  public int capacity() {
+    return capacity;
+  }
+
+  @Override
+  public Iterator<Message> iterator() {
+    throw new UnsupportedOperationException("MappedFileQueue doesn't support iteration");
+  }
+
+  private int index(long sequence) {
+    return (int) (sequence & mask);
+  }
+
+  private static int align(int length) {
+    return (length + Long.BYTES - 1) & -Long.BYTES;
+  }
+
+  /**
+   * Codec and scratch buffer of producer thread, message is encoded into scratch buffer, cause its
+   * length isn't known before encoding, and then copied into claimed space
+   */
+  private static class Encoder {
+
+    private final MessageCodec codec = new MessageCodec();
+    private final ByteBuffer buffer;
+
+    private Encoder(int size) {
+      buffer = MessageCodec.allocate(size);
+    }
+  }
+}
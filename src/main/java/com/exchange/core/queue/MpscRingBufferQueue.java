@@ -0,0 +1,68 @@
+package com.exchange.core.queue;
+
+/**
+ * Multi producer single consumer ring buffer, like inbound queue written by many clients
+ * Producer claims sequence by CAS on tail, then publishes element by release store into its slot,
+ * so slot is the publish flag: consumer which sees claimed but still empty slot spins until
+ * producer finishes the publish
+ */
+public class MpscRingBufferQueue<E> extends RingBufferQueue<E> {
+
+  /**
+   * @param capacity - should be power of 2
+   */
+  public MpscRingBufferQueue(int capacity) {
+    super(capacity);
+  }
+
+  @Override
+  public boolean offer(E e) {
+    checkNotNull(e);
+    long t;
+    do {
+      t = tail.get();
+      if (t - head.getAcquire() >= capacity) {
+        return false;
+      }
+    } while (!tail.compareAndSet(t, t + 1));
+    SLOT.setRelease(buffer, index(t), e);
+    return true;
+  }
+
+  @Override
+  public E poll() {
+    final long h = head.getPlain();
+    final int index = index(h);
+    E e = waitPublished(h, index);
+    if (e == null) {
+      return null;
+    }
+    SLOT.set(buffer, index, null);
+    head.setRelease(h + 1);
+    return e;
+  }
+
+  @Override
+  public E peek() {
+    final long h = head.getPlain();
+    return waitPublished(h, index(h));
+  }
+
+  /**
+   * @return element at sequence, null if nothing is claimed at this sequence
+   */
+  private E waitPublished(long h, int index) {
+    E e = (E) SLOT.getAcquire(buffer, index);
+    if (e != null) {
+      return e;
+    }
+    if (h >= tail.get()) {
+      return null;
+    }
+    // claimed, but producer hasn't published element yet
+    while ((e = (E) SLOT.getAcquire(buffer, index)) == null) {
+      Thread.onSpinWait();
+    }
+    return e;
+  }
+}
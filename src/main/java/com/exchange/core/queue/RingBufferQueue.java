@@ -0,0 +1,84 @@
+package com.exchange.core.queue;
+
+import com.exchange.core.exceptions.AppException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.AbstractQueue;
+import java.util.Iterator;
+
+/**
+ * Bounded lock-free queue on preallocated array, so no node is allocated per message
+ * Producers claim next sequence (tail) and publish element into slot tail & mask, single consumer
+ * takes element at head and moves head forward, which frees the slot for producers
+ * Sequences only grow, slot index is sequence & mask, so capacity is power of 2
+ * poll/peek should be called only by the single consumer thread
+ * Null elements are not supported, iteration is not supported
+ */
+public abstract class RingBufferQueue<E> extends AbstractQueue<E> {
+
+  protected static final VarHandle SLOT = MethodHandles.arrayElementVarHandle(Object[].class);
+
+  protected final Object[] buffer;
+  protected final int mask;
+  protected final int capacity;
+  // next sequence to be read, written only by consumer
+  protected final Sequence head = new Sequence();
+  // next sequence to be claimed by producer
+  protected final Sequence tail = new Sequence();
+
+  /**
+   * @param capacity - should be power of 2
+   */
+  protected RingBufferQueue(int capacity) {
+    if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+      throw new AppException("Capacity should be power of 2: capacity=" + capacity);
+    }
+    this.capacity = capacity;
+    buffer = new Object[capacity];
+    mask = capacity - 1;
+  }
+
+  /**
+   * Wait for free slot instead of throwing IllegalStateException when buffer is full, so producer
+   * is slowed down to consumer speed (back-pressure) and message is never dropped
+   */
+  @Override
+  public boolean add(E e) {
+    while (!offer(e)) {
+      Thread.yield();
+    }
+    return true;
+  }
+
+  @Override
+  public int size() {
+    // read head first, so size is never negative
+    final long h = head.getAcquire();
+    final long t = tail.getAcquire();
+    return (int) Math.min(Math.max(t - h, 0), capacity);
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return head.getAcquire() >= tail.getAcquire();
+  }
+
+  public int capacity() {
+    return capacity;
+  }
+
+  @Override
+  public Iterator<E> iterator() {
+    throw new UnsupportedOperationException("RingBufferQueue doesn't support iteration");
+  }
+
+  protected int index(long sequence) {
+    return (int) (sequence & mask);
+  }
+
+  protected static void checkNotNull(Object e) {
+    if (e == null) {
+      throw new NullPointerException("RingBufferQueue doesn't support null elements");
+    }
+  }
+}
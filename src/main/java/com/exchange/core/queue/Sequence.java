@@ -0,0 +1,72 @@
+package com.exchange.core.queue;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+abstract class SequenceLhsPadding {
+
+  protected long p1, p2, p3, p4, p5, p6, p7;
+}
+
+abstract class SequenceValue extends SequenceLhsPadding {
+
+  protected volatile long value;
+}
+
+/**
+ * Long counter padded on both sides, so it occupies its own cache line and producer/consumer
+ * counters written by different threads don't invalidate each other (false sharing)
+ * Superclass fields are laid out before subclass fields, which keeps padding around the value
+ */
+public class Sequence extends SequenceValue {
+
+  private static final VarHandle VALUE;
+
+  static {
+    try {
+      VALUE = MethodHandles.lookup().findVarHandle(SequenceValue.class, "value", long.class);
+    } catch (ReflectiveOperationException ex) {
+      throw new ExceptionInInitializerError(ex);
+    }
+  }
+
+  protected long p9, p10, p11, p12, p13, p14, p15;
+
+  public Sequence() {
+    this(0);
+  }
+
+  public Sequence(long initial) {
+    VALUE.setRelease(this, initial);
+  }
+
+  public long get() {
+    return value;
+  }
+
+  public long getAcquire() {
+    return (long) VALUE.getAcquire(this);
+  }
+
+  /**
+   * Read without any ordering, should be used only by the thread which writes the value
+   */
+  public long getPlain() {
+    return (long) VALUE.get(this);
+  }
+
+  public void setPlain(long newValue) {
+    VALUE.set(this, newValue);
+  }
+
+  /**
+   * Ordered store: all writes before it are visible to thread which reads new value with acquire
+   */
+  public void setRelease(long newValue) {
+    VALUE.setRelease(this, newValue);
+  }
+
+  public boolean compareAndSet(long expected, long newValue) {
+    return VALUE.compareAndSet(this, expected, newValue);
+  }
+}
@@ -0,0 +1,64 @@
+package com.exchange.core.queue;
+
+/**
+ * Single producer single consumer ring buffer, like outbound queue written only by matching thread
+ * Producer writes slot and publishes it by release store of tail, consumer frees slot by release
+ * store of head. Each side keeps cached copy of the other side sequence and reads the real one
+ * only when cached value says buffer is full/empty
+ */
+public class SpscRingBufferQueue<E> extends RingBufferQueue<E> {
+
+  // producer copy of head
+  private final Sequence headCache = new Sequence();
+  // consumer copy of tail
+  private final Sequence tailCache = new Sequence();
+
+  /**
+   * @param capacity - should be power of 2
+   */
+  public SpscRingBufferQueue(int capacity) {
+    super(capacity);
+  }
+
+  @Override
+  public boolean offer(E e) {
+    checkNotNull(e);
+    final long t = tail.getPlain();
+    if (t - headCache.getPlain() >= capacity) {
+      headCache.setPlain(head.getAcquire());
+      if (t - headCache.getPlain() >= capacity) {
+        return false;
+      }
+    }
+    buffer[index(t)] = e;
+    tail.setRelease(t + 1);
+    return true;
+  }
+
+  @Override
+  public E poll() {
+    final long h = head.getPlain();
+    if (!isAvailable(h)) {
+      return null;
+    }
+    final int index = index(h);
+    E e = (E) buffer[index];
+    buffer[index] = null;
+    head.setRelease(h + 1);
+    return e;
+  }
+
+  @Override
+  public E peek() {
+    final long h = head.getPlain();
+    return isAvailable(h) ? (E) buffer[index(h)] : null;
+  }
+
+  private boolean isAvailable(long h) {
+    if (h < tailCache.getPlain()) {
+      return true;
+    }
+    tailCache.setPlain(tail.getAcquire());
+    return h < tailCache.getPlain();
+  }
+}
@@ -9,13 +9,20 @@ import com.exchange.core.user.Position;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
+/**
+ * Thread-safe, so one repository can be shared by all matching shards
+ * Positions mark themselves changed, so delta snapshot has only accounts with changed positions
+ * and only those positions, untouched accounts are skipped
+ */
 public class AccountRepositoryImpl implements AccountRepository, Snapshotable {
 
   private final Map<Integer, Account> accounts;
 
   public AccountRepositoryImpl() {
-    accounts = new HashMap<>();
+    accounts = new ConcurrentHashMap<>();
   }
 
   @Override
@@ -42,7 +49,7 @@ public class AccountRepositoryImpl implements AccountRepository, Snapshotable {
     final int accountId = ub.getAccount();
     Account account = getAccount(accountId);
     if (account == null) {
-      accounts.put(accountId, new Account(accountId));
+      accounts.putIfAbsent(accountId, new Account(accountId));
     }
     getAccountPosition(accountId, ub.getAsset()).add(ub.getAmount());
   }
@@ -66,4 +73,47 @@ public class AccountRepositoryImpl implements AccountRepository, Snapshotable {
       accounts.put(a.getAccountId(), a);
     });
   }
+
+  @Override
+  public void forEachRecord(Consumer<Object> consumer) {
+    accounts.values().forEach(consumer);
+  }
+
+  /**
+   * Account of delta snapshot has only changed positions, so account which is already loaded gets
+   * them on top of its own ones
+   */
+  @Override
+  public void loadRecord(Object record) {
+    Account account = (Account) record;
+    Account prev = accounts.putIfAbsent(account.getAccountId(), account);
+    if (prev != null) {
+      prev.getPositions().putAll(account.getPositions());
+    }
+  }
+
+  @Override
+  public void forEachChangedRecord(Consumer<Object> consumer) {
+    for (Account account : accounts.values()) {
+      Map<String, Position> changed = null;
+      for (Position position : account.getPositions().values()) {
+        if (position.resetChanged()) {
+          if (changed == null) {
+            changed = new HashMap<>();
+          }
+          changed.put(position.getSymbol(), position);
+        }
+      }
+      if (changed != null) {
+        Account delta = new Account(account.getAccountId());
+        delta.setPositions(changed);
+        consumer.accept(delta);
+      }
+    }
+  }
+
+  @Override
+  public void clearChanges() {
+    accounts.values().forEach(a -> a.getPositions().values().forEach(Position::resetChanged));
+  }
 }
\ No newline at end of file
@@ -5,15 +5,17 @@ import com.exchange.core.model.SnapshotItem;
 import com.exchange.core.model.enums.SnapshotType;
 import com.exchange.core.model.msg.InstrumentConfig;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 public class InstrumentRepositoryImpl implements InstrumentRepository, Snapshotable {
 
-  private final Map<String, InstrumentConfig> instruments = new HashMap<>();
+  // insertion order, so order books restored from snapshot are created in the same order
+  private final Map<String, InstrumentConfig> instruments = new LinkedHashMap<>();
 
   @Override
   public void add(InstrumentConfig msg) {
@@ -62,4 +64,15 @@ public class InstrumentRepositoryImpl implements InstrumentRepository, Snapshota
       instruments.put(i.getSymbol(), i);
     });
   }
+
+  @Override
+  public void forEachRecord(Consumer<Object> consumer) {
+    instruments.values().forEach(consumer);
+  }
+
+  @Override
+  public void loadRecord(Object record) {
+    InstrumentConfig inst = (InstrumentConfig) record;
+    instruments.put(inst.getSymbol(), inst);
+  }
 }
\ No newline at end of file
@@ -1,7 +1,7 @@
 package com.exchange.core.user;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
@@ -14,10 +14,27 @@ public class Account {
 
   public Account(int accountId) {
     this.accountId = accountId;
-    positions = new HashMap<>();
+    positions = new ConcurrentHashMap<>();
+  }
+
+  /**
+   * Positions are created by matching shards on first use, so map should be concurrent also for
+   * account loaded from snapshot
+   */
+  public void setPositions(Map<String, Position> positions) {
+    this.positions = new ConcurrentHashMap<>(positions);
   }
 
   public Position getPosition(String asset) {
-    return positions.compute(asset, (k, v) -> v == null ? new Position(asset) : v);
+    // get/putIfAbsent instead of compute, so no capturing lambda is allocated on every call
+    Position position = positions.get(asset);
+    if (position == null) {
+      position = new Position(asset);
+      Position prev = positions.putIfAbsent(asset, position);
+      if (prev != null) {
+        return prev;
+      }
+    }
+    return position;
   }
 }
\ No newline at end of file
@@ -1,59 +1,314 @@
 package com.exchange.core.user;
 
 import com.exchange.core.exceptions.AppException;
+import com.exchange.core.utils.FixedPoint;
 import java.math.BigDecimal;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
 
+/**
+ * Balances are BigDecimal, so any amount and scale is accepted. Fixed-point callers pass unscaled
+ * long with scale of instrument, on first such call position moves balances into scaled long with
+ * this scale and then locks/settles without any allocation. If amount or result doesn't fit into
+ * scaled long (more digits after decimal point or overflow), position goes back to BigDecimal
+ * Methods which read or change balance are synchronized, so position can be shared by matching
+ * shards. lock() checks and reserves amount atomically, so concurrent orders can't overdraw it
+ * Every change marks position as changed, so delta snapshot writes only changed positions
+ */
 @Data
 @NoArgsConstructor
 public class Position {
 
+  private static final int DECIMAL = -1;
+
   private String symbol;
   private BigDecimal balance;
   private BigDecimal locked;
+  @Getter(AccessLevel.NONE)
+  @Setter(AccessLevel.NONE)
+  @ToString.Exclude
+  @EqualsAndHashCode.Exclude
+  private long scaledBalance;
+  @Getter(AccessLevel.NONE)
+  @Setter(AccessLevel.NONE)
+  @ToString.Exclude
+  @EqualsAndHashCode.Exclude
+  private long scaledLocked;
+  /**
+   * Scale of scaledBalance and scaledLocked, DECIMAL if balances are kept in BigDecimal
+   */
+  @Getter(AccessLevel.NONE)
+  @Setter(AccessLevel.NONE)
+  @ToString.Exclude
+  @EqualsAndHashCode.Exclude
+  private int scale = DECIMAL;
+  @Getter(AccessLevel.NONE)
+  @Setter(AccessLevel.NONE)
+  @ToString.Exclude
+  @EqualsAndHashCode.Exclude
+  private boolean changed;
 
   public Position(String asset) {
     this(asset, BigDecimal.ZERO);
   }
 
   public Position(String asset, BigDecimal balance) {
+    this(asset, balance, BigDecimal.ZERO);
+    changed = true;
+  }
+
+  /**
+   * Position restored from snapshot isn't changed
+   */
+  public Position(String asset, BigDecimal balance, BigDecimal locked) {
     this.symbol = asset;
     this.balance = balance;
-    this.locked = BigDecimal.ZERO;
+    this.locked = locked;
+  }
+
+  /**
+   * Position from unscaled values with common scale
+   */
+  public Position(String asset, long unscaledBalance, long unscaledLocked, int scale) {
+    this(asset, FixedPoint.toBigDecimal(unscaledBalance, scale),
+        FixedPoint.toBigDecimal(unscaledLocked, scale));
+  }
+
+  /**
+   * @return true if position changed since previous call
+   */
+  public synchronized boolean resetChanged() {
+    boolean result = changed;
+    changed = false;
+    return result;
+  }
+
+  public synchronized BigDecimal getBalance() {
+    return scale == DECIMAL ? balance : FixedPoint.toBigDecimal(scaledBalance, scale);
+  }
+
+  public synchronized void setBalance(BigDecimal balance) {
+    toDecimal();
+    this.balance = balance;
+    changed = true;
+  }
+
+  public synchronized BigDecimal getLocked() {
+    return scale == DECIMAL ? locked : FixedPoint.toBigDecimal(scaledLocked, scale);
   }
 
-  public BigDecimal getTotalBalance() {
-    return balance.add(locked);
+  public synchronized void setLocked(BigDecimal locked) {
+    toDecimal();
+    this.locked = locked;
+    changed = true;
   }
 
-  public void add(BigDecimal amount) {
-    this.balance = balance.add(amount);
+  public synchronized BigDecimal getTotalBalance() {
+    return getBalance().add(getLocked());
   }
 
-  public void lock(BigDecimal amount) {
+  public synchronized void add(BigDecimal amount) {
+    if (toScale(amount)) {
+      add(unscaled(amount), scale);
+      return;
+    }
+    balance = balance.add(amount);
+    changed = true;
+  }
+
+  public synchronized void lock(BigDecimal amount) {
+    if (toScale(amount)) {
+      lock(unscaled(amount), scale);
+      return;
+    }
     if (amount.compareTo(balance) > 0) {
       throw new AppException(
           "Failed to lock more than available: amount=" + amount + ", balance=" + balance);
     }
     locked = locked.add(amount);
     balance = balance.subtract(amount);
+    changed = true;
   }
 
-  public void unlock(BigDecimal amount) {
+  public synchronized void unlock(BigDecimal amount) {
+    if (toScale(amount)) {
+      unlock(unscaled(amount), scale);
+      return;
+    }
     if (amount.compareTo(locked) > 0) {
       throw new AppException(
           "Failed to unlock more than locked: amount=" + amount + ", locked=" + locked);
     }
     locked = locked.subtract(amount);
     balance = balance.add(amount);
+    changed = true;
   }
 
-  public void freeLocked(BigDecimal amount) {
+  public synchronized void freeLocked(BigDecimal amount) {
+    if (toScale(amount)) {
+      freeLocked(unscaled(amount), scale);
+      return;
+    }
     if (amount.compareTo(locked) > 0) {
       throw new AppException(
           "Failed to free more than locked: amount=" + amount + ", locked=" + locked);
     }
     locked = locked.subtract(amount);
+    changed = true;
+  }
+
+  /**
+   * Check if available balance is enough to lock amount
+   * @param amount - unscaled amount
+   * @param amountScale - scale of amount
+   */
+  public synchronized boolean isAvailable(long amount, int amountScale) {
+    if (!toScale(amount, amountScale)) {
+      return FixedPoint.toBigDecimal(amount, amountScale).compareTo(balance) <= 0;
+    }
+    return FixedPoint.rescale(amount, amountScale, scale) <= scaledBalance;
+  }
+
+  public synchronized void add(long amount, int amountScale) {
+    if (toScale(amountScale)) {
+      try {
+        scaledBalance = Math.addExact(scaledBalance,
+            FixedPoint.rescale(amount, amountScale, scale));
+        changed = true;
+        return;
+      } catch (ArithmeticException | AppException ex) {
+        toDecimal();
+      }
+    }
+    add(FixedPoint.toBigDecimal(amount, amountScale));
+  }
+
+  public synchronized void lock(long amount, int amountScale) {
+    if (toScale(amount, amountScale)) {
+      long value = FixedPoint.rescale(amount, amountScale, scale);
+      if (value > scaledBalance) {
+        throw new AppException(
+            "Failed to lock more than available: amount="
+                + FixedPoint.toBigDecimal(amount, amountScale) + ", balance=" + getBalance());
+      }
+      try {
+        scaledLocked = Math.addExact(scaledLocked, value);
+        scaledBalance -= value;
+        changed = true;
+        return;
+      } catch (ArithmeticException ex) {
+        toDecimal();
+      }
+    }
+    lock(FixedPoint.toBigDecimal(amount, amountScale));
+  }
+
+  public synchronized void unlock(long amount, int amountScale) {
+    if (toScale(amount, amountScale)) {
+      long value = FixedPoint.rescale(amount, amountScale, scale);
+      if (value > scaledLocked) {
+        throw new AppException(
+            "Failed to unlock more than locked: amount="
+                + FixedPoint.toBigDecimal(amount, amountScale) + ", locked=" + getLocked());
+      }
+      try {
+        scaledBalance = Math.addExact(scaledBalance, value);
+        scaledLocked -= value;
+        changed = true;
+        return;
+      } catch (ArithmeticException ex) {
+        toDecimal();
+      }
+    }
+    unlock(FixedPoint.toBigDecimal(amount, amountScale));
+  }
+
+  public synchronized void freeLocked(long amount, int amountScale) {
+    if (!toScale(amount, amountScale)) {
+      freeLocked(FixedPoint.toBigDecimal(amount, amountScale));
+      return;
+    }
+    long value = FixedPoint.rescale(amount, amountScale, scale);
+    if (value > scaledLocked) {
+      throw new AppException(
+          "Failed to free more than locked: amount="
+              + FixedPoint.toBigDecimal(amount, amountScale) + ", locked=" + getLocked());
+    }
+    scaledLocked -= value;
+    changed = true;
+  }
+
+  /**
+   * Scale is set by the first fixed-point call and only grows if instruments with the same asset
+   * have different scales
+   * @return true if balances are kept as scaled long with scale not less than amountScale
+   */
+  private boolean toScale(int amountScale) {
+    if (scale >= amountScale) {
+      return true;
+    }
+    try {
+      if (scale == DECIMAL) {
+        scaledBalance = FixedPoint.toLong(balance, amountScale);
+        scaledLocked = FixedPoint.toLong(locked, amountScale);
+      } else {
+        scaledBalance = FixedPoint.rescale(scaledBalance, scale, amountScale);
+        scaledLocked = FixedPoint.rescale(scaledLocked, scale, amountScale);
+      }
+      scale = amountScale;
+      return true;
+    } catch (AppException ex) {
+      toDecimal();
+      return false;
+    }
+  }
+
+  /**
+   * Amount with smaller scale is multiplied on rescale, so it can overflow even if balances fit
+   * @return true if balances are kept as scaled long and amount fits into it with position scale
+   */
+  private boolean toScale(long amount, int amountScale) {
+    if (!toScale(amountScale)) {
+      return false;
+    }
+    try {
+      FixedPoint.rescale(amount, amountScale, scale);
+      return true;
+    } catch (AppException ex) {
+      toDecimal();
+      return false;
+    }
+  }
+
+  /**
+   * BigDecimal amount is applied to scaled long only if it fits position scale without rounding,
+   * position never moves into scaled long because of BigDecimal amount
+   */
+  private boolean toScale(BigDecimal amount) {
+    if (scale == DECIMAL) {
+      return false;
+    }
+    if (amount.scale() <= scale && amount.precision() - amount.scale() + scale < 19) {
+      return true;
+    }
+    toDecimal();
+    return false;
+  }
+
+  private void toDecimal() {
+    if (scale != DECIMAL) {
+      balance = FixedPoint.toBigDecimal(scaledBalance, scale);
+      locked = FixedPoint.toBigDecimal(scaledLocked, scale);
+      scale = DECIMAL;
+    }
+  }
+
+  private long unscaled(BigDecimal amount) {
+    return FixedPoint.toLong(amount, scale);
   }
-}
\ No newline at end of file
+}
@@ -0,0 +1,94 @@
+package com.exchange.core.utils;
+
+import com.exchange.core.exceptions.AppException;
+import java.math.BigDecimal;
+
+/**
+ * Helpers to convert between BigDecimal (used in messages) and scaled long (used inside matching)
+ * Scaled long is the unscaled value of BigDecimal with fixed scale: 1.25 with scale 4 => 12500
+ * All arithmetic is exact, overflow is reported with AppException instead of silent wrap-around
+ */
+public final class FixedPoint {
+
+  private static final long[] POWERS_OF_TEN = new long[19];
+  // unscaled value below 10^15 < 2^50 is restored from doubleValue() without rounding error
+  private static final int MAX_EXACT_DOUBLE_PRECISION = 15;
+
+  static {
+    POWERS_OF_TEN[0] = 1;
+    for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+      POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+    }
+  }
+
+  private FixedPoint() {
+  }
+
+  /**
+   * Convert BigDecimal into scaled long, value should fit into scale without rounding
+   * Short values are converted without allocation: movePointRight and unscaledValue create new
+   * objects, while doubleValue of compact value with small scale is a single division
+   * @param value - decimal value, null is treated as 0
+   * @param scale - number of digits after decimal point
+   * @return scaled long
+   */
+  public static long toLong(BigDecimal value, int scale) {
+    if (value == null) {
+      return 0;
+    }
+    final int valueScale = value.scale();
+    if (value.precision() <= MAX_EXACT_DOUBLE_PRECISION && valueScale >= 0
+        && valueScale < POWERS_OF_TEN.length) {
+      final long unscaled = valueScale == 0 ? value.longValue()
+          : Math.round(value.doubleValue() * POWERS_OF_TEN[valueScale]);
+      final int shift = scale - valueScale;
+      if (shift >= 0 && shift < POWERS_OF_TEN.length
+          && Math.abs(unscaled) <= Long.MAX_VALUE / POWERS_OF_TEN[shift]) {
+        return unscaled * POWERS_OF_TEN[shift];
+      }
+      if (shift < 0 && -shift < POWERS_OF_TEN.length && unscaled % POWERS_OF_TEN[-shift] == 0) {
+        return unscaled / POWERS_OF_TEN[-shift];
+      }
+    }
+    // long values, values which need rounding and overflows go through BigDecimal
+    try {
+      return value.movePointRight(scale).longValueExact();
+    } catch (ArithmeticException ex) {
+      throw new AppException(
+          "Value doesn't fit fixed-point scale: value=" + value + ", scale=" + scale, ex);
+    }
+  }
+
+  public static BigDecimal toBigDecimal(long value, int scale) {
+    return BigDecimal.valueOf(value, scale);
+  }
+
+  public static long multiply(long a, long b) {
+    try {
+      return Math.multiplyExact(a, b);
+    } catch (ArithmeticException ex) {
+      throw new AppException("Fixed-point overflow: a=" + a + ", b=" + b, ex);
+    }
+  }
+
+  /**
+   * Move value from smaller scale into bigger, 12 with scale 1 into scale 3 => 1200
+   */
+  public static long rescale(long value, int fromScale, int toScale) {
+    if (fromScale == toScale) {
+      return value;
+    }
+    if (fromScale > toScale) {
+      throw new AppException(
+          "Can't reduce scale without rounding: from=" + fromScale + ", to=" + toScale);
+    }
+    return multiply(value, pow10(toScale - fromScale));
+  }
+
+  public static long pow10(int n) {
+    if (n < 0 || n >= POWERS_OF_TEN.length) {
+      throw new AppException("Fixed-point scale out of range: scale=" + n);
+    }
+    return POWERS_OF_TEN[n];
+  }
+}
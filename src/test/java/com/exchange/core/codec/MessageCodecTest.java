@@ -0,0 +1,175 @@
+package com.exchange.core.codec;
+
+import com.exchange.core.MockData;
+import com.exchange.core.exceptions.AppException;
+import com.exchange.core.model.enums.OrderSide;
+import com.exchange.core.model.enums.OrderStatus;
+import com.exchange.core.model.enums.OrderType;
+import com.exchange.core.model.msg.CancelOrder;
+import com.exchange.core.model.msg.ErrorMessage;
+import com.exchange.core.model.msg.ExecutionReport;
+import com.exchange.core.model.msg.MarketData;
+import com.exchange.core.model.msg.MarketDataUpdate;
+import com.exchange.core.model.msg.MassCancelOrder;
+import com.exchange.core.model.msg.Message;
+import com.exchange.core.model.msg.Order;
+import com.exchange.core.model.msg.ReplaceOrder;
+import com.exchange.core.model.msg.SnapshotMessage;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class MessageCodecTest {
+
+  @Test
+  public void roundTripTest() {
+    List<Message> messages = new ArrayList<>();
+    Order limit = MockData.getLimitBuy();
+    limit.setOrderId(1);
+    limit.setClOrdId("client_1");
+    limit.setLeavesQty(new BigDecimal("9.50"));
+    messages.add(limit);
+    Order market = MockData.getLimitBuy();
+    market.setType(OrderType.MARKET);
+    market.setPrice(null);
+    market.setOrderQty(null);
+    market.setQuoteOrderQty(new BigDecimal("1000.5"));
+    messages.add(market);
+    messages.add(getTradeReport());
+    messages.add(getMarketData());
+    MarketDataUpdate update = new MarketDataUpdate();
+    update.setSymbol(MockData.SYMBOL);
+    update.setSeqNum(7);
+    update.setBids(new BigDecimal[][]{{new BigDecimal("100"), BigDecimal.ZERO}});
+    update.setAsks(new BigDecimal[0][]);
+    messages.add(update);
+    messages.add(MockData.getUser(MockData.QUOTE));
+    messages.add(MockData.getInstrument());
+    CancelOrder cancel = new CancelOrder();
+    cancel.setSymbol(MockData.SYMBOL);
+    cancel.setOrderId(3);
+    cancel.setAccount(2);
+    messages.add(cancel);
+    ReplaceOrder replace = new ReplaceOrder();
+    replace.setSymbol(MockData.SYMBOL);
+    replace.setOrderId(3);
+    replace.setClOrdId("replace_3");
+    replace.setAccount(2);
+    replace.setPrice(new BigDecimal("101.25"));
+    replace.setOrderQty(new BigDecimal("5"));
+    messages.add(replace);
+    MassCancelOrder massCancel = new MassCancelOrder();
+    massCancel.setAccount(2);
+    messages.add(massCancel);
+    messages.add(new SnapshotMessage());
+    messages.add(new ErrorMessage("Balance insufficient: ₮", limit));
+    messages.add(new ErrorMessage(null, "not a message"));
+
+    MessageCodec codec = new MessageCodec();
+    ByteBuffer buffer = MessageCodec.allocate(4096);
+    int offset = 0;
+    for (Message msg : messages) {
+      offset += codec.encode(msg, buffer, offset);
+    }
+    int position = 0;
+    for (Message msg : messages) {
+      Message decoded = codec.decode(buffer, position);
+      if (msg instanceof ErrorMessage error && !(error.getPayload() instanceof Message)) {
+        Assertions.assertEquals(new ErrorMessage(error.getError(), null), decoded,
+            "non-message payload should be dropped");
+      } else {
+        Assertions.assertEquals(msg, decoded, "message mismatch");
+      }
+      position += codec.length(buffer, position);
+    }
+    Assertions.assertEquals(offset, position, "total length mismatch");
+  }
+
+  @Test
+  public void fixedPointExecutionReportTest() {
+    ExecutionReport exec = getTradeReport();
+    exec.setLeavesQty(null);
+    exec.setLastQty(null);
+    exec.setLastPx(null);
+    exec.setFixedPoint(true);
+    exec.setScaledLeavesQty(950);
+    exec.setLeavesQtyScale(2);
+    exec.setScaledLastQty(5);
+    exec.setLastQtyScale(1);
+    exec.setScaledLastPx(100);
+    exec.setLastPxScale(0);
+
+    ExecutionReportFlyweight flyweight = new ExecutionReportFlyweight();
+    flyweight.wrap(MessageCodec.allocate(256), 16).encode(exec);
+    Assertions.assertEquals(950, flyweight.mantissa(ExecutionReportFlyweight.LEAVES_QTY));
+    Assertions.assertEquals(2, flyweight.scale(ExecutionReportFlyweight.LEAVES_QTY));
+    ExecutionReport decoded = flyweight.decode(new ExecutionReport());
+    Assertions.assertEquals(new BigDecimal("9.50"), decoded.getLeavesQty(), "leavesQty mismatch");
+    Assertions.assertEquals(new BigDecimal("0.5"), decoded.getLastQty(), "lastQty mismatch");
+    Assertions.assertEquals(new BigDecimal("100"), decoded.getLastPx(), "lastPx mismatch");
+  }
+
+  @Test
+  public void decodeIntoPooledOrderTest() {
+    ByteBuffer buffer = MessageCodec.allocate(256);
+    OrderFlyweight flyweight = new OrderFlyweight();
+    flyweight.wrap(buffer, 0).encode(MockData.getLimitBuy());
+    Order order = new Order();
+    String symbol = flyweight.wrap(buffer, 0).decode(order).getSymbol();
+    Assertions.assertEquals(MockData.SYMBOL, symbol);
+    Assertions.assertEquals(OrderSide.BUY, flyweight.side());
+    Assertions.assertEquals(10, flyweight.mantissa(OrderFlyweight.ORDER_QTY));
+    Assertions.assertEquals(-1, flyweight.scale(OrderFlyweight.LEAVES_QTY), "null decimal");
+    Assertions.assertSame(symbol, flyweight.decode(order).getSymbol(),
+        "symbol should be taken from cache");
+  }
+
+  @Test
+  public void invalidEncodeTest() {
+    MessageCodec codec = new MessageCodec();
+    Order order = MockData.getLimitBuy();
+    Assertions.assertThrows(AppException.class,
+        () -> codec.encode(order, ByteBuffer.allocate(256), 0), "big-endian buffer");
+    Assertions.assertThrows(AppException.class,
+        () -> codec.encode(order, MessageCodec.allocate(64), 0), "buffer too small");
+    order.setSymbol("VERY_LONG_SYMBOL/USDT");
+    Assertions.assertThrows(AppException.class,
+        () -> codec.encode(order, MessageCodec.allocate(256), 0), "symbol too long");
+    ByteBuffer buffer = MessageCodec.allocate(256);
+    codec.encode(new SnapshotMessage(), buffer, 0);
+    Assertions.assertThrows(AppException.class,
+        () -> new OrderFlyweight().wrap(buffer, 0).decode(new Order()), "wrong templateId");
+  }
+
+  private ExecutionReport getTradeReport() {
+    ExecutionReport exec = new ExecutionReport();
+    exec.setSymbol(MockData.SYMBOL);
+    exec.setExecId(5);
+    exec.setOrderId(1);
+    exec.setCounterOrderId(2);
+    exec.setClOrdId("client_1");
+    exec.setIsTaker(true);
+    exec.setOrderQty(new BigDecimal("10"));
+    exec.setLeavesQty(new BigDecimal("9.50"));
+    exec.setPrice(new BigDecimal("100"));
+    exec.setLastQty(new BigDecimal("0.5"));
+    exec.setLastPx(new BigDecimal("100"));
+    exec.setStatus(OrderStatus.PARTIALLY_FILLED);
+    return exec;
+  }
+
+  private MarketData getMarketData() {
+    MarketData md = new MarketData();
+    md.setSymbol(MockData.SYMBOL);
+    md.setDepth(2);
+    md.setTransactTime(1_700_000_000_000L);
+    md.setSeqNum(6);
+    md.setBids(new BigDecimal[][]{{new BigDecimal("100"), new BigDecimal("1.5")},
+        {new BigDecimal("99"), new BigDecimal("2")}});
+    md.setAsks(new BigDecimal[][]{{new BigDecimal("101"), new BigDecimal("3")}});
+    return md;
+  }
+}
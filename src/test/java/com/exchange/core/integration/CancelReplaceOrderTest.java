@@ -0,0 +1,261 @@
+package com.exchange.core.integration;
+
+import com.exchange.core.MockData;
+import com.exchange.core.matching.engine.MatchingEngine;
+import com.exchange.core.matching.engine.PipelinedMatchingEngine;
+import com.exchange.core.matching.engine.SpotMatchingEngine;
+import com.exchange.core.model.enums.OrderBookType;
+import com.exchange.core.model.enums.OrderSide;
+import com.exchange.core.model.enums.OrderStatus;
+import com.exchange.core.model.msg.CancelOrder;
+import com.exchange.core.model.msg.ErrorMessage;
+import com.exchange.core.model.msg.ExecutionReport;
+import com.exchange.core.model.msg.InstrumentConfig;
+import com.exchange.core.model.msg.MassCancelOrder;
+import com.exchange.core.model.msg.Message;
+import com.exchange.core.model.msg.Order;
+import com.exchange.core.model.msg.ReplaceOrder;
+import com.exchange.core.model.msg.UserBalance;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.BiFunction;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+public class CancelReplaceOrderTest {
+
+  private static final int SELL_ACCOUNT = 2;
+
+  private static Stream<Arguments> getEngines() {
+    BiFunction<Queue<Message>, Queue<Message>, MatchingEngine> serial =
+        (inbound, outbound) -> new SpotMatchingEngine(inbound, outbound, OrderBookType.MAP, false);
+    BiFunction<Queue<Message>, Queue<Message>, MatchingEngine> pipelined =
+        PipelinedMatchingEngine::new;
+    return Stream.of(
+        Arguments.of(serial),
+        Arguments.of(pipelined)
+    );
+  }
+
+  @ParameterizedTest
+  @MethodSource("getEngines")
+  public void cancelOrderTest(BiFunction<Queue<Message>, Queue<Message>, MatchingEngine> engine) {
+    Queue<Message> inbound = new ConcurrentLinkedQueue<>();
+    Queue<Message> outbound = new ConcurrentLinkedQueue<>();
+    engine.apply(inbound, outbound).start();
+    addInstrumentAndBalances(inbound);
+    // balance 2000 is enough for 2 orders
+    inbound.add(MockData.getLimitBuy());
+    inbound.add(MockData.getLimitBuy());
+    inbound.add(MockData.getLimitBuy());
+    List<Message> messages = poll(outbound, 3);
+    Assertions.assertEquals("Balance insufficient", ((ErrorMessage) messages.get(2)).getError());
+
+    // unknown order and order of another account can't be cancelled
+    inbound.add(cancel(3, MockData.BUY_ACCOUNT));
+    inbound.add(cancel(1, SELL_ACCOUNT));
+    inbound.add(cancel(1, MockData.BUY_ACCOUNT));
+    messages = poll(outbound, 3);
+    Assertions.assertEquals("Order not found: orderId=3",
+        ((ErrorMessage) messages.get(0)).getError(), "error text mismatch");
+    Assertions.assertEquals("Order not found: orderId=1",
+        ((ErrorMessage) messages.get(1)).getError(), "error text mismatch");
+    ExecutionReport exec = (ExecutionReport) messages.get(2);
+    Assertions.assertEquals(1, exec.getOrderId(), "orderId mismatch");
+    Assertions.assertEquals(OrderStatus.CANCELLED, exec.getStatus(), "status should be cancelled");
+
+    // cancelled order unlocked its balance and can't be matched
+    inbound.add(MockData.getLimitBuy());
+    Order sell = MockData.getLimitBuy();
+    sell.setSide(OrderSide.SELL);
+    sell.setOrderQty(new BigDecimal("20"));
+    sell.setAccount(SELL_ACCOUNT);
+    inbound.add(sell);
+    messages = poll(outbound, 6);
+    Assertions.assertEquals(OrderStatus.NEW, ((ExecutionReport) messages.get(0)).getStatus());
+    Assertions.assertEquals(3, ((ExecutionReport) messages.get(0)).getOrderId());
+    Assertions.assertEquals(2, ((ExecutionReport) messages.get(3)).getOrderId(),
+        "first maker should be order 2");
+    Assertions.assertEquals(3, ((ExecutionReport) messages.get(5)).getOrderId(),
+        "second maker should be order 3");
+    Assertions.assertEquals(OrderStatus.FILLED, ((ExecutionReport) messages.get(4)).getStatus());
+  }
+
+  @Test
+  public void replaceQtyDownKeepsPriorityTest() {
+    Queue<Message> inbound = new ConcurrentLinkedQueue<>();
+    Queue<Message> outbound = new ConcurrentLinkedQueue<>();
+    new SpotMatchingEngine(inbound, outbound, OrderBookType.MAP, false).start();
+    addInstrumentAndBalances(inbound);
+    inbound.add(MockData.getLimitBuy());
+    inbound.add(MockData.getLimitBuy());
+    inbound.add(replace(1, "100", "4"));
+    List<Message> messages = poll(outbound, 3);
+    ExecutionReport exec = (ExecutionReport) messages.get(2);
+    Assertions.assertEquals(OrderStatus.REPLACED, exec.getStatus(), "status should be replaced");
+    Assertions.assertEquals(new BigDecimal("4"), exec.getLeavesQty(), "leavesQty mismatch");
+
+    Order sell = MockData.getLimitBuy();
+    sell.setSide(OrderSide.SELL);
+    sell.setOrderQty(new BigDecimal("5"));
+    sell.setAccount(SELL_ACCOUNT);
+    inbound.add(sell);
+    messages = poll(outbound, 5);
+    ExecutionReport maker = (ExecutionReport) messages.get(2);
+    Assertions.assertEquals(1, maker.getOrderId(), "amended order should keep priority");
+    Assertions.assertEquals(new BigDecimal("4"), maker.getLastQty(), "lastQty mismatch");
+    Assertions.assertEquals(OrderStatus.FILLED, maker.getStatus(), "status should be filled");
+    Assertions.assertEquals(2, ((ExecutionReport) messages.get(4)).getOrderId(), "maker mismatch");
+
+    // quantity released by amend can be used by new order: 2000 - 400 - 1000 locked before
+    Order buy = MockData.getLimitBuy();
+    buy.setOrderQty(new BigDecimal("6"));
+    inbound.add(buy);
+    messages = poll(outbound, 1);
+    Assertions.assertEquals(OrderStatus.NEW, ((ExecutionReport) messages.get(0)).getStatus());
+  }
+
+  @Test
+  public void replacePriceTest() {
+    Queue<Message> inbound = new ConcurrentLinkedQueue<>();
+    Queue<Message> outbound = new ConcurrentLinkedQueue<>();
+    new SpotMatchingEngine(inbound, outbound, OrderBookType.MAP, false).start();
+    addInstrumentAndBalances(inbound);
+    Order sell = MockData.getLimitBuy();
+    sell.setSide(OrderSide.SELL);
+    sell.setPrice(new BigDecimal("110"));
+    sell.setAccount(SELL_ACCOUNT);
+    inbound.add(sell);
+    inbound.add(MockData.getLimitBuy());
+    poll(outbound, 2);
+
+    // not enough balance to buy 20 @ 110
+    ReplaceOrder insufficient = replace(2, "110", "20");
+    inbound.add(insufficient);
+    // filled quantity can't be more than new orderQty
+    ReplaceOrder overfilled = replace(2, "110", "0");
+    inbound.add(overfilled);
+    List<Message> messages = poll(outbound, 2);
+    Assertions.assertEquals("Balance insufficient", ((ErrorMessage) messages.get(0)).getError());
+    Assertions.assertSame(insufficient, ((ErrorMessage) messages.get(0)).getPayload(),
+        "error should carry its own request");
+    Assertions.assertEquals("Replace quantity should be greater than filled",
+        ((ErrorMessage) messages.get(1)).getError(), "error text mismatch");
+    Assertions.assertSame(overfilled, ((ErrorMessage) messages.get(1)).getPayload(),
+        "error should carry its own request");
+
+    // new price crosses the spread, so order is matched as taker with the same orderId
+    inbound.add(replace(2, "110", "15"));
+    messages = poll(outbound, 3);
+    ExecutionReport replaced = (ExecutionReport) messages.get(0);
+    Assertions.assertEquals(OrderStatus.REPLACED, replaced.getStatus(), "status mismatch");
+    Assertions.assertEquals(2, replaced.getOrderId(), "orderId should be the same");
+    ExecutionReport taker = (ExecutionReport) messages.get(1);
+    Assertions.assertEquals(2, taker.getOrderId(), "orderId mismatch");
+    Assertions.assertEquals(new BigDecimal("110"), taker.getLastPx(), "lastPx mismatch");
+    Assertions.assertEquals(new BigDecimal("5"), taker.getLeavesQty(), "leavesQty mismatch");
+    Assertions.assertEquals(OrderStatus.FILLED, ((ExecutionReport) messages.get(2)).getStatus());
+
+    // rest of replaced order is in the book, cancel unlocks 5 * 110, so 2000 is available again
+    inbound.add(cancel(2, MockData.BUY_ACCOUNT));
+    Order buy = MockData.getLimitBuy();
+    buy.setOrderQty(new BigDecimal("9"));
+    inbound.add(buy);
+    messages = poll(outbound, 2);
+    Assertions.assertEquals(OrderStatus.CANCELLED, ((ExecutionReport) messages.get(0)).getStatus());
+    Assertions.assertEquals(new BigDecimal("5"), ((ExecutionReport) messages.get(0)).getLeavesQty());
+    Assertions.assertEquals(OrderStatus.NEW, ((ExecutionReport) messages.get(1)).getStatus());
+  }
+
+  @Test
+  public void massCancelTest() {
+    Queue<Message> inbound = new ConcurrentLinkedQueue<>();
+    Queue<Message> outbound = new ConcurrentLinkedQueue<>();
+    new SpotMatchingEngine(inbound, outbound, OrderBookType.MAP, false).start();
+    addInstrumentAndBalances(inbound);
+    for (int i = 0; i < 3; i++) {
+      Order buy = MockData.getLimitBuy();
+      buy.setOrderQty(new BigDecimal("5"));
+      inbound.add(buy);
+    }
+    // first order is filled, so it's removed from account orders
+    Order sell = MockData.getLimitBuy();
+    sell.setSide(OrderSide.SELL);
+    sell.setOrderQty(new BigDecimal("5"));
+    sell.setAccount(SELL_ACCOUNT);
+    inbound.add(sell);
+    poll(outbound, 6);
+
+    MassCancelOrder massCancel = new MassCancelOrder();
+    massCancel.setAccount(MockData.BUY_ACCOUNT);
+    massCancel.setSymbol(MockData.SYMBOL);
+    inbound.add(massCancel);
+    List<Message> messages = poll(outbound, 2);
+    List<Long> orderIds = new ArrayList<>();
+    for (Message msg : messages) {
+      ExecutionReport exec = (ExecutionReport) msg;
+      Assertions.assertEquals(OrderStatus.CANCELLED, exec.getStatus(), "status mismatch");
+      orderIds.add(exec.getOrderId());
+    }
+    Assertions.assertTrue(orderIds.containsAll(List.of(2L, 3L)), "orders 2,3 should be cancelled");
+
+    // nothing left to cancel, all 1500 are available again
+    inbound.add(massCancel);
+    Order buy = MockData.getLimitBuy();
+    buy.setOrderQty(new BigDecimal("15"));
+    inbound.add(buy);
+    messages = poll(outbound, 1);
+    Assertions.assertEquals(OrderStatus.NEW, ((ExecutionReport) messages.get(0)).getStatus());
+    Assertions.assertEquals(5, ((ExecutionReport) messages.get(0)).getOrderId());
+  }
+
+  private void addInstrumentAndBalances(Queue<Message> inbound) {
+    InstrumentConfig inst = MockData.getInstrument();
+    inbound.add(inst);
+    inbound.add(MockData.getUser(inst.getQuote()));
+    UserBalance seller = MockData.getUser(inst.getBase());
+    seller.setAccount(SELL_ACCOUNT);
+    inbound.add(seller);
+  }
+
+  private CancelOrder cancel(long orderId, int account) {
+    CancelOrder cancel = new CancelOrder();
+    cancel.setSymbol(MockData.SYMBOL);
+    cancel.setOrderId(orderId);
+    cancel.setAccount(account);
+    return cancel;
+  }
+
+  private ReplaceOrder replace(long orderId, String price, String orderQty) {
+    ReplaceOrder replace = new ReplaceOrder();
+    replace.setSymbol(MockData.SYMBOL);
+    replace.setOrderId(orderId);
+    replace.setAccount(MockData.BUY_ACCOUNT);
+    replace.setPrice(new BigDecimal(price));
+    replace.setOrderQty(new BigDecimal(orderQty));
+    return replace;
+  }
+
+  /**
+   * @return execution reports and errors, market data is skipped
+   */
+  private List<Message> poll(Queue<Message> outbound, int count) {
+    List<Message> messages = new ArrayList<>();
+    long deadline = System.currentTimeMillis() + 5_000;
+    while (messages.size() < count && System.currentTimeMillis() < deadline) {
+      Message msg = outbound.poll();
+      if (msg instanceof ExecutionReport || msg instanceof ErrorMessage) {
+        messages.add(msg);
+      }
+    }
+    Assertions.assertEquals(count, messages.size(), "messages count mismatch");
+    return messages;
+  }
+}
@@ -0,0 +1,170 @@
+package com.exchange.core.integration;
+
+import com.exchange.core.MockData;
+import com.exchange.core.TestUtils;
+import com.exchange.core.matching.engine.MatchingEngine;
+import com.exchange.core.matching.engine.MatchingEngineConfig;
+import com.exchange.core.matching.engine.SpotMatchingEngine;
+import com.exchange.core.matching.journal.FileJournal;
+import com.exchange.core.matching.snapshot.codec.BinarySnapshotCodec;
+import com.exchange.core.model.SnapshotItem;
+import com.exchange.core.model.enums.OrderSide;
+import com.exchange.core.model.enums.OrderStatus;
+import com.exchange.core.model.enums.SnapshotType;
+import com.exchange.core.model.msg.ExecutionReport;
+import com.exchange.core.model.msg.Message;
+import com.exchange.core.model.msg.Order;
+import com.exchange.core.model.msg.SnapshotMessage;
+import com.exchange.core.model.msg.UserBalance;
+import com.exchange.core.user.Account;
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class JournalRecoveryTest {
+
+  private final String SNAPSHOT_BASE_DIR = System.getProperty("user.dir") + "/snapshots";
+
+  @TempDir
+  Path journalDir;
+
+  /**
+   * Order is matched after snapshot, so it's lost without journal. Restarted engine loads snapshot,
+   * replays the sell from journal and the resting buy has only 6 left
+   */
+  @Test
+  public void replayAfterSnapshotTest() throws InterruptedException {
+    File baseDir = new File(SNAPSHOT_BASE_DIR);
+    TestUtils.deleteDirectory(baseDir);
+
+    Queue<Message> inbound = new ConcurrentLinkedQueue<>();
+    Queue<Message> outbound = new ConcurrentLinkedQueue<>();
+    newEngine(inbound, outbound).start();
+    inbound.add(MockData.getInstrument());
+    inbound.add(MockData.getUser(MockData.QUOTE));
+    UserBalance seller = MockData.getUser(MockData.BASE);
+    seller.setAccount(2);
+    inbound.add(seller);
+    inbound.add(MockData.getLimitBuy());
+    Assertions.assertEquals(OrderStatus.NEW, poll(outbound, 1).get(0).getStatus());
+    inbound.add(new SnapshotMessage());
+    Thread.sleep(200);
+    inbound.add(sell(new BigDecimal("4")));
+    List<ExecutionReport> reports = poll(outbound, 3);
+    Assertions.assertEquals(new BigDecimal("6"), reports.get(2).getLeavesQty(),
+        "buy should be partially filled");
+
+    // restart with the same snapshot and journal
+    Queue<Message> restartInbound = new ConcurrentLinkedQueue<>();
+    Queue<Message> restartOutbound = new ConcurrentLinkedQueue<>();
+    newEngine(restartInbound, restartOutbound).start();
+    Assertions.assertTrue(restartOutbound.isEmpty(), "replay shouldn't send messages");
+    restartInbound.add(sell(new BigDecimal("6")));
+    reports = poll(restartOutbound, 3);
+    Assertions.assertEquals(3, reports.get(0).getOrderId(),
+        "orderId should continue after replayed order");
+    ExecutionReport maker = reports.get(2);
+    Assertions.assertEquals(1, maker.getOrderId(), "maker should be the buy");
+    Assertions.assertEquals(new BigDecimal("6"), maker.getLastQty(), "lastQty mismatch");
+    Assertions.assertEquals(OrderStatus.FILLED, maker.getStatus(), "buy should be filled");
+
+    TestUtils.deleteDirectory(baseDir);
+  }
+
+  /**
+   * Snapshot is written by replica, it should have state at SnapshotMessage, even though sell was
+   * matched right after it
+   */
+  @Test
+  public void snapshotAtBarrierTest() throws InterruptedException, IOException {
+    File baseDir = new File(SNAPSHOT_BASE_DIR);
+    TestUtils.deleteDirectory(baseDir);
+
+    Queue<Message> inbound = new ConcurrentLinkedQueue<>();
+    Queue<Message> outbound = new ConcurrentLinkedQueue<>();
+    newEngine(inbound, outbound).start();
+    inbound.add(MockData.getInstrument());
+    inbound.add(MockData.getUser(MockData.QUOTE));
+    UserBalance seller = MockData.getUser(MockData.BASE);
+    seller.setAccount(2);
+    inbound.add(seller);
+    inbound.add(MockData.getLimitBuy());
+    inbound.add(new SnapshotMessage());
+    inbound.add(sell(new BigDecimal("4")));
+    List<ExecutionReport> reports = poll(outbound, 4);
+    Assertions.assertEquals(OrderStatus.PARTIALLY_FILLED, reports.get(3).getStatus());
+
+    File[] files = awaitSnapshot(baseDir);
+    Assertions.assertEquals(1, files.length, "1 snapshot should be written");
+    List<SnapshotItem> items = new BinarySnapshotCodec()
+        .decode(Files.readAllBytes(files[0].toPath()));
+    Map<SnapshotType, Object> data = new HashMap<>();
+    items.forEach(i -> data.put(i.getType(), i.getData()));
+    Assertions.assertEquals(5L, data.get(SnapshotType.JOURNAL), "seq of SnapshotMessage");
+    List<Order> orders = (List<Order>) data.get(SnapshotType.ORDER_BOOK);
+    Assertions.assertEquals(1, orders.size());
+    Assertions.assertEquals(new BigDecimal("10"), orders.get(0).getLeavesQty(),
+        "buy shouldn't be matched at barrier");
+    Account account = ((List<Account>) data.get(SnapshotType.ACCOUNT))
+        .stream()
+        .filter(a -> a.getAccountId() == 2)
+        .findFirst()
+        .orElseThrow();
+    Assertions.assertEquals(new BigDecimal("2000"), account.getPosition(MockData.BASE).getBalance(),
+        "seller balance should be before trade");
+
+    TestUtils.deleteDirectory(baseDir);
+  }
+
+  private File[] awaitSnapshot(File baseDir) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + 5_000;
+    File[] files = baseDir.listFiles();
+    while (files.length == 0 && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+      files = baseDir.listFiles();
+    }
+    // file can be still written
+    Thread.sleep(100);
+    return baseDir.listFiles();
+  }
+
+  private MatchingEngine newEngine(Queue<Message> inbound, Queue<Message> outbound) {
+    MatchingEngineConfig config = new MatchingEngineConfig();
+    config.setJournal(new FileJournal(journalDir, 1 << 20, 10_000));
+    return new SpotMatchingEngine(inbound, outbound, config);
+  }
+
+  private Order sell(BigDecimal qty) {
+    Order sell = MockData.getLimitBuy();
+    sell.setSide(OrderSide.SELL);
+    sell.setAccount(2);
+    sell.setOrderQty(qty);
+    return sell;
+  }
+
+  /**
+   * @return execution reports, market data is skipped
+   */
+  private List<ExecutionReport> poll(Queue<Message> outbound, int count) {
+    List<ExecutionReport> reports = new ArrayList<>();
+    long deadline = System.currentTimeMillis() + 5_000;
+    while (reports.size() < count && System.currentTimeMillis() < deadline) {
+      if (outbound.poll() instanceof ExecutionReport exec) {
+        reports.add(exec);
+      }
+    }
+    Assertions.assertEquals(count, reports.size(), "reports count mismatch");
+    return reports;
+  }
+}
@@ -4,6 +4,7 @@ import com.exchange.core.MockData;
 import com.exchange.core.TestUtils;
 import com.exchange.core.matching.engine.MatchingEngine;
 import com.exchange.core.matching.engine.SpotMatchingEngine;
+import com.exchange.core.matching.snapshot.codec.BinarySnapshotCodec;
 import com.exchange.core.model.SnapshotItem;
 import com.exchange.core.model.enums.OrderSide;
 import com.exchange.core.model.enums.OrderStatus;
@@ -17,19 +18,15 @@ import com.exchange.core.model.msg.SnapshotMessage;
 import com.exchange.core.model.msg.UserBalance;
 import com.exchange.core.user.Account;
 import com.exchange.core.user.Position;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.DeserializationFeature;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
-import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.math.BigDecimal;
+import java.nio.file.Files;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Queue;
@@ -73,13 +70,8 @@ public class MatchingEngineSnapshotTest {
     Assertions.assertEquals(1, files.length, "1 file should be inside directory");
     // manually read file and see if all data is there
     File snapshotFile = files[0];
-    BufferedReader reader = new BufferedReader(new FileReader(snapshotFile));
-    String content = reader.readLine();
-    reader.close();
-    final ObjectMapper mapper = new ObjectMapper()
-        .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
-    List<SnapshotItem> snapshotItems = mapper.readValue(content, new TypeReference<>() {
-    });
+    List<SnapshotItem> snapshotItems = new BinarySnapshotCodec()
+        .decode(Files.readAllBytes(snapshotFile.toPath()));
     Assertions.assertEquals(3, snapshotItems.size(), "should be 3 items in the snapshot");
     // validate instrument
     Object instrumentData = snapshotItems
@@ -89,9 +81,7 @@ public class MatchingEngineSnapshotTest {
         .findFirst()
         .orElse(null);
     Assertions.assertNotNull(instrumentData);
-    List<InstrumentConfig> instruments = mapper.readValue(mapper.writeValueAsString(instrumentData),
-        new TypeReference<>() {
-        });
+    List<InstrumentConfig> instruments = (List<InstrumentConfig>) instrumentData;
     Assertions.assertEquals(1, instruments.size(), "should be 1 instrument");
     Assertions.assertEquals(inst, instruments.get(0), "instrument mismatch");
     // validate account
@@ -102,9 +92,7 @@ public class MatchingEngineSnapshotTest {
         .findFirst()
         .orElse(null);
     Assertions.assertNotNull(accountData);
-    List<Account> accounts = mapper.readValue(mapper.writeValueAsString(accountData),
-        new TypeReference<>() {
-        });
+    List<Account> accounts = (List<Account>) accountData;
     Assertions.assertEquals(2, accounts.size(), "should be 2 account");
     Account account = accounts
         .stream()
@@ -126,9 +114,7 @@ public class MatchingEngineSnapshotTest {
         .findFirst()
         .orElse(null);
     Assertions.assertNotNull(orderBookData);
-    List<Order> orders = mapper.readValue(mapper.writeValueAsString(orderBookData),
-        new TypeReference<>() {
-        });
+    List<Order> orders = (List<Order>) orderBookData;
     Assertions.assertEquals(1, orders.size(), "should be 1 order");
     Order order = orders.get(0);
     Assertions.assertEquals(buy, order, "order mismatch");
@@ -204,4 +190,59 @@ public class MatchingEngineSnapshotTest {
     // cleanup
     TestUtils.deleteDirectory(baseDir);
   }
-}
\ No newline at end of file
+
+  @Test
+  public void deltaSnapshotTest() throws InterruptedException {
+    File baseDir = new File(SNAPSHOT_BASE_DIR);
+    TestUtils.deleteDirectory(baseDir);
+
+    Queue<Message> inbound = new LinkedList<>();
+    Queue<Message> outbound = new LinkedList<>();
+    MatchingEngine me = new SpotMatchingEngine(inbound, outbound);
+    me.start();
+    InstrumentConfig inst = MockData.getInstrument();
+    inbound.add(inst);
+    inbound.add(MockData.getUser(inst.getQuote()));
+    UserBalance ub2 = new UserBalance();
+    ub2.setAccount(2);
+    ub2.setAsset(inst.getBase());
+    ub2.setAmount(new BigDecimal("30"));
+    inbound.add(ub2);
+    inbound.add(MockData.getLimitBuy());
+    inbound.add(new SnapshotMessage());
+    // maker is partially filled after base snapshot
+    Order sell = MockData.getLimitBuy();
+    sell.setAccount(2);
+    sell.setOrderQty(new BigDecimal("4"));
+    sell.setSide(OrderSide.SELL);
+    inbound.add(sell);
+    inbound.add(new SnapshotMessage());
+    Thread.sleep(300);
+    File[] files = baseDir.listFiles();
+    Assertions.assertEquals(2, files.length, "base and delta should be inside directory");
+    Assertions.assertTrue(List.of(files).stream().anyMatch(f -> f.getName().endsWith("_delta_1")),
+        "delta snapshot expected");
+
+    // restored maker has leavesQty of delta, not of base
+    Queue<Message> restoredInbound = new LinkedList<>();
+    Queue<Message> restoredOutbound = new LinkedList<>();
+    new SpotMatchingEngine(restoredInbound, restoredOutbound).start();
+    Order sell2 = MockData.getLimitBuy();
+    sell2.setAccount(2);
+    sell2.setOrderQty(new BigDecimal("15"));
+    sell2.setSide(OrderSide.SELL);
+    restoredInbound.add(sell2);
+    Thread.sleep(200);
+    ExecutionReport makerFilled = restoredOutbound.stream()
+        .filter(m -> m instanceof ExecutionReport er && er.getOrderId() == 1)
+        .map(m -> (ExecutionReport) m)
+        .findFirst()
+        .orElse(null);
+    Assertions.assertNotNull(makerFilled, "maker should be filled");
+    Assertions.assertEquals(new BigDecimal("6"), makerFilled.getLastQty(), "lastQty mismatch");
+    Assertions.assertEquals(OrderStatus.FILLED, makerFilled.getStatus(), "status mismatch");
+
+    // cleanup
+    TestUtils.deleteDirectory(baseDir);
+  }
+}
@@ -1,30 +1,61 @@
 package com.exchange.core.integration;
 
 import com.exchange.core.MockData;
+import com.exchange.core.exceptions.AppException;
 import com.exchange.core.matching.engine.MatchingEngine;
+import com.exchange.core.matching.engine.MatchingEngineConfig;
+import com.exchange.core.matching.engine.PipelinedMatchingEngine;
 import com.exchange.core.matching.engine.SpotMatchingEngine;
+import com.exchange.core.matching.waitstrategy.SleepWaitStrategy;
+import com.exchange.core.model.enums.OrderBookType;
 import com.exchange.core.model.enums.OrderSide;
 import com.exchange.core.model.enums.OrderStatus;
+import com.exchange.core.model.enums.OrderType;
 import com.exchange.core.model.msg.ErrorMessage;
 import com.exchange.core.model.msg.ExecutionReport;
 import com.exchange.core.model.msg.InstrumentConfig;
 import com.exchange.core.model.msg.MarketData;
+import com.exchange.core.model.msg.MarketDataUpdate;
 import com.exchange.core.model.msg.Message;
 import com.exchange.core.model.msg.Order;
 import com.exchange.core.model.msg.UserBalance;
+import com.exchange.core.pool.ObjectPool;
+import com.exchange.core.pool.SpscObjectPool;
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.BiFunction;
+import java.util.stream.Stream;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
 
 public class MatchingEngineTest {
 
-  @Test
-  public void invalidSymbolTest() {
+  /**
+   * Pipelined engine should behave exactly as serial one
+   */
+  private static Stream<Arguments> getEngines() {
+    BiFunction<Queue<Message>, Queue<Message>, MatchingEngine> serial = SpotMatchingEngine::new;
+    BiFunction<Queue<Message>, Queue<Message>, MatchingEngine> pipelined =
+        PipelinedMatchingEngine::new;
+    return Stream.of(
+        Arguments.of(serial),
+        Arguments.of(pipelined)
+    );
+  }
+
+  @ParameterizedTest
+  @MethodSource("getEngines")
+  public void invalidSymbolTest(BiFunction<Queue<Message>, Queue<Message>, MatchingEngine> engine) {
     Queue<Message> inbound = new LinkedList<>();
     Queue<Message> outbound = new LinkedList<>();
-    MatchingEngine me = new SpotMatchingEngine(inbound, outbound);
+    MatchingEngine me = engine.apply(inbound, outbound);
     Assertions.assertNull(outbound.poll());
     me.start();
     Assertions.assertNull(outbound.poll());
@@ -52,11 +83,12 @@ public class MatchingEngineTest {
         "error text mismatch");
   }
 
-  @Test
-  public void preOrderCheckFailTest() {
+  @ParameterizedTest
+  @MethodSource("getEngines")
+  public void preOrderCheckFailTest(BiFunction<Queue<Message>, Queue<Message>, MatchingEngine> engine) {
     Queue<Message> inbound = new LinkedList<>();
     Queue<Message> outbound = new LinkedList<>();
-    MatchingEngine me = new SpotMatchingEngine(inbound, outbound);
+    MatchingEngine me = engine.apply(inbound, outbound);
     me.start();
 
     InstrumentConfig inst = MockData.getInstrument();
@@ -83,11 +115,12 @@ public class MatchingEngineTest {
         "error text mismatch");
   }
 
-  @Test
-  public void placeAndMatchOrderTest() {
+  @ParameterizedTest
+  @MethodSource("getEngines")
+  public void placeAndMatchOrderTest(BiFunction<Queue<Message>, Queue<Message>, MatchingEngine> engine) {
     Queue<Message> inbound = new LinkedList<>();
     Queue<Message> outbound = new LinkedList<>();
-    MatchingEngine me = new SpotMatchingEngine(inbound, outbound);
+    MatchingEngine me = engine.apply(inbound, outbound);
     me.start();
     // add instrument config
     InstrumentConfig inst = MockData.getInstrument();
@@ -178,6 +211,215 @@ public class MatchingEngineTest {
     Assertions.assertArrayEquals(asks, md2.getAsks(), "asks mismatch");
   }
 
+  /**
+   * All orders are in inbound before engine starts, so they are processed as one batch: every order
+   * gets its execution reports, but market data is sent once after the batch with final levels
+   */
+  @Test
+  public void batchMarketDataConflationTest() {
+    Queue<Message> inbound = new LinkedList<>();
+    Queue<Message> outbound = new LinkedList<>();
+    MatchingEngineConfig config = new MatchingEngineConfig();
+    config.setMarketDataSnapshotInterval(2);
+    config.setBatchSize(64);
+    MatchingEngine me = new SpotMatchingEngine(inbound, outbound, config);
+    InstrumentConfig inst = MockData.getInstrument();
+    inbound.add(inst);
+    UserBalance buyUser = MockData.getUser(inst.getQuote());
+    buyUser.setAmount(new BigDecimal("3000"));
+    inbound.add(buyUser);
+    UserBalance sellUser = MockData.getUser(inst.getBase());
+    sellUser.setAccount(2);
+    inbound.add(sellUser);
+    inbound.add(MockData.getLimitBuy());
+    Order buy = MockData.getLimitBuy();
+    buy.setPrice(new BigDecimal("101"));
+    inbound.add(buy);
+    Order sell = MockData.getLimitBuy();
+    sell.setSide(OrderSide.SELL);
+    sell.setOrderQty(new BigDecimal("15"));
+    sell.setAccount(2);
+    inbound.add(sell);
+    me.start();
+    sleep();
+
+    List<Message> messages = new ArrayList<>(outbound);
+    // 2 new buys, new sell and 2 trades with 2 reports each
+    Assertions.assertEquals(8, messages.size(), "messages count mismatch");
+    for (int i = 0; i < messages.size() - 1; i++) {
+      Assertions.assertInstanceOf(ExecutionReport.class, messages.get(i));
+    }
+    Assertions.assertInstanceOf(MarketDataUpdate.class, messages.get(messages.size() - 1));
+    MarketDataUpdate update = (MarketDataUpdate) messages.get(messages.size() - 1);
+    Assertions.assertEquals(1, update.getSeqNum(), "seqNum mismatch");
+    BigDecimal[][] bids = new BigDecimal[][]{
+        {new BigDecimal("100"), new BigDecimal("5")},
+        {new BigDecimal("101"), BigDecimal.ZERO}
+    };
+    Assertions.assertArrayEquals(bids, update.getBids(), "bids mismatch");
+    Assertions.assertEquals(0, update.getAsks().length, "should be 0 asks");
+  }
+
+  @Test
+  public void configValidationTest() {
+    Queue<Message> inbound = new LinkedList<>();
+    Queue<Message> outbound = new LinkedList<>();
+    MatchingEngineConfig config = new MatchingEngineConfig();
+    config.setBatchSize(0);
+    AppException batch = Assertions.assertThrows(AppException.class,
+        () -> new SpotMatchingEngine(inbound, outbound, config));
+    Assertions.assertEquals("Batch size should be positive: batchSize=0", batch.getMessage());
+    config.setBatchSize(1);
+    config.setOrderBookType(OrderBookType.OFF_HEAP);
+    Assertions.assertThrows(AppException.class,
+        () -> new SpotMatchingEngine(inbound, outbound, config));
+    config.setFixedPoint(true);
+    Assertions.assertNotNull(new SpotMatchingEngine(inbound, outbound, config));
+  }
+
+  @ParameterizedTest
+  @MethodSource({"getFixedPointEngines", "getOffHeapEngines"})
+  public void priceScaleValidationTest(
+      BiFunction<Queue<Message>, Queue<Message>, MatchingEngine> engine) {
+    Queue<Message> inbound = new LinkedList<>();
+    Queue<Message> outbound = new ConcurrentLinkedQueue<>();
+    MatchingEngine me = engine.apply(inbound, outbound);
+    InstrumentConfig inst = MockData.getInstrument();
+    inst.setPriceScale(4);
+    inbound.add(inst);
+    inbound.add(MockData.getLimitBuy());
+    me.start();
+    List<ErrorMessage> errors = new ArrayList<>();
+    long deadline = System.currentTimeMillis() + 5_000;
+    while (errors.size() < 2 && System.currentTimeMillis() < deadline) {
+      if (outbound.poll() instanceof ErrorMessage error) {
+        errors.add(error);
+      }
+    }
+    Assertions.assertEquals(2, errors.size(), "both messages should be rejected");
+    Assertions.assertEquals("Price ladder is too big: maxPrice=1000000, priceScale=4",
+        errors.get(0).getError(), "instrument should be rejected");
+    Assertions.assertEquals("OrderBook not found for symbol=" + inst.getSymbol(),
+        errors.get(1).getError(), "rejected instrument shouldn't be added");
+  }
+
+  private static Stream<Arguments> getFixedPointEngines() {
+    BiFunction<Queue<Message>, Queue<Message>, MatchingEngine> serial =
+        (in, out) -> new SpotMatchingEngine(in, out, OrderBookType.ARRAY, false, true);
+    BiFunction<Queue<Message>, Queue<Message>, MatchingEngine> pipelined =
+        (in, out) -> new PipelinedMatchingEngine(in, out, OrderBookType.ARRAY, true, 1,
+            SleepWaitStrategy::new, 1 << 16);
+    return Stream.of(
+        Arguments.of(serial),
+        Arguments.of(pipelined)
+    );
+  }
+
+  /**
+   * Tick based books should take tick size from instrument price scale
+   */
+  @ParameterizedTest
+  @MethodSource("getTickEngines")
+  public void decimalPriceTest(BiFunction<Queue<Message>, Queue<Message>, MatchingEngine> engine) {
+    Queue<Message> inbound = new LinkedList<>();
+    Queue<Message> outbound = new ConcurrentLinkedQueue<>();
+    MatchingEngine me = engine.apply(inbound, outbound);
+    InstrumentConfig inst = MockData.getInstrument();
+    inst.setPriceScale(2);
+    inbound.add(inst);
+    UserBalance buyUser = MockData.getUser(inst.getQuote());
+    buyUser.setAmount(new BigDecimal("10000"));
+    inbound.add(buyUser);
+    final int sellUserId = 2;
+    UserBalance sellUser = MockData.getUser(inst.getBase());
+    sellUser.setAccount(sellUserId);
+    inbound.add(sellUser);
+    Order buy = MockData.getLimitBuy();
+    buy.setPrice(new BigDecimal("30000.25"));
+    buy.setOrderQty(new BigDecimal("0.1"));
+    inbound.add(buy);
+    Order sell = MockData.getLimitBuy();
+    sell.setSide(OrderSide.SELL);
+    sell.setPrice(new BigDecimal("30000.25"));
+    sell.setOrderQty(new BigDecimal("0.1"));
+    sell.setAccount(sellUserId);
+    inbound.add(sell);
+    me.start();
+    List<ExecutionReport> fills = new ArrayList<>();
+    long deadline = System.currentTimeMillis() + 5_000;
+    while (fills.size() < 2 && System.currentTimeMillis() < deadline) {
+      Message msg = outbound.poll();
+      Assertions.assertFalse(msg instanceof ErrorMessage, () -> "unexpected error: " + msg);
+      if (msg instanceof ExecutionReport exec && exec.getStatus() == OrderStatus.FILLED) {
+        fills.add(exec);
+      }
+    }
+    Assertions.assertEquals(2, fills.size(), "both orders should be filled");
+    for (ExecutionReport fill : fills) {
+      Assertions.assertEquals(0, new BigDecimal("30000.25").compareTo(fill.getLastPx()),
+          "last price mismatch");
+    }
+  }
+
+  private static Stream<Arguments> getTickEngines() {
+    return Stream.of(OrderBookType.IPQ, OrderBookType.BITMAP, OrderBookType.SLIDING_WINDOW)
+        .map(type -> Arguments.of((BiFunction<Queue<Message>, Queue<Message>, MatchingEngine>)
+            (in, out) -> new SpotMatchingEngine(in, out, type, false)));
+  }
+
+  /**
+   * Off-heap book copies resting order into its slot, so pooled order should be released
+   */
+  @ParameterizedTest
+  @MethodSource("getOffHeapEngines")
+  public void offHeapOrderPoolTest(
+      BiFunction<Queue<Message>, Queue<Message>, MatchingEngine> engine) {
+    Queue<Message> inbound = new LinkedList<>();
+    Queue<Message> outbound = new ConcurrentLinkedQueue<>();
+    MatchingEngine me = engine.apply(inbound, outbound);
+    InstrumentConfig inst = MockData.getInstrument();
+    inbound.add(inst);
+    inbound.add(MockData.getUser(inst.getQuote()));
+    ObjectPool<Order> pool = new SpscObjectPool<>(Order::new, 16);
+    List<Order> orders = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      orders.add(pool.acquire());
+    }
+    for (int i = 0; i < orders.size(); i++) {
+      Order order = orders.get(i);
+      order.setSymbol(inst.getSymbol());
+      order.setType(OrderType.LIMIT);
+      order.setSide(OrderSide.BUY);
+      order.setAccount(MockData.BUY_ACCOUNT);
+      order.setPrice(new BigDecimal(100 - i));
+      order.setOrderQty(BigDecimal.ONE);
+      inbound.add(order);
+    }
+    Assertions.assertEquals(0, pool.size(), "all orders should be acquired");
+    me.start();
+    // pipelined engine runs 3 stages, so wait for the last report instead of fixed time
+    long deadline = System.currentTimeMillis() + 5_000;
+    long news = 0;
+    while ((news < 10 || pool.size() < 10) && System.currentTimeMillis() < deadline) {
+      sleep();
+      news = outbound.stream().filter(m -> m instanceof ExecutionReport exec
+          && exec.getStatus() == OrderStatus.NEW).count();
+    }
+    Assertions.assertEquals(10, news, "all orders should rest in order book");
+    Assertions.assertEquals(10, pool.size(), "resting orders should be released into the pool");
+  }
+
+  private static Stream<Arguments> getOffHeapEngines() {
+    BiFunction<Queue<Message>, Queue<Message>, MatchingEngine> serial =
+        (in, out) -> new SpotMatchingEngine(in, out, OrderBookType.OFF_HEAP, false, true);
+    BiFunction<Queue<Message>, Queue<Message>, MatchingEngine> pipelined =
+        (in, out) -> new PipelinedMatchingEngine(in, out, OrderBookType.OFF_HEAP, true, 1,
+            SleepWaitStrategy::new, 1 << 16);
+    return Stream.of(
+        Arguments.of(serial),
+        Arguments.of(pipelined)
+    );
+  }
 
   private void sleep() {
     try {
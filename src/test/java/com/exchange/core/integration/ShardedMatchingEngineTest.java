@@ -0,0 +1,159 @@
+package com.exchange.core.integration;
+
+import com.exchange.core.MockData;
+import com.exchange.core.exceptions.AppException;
+import com.exchange.core.matching.engine.MatchingEngine;
+import com.exchange.core.matching.engine.ShardedMatchingEngine;
+import com.exchange.core.model.enums.OrderSide;
+import com.exchange.core.model.enums.OrderStatus;
+import com.exchange.core.model.msg.ErrorMessage;
+import com.exchange.core.model.msg.ExecutionReport;
+import com.exchange.core.model.msg.InstrumentConfig;
+import com.exchange.core.model.msg.Message;
+import com.exchange.core.model.msg.Order;
+import com.exchange.core.model.msg.SnapshotMessage;
+import com.exchange.core.model.msg.UserBalance;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class ShardedMatchingEngineTest {
+
+  private static final String[] SYMBOLS = {"BTC/USDT", "ETH/USDT", "SOL/USDT"};
+
+  @Test
+  public void invalidShardCountTest() {
+    Assertions.assertThrows(AppException.class,
+        () -> new ShardedMatchingEngine(new ConcurrentLinkedQueue<>(),
+            new ConcurrentLinkedQueue<>(), 0));
+  }
+
+  @Test
+  public void routerErrorTest() {
+    Queue<Message> inbound = new ConcurrentLinkedQueue<>();
+    Queue<Message> outbound = new ConcurrentLinkedQueue<>();
+    MatchingEngine me = new ShardedMatchingEngine(inbound, outbound, 2);
+    me.start();
+
+    Order buy = MockData.getLimitBuy();
+    buy.setSymbol("ABC");
+    inbound.add(buy);
+    inbound.add(new SnapshotMessage());
+    List<Message> messages = poll(outbound, 2);
+    Assertions.assertEquals("OrderBook not found for symbol=ABC",
+        ((ErrorMessage) messages.get(0)).getError(), "error text mismatch");
+    Assertions.assertEquals("Snapshot is not supported by sharded engine",
+        ((ErrorMessage) messages.get(1)).getError(), "error text mismatch");
+  }
+
+  @Test
+  public void ordersOnDifferentShardsTest() {
+    Queue<Message> inbound = new ConcurrentLinkedQueue<>();
+    Queue<Message> outbound = new ConcurrentLinkedQueue<>();
+    MatchingEngine me = new ShardedMatchingEngine(inbound, outbound, 2);
+    me.start();
+    addInstruments(inbound);
+    // enough for 2 orders of 10 * 100
+    UserBalance user = MockData.getUser(MockData.QUOTE);
+    inbound.add(user);
+
+    for (int i = 0; i < SYMBOLS.length; i++) {
+      Order buy = MockData.getLimitBuy();
+      buy.setSymbol(SYMBOLS[i]);
+      inbound.add(buy);
+      // wait for every order, so the last one is rejected
+      Message msg = poll(outbound, 1).get(0);
+      if (i < 2) {
+        Assertions.assertEquals(OrderStatus.NEW, ((ExecutionReport) msg).getStatus());
+        Assertions.assertEquals(i + 1, ((ExecutionReport) msg).getOrderId(), "orderId mismatch");
+      } else {
+        Assertions.assertEquals("Balance insufficient", ((ErrorMessage) msg).getError());
+      }
+    }
+    // sell on first symbol is matched by its shard
+    UserBalance seller = MockData.getUser(MockData.BASE);
+    seller.setAccount(2);
+    inbound.add(seller);
+    Order sell = MockData.getLimitBuy();
+    sell.setSymbol(SYMBOLS[0]);
+    sell.setSide(OrderSide.SELL);
+    sell.setAccount(2);
+    inbound.add(sell);
+    List<Message> messages = poll(outbound, 3);
+    Assertions.assertEquals(OrderStatus.NEW, ((ExecutionReport) messages.get(0)).getStatus());
+    Assertions.assertEquals(OrderStatus.FILLED, ((ExecutionReport) messages.get(1)).getStatus());
+    Assertions.assertEquals(OrderStatus.FILLED, ((ExecutionReport) messages.get(2)).getStatus());
+    Assertions.assertEquals(1, ((ExecutionReport) messages.get(2)).getOrderId(),
+        "maker should be first order");
+  }
+
+  /**
+   * Many orders of one account on all shards at the same time: balance is enough only for some of
+   * them, the rest should be rejected, and orderIds should be unique across shards
+   */
+  @Test
+  public void balanceRaceTest() {
+    final int orders = 300;
+    final int affordable = 100;
+    Queue<Message> inbound = new ConcurrentLinkedQueue<>();
+    Queue<Message> outbound = new ConcurrentLinkedQueue<>();
+    MatchingEngine me = new ShardedMatchingEngine(inbound, outbound, SYMBOLS.length);
+    me.start();
+    addInstruments(inbound);
+    UserBalance user = MockData.getUser(MockData.QUOTE);
+    // every order locks 10 * 100
+    user.setAmount(new BigDecimal(affordable * 1000));
+    inbound.add(user);
+    for (int i = 0; i < orders; i++) {
+      Order buy = MockData.getLimitBuy();
+      buy.setSymbol(SYMBOLS[i % SYMBOLS.length]);
+      inbound.add(buy);
+    }
+
+    Set<Long> orderIds = new HashSet<>();
+    int rejected = 0;
+    long deadline = System.currentTimeMillis() + 10_000;
+    while (orderIds.size() + rejected < orders && System.currentTimeMillis() < deadline) {
+      Message msg = outbound.poll();
+      if (msg instanceof ExecutionReport exec && exec.getStatus() == OrderStatus.NEW) {
+        Assertions.assertTrue(orderIds.add(exec.getOrderId()), "orderId should be unique");
+      } else if (msg instanceof ErrorMessage) {
+        rejected++;
+      }
+    }
+    Assertions.assertEquals(affordable, orderIds.size(), "accepted orders mismatch");
+    Assertions.assertEquals(orders - affordable, rejected, "rejected orders mismatch");
+  }
+
+  private void addInstruments(Queue<Message> inbound) {
+    for (String symbol : SYMBOLS) {
+      InstrumentConfig inst = new InstrumentConfig();
+      inst.setSymbol(symbol);
+      inst.setBase(symbol.substring(0, symbol.indexOf('/')));
+      inst.setQuote(MockData.QUOTE);
+      inbound.add(inst);
+    }
+  }
+
+  /**
+   * @return execution reports and errors, market data is skipped
+   */
+  private List<Message> poll(Queue<Message> outbound, int count) {
+    List<Message> messages = new ArrayList<>();
+    long deadline = System.currentTimeMillis() + 5_000;
+    while (messages.size() < count && System.currentTimeMillis() < deadline) {
+      Message msg = outbound.poll();
+      if (msg instanceof ExecutionReport || msg instanceof ErrorMessage) {
+        messages.add(msg);
+      }
+    }
+    Assertions.assertEquals(count, messages.size(), "messages count mismatch");
+    return messages;
+  }
+}
@@ -0,0 +1,68 @@
+package com.exchange.core.matching.engine;
+
+import com.exchange.core.MockData;
+import com.exchange.core.model.msg.Order;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class AccountOrderIndexTest {
+
+  private static final String ETH = "ETH/USDT";
+
+  @Test
+  public void removeAllBySymbolTest() {
+    AccountOrderIndex index = new AccountOrderIndex();
+    Order btc1 = order(1, MockData.SYMBOL, 1);
+    Order eth = order(2, ETH, 1);
+    Order btc2 = order(3, MockData.SYMBOL, 1);
+    Order other = order(4, MockData.SYMBOL, 2);
+    index.add(btc1);
+    index.add(eth);
+    index.add(btc2);
+    index.add(other);
+
+    List<Order> removed = new ArrayList<>();
+    index.removeAll(1, MockData.SYMBOL, removed);
+    Assertions.assertEquals(List.of(btc2, btc1), removed, "only BTC orders of account 1");
+    removed.clear();
+    index.removeAll(1, null, removed);
+    Assertions.assertEquals(List.of(eth), removed, "ETH order should be left");
+    removed.clear();
+    index.removeAll(1, null, removed);
+    Assertions.assertTrue(removed.isEmpty(), "all orders of account 1 removed");
+    index.removeAll(2, null, removed);
+    Assertions.assertEquals(List.of(other), removed, "order of account 2 mismatch");
+  }
+
+  @Test
+  public void removeTest() {
+    AccountOrderIndex index = new AccountOrderIndex();
+    Order first = order(1, MockData.SYMBOL, 1);
+    Order middle = order(2, ETH, 1);
+    Order last = order(3, MockData.SYMBOL, 1);
+    index.add(first);
+    index.add(middle);
+    index.add(last);
+    index.remove(middle);
+    index.remove(last);
+    // not linked order is ignored
+    index.remove(last);
+    index.remove(order(5, MockData.SYMBOL, 1));
+
+    List<Order> removed = new ArrayList<>();
+    index.removeAll(1, null, removed);
+    Assertions.assertEquals(List.of(first), removed, "only first order should be left");
+    Assertions.assertNull(first.accountNext, "links should be cleared");
+    Assertions.assertNull(first.symbolNext, "links should be cleared");
+  }
+
+  private Order order(long orderId, String symbol, int account) {
+    Order order = MockData.getLimitBuy();
+    order.setOrderId(orderId);
+    order.setSymbol(symbol);
+    order.setAccount(account);
+    return order;
+  }
+}
@@ -0,0 +1,108 @@
+package com.exchange.core.matching.engine;
+
+import com.exchange.core.MockData;
+import com.exchange.core.TestUtils;
+import com.exchange.core.matching.journal.FileJournal;
+import com.exchange.core.matching.snapshot.Snapshotable;
+import com.exchange.core.model.enums.OrderSide;
+import com.exchange.core.model.msg.ExecutionReport;
+import com.exchange.core.model.msg.Message;
+import com.exchange.core.model.msg.Order;
+import com.exchange.core.model.msg.SnapshotMessage;
+import com.exchange.core.model.msg.UserBalance;
+import java.io.File;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class SnapshotReplicaTest {
+
+  private final String SNAPSHOT_BASE_DIR = System.getProperty("user.dir") + "/snapshots";
+
+  @TempDir
+  Path journalDir;
+
+  /**
+   * Main engine loads snapshot on restart, but replica writes deltas, so only replica books
+   * collect changed levels
+   */
+  @Test
+  public void mainEngineDoesNotTrackChangesTest() throws InterruptedException {
+    File baseDir = new File(SNAPSHOT_BASE_DIR);
+    TestUtils.deleteDirectory(baseDir);
+
+    Queue<Message> inbound = new ConcurrentLinkedQueue<>();
+    Queue<Message> outbound = new ConcurrentLinkedQueue<>();
+    newEngine(inbound, outbound).start();
+    inbound.add(MockData.getInstrument());
+    inbound.add(MockData.getUser(MockData.QUOTE));
+    UserBalance seller = MockData.getUser(MockData.BASE);
+    seller.setAccount(2);
+    inbound.add(seller);
+    inbound.add(MockData.getLimitBuy());
+    inbound.add(new SnapshotMessage());
+    poll(outbound, 1);
+    awaitSnapshot(baseDir, 1);
+
+    // restart from written snapshot
+    Queue<Message> restartInbound = new ConcurrentLinkedQueue<>();
+    Queue<Message> restartOutbound = new ConcurrentLinkedQueue<>();
+    SpotMatchingEngine restarted = newEngine(restartInbound, restartOutbound);
+    restarted.start();
+    restartInbound.add(sell(new BigDecimal("4")));
+    poll(restartOutbound, 3);
+    List<Object> changed = new ArrayList<>();
+    ((Snapshotable) restarted.getOrderBook(MockData.SYMBOL)).forEachChangedRecord(changed::add);
+    Assertions.assertEquals(List.of(), changed, "main engine shouldn't collect changed levels");
+
+    // replica still writes delta with changed level
+    restartInbound.add(new SnapshotMessage());
+    File[] files = awaitSnapshot(baseDir, 2);
+    Assertions.assertEquals(2, files.length, "delta should be written");
+
+    TestUtils.deleteDirectory(baseDir);
+  }
+
+  private File[] awaitSnapshot(File baseDir, int count) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + 5_000;
+    File[] files = baseDir.listFiles();
+    while (files.length < count && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+      files = baseDir.listFiles();
+    }
+    // file can be still written
+    Thread.sleep(100);
+    return baseDir.listFiles();
+  }
+
+  private SpotMatchingEngine newEngine(Queue<Message> inbound, Queue<Message> outbound) {
+    MatchingEngineConfig config = new MatchingEngineConfig();
+    config.setJournal(new FileJournal(journalDir, 1 << 20, 10_000));
+    return new SpotMatchingEngine(inbound, outbound, config);
+  }
+
+  private Order sell(BigDecimal qty) {
+    Order sell = MockData.getLimitBuy();
+    sell.setSide(OrderSide.SELL);
+    sell.setAccount(2);
+    sell.setOrderQty(qty);
+    return sell;
+  }
+
+  private void poll(Queue<Message> outbound, int count) {
+    int reports = 0;
+    long deadline = System.currentTimeMillis() + 5_000;
+    while (reports < count && System.currentTimeMillis() < deadline) {
+      if (outbound.poll() instanceof ExecutionReport) {
+        reports++;
+      }
+    }
+    Assertions.assertEquals(count, reports, "reports count mismatch");
+  }
+}
@@ -0,0 +1,120 @@
+package com.exchange.core.matching.engine;
+
+import com.exchange.core.MockData;
+import com.exchange.core.model.enums.OrderBookType;
+import com.exchange.core.model.enums.OrderSide;
+import com.exchange.core.model.enums.OrderType;
+import com.exchange.core.model.msg.ExecutionReport;
+import com.exchange.core.model.msg.InstrumentConfig;
+import com.exchange.core.model.msg.Message;
+import com.exchange.core.model.msg.Order;
+import com.exchange.core.model.msg.UserBalance;
+import com.exchange.core.pool.ObjectPool;
+import com.exchange.core.pool.SimpleObjectPool;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.LinkedList;
+import java.util.Queue;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+/**
+ * Check that SpotMatchingEngine in fixed-point mode (pre-checks, matching, settlement, execution
+ * reports) doesn't allocate in steady state when orders are pooled and execution reports are
+ * released by consumer
+ * Messages are passed to engine on test thread without matching loop, so limits check, journal and
+ * market data are not part of this path
+ */
+public class ZeroAllocationMatchingTest {
+
+  private static final int SELL_ACCOUNT = 2;
+
+  private final Queue<Message> outbound = new ArrayDeque<>(16);
+  private final ObjectPool<Order> orderPool = new SimpleObjectPool<>(Order::new, 16);
+  private SpotMatchingEngine engine;
+  private BigDecimal price;
+  private BigDecimal qty;
+
+  /**
+   * Balance should fit into scaled long of amount scale (priceScale + quantityScale) for every
+   * iteration, otherwise position falls back to BigDecimal
+   */
+  private static Stream<Arguments> getScales() {
+    return Stream.of(
+        Arguments.of(0, 0, "10", "1"),
+        Arguments.of(2, 3, "30000.25", "0.001"),
+        Arguments.of(3, 8, "100.125", "0.00125")
+    );
+  }
+
+  @ParameterizedTest
+  @MethodSource("getScales")
+  public void matchWithoutAllocationTest(int priceScale, int quantityScale, String price,
+      String qty) {
+    com.sun.management.ThreadMXBean bean =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    Assertions.assertTrue(bean.isThreadAllocatedMemorySupported(),
+        "thread allocation counter not supported");
+    bean.setThreadAllocatedMemoryEnabled(true);
+    this.price = new BigDecimal(price);
+    this.qty = new BigDecimal(qty);
+    init(priceScale, quantityScale);
+
+    // warm up: fill pools and let JIT compile matching path
+    run(200_000);
+    final long threadId = Thread.currentThread().getId();
+    long before = bean.getThreadAllocatedBytes(threadId);
+    run(100_000);
+    long allocated = bean.getThreadAllocatedBytes(threadId) - before;
+    // small margin for allocation done by measurement itself
+    Assertions.assertTrue(allocated < 10_000, "matching path allocates: bytes=" + allocated);
+  }
+
+  private void init(int priceScale, int quantityScale) {
+    MatchingEngineConfig config = new MatchingEngineConfig();
+    config.setOrderBookType(OrderBookType.ARRAY);
+    config.setFixedPoint(true);
+    config.setPooledExecutionReports(true);
+    engine = new SpotMatchingEngine(new LinkedList<>(), outbound, config);
+    InstrumentConfig inst = MockData.getInstrument();
+    inst.setPriceScale(priceScale);
+    inst.setQuantityScale(quantityScale);
+    engine.process(inst);
+    engine.process(balance(MockData.BUY_ACCOUNT, inst.getQuote()));
+    engine.process(balance(SELL_ACCOUNT, inst.getBase()));
+  }
+
+  private UserBalance balance(int account, String asset) {
+    UserBalance ub = new UserBalance();
+    ub.setAccount(account);
+    ub.setAsset(asset);
+    ub.setAmount(new BigDecimal("10000000"));
+    return ub;
+  }
+
+  private void run(int iterations) {
+    for (int i = 0; i < iterations; i++) {
+      engine.process(newOrder(SELL_ACCOUNT, OrderSide.SELL));
+      engine.process(newOrder(MockData.BUY_ACCOUNT, OrderSide.BUY));
+      Message msg;
+      while ((msg = outbound.poll()) != null) {
+        ((ExecutionReport) msg).release();
+      }
+    }
+  }
+
+  private Order newOrder(int account, OrderSide side) {
+    Order order = orderPool.acquire();
+    order.setSymbol(MockData.SYMBOL);
+    order.setAccount(account);
+    order.setSide(side);
+    order.setType(OrderType.LIMIT);
+    order.setPrice(price);
+    order.setOrderQty(qty);
+    return order;
+  }
+}
@@ -0,0 +1,207 @@
+package com.exchange.core.matching.journal;
+
+import com.exchange.core.MockData;
+import com.exchange.core.codec.Flyweight;
+import com.exchange.core.exceptions.AppException;
+import com.exchange.core.model.SnapshotItem;
+import com.exchange.core.model.msg.Message;
+import com.exchange.core.model.msg.Order;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class FileJournalTest {
+
+  private static final int SEGMENT_SIZE = 1 << 17;
+
+  @TempDir
+  Path dir;
+
+  @Test
+  public void appendReplayTest() throws IOException {
+    final int count = 2_000;
+    FileJournal journal = new FileJournal(dir, SEGMENT_SIZE, 1_000);
+    Assertions.assertThrows(AppException.class, () -> journal.append(order(1)),
+        "append before replay");
+    Assertions.assertEquals(0, journal.replay(msg -> Assertions.fail("journal should be empty")));
+    for (int i = 1; i <= count; i++) {
+      Assertions.assertEquals(i, journal.append(order(i)), "seq mismatch");
+    }
+    Order tooLong = order(0);
+    tooLong.setSymbol("VERY_LONG_SYMBOL/USDT");
+    Assertions.assertThrows(AppException.class, () -> journal.append(tooLong));
+    Assertions.assertEquals(count, journal.getLastSeq());
+    journal.commit();
+    Assertions.assertEquals(count, journal.getCommittedSeq(), "all messages should be flushed");
+    try (Stream<Path> files = Files.list(dir)) {
+      Assertions.assertTrue(files.count() > 1, "journal should roll into several segments");
+    }
+
+    // reopen, like after restart
+    FileJournal reopened = new FileJournal(dir, SEGMENT_SIZE, 1_000);
+    List<Message> messages = new ArrayList<>();
+    Assertions.assertEquals(count, reopened.replay(messages::add));
+    for (int i = 0; i < count; i++) {
+      Assertions.assertEquals(order(i + 1), messages.get(i), "message mismatch");
+    }
+    Assertions.assertEquals(count + 1, reopened.append(order(count + 1)),
+        "seq should continue after replay");
+  }
+
+  @Test
+  public void replayAfterSnapshotTest() {
+    FileJournal journal = new FileJournal(dir, SEGMENT_SIZE, 1_000);
+    journal.replay(msg -> {
+    });
+    for (int i = 1; i <= 10; i++) {
+      journal.append(order(i));
+    }
+    SnapshotItem item = journal.create();
+    Assertions.assertEquals(10L, item.getData(), "snapshot should keep last seq");
+    journal.append(order(11));
+    journal.append(order(12));
+
+    FileJournal reopened = new FileJournal(dir, SEGMENT_SIZE, 1_000);
+    reopened.load(item);
+    List<Message> messages = new ArrayList<>();
+    Assertions.assertEquals(2, reopened.replay(messages::add));
+    Assertions.assertEquals(List.of(order(11), order(12)), messages);
+  }
+
+  @Test
+  public void journalBehindSnapshotTest() {
+    FileJournal journal = new FileJournal(dir, SEGMENT_SIZE, 1_000);
+    journal.replay(msg -> {
+    });
+    journal.append(order(1));
+    SnapshotItem item = new SnapshotItem();
+    item.setData(5L);
+
+    FileJournal reopened = new FileJournal(dir, SEGMENT_SIZE, 1_000);
+    reopened.load(item);
+    Assertions.assertThrows(AppException.class, () -> reopened.replay(msg -> {
+    }));
+    // empty journal continues numbering after snapshot
+    FileJournal empty = new FileJournal(dir.resolve("empty"), SEGMENT_SIZE, 1_000);
+    empty.load(item);
+    empty.replay(msg -> {
+    });
+    Assertions.assertEquals(6, empty.append(order(6)));
+  }
+
+  @Test
+  public void tailerTest() {
+    FileJournal journal = new FileJournal(dir, SEGMENT_SIZE, 1_000);
+    journal.replay(msg -> {
+    });
+    for (int i = 1; i <= 5; i++) {
+      journal.append(order(i));
+    }
+    SnapshotItem item = journal.create();
+
+    // restart: tailer follows replayed and new messages across segments
+    FileJournal reopened = new FileJournal(dir, SEGMENT_SIZE, 1_000);
+    JournalTailer tailer = reopened.tailer();
+    Assertions.assertThrows(AppException.class, reopened::tailer, "only one tailer");
+    item.setData(3L);
+    tailer.load(item);
+    Assertions.assertNull(tailer.poll(), "tailer should wait for replay");
+    reopened.replay(msg -> {
+    });
+    Assertions.assertEquals(order(4), tailer.poll());
+    Assertions.assertEquals(order(5), tailer.poll());
+    Assertions.assertNull(tailer.poll());
+    final int count = 2_000;
+    for (int i = 6; i <= count; i++) {
+      reopened.append(order(i));
+    }
+    for (int i = 6; i <= count; i++) {
+      Assertions.assertEquals(order(i), tailer.poll(), "message mismatch");
+    }
+    Assertions.assertNull(tailer.poll());
+    Assertions.assertEquals((long) count, tailer.create().getData(),
+        "snapshot should keep seq of the last polled message");
+  }
+
+  @Test
+  public void truncateTest() throws IOException {
+    final int count = 2_000;
+    final int snapshotSeq = 1_500;
+    FileJournal journal = new FileJournal(dir, SEGMENT_SIZE, 1_000);
+    JournalTailer tailer = journal.tailer();
+    journal.replay(msg -> {
+    });
+    for (int i = 1; i <= count; i++) {
+      journal.append(order(i));
+    }
+    for (int i = 1; i <= snapshotSeq; i++) {
+      tailer.poll();
+    }
+    SnapshotItem item = tailer.create();
+    List<Path> before = segments();
+    tailer.truncate();
+    List<Path> after = segments();
+    Assertions.assertTrue(after.size() < before.size(), "covered segments should be deleted");
+    Assertions.assertEquals(before.get(before.size() - 1), after.get(after.size() - 1),
+        "current segment should be kept");
+    Assertions.assertEquals(order(snapshotSeq + 1), tailer.poll(),
+        "tailer should read after truncate");
+
+    FileJournal reopened = new FileJournal(dir, SEGMENT_SIZE, 1_000);
+    reopened.load(item);
+    List<Message> messages = new ArrayList<>();
+    Assertions.assertEquals(count - snapshotSeq, reopened.replay(messages::add));
+    Assertions.assertEquals(order(snapshotSeq + 1), messages.get(0));
+    Assertions.assertEquals(count + 1, reopened.append(order(count + 1)));
+
+    // older snapshot needs deleted messages
+    FileJournal behind = new FileJournal(dir, SEGMENT_SIZE, 1_000);
+    Assertions.assertThrows(AppException.class, () -> behind.replay(msg -> {
+    }));
+  }
+
+  @Test
+  public void corruptRecordTest() throws IOException {
+    FileJournal journal = new FileJournal(dir, SEGMENT_SIZE, 1_000);
+    journal.replay(msg -> {
+    });
+    journal.append(order(1));
+    journal.append(order(2));
+    journal.commit();
+    Path file = segments().get(0);
+    byte[] data = Files.readAllBytes(file);
+    ByteBuffer buffer = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+    // record header is 16 bytes, records are aligned to 8 bytes
+    int second = (16 + buffer.getInt(0) + 7) & -8;
+    buffer.putShort(second + 16 + Flyweight.TEMPLATE_ID_OFFSET, (short) 99);
+    Files.write(file, data);
+
+    FileJournal reopened = new FileJournal(dir, SEGMENT_SIZE, 1_000);
+    List<Message> messages = new ArrayList<>();
+    AppException ex = Assertions.assertThrows(AppException.class,
+        () -> reopened.replay(messages::add));
+    Assertions.assertTrue(ex.getMessage().startsWith("Corrupt journal record"), ex.getMessage());
+    Assertions.assertEquals(List.of(order(1)), messages);
+  }
+
+  private List<Path> segments() throws IOException {
+    try (Stream<Path> files = Files.list(dir)) {
+      return files.sorted().toList();
+    }
+  }
+
+  private static Order order(long orderId) {
+    Order order = MockData.getLimitBuy();
+    order.setOrderId(orderId);
+    order.setClOrdId("order_" + orderId);
+    return order;
+  }
+}
@@ -0,0 +1,98 @@
+package com.exchange.core.matching.orderbook.bitset;
+
+import com.exchange.core.exceptions.AppException;
+import java.util.BitSet;
+import java.util.Random;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class HierarchicalBitSetTest {
+
+  @Test
+  public void setClearTest() {
+    HierarchicalBitSet bits = new HierarchicalBitSet(1_000_000);
+    Assertions.assertTrue(bits.isEmpty(), "new bitset should be empty");
+    Assertions.assertEquals(-1, bits.first(), "no first bit in empty bitset");
+    Assertions.assertEquals(-1, bits.last(), "no last bit in empty bitset");
+
+    bits.set(500);
+    bits.set(999_999);
+    bits.set(0);
+    Assertions.assertFalse(bits.isEmpty());
+    Assertions.assertTrue(bits.get(500));
+    Assertions.assertFalse(bits.get(501));
+    Assertions.assertEquals(0, bits.first());
+    Assertions.assertEquals(999_999, bits.last());
+    Assertions.assertEquals(500, bits.nextSetBit(1));
+    Assertions.assertEquals(999_999, bits.nextSetBit(501));
+    Assertions.assertEquals(500, bits.prevSetBit(999_998));
+    Assertions.assertEquals(0, bits.prevSetBit(499));
+
+    bits.clear(0);
+    bits.clear(999_999);
+    Assertions.assertEquals(500, bits.first());
+    Assertions.assertEquals(500, bits.last());
+    bits.clear(500);
+    Assertions.assertTrue(bits.isEmpty(), "bitset should be empty after clearing all bits");
+    Assertions.assertEquals(-1, bits.nextSetBit(0));
+  }
+
+  @Test
+  public void outOfRangeTest() {
+    HierarchicalBitSet bits = new HierarchicalBitSet(100);
+    AppException ex = Assertions.assertThrows(AppException.class, () -> bits.set(100),
+        "Exception should be thrown");
+    Assertions.assertEquals("Index out of range: index=100, capacity=100", ex.getMessage());
+    Assertions.assertThrows(AppException.class, () -> bits.get(-1),
+        "Exception should be thrown");
+    Assertions.assertEquals(-1, bits.nextSetBit(100), "search after capacity should find nothing");
+    bits.set(99);
+    Assertions.assertEquals(99, bits.prevSetBit(1000), "search should start from last bit");
+  }
+
+  @Test
+  public void largeCapacityTest() {
+    // pages are allocated only around set bits, so max capacity doesn't allocate 256MB of words
+    HierarchicalBitSet bits = new HierarchicalBitSet(Integer.MAX_VALUE);
+    Assertions.assertEquals(-1, bits.last(), "no last bit in empty bitset");
+    bits.set(Integer.MAX_VALUE - 1);
+    bits.set(1_000_000_000);
+    Assertions.assertEquals(1_000_000_000, bits.first());
+    Assertions.assertEquals(Integer.MAX_VALUE - 1, bits.last());
+    Assertions.assertEquals(Integer.MAX_VALUE - 1, bits.nextSetBit(1_000_000_001));
+    Assertions.assertEquals(-1, bits.prevSetBit(999_999_999));
+    bits.clear(5);
+    bits.clear(1_000_000_000);
+    Assertions.assertEquals(Integer.MAX_VALUE - 1, bits.first());
+    bits.clear(Integer.MAX_VALUE - 1);
+    Assertions.assertTrue(bits.isEmpty(), "bitset should be empty after clearing all bits");
+  }
+
+  /**
+   * Compare next/prev lookup with java.util.BitSet on random data
+   */
+  @Test
+  public void randomCompareTest() {
+    final int capacity = 300_000;
+    HierarchicalBitSet bits = new HierarchicalBitSet(capacity);
+    BitSet expected = new BitSet(capacity);
+    Random random = new Random(7);
+    for (int i = 0; i < 100_000; i++) {
+      // keep bitset sparse, so search crosses empty words on upper levels
+      int index = random.nextInt(capacity);
+      if (random.nextInt(3) == 0) {
+        bits.set(index);
+        expected.set(index);
+      } else {
+        bits.clear(index);
+        expected.clear(index);
+      }
+      int from = random.nextInt(capacity);
+      Assertions.assertEquals(expected.nextSetBit(from), bits.nextSetBit(from),
+          "nextSetBit mismatch: from=" + from);
+      Assertions.assertEquals(expected.previousSetBit(from), bits.prevSetBit(from),
+          "prevSetBit mismatch: from=" + from);
+    }
+    Assertions.assertEquals(expected.isEmpty(), bits.isEmpty());
+  }
+}
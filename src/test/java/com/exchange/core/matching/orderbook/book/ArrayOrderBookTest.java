@@ -4,13 +4,16 @@ import com.exchange.core.MockData;
 import com.exchange.core.exceptions.AppException;
 import com.exchange.core.matching.orderbook.OrderBook;
 import com.exchange.core.model.enums.OrderSide;
+import com.exchange.core.model.Trade;
 import com.exchange.core.model.enums.OrderType;
+import com.exchange.core.model.msg.MarketData;
 import com.exchange.core.model.msg.Order;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.math.BigDecimal;
+import java.util.List;
 
 /**
  * Specific tests for only ArrayOrderBook
@@ -112,4 +115,111 @@ public class ArrayOrderBookTest {
             Assertions.assertTrue(ob.add(buy), "order should be added successfully");
         }
     }
+
+    @Test
+    public void fixedPointLimitMatchTest(){
+        // price with 2 digits, quantity with 3 digits
+        OrderBook fixed = new ArrayOrderBook(MockData.SYMBOL, true, 2, 3);
+        Order sell = fixedPointOrder(OrderSide.SELL, 10050, 2_500);
+        fixed.add(sell);
+        Order sell2 = fixedPointOrder(OrderSide.SELL, 10100, 1_000);
+        fixed.add(sell2);
+
+        Order buy = fixedPointOrder(OrderSide.BUY, 10100, 3_000);
+        List<Trade> trades = fixed.match(buy);
+        Assertions.assertEquals(2, trades.size(), "should be 2 trades");
+        Trade trade1 = trades.get(0);
+        Assertions.assertEquals(2_500, trade1.getScaledTradeQty(), "tradeQty mismatch");
+        Assertions.assertEquals(10050, trade1.getScaledTradePrice(), "tradePrice mismatch");
+        Assertions.assertEquals(25_125_000, trade1.getScaledTradeAmount(), "tradeAmount mismatch");
+        Assertions.assertNull(trade1.getTradeQty(),
+            "BigDecimal shouldn't be used in fixed-point mode");
+        Trade trade2 = trades.get(1);
+        Assertions.assertEquals(500, trade2.getScaledTradeQty(), "tradeQty mismatch");
+        Assertions.assertEquals(10100, trade2.getScaledTradePrice(), "tradePrice mismatch");
+        Assertions.assertEquals(0, buy.getScaledLeavesQty(), "taker should be filled");
+        Assertions.assertEquals(500, sell2.getScaledLeavesQty(), "maker leavesQty mismatch");
+        Assertions.assertNull(fixed.getOrder(sell.getOrderId()), "filled maker should be removed");
+    }
+
+    @Test
+    public void fixedPointMarketDataTest(){
+        OrderBook fixed = new ArrayOrderBook(MockData.SYMBOL, true, 2, 3);
+        fixed.add(fixedPointOrder(OrderSide.SELL, 10100, 250));
+        fixed.add(fixedPointOrder(OrderSide.SELL, 10100, 250));
+        fixed.add(fixedPointOrder(OrderSide.BUY, 9950, 1_000));
+
+        MarketData md = fixed.buildMarketData();
+        Assertions.assertEquals(1, md.getBids().length, "should be 1 bid");
+        Assertions.assertEquals(0, new BigDecimal("99.5").compareTo(md.getBids()[0][0]),
+            "price mismatch");
+        Assertions.assertEquals(1, md.getAsks().length, "should be 1 ask");
+        Assertions.assertEquals(0, new BigDecimal("101").compareTo(md.getAsks()[0][0]),
+            "price mismatch");
+        Assertions.assertEquals(0, new BigDecimal("0.5").compareTo(md.getAsks()[0][1]),
+            "quantity mismatch");
+    }
+
+    @Test
+    public void fixedPointMarketBuyTest(){
+        OrderBook fixed = new ArrayOrderBook(MockData.SYMBOL, true, 0, 8);
+        Order sell = fixedPointOrder(OrderSide.SELL, 219, 100_000_000);
+        fixed.add(sell);
+
+        // market buy for 111 USDT, amount scale is 0 + 8
+        Order buy = fixedPointOrder(OrderSide.BUY, 0, 11_100_000_000L);
+        buy.setType(OrderType.MARKET);
+        List<Trade> trades = fixed.match(buy);
+        Assertions.assertEquals(1, trades.size(), "should be 1 trade");
+        Trade trade = trades.get(0);
+        // 111/219 rounded down with 8 digits, same as BigDecimal path
+        Assertions.assertEquals(50_684_931, trade.getScaledTradeQty(), "tradeQty mismatch");
+        Assertions.assertEquals(11_100_000_000L, trade.getScaledTradeAmount(),
+            "tradeAmount mismatch");
+        Assertions.assertEquals(0, buy.getScaledLeavesQty(), "taker should be filled");
+        Assertions.assertEquals(100_000_000 - 50_684_931, sell.getScaledLeavesQty(),
+            "maker leavesQty mismatch");
+    }
+
+    @Test
+    public void fixedPointPriceScaleTest(){
+        // 30000.25 with scale 2 is tick 3_000_025, above default 1_000_000 ticks of scale 0
+        OrderBook fixed = new ArrayOrderBook(MockData.SYMBOL, true, 2, 3);
+        Order sell = fixedPointOrder(OrderSide.SELL, 3_000_025, 1_000);
+        Assertions.assertTrue(fixed.add(sell), "order should be added successfully");
+        Order buy = fixedPointOrder(OrderSide.BUY, 3_000_025, 1_000);
+        List<Trade> trades = fixed.match(buy);
+        Assertions.assertEquals(1, trades.size(), "should be 1 trade");
+        Assertions.assertEquals(3_000_025, trades.get(0).getScaledTradePrice(),
+            "tradePrice mismatch");
+
+        // 1_000_000 is max price, so scaled 100_000_000 is the last tick
+        Assertions.assertTrue(fixed.add(fixedPointOrder(OrderSide.SELL, 100_000_000, 1_000)));
+        AppException ex = Assertions.assertThrows(AppException.class,
+            () -> fixed.add(fixedPointOrder(OrderSide.SELL, 100_000_001, 1_000)));
+        Assertions.assertTrue(ex.getMessage().startsWith("Price out of range"), ex.getMessage());
+        Assertions.assertThrows(AppException.class,
+            () -> fixed.add(fixedPointOrder(OrderSide.BUY, -1, 1_000)));
+        Order outOfRange = MockData.getLimitBuy();
+        outOfRange.setPrice(new BigDecimal("1000001"));
+        Assertions.assertThrows(AppException.class, () -> ob.add(outOfRange));
+
+        // max price with scale 4 is 10^10 ticks, which don't fit into int
+        Assertions.assertNotNull(new ArrayOrderBook(MockData.SYMBOL, true, 3, 3));
+        AppException scale = Assertions.assertThrows(AppException.class,
+            () -> new ArrayOrderBook(MockData.SYMBOL, true, 4, 3));
+        Assertions.assertEquals("Price ladder is too big: maxPrice=1000000, priceScale=4",
+            scale.getMessage(), "error text mismatch");
+    }
+
+    private long fixedPointOrderId;
+
+    private Order fixedPointOrder(OrderSide side, long scaledPrice, long scaledQty){
+        Order order = MockData.getLimitBuy();
+        order.setOrderId(++fixedPointOrderId);
+        order.setSide(side);
+        order.setScaledPrice(scaledPrice);
+        order.setScaledLeavesQty(scaledQty);
+        return order;
+    }
 }
@@ -0,0 +1,84 @@
+package com.exchange.core.matching.orderbook.book;
+
+import com.exchange.core.MockData;
+import com.exchange.core.exceptions.AppException;
+import com.exchange.core.matching.orderbook.OrderBook;
+import com.exchange.core.model.Trade;
+import com.exchange.core.model.enums.OrderSide;
+import com.exchange.core.model.msg.MarketData;
+import com.exchange.core.model.msg.Order;
+import java.math.BigDecimal;
+import java.util.List;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Specific tests for only BitmapOrderBook
+ */
+public class BitmapOrderBookTest {
+
+  @Test
+  public void tickSizeTest() {
+    OrderBook ob = new BitmapOrderBook(MockData.SYMBOL, new BigDecimal("0.5"), 1000);
+    Order buy = getOrder(1, OrderSide.BUY, "99.5");
+    Assertions.assertTrue(ob.add(buy), "should add successfully");
+    Order sell = getOrder(2, OrderSide.SELL, "100.0");
+    Assertions.assertTrue(ob.add(sell), "should add successfully");
+
+    MarketData md = ob.buildMarketData();
+    Assertions.assertEquals(new BigDecimal("99.5"), md.getBids()[0][0], "bid price mismatch");
+    Assertions.assertEquals(new BigDecimal("100.0"), md.getAsks()[0][0], "ask price mismatch");
+
+    Order invalid = getOrder(3, OrderSide.BUY, "99.3");
+    AppException ex = Assertions.assertThrows(AppException.class, () -> ob.add(invalid),
+        "Exception should be thrown");
+    Assertions.assertEquals("Price should be multiple of tickSize: price=99.3, tickSize=0.5",
+        ex.getMessage());
+
+    Order tooHigh = getOrder(4, OrderSide.BUY, "500");
+    ex = Assertions.assertThrows(AppException.class, () -> ob.add(tooHigh),
+        "Exception should be thrown");
+    Assertions.assertEquals("Price out of range: price=500, maxTicks=1000", ex.getMessage());
+  }
+
+  @Test
+  public void sweepLevelsTest() {
+    OrderBook ob = new BitmapOrderBook(MockData.SYMBOL);
+    // levels far from each other, so lookup crosses empty leaf words
+    ob.add(getOrder(1, OrderSide.SELL, "100"));
+    ob.add(getOrder(2, OrderSide.SELL, "5000"));
+    ob.add(getOrder(3, OrderSide.SELL, "300000"));
+    ob.add(getOrder(4, OrderSide.BUY, "50"));
+
+    Order taker = getOrder(5, OrderSide.BUY, "300000");
+    taker.setLeavesQty(new BigDecimal("2.5"));
+    List<Trade> trades = ob.match(taker);
+    Assertions.assertEquals(3, trades.size(), "should match 3 levels");
+    Assertions.assertEquals(new BigDecimal("100"), trades.get(0).getTradePrice());
+    Assertions.assertEquals(new BigDecimal("5000"), trades.get(1).getTradePrice());
+    Assertions.assertEquals(new BigDecimal("300000"), trades.get(2).getTradePrice());
+
+    MarketData md = ob.buildMarketData();
+    Assertions.assertEquals(1, md.getAsks().length, "one ask should remain");
+    Assertions.assertEquals(new BigDecimal("0.5"), md.getAsks()[0][1], "ask qty mismatch");
+    Assertions.assertNull(ob.getOrder(1), "filled order should be removed");
+
+    // emptied level is reused by order from another side
+    ob.add(getOrder(6, OrderSide.BUY, "100"));
+    md = ob.buildMarketData();
+    Assertions.assertEquals(new BigDecimal("100"), md.getBids()[0][0], "best bid mismatch");
+    Assertions.assertEquals(new BigDecimal("50"), md.getBids()[1][0], "second bid mismatch");
+    Assertions.assertTrue(ob.remove(6), "should remove successfully");
+    Assertions.assertEquals(new BigDecimal("50"), ob.buildMarketData().getBids()[0][0],
+        "best bid mismatch");
+  }
+
+  private Order getOrder(long orderId, OrderSide side, String price) {
+    Order order = MockData.getLimitBuy();
+    order.setOrderId(orderId);
+    order.setSide(side);
+    order.setPrice(new BigDecimal(price));
+    order.setLeavesQty(BigDecimal.ONE);
+    return order;
+  }
+}
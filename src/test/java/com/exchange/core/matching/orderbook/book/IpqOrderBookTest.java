@@ -0,0 +1,84 @@
+package com.exchange.core.matching.orderbook.book;
+
+import com.exchange.core.MockData;
+import com.exchange.core.exceptions.AppException;
+import com.exchange.core.matching.orderbook.OrderBook;
+import com.exchange.core.model.enums.OrderSide;
+import com.exchange.core.model.msg.MarketData;
+import com.exchange.core.model.msg.Order;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+/**
+ * Specific tests for only IpqOrderBook
+ */
+public class IpqOrderBookTest {
+
+    @Test
+    public void tickSizeTest(){
+        OrderBook ob = new IpqOrderBook(MockData.SYMBOL, new BigDecimal("0.5"), 1000, 16, 16);
+        Order buy = MockData.getLimitBuy();
+        buy.setOrderId(1);
+        buy.setLeavesQty(new BigDecimal("1"));
+        buy.setPrice(new BigDecimal("99.5"));
+        Assertions.assertTrue(ob.add(buy), "should add successfully");
+        Order sell = MockData.getLimitBuy();
+        sell.setOrderId(2);
+        sell.setSide(OrderSide.SELL);
+        sell.setLeavesQty(new BigDecimal("1"));
+        sell.setPrice(new BigDecimal("100.0"));
+        Assertions.assertTrue(ob.add(sell), "should add successfully");
+
+        MarketData md = ob.buildMarketData();
+        Assertions.assertEquals(new BigDecimal("99.5"), md.getBids()[0][0], "bid price mismatch");
+        Assertions.assertEquals(new BigDecimal("100.0"), md.getAsks()[0][0], "ask price mismatch");
+
+        Order invalid = MockData.getLimitBuy();
+        invalid.setOrderId(3);
+        invalid.setPrice(new BigDecimal("99.3"));
+        AppException ex = Assertions.assertThrows(AppException.class, () -> ob.add(invalid),
+                "Exception should be thrown");
+        Assertions.assertEquals("Price should be multiple of tickSize: price=99.3, tickSize=0.5",
+                ex.getMessage());
+    }
+
+    @Test
+    public void removeLevelTest(){
+        OrderBook ob = new IpqOrderBook(MockData.SYMBOL);
+        for (int i = 1; i <= 5; i++) {
+            Order buy = MockData.getLimitBuy();
+            buy.setOrderId(i);
+            buy.setLeavesQty(new BigDecimal("1"));
+            buy.setPrice(new BigDecimal(100 + i));
+            ob.add(buy);
+        }
+        Assertions.assertTrue(ob.remove(3), "should remove successfully");
+        Assertions.assertNull(ob.getOrder(3), "order should be removed");
+        BigDecimal[][] bids = ob.buildMarketData().getBids();
+        Assertions.assertEquals(4, bids.length, "should be 4 bids");
+        int[] prices = {105, 104, 102, 101};
+        for (int i = 0; i < prices.length; i++) {
+            Assertions.assertEquals(new BigDecimal(prices[i]), bids[i][0], "bid price mismatch");
+        }
+    }
+
+    @Test
+    public void priceRangeTest(){
+        OrderBook ob = new IpqOrderBook(MockData.SYMBOL, BigDecimal.ONE, 1000, 16, 16);
+        Order buy = MockData.getLimitBuy();
+        buy.setOrderId(1);
+        buy.setPrice(new BigDecimal("1001"));
+        AppException ex = Assertions.assertThrows(AppException.class, () -> ob.add(buy),
+                "Exception should be thrown");
+        Assertions.assertEquals("Price out of range: price=1001, maxTicks=1000", ex.getMessage());
+        // rejected order isn't indexed, so it can't be found or removed
+        Assertions.assertNull(ob.getOrder(1), "order shouldn't be added");
+        Assertions.assertFalse(ob.remove(1), "order shouldn't be removed");
+
+        buy.setPrice(new BigDecimal("1000"));
+        Assertions.assertTrue(ob.add(buy), "max price should be added");
+        Assertions.assertTrue(ob.remove(1), "should remove successfully");
+    }
+}
@@ -0,0 +1,209 @@
+package com.exchange.core.matching.orderbook.book;
+
+import com.exchange.core.MockData;
+import com.exchange.core.exceptions.AppException;
+import com.exchange.core.matching.orderbook.OrderBook;
+import com.exchange.core.model.Trade;
+import com.exchange.core.model.enums.OrderSide;
+import com.exchange.core.model.enums.OrderType;
+import com.exchange.core.model.msg.MarketData;
+import com.exchange.core.model.msg.MarketDataUpdate;
+import com.exchange.core.model.msg.Order;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class OffHeapOrderBookTest {
+
+  private long orderId;
+
+  @Test
+  public void limitMatchTest() {
+    // price with 2 digits, quantity with 3 digits
+    OrderBook ob = new OffHeapOrderBook(MockData.SYMBOL, 2, 3);
+    Order sell = order(OrderSide.SELL, 10050, 2_500);
+    ob.add(sell);
+    Order sell2 = order(OrderSide.SELL, 10100, 1_000);
+    ob.add(sell2);
+
+    Order buy = order(OrderSide.BUY, 10100, 3_000);
+    List<Trade> trades = ob.match(buy);
+    Assertions.assertEquals(2, trades.size(), "should be 2 trades");
+    Trade trade1 = trades.get(0);
+    Assertions.assertEquals(2_500, trade1.getScaledTradeQty(), "tradeQty mismatch");
+    Assertions.assertEquals(10050, trade1.getScaledTradePrice(), "tradePrice mismatch");
+    Assertions.assertEquals(25_125_000, trade1.getScaledTradeAmount(), "tradeAmount mismatch");
+    Trade trade2 = trades.get(1);
+    Assertions.assertEquals(500, trade2.getScaledTradeQty(), "tradeQty mismatch");
+    Assertions.assertEquals(10100, trade2.getScaledTradePrice(), "tradePrice mismatch");
+    Assertions.assertEquals(0, buy.getScaledLeavesQty(), "taker should be filled");
+    // maker is a view reused for every fill, so it holds the last filled maker
+    Assertions.assertEquals(sell2.getOrderId(), trade2.getMaker().getOrderId(), "maker mismatch");
+    Assertions.assertEquals(500, trade2.getMaker().getScaledLeavesQty(),
+        "maker leavesQty mismatch");
+    Assertions.assertNull(ob.getOrder(sell.getOrderId()), "filled maker should be removed");
+    Assertions.assertEquals(500, ob.getOrder(sell2.getOrderId()).getScaledLeavesQty(),
+        "resting leavesQty mismatch");
+  }
+
+  @Test
+  public void marketBuyTest() {
+    OrderBook ob = new OffHeapOrderBook(MockData.SYMBOL, 0, 8);
+    ob.add(order(OrderSide.SELL, 219, 100_000_000));
+
+    // market buy for 111 USDT, amount scale is 0 + 8
+    Order buy = order(OrderSide.BUY, 0, 11_100_000_000L);
+    buy.setType(OrderType.MARKET);
+    List<Trade> trades = ob.match(buy);
+    Assertions.assertEquals(1, trades.size(), "should be 1 trade");
+    Trade trade = trades.get(0);
+    Assertions.assertEquals(50_684_931, trade.getScaledTradeQty(), "tradeQty mismatch");
+    Assertions.assertEquals(11_100_000_000L, trade.getScaledTradeAmount(), "tradeAmount mismatch");
+    Assertions.assertEquals(0, buy.getScaledLeavesQty(), "taker should be filled");
+    Assertions.assertEquals(100_000_000 - 50_684_931, trade.getMaker().getScaledLeavesQty(),
+        "maker leavesQty mismatch");
+  }
+
+  @Test
+  public void marketDataTest() {
+    OrderBook ob = new OffHeapOrderBook(MockData.SYMBOL, 2, 3);
+    ob.add(order(OrderSide.SELL, 10100, 250));
+    ob.add(order(OrderSide.SELL, 10100, 250));
+    ob.add(order(OrderSide.BUY, 9950, 1_000));
+
+    MarketData md = ob.buildMarketData();
+    Assertions.assertArrayEquals(new BigDecimal[][]{{new BigDecimal("99.50"),
+        new BigDecimal("1.000")}}, md.getBids(), "bids mismatch");
+    Assertions.assertArrayEquals(new BigDecimal[][]{{new BigDecimal("101.00"),
+        new BigDecimal("0.500")}}, md.getAsks(), "asks mismatch");
+
+    MarketDataUpdate update = ob.buildMarketDataUpdate();
+    Assertions.assertEquals(1, update.getSeqNum(), "seqNum mismatch");
+    Assertions.assertArrayEquals(md.getBids(), update.getBids(), "bids mismatch");
+    Assertions.assertArrayEquals(md.getAsks(), update.getAsks(), "asks mismatch");
+
+    Order buy = order(OrderSide.BUY, 10100, 500);
+    ob.match(buy);
+    update = ob.buildMarketDataUpdate();
+    Assertions.assertArrayEquals(new BigDecimal[][]{{new BigDecimal("101.00"),
+        new BigDecimal("0.000")}}, update.getAsks(), "removed level should have 0 quantity");
+    Assertions.assertEquals(0, ob.buildMarketData().getAsks().length, "asks should be empty");
+  }
+
+  @Test
+  public void updateAndRemoveTest() {
+    OrderBook ob = new OffHeapOrderBook(MockData.SYMBOL, 0, 0);
+    Order buy = order(OrderSide.BUY, 100, 10);
+    buy.setClOrdId("client-1");
+    ob.add(buy);
+    Order first = ob.getOrder(buy.getOrderId());
+    Assertions.assertEquals(buy.getOrderId(), first.getOrderId(), "orderId mismatch");
+    Assertions.assertEquals("client-1", first.getClOrdId(), "clOrdId mismatch");
+    Assertions.assertEquals(MockData.BUY_ACCOUNT, first.getAccount(), "account mismatch");
+    Assertions.assertEquals(new BigDecimal("10"), first.getLeavesQty(), "leavesQty mismatch");
+    Assertions.assertEquals(new BigDecimal("100"), first.getPrice(), "price mismatch");
+
+    // same price: quantity is updated in place
+    Order update = MockData.getLimitBuy();
+    update.setOrderId(buy.getOrderId());
+    update.setLeavesQty(new BigDecimal("7"));
+    Assertions.assertTrue(ob.update(update), "update should return true");
+    Assertions.assertArrayEquals(new BigDecimal[][]{{new BigDecimal("100"), new BigDecimal("7")}},
+        ob.buildMarketData().getBids(), "bids mismatch");
+    // new price: order is moved into new level
+    update.setPrice(new BigDecimal("90"));
+    Assertions.assertTrue(ob.update(update), "update should return true");
+    Assertions.assertArrayEquals(new BigDecimal[][]{{new BigDecimal("90"), new BigDecimal("7")}},
+        ob.buildMarketData().getBids(), "bids mismatch");
+
+    Assertions.assertTrue(ob.remove(buy.getOrderId()), "remove should return true");
+    Assertions.assertFalse(ob.remove(buy.getOrderId()), "remove should return false");
+    Assertions.assertFalse(ob.update(update), "update should return false");
+    Assertions.assertNull(ob.getOrder(buy.getOrderId()), "order should be removed");
+    Assertions.assertEquals(0, ob.buildMarketData().getBids().length, "bids should be empty");
+  }
+
+  @Test
+  public void priceOutOfRangeTest() {
+    OrderBook ob = new OffHeapOrderBook(MockData.SYMBOL, 0, 0);
+    Order buy = order(OrderSide.BUY, 1_000_001, 10);
+    AppException ex = Assertions.assertThrows(AppException.class, () -> ob.add(buy),
+        "Exception should be thrown");
+    Assertions.assertEquals("Price out of range: price=100, maxTicks=1000001", ex.getMessage());
+  }
+
+  /**
+   * Ladder size follows price scale, so high prices with 2 digits fit
+   */
+  @Test
+  public void priceScaleTest() {
+    OrderBook ob = new OffHeapOrderBook(MockData.SYMBOL, 2, 3);
+    Order sell = order(OrderSide.SELL, 3_000_025, 1_000);
+    ob.add(sell);
+    ob.add(order(OrderSide.SELL, 99_999_999, 1_000));
+    Order buy = order(OrderSide.BUY, 3_000_025, 1_000);
+    List<Trade> trades = ob.match(buy);
+    Assertions.assertEquals(1, trades.size(), "should be 1 trade");
+    Assertions.assertEquals(3_000_025, trades.get(0).getScaledTradePrice(), "tradePrice mismatch");
+    Assertions.assertEquals(new BigDecimal("999999.99"), ob.buildMarketData().getAsks()[0][0],
+        "best ask mismatch");
+  }
+
+  /**
+   * Run the same random flow against ArrayOrderBook in fixed-point mode, trades and market data
+   * should be identical
+   */
+  @Test
+  public void sameAsArrayOrderBookTest() {
+    OrderBook expected = new ArrayOrderBook(MockData.SYMBOL, true, 0, 0);
+    OrderBook actual = new OffHeapOrderBook(MockData.SYMBOL, 0, 0);
+    Random random = new Random(7);
+    List<Long> ids = new ArrayList<>();
+    for (int i = 0; i < 20_000; i++) {
+      if (!ids.isEmpty() && random.nextInt(5) == 0) {
+        long id = ids.remove(random.nextInt(ids.size()));
+        Assertions.assertEquals(expected.remove(id), actual.remove(id), "remove mismatch");
+      } else {
+        OrderSide side = random.nextBoolean() ? OrderSide.BUY : OrderSide.SELL;
+        long price = 900 + random.nextInt(200);
+        long qty = 1 + random.nextInt(100);
+        Order expectedOrder = order(side, price, qty);
+        Order actualOrder = order(side, price, qty);
+        actualOrder.setOrderId(expectedOrder.getOrderId());
+        assertTrades(expected.match(expectedOrder), actual.match(actualOrder));
+        if (expectedOrder.getScaledLeavesQty() > 0) {
+          expected.add(expectedOrder);
+          actual.add(actualOrder);
+          ids.add(expectedOrder.getOrderId());
+        }
+      }
+      MarketData expectedMd = expected.buildMarketData();
+      MarketData actualMd = actual.buildMarketData();
+      Assertions.assertArrayEquals(expectedMd.getBids(), actualMd.getBids(), "bids mismatch");
+      Assertions.assertArrayEquals(expectedMd.getAsks(), actualMd.getAsks(), "asks mismatch");
+    }
+  }
+
+  private void assertTrades(List<Trade> expected, List<Trade> actual) {
+    Assertions.assertEquals(expected.size(), actual.size(), "trades number mismatch");
+    for (int i = 0; i < expected.size(); i++) {
+      Assertions.assertEquals(expected.get(i).getScaledTradeQty(),
+          actual.get(i).getScaledTradeQty(), "tradeQty mismatch");
+      Assertions.assertEquals(expected.get(i).getScaledTradePrice(),
+          actual.get(i).getScaledTradePrice(), "tradePrice mismatch");
+    }
+  }
+
+  private Order order(OrderSide side, long scaledPrice, long scaledQty) {
+    Order order = MockData.getLimitBuy();
+    order.setOrderId(++orderId);
+    order.setSide(side);
+    order.setOrderQty(null);
+    order.setScaledPrice(scaledPrice);
+    order.setScaledLeavesQty(scaledQty);
+    return order;
+  }
+}
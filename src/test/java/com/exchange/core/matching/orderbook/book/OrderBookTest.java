@@ -3,10 +3,14 @@ package com.exchange.core.matching.orderbook.book;
 import com.exchange.core.MockData;
 import com.exchange.core.config.AppConstants;
 import com.exchange.core.matching.orderbook.OrderBook;
+import com.exchange.core.matching.orderbook.TradeListener;
+import com.exchange.core.matching.orderbook.depth.LevelSnapshotable;
+import com.exchange.core.model.SnapshotLevel;
 import com.exchange.core.model.Trade;
 import com.exchange.core.model.enums.OrderSide;
 import com.exchange.core.model.enums.OrderType;
 import com.exchange.core.model.msg.MarketData;
+import com.exchange.core.model.msg.MarketDataUpdate;
 import com.exchange.core.model.msg.Order;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.params.ParameterizedTest;
@@ -15,6 +19,7 @@ import org.junit.jupiter.params.provider.MethodSource;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Stream;
 
@@ -25,7 +30,9 @@ public class OrderBookTest {
             Arguments.of(new MapOrderBook(MockData.SYMBOL)),
             Arguments.of(new ArrayOrderBook(MockData.SYMBOL)),
             Arguments.of(new LinkedListOrderBook(MockData.SYMBOL)),
-            Arguments.of(new IpqOrderBook(MockData.SYMBOL))
+            Arguments.of(new IpqOrderBook(MockData.SYMBOL)),
+            Arguments.of(new BitmapOrderBook(MockData.SYMBOL)),
+            Arguments.of(new SlidingWindowOrderBook(MockData.SYMBOL))
     );
   }
 
@@ -162,6 +169,40 @@ public class OrderBookTest {
         "leavesQty should be 20");
   }
 
+  @ParameterizedTest
+  @MethodSource("getOrderBooks")
+  public void tradeListenerTest(OrderBook ob) {
+    add3SellOrders(ob);
+
+    Order buy = getLimitBuy();
+    buy.setPrice(new BigDecimal("180"));
+    buy.setLeavesQty(new BigDecimal("40"));
+    // fills are passed inline with leavesQty already updated by this fill
+    List<BigDecimal[]> fills = new ArrayList<>();
+    ob.match(buy, new TradeListener() {
+      @Override
+      public void onTrade(Order taker, Order maker, BigDecimal tradeQty, BigDecimal tradePrice,
+          BigDecimal tradeAmount) {
+        Assertions.assertEquals(buy, taker, "taker mismatch");
+        fills.add(new BigDecimal[]{tradeQty, tradePrice, tradeAmount, taker.getLeavesQty(),
+            maker.getLeavesQty()});
+      }
+
+      @Override
+      public void onTrade(Order taker, Order maker, long tradeQty, long tradePrice,
+          long tradeAmount) {
+        Assertions.fail("BigDecimal order book should produce BigDecimal trades");
+      }
+    });
+    Assertions.assertEquals(2, fills.size(), "should be 2 fills");
+    Assertions.assertArrayEquals(new BigDecimal[]{new BigDecimal("10"), new BigDecimal("100"),
+        new BigDecimal("1000"), new BigDecimal("30"), new BigDecimal("0")}, fills.get(0),
+        "first fill mismatch");
+    Assertions.assertArrayEquals(new BigDecimal[]{new BigDecimal("10"), new BigDecimal("150"),
+        new BigDecimal("1500"), new BigDecimal("20"), new BigDecimal("0")}, fills.get(1),
+        "second fill mismatch");
+  }
+
   @ParameterizedTest
   @MethodSource("getOrderBooks")
   public void limitBuyLessOrderTest(OrderBook ob) {
@@ -422,6 +463,35 @@ public class OrderBookTest {
     Assertions.assertArrayEquals(new BigDecimal[][]{{price, qty}}, ob.buildMarketData().getBids(), "bids mismatch");
   }
 
+  @ParameterizedTest
+  @MethodSource("getOrderBooks")
+  public void updateQtyKeepsPriorityTest(OrderBook ob) {
+    Order buy1 = getLimitBuy();
+    buy1.setOrderId(1);
+    ob.add(buy1);
+    Order buy2 = getLimitBuy();
+    buy2.setOrderId(2);
+    ob.add(buy2);
+    // decrease quantity of the first order with the same price
+    Order update = getLimitBuy();
+    update.setOrderId(1);
+    update.setLeavesQty(new BigDecimal(4));
+    Assertions.assertTrue(ob.update(update), "update should return true");
+    Assertions.assertArrayEquals(new BigDecimal[][]{{new BigDecimal(100), new BigDecimal(14)}},
+        ob.buildMarketData().getBids(), "bids mismatch");
+
+    Order sell = getLimitBuy();
+    sell.setSide(OrderSide.SELL);
+    sell.setLeavesQty(new BigDecimal(6));
+    List<Trade> trades = ob.match(sell);
+    Assertions.assertEquals(2, trades.size(), "should be 2 trades");
+    Assertions.assertEquals(1, trades.get(0).getMaker().getOrderId(),
+        "amended order should keep priority");
+    Assertions.assertEquals(new BigDecimal(4), trades.get(0).getTradeQty(), "qty mismatch");
+    Assertions.assertEquals(2, trades.get(1).getMaker().getOrderId(), "maker mismatch");
+    Assertions.assertEquals(new BigDecimal(2), trades.get(1).getTradeQty(), "qty mismatch");
+  }
+
   @ParameterizedTest
   @MethodSource("getOrderBooks")
   public void multipleBuyMatchTest(OrderBook ob){
@@ -474,6 +544,113 @@ public class OrderBookTest {
     Assertions.assertArrayEquals(bids, ob.buildMarketData().getAsks(), "bids mismatch");
   }
 
+  @ParameterizedTest
+  @MethodSource("getOrderBooks")
+  public void marketDataUpdateTest(OrderBook ob) {
+    Assertions.assertNull(ob.buildMarketDataUpdate(), "update should be null for unchanged book");
+
+    Order buy100 = getLimitBuy();
+    buy100.setOrderId(1);
+    ob.add(buy100);
+    Order buy90 = getLimitBuy();
+    buy90.setOrderId(2);
+    buy90.setPrice(new BigDecimal("90"));
+    buy90.setLeavesQty(new BigDecimal("20"));
+    ob.add(buy90);
+    MarketDataUpdate update = ob.buildMarketDataUpdate();
+    Assertions.assertEquals(MockData.SYMBOL, update.getSymbol(), "symbols mismatch");
+    Assertions.assertEquals(1, update.getSeqNum(), "seqNum mismatch");
+    Assertions.assertArrayEquals(new BigDecimal[][]{
+        {new BigDecimal("100"), new BigDecimal("10")},
+        {new BigDecimal("90"), new BigDecimal("20")},
+    }, update.getBids(), "bids mismatch");
+    Assertions.assertEquals(0, update.getAsks().length, "asks should be 0");
+    Assertions.assertNull(ob.buildMarketDataUpdate(), "update should be null after build");
+
+    Order sell = getLimitBuy();
+    sell.setSide(OrderSide.SELL);
+    sell.setLeavesQty(new BigDecimal("4"));
+    ob.match(sell);
+    update = ob.buildMarketDataUpdate();
+    Assertions.assertEquals(2, update.getSeqNum(), "seqNum mismatch");
+    Assertions.assertArrayEquals(new BigDecimal[][]{{new BigDecimal("100"), new BigDecimal("6")}},
+        update.getBids(), "bids mismatch");
+
+    Assertions.assertTrue(ob.remove(1), "remove should return true");
+    update = ob.buildMarketDataUpdate();
+    Assertions.assertEquals(3, update.getSeqNum(), "seqNum mismatch");
+    Assertions.assertEquals(1, update.getBids().length, "bids should be 1");
+    Assertions.assertEquals(0, update.getBids()[0][1].signum(), "removed level qty should be 0");
+
+    MarketData md = ob.buildMarketData();
+    Assertions.assertEquals(3, md.getSeqNum(), "snapshot seqNum mismatch");
+    Assertions.assertArrayEquals(new BigDecimal[][]{{new BigDecimal("90"), new BigDecimal("20")}},
+        md.getBids(), "bids mismatch");
+  }
+
+  @ParameterizedTest
+  @MethodSource("getOrderBooks")
+  public void marketDataUpdateSideChangeTest(OrderBook ob) {
+    Order buy = getLimitBuy();
+    buy.setOrderId(1);
+    ob.add(buy);
+    ob.buildMarketDataUpdate();
+
+    // sell fully takes bid level and rests at the same price
+    Order sell = getLimitBuy();
+    sell.setOrderId(2);
+    sell.setSide(OrderSide.SELL);
+    sell.setLeavesQty(new BigDecimal("15"));
+    ob.match(sell);
+    ob.add(sell);
+    MarketDataUpdate update = ob.buildMarketDataUpdate();
+    Assertions.assertEquals(1, update.getBids().length, "bids should be 1");
+    Assertions.assertEquals(0, update.getBids()[0][1].signum(), "removed level qty should be 0");
+    Assertions.assertArrayEquals(new BigDecimal[][]{{new BigDecimal("100"), new BigDecimal("5")}},
+        update.getAsks(), "asks mismatch");
+  }
+
+  @ParameterizedTest
+  @MethodSource("getOrderBooks")
+  public void changedLevelsTest(OrderBook ob) {
+    LevelSnapshotable snapshotable = (LevelSnapshotable) ob;
+    Assertions.assertEquals(List.of(), changedLevels(snapshotable), "nothing is tracked yet");
+    Order buy = getLimitBuy();
+    buy.setOrderId(1);
+    ob.add(buy);
+    Order buy90 = getLimitBuy();
+    buy90.setOrderId(2);
+    buy90.setPrice(new BigDecimal("90"));
+    ob.add(buy90);
+    Order sell = getLimitBuy();
+    sell.setOrderId(3);
+    sell.setSide(OrderSide.SELL);
+    sell.setPrice(new BigDecimal("200"));
+    ob.add(sell);
+    Assertions.assertEquals(List.of("BUY 90 [2]", "BUY 100 [1]", "SELL 200 [3]"),
+        changedLevels(snapshotable));
+    Assertions.assertEquals(List.of(), changedLevels(snapshotable), "changes should be cleared");
+
+    // sell fully takes bid level and rests at the same price
+    Order taker = getLimitBuy();
+    taker.setOrderId(4);
+    taker.setSide(OrderSide.SELL);
+    taker.setLeavesQty(new BigDecimal("15"));
+    ob.match(taker);
+    ob.add(taker);
+    Assertions.assertEquals(List.of("BUY 100 []", "SELL 100 [4]"), changedLevels(snapshotable));
+  }
+
+  private List<String> changedLevels(LevelSnapshotable snapshotable) {
+    List<String> levels = new ArrayList<>();
+    snapshotable.forEachChangedRecord(record -> {
+      SnapshotLevel level = (SnapshotLevel) record;
+      levels.add(level.getSide() + " " + level.getPrice().stripTrailingZeros().toPlainString()
+          + " " + level.getOrders().stream().map(Order::getOrderId).toList());
+    });
+    return levels;
+  }
+
   private void add3SellOrders(OrderBook ob) {
     Order sell = getLimitBuy();
     sell.setSide(OrderSide.SELL);
@@ -0,0 +1,73 @@
+package com.exchange.core.matching.orderbook.book;
+
+import com.exchange.core.MockData;
+import com.exchange.core.matching.orderbook.OrderBook;
+import com.exchange.core.model.Trade;
+import com.exchange.core.model.enums.OrderSide;
+import com.exchange.core.model.msg.MarketData;
+import com.exchange.core.model.msg.Order;
+import java.math.BigDecimal;
+import java.util.List;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Specific tests for only SlidingWindowOrderBook
+ */
+public class SlidingWindowOrderBookTest {
+
+  @Test
+  public void farPriceTest() {
+    OrderBook ob = new SlidingWindowOrderBook(MockData.SYMBOL, BigDecimal.ONE, 64);
+    ob.add(getOrder(1, OrderSide.BUY, "1000"));
+    ob.add(getOrder(2, OrderSide.SELL, "1010"));
+    // far away from window around mid price
+    ob.add(getOrder(3, OrderSide.BUY, "10"));
+    ob.add(getOrder(4, OrderSide.SELL, "5000000"));
+
+    MarketData md = ob.buildMarketData();
+    Assertions.assertEquals(2, md.getBids().length, "bids should be 2");
+    Assertions.assertEquals(new BigDecimal("1000"), md.getBids()[0][0], "best bid mismatch");
+    Assertions.assertEquals(new BigDecimal("10"), md.getBids()[1][0], "far bid mismatch");
+    Assertions.assertEquals(new BigDecimal("1010"), md.getAsks()[0][0], "best ask mismatch");
+    Assertions.assertEquals(new BigDecimal("5000000"), md.getAsks()[1][0], "far ask mismatch");
+  }
+
+  @Test
+  public void marketMoveTest() {
+    OrderBook ob = new SlidingWindowOrderBook(MockData.SYMBOL, BigDecimal.ONE, 64);
+    // ladder of asks much wider than the window
+    for (int i = 0; i < 100; i++) {
+      ob.add(getOrder(i + 1, OrderSide.SELL, String.valueOf(100 + i * 10)));
+    }
+    ob.add(getOrder(1000, OrderSide.BUY, "90"));
+    // sweep levels one by one, so window follows the price
+    for (int i = 0; i < 99; i++) {
+      Order buy = getOrder(2000 + i, OrderSide.BUY, String.valueOf(100 + i * 10));
+      List<Trade> trades = ob.match(buy);
+      Assertions.assertEquals(1, trades.size(), "should match one level");
+      Assertions.assertEquals(new BigDecimal(100 + i * 10), trades.get(0).getTradePrice(),
+          "trade price mismatch");
+      Assertions.assertNull(ob.getOrder(i + 1), "filled order should be removed");
+    }
+    MarketData md = ob.buildMarketData();
+    Assertions.assertEquals(1, md.getAsks().length, "one ask should remain");
+    Assertions.assertEquals(new BigDecimal("1090"), md.getAsks()[0][0], "best ask mismatch");
+    Assertions.assertEquals(new BigDecimal("90"), md.getBids()[0][0], "best bid mismatch");
+
+    Order sell = getOrder(3000, OrderSide.SELL, "90");
+    List<Trade> trades = ob.match(sell);
+    Assertions.assertEquals(1, trades.size(), "far bid should still match");
+    Assertions.assertTrue(ob.remove(100), "should remove last ask");
+    Assertions.assertEquals(0, ob.buildMarketData().getDepth(), "order book should be empty");
+  }
+
+  private Order getOrder(long orderId, OrderSide side, String price) {
+    Order order = MockData.getLimitBuy();
+    order.setOrderId(orderId);
+    order.setSide(side);
+    order.setPrice(new BigDecimal(price));
+    order.setLeavesQty(BigDecimal.ONE);
+    return order;
+  }
+}
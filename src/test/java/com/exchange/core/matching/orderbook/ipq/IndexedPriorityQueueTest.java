@@ -5,6 +5,10 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
 import java.util.stream.Stream;
 
 public class IndexedPriorityQueueTest {
@@ -175,4 +179,71 @@ public class IndexedPriorityQueueTest {
             Assertions.assertEquals("msg_"+i, queue.poll(), "poll mismatch");
         }
     }
+
+    @ParameterizedTest
+    @MethodSource("getQueueList")
+    public void removeByKeyTest(IndexedPriorityQueue<Integer, String> queue){
+        for (int i = 1; i <= 10 ; i++){
+            Assertions.assertTrue(queue.offer(i, "msg_"+i), "should add successfully");
+        }
+        Assertions.assertEquals("msg_5", queue.remove(5), "remove mismatch");
+        Assertions.assertEquals("msg_1", queue.remove(1), "remove mismatch");
+        Assertions.assertEquals("msg_10", queue.remove(10), "remove mismatch");
+        Assertions.assertNull(queue.remove(5), "should be null for removed key");
+        Assertions.assertNull(queue.remove(50), "should be null for missing key");
+        Assertions.assertNull(queue.getExact(5), "getExact should be null for removed key");
+        Assertions.assertEquals(7, queue.size(), "size should be 7");
+        for (int i : new int[]{2, 3, 4, 6, 7, 8, 9}){
+            Assertions.assertEquals("msg_"+i, queue.poll(), "poll mismatch");
+        }
+        Assertions.assertEquals(0, queue.size(), "size should be 0");
+    }
+
+    @ParameterizedTest
+    @MethodSource("getQueueListDesc")
+    public void orderedIterationTest(IndexedPriorityQueue<Integer, String> queue){
+        List<Integer> keys = new ArrayList<>();
+        for (int i = 1; i <= 1000 ; i++){
+            keys.add(i);
+        }
+        Collections.shuffle(keys, new Random(42));
+        keys.forEach(k -> queue.offer(k, "msg_"+k));
+
+        // iterate twice to make sure iteration doesn't change the queue
+        for (int n = 0; n < 2; n++){
+            queue.resetIterator();
+            for (int i = 1000; i > 0; i--){
+                Assertions.assertTrue(queue.hasNext(), "hasNext should return true");
+                Assertions.assertEquals("msg_"+i, queue.next(), "next mismatch");
+            }
+            Assertions.assertFalse(queue.hasNext(), "hasNext should return false");
+            Assertions.assertEquals(1000, queue.size(), "size should be 1000");
+        }
+        Assertions.assertEquals("msg_1000", queue.peek(), "peek mismatch");
+    }
+
+    @ParameterizedTest
+    @MethodSource("getQueueList")
+    public void iteratorRemoveTest(IndexedPriorityQueue<Integer, String> queue){
+        List<Integer> keys = new ArrayList<>();
+        for (int i = 1; i <= 100 ; i++){
+            keys.add(i);
+        }
+        Collections.shuffle(keys, new Random(42));
+        keys.forEach(k -> queue.offer(k, "msg_"+k));
+
+        // remove every even key during iteration
+        queue.resetIterator();
+        for (int i = 1; i <= 100; i++){
+            Assertions.assertEquals("msg_"+i, queue.next(), "next mismatch");
+            if (i % 2 == 0){
+                queue.remove();
+            }
+        }
+        Assertions.assertFalse(queue.hasNext(), "hasNext should return false");
+        Assertions.assertEquals(50, queue.size(), "size should be 50");
+        for (int i = 1; i <= 100; i += 2){
+            Assertions.assertEquals("msg_"+i, queue.poll(), "poll mismatch");
+        }
+    }
 }
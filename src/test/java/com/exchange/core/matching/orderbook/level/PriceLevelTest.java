@@ -186,4 +186,64 @@ public class PriceLevelTest {
     });
     Assertions.assertEquals("You can't remove by object during iteration", ex.getMessage(), "error message mismatch");
   }
-}
\ No newline at end of file
+
+  @Test
+  public void totalQtyTest(){
+    Order first = MockData.getLimitBuy();
+    first.setOrderId(1);
+    first.setLeavesQty(new BigDecimal("10"));
+    PriceLevel level = new LinkedListPriceLevel(first);
+    Order second = MockData.getLimitBuy();
+    second.setOrderId(2);
+    second.setLeavesQty(new BigDecimal("2.5"));
+    level.add(second);
+    Assertions.assertEquals(2, level.getOrderCount(), "order count mismatch");
+    Assertions.assertEquals(0, new BigDecimal("12.5").compareTo(level.getTotalQty()),
+        "total qty mismatch");
+
+    // partial fill
+    level.updateQty(first, new BigDecimal("4"));
+    Assertions.assertEquals(new BigDecimal("4"), first.getLeavesQty(), "leaves qty mismatch");
+    Assertions.assertEquals(0, new BigDecimal("6.5").compareTo(level.getTotalQty()),
+        "total qty mismatch");
+
+    level.remove(second);
+    Assertions.assertEquals(1, level.getOrderCount(), "order count mismatch");
+    Assertions.assertEquals(0, new BigDecimal("4").compareTo(level.getTotalQty()),
+        "total qty mismatch");
+
+    // full fill during iteration
+    level.resetIterator();
+    level.updateQty(level.next(), BigDecimal.ZERO);
+    level.remove();
+    Assertions.assertEquals(0, level.getOrderCount(), "order count mismatch");
+    Assertions.assertEquals(0, BigDecimal.ZERO.compareTo(level.getTotalQty()),
+        "total qty mismatch");
+  }
+
+  @Test
+  public void scaledTotalQtyTest(){
+    Order first = MockData.getLimitBuy();
+    first.setOrderId(1);
+    first.setScaledPrice(100);
+    first.setScaledLeavesQty(1000);
+    PriceLevel level = new LinkedListPriceLevel(first, true);
+    Order second = MockData.getLimitBuy();
+    second.setOrderId(2);
+    second.setScaledPrice(100);
+    second.setScaledLeavesQty(250);
+    level.add(second);
+    Assertions.assertEquals(1250, level.getScaledTotalQty(), "total qty mismatch");
+
+    level.updateScaledQty(second, 50);
+    Assertions.assertEquals(50, second.getScaledLeavesQty(), "leaves qty mismatch");
+    Assertions.assertEquals(1050, level.getScaledTotalQty(), "total qty mismatch");
+    level.remove(first);
+    Assertions.assertEquals(50, level.getScaledTotalQty(), "total qty mismatch");
+    Assertions.assertEquals(1, level.getOrderCount(), "order count mismatch");
+    AppException ex = Assertions.assertThrows(AppException.class, level::getTotalQty,
+        "Exception should be thrown");
+    Assertions.assertEquals("Total quantity is kept as scaled value in fixed-point mode",
+        ex.getMessage());
+  }
+}
@@ -0,0 +1,66 @@
+package com.exchange.core.matching.orderbook.map;
+
+import com.exchange.core.exceptions.AppException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class LongIntHashMapTest {
+
+  @Test
+  public void putGetRemoveTest() {
+    LongIntHashMap map = new LongIntHashMap();
+    Assertions.assertEquals(LongIntHashMap.NO_VALUE, map.put(1, 10), "should be no previous value");
+    Assertions.assertEquals(LongIntHashMap.NO_VALUE, map.put(-5, 0), "should be no previous value");
+    Assertions.assertEquals(2, map.size(), "size mismatch");
+    Assertions.assertEquals(10, map.get(1), "value mismatch");
+    Assertions.assertEquals(0, map.get(-5), "value mismatch");
+    Assertions.assertEquals(LongIntHashMap.NO_VALUE, map.get(2),
+        "should be NO_VALUE for missing key");
+
+    Assertions.assertEquals(10, map.put(1, 20), "previous value mismatch");
+    Assertions.assertEquals(2, map.size(), "size shouldn't change on replace");
+
+    Assertions.assertEquals(20, map.remove(1), "removed value mismatch");
+    Assertions.assertEquals(LongIntHashMap.NO_VALUE, map.remove(1),
+        "should be NO_VALUE for removed key");
+    Assertions.assertFalse(map.containsKey(1), "key should be removed");
+    Assertions.assertEquals(1, map.size(), "size mismatch");
+
+    map.clear();
+    Assertions.assertTrue(map.isEmpty(), "map should be empty");
+    Assertions.assertEquals(LongIntHashMap.NO_VALUE, map.get(-5), "should be NO_VALUE after clear");
+  }
+
+  @Test
+  public void noValueErrorTest() {
+    LongIntHashMap map = new LongIntHashMap();
+    AppException ex = Assertions.assertThrows(AppException.class,
+        () -> map.put(1, LongIntHashMap.NO_VALUE), "Exception should be thrown");
+    Assertions.assertEquals("Fail to put value: value is NO_VALUE", ex.getMessage());
+  }
+
+  @Test
+  public void randomOperationsTest() {
+    LongIntHashMap map = new LongIntHashMap(2);
+    Map<Long, Integer> expected = new HashMap<>();
+    Random random = new Random(42);
+    for (int i = 0; i < 200_000; i++) {
+      long key = random.nextInt(5_000);
+      if (random.nextBoolean()) {
+        int value = random.nextInt(Integer.MAX_VALUE);
+        Integer prev = expected.put(key, value);
+        Assertions.assertEquals(prev == null ? LongIntHashMap.NO_VALUE : prev, map.put(key, value),
+            "put mismatch");
+      } else {
+        Integer prev = expected.remove(key);
+        Assertions.assertEquals(prev == null ? LongIntHashMap.NO_VALUE : prev, map.remove(key),
+            "remove mismatch");
+      }
+    }
+    Assertions.assertEquals(expected.size(), map.size(), "size mismatch");
+    expected.forEach((k, v) -> Assertions.assertEquals(v, map.get(k), "value mismatch"));
+  }
+}
@@ -0,0 +1,97 @@
+package com.exchange.core.matching.orderbook.map;
+
+import com.exchange.core.MockData;
+import com.exchange.core.exceptions.AppException;
+import com.exchange.core.model.msg.Order;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class LongObjectHashMapTest {
+
+  @Test
+  public void putGetRemoveTest() {
+    LongObjectMap<Order> map = new LongObjectHashMap<>();
+    Order first = MockData.getLimitBuy();
+    Order second = MockData.getLimitBuy();
+    Assertions.assertNull(map.put(1, first), "should be no previous value");
+    Assertions.assertNull(map.put(-5, second), "should be no previous value");
+    Assertions.assertEquals(2, map.size(), "size mismatch");
+    Assertions.assertSame(first, map.get(1), "value mismatch");
+    Assertions.assertSame(second, map.get(-5), "value mismatch");
+    Assertions.assertNull(map.get(2), "should be null for missing key");
+
+    Assertions.assertSame(first, map.put(1, second), "previous value mismatch");
+    Assertions.assertEquals(2, map.size(), "size shouldn't change on replace");
+
+    Assertions.assertSame(second, map.remove(1), "removed value mismatch");
+    Assertions.assertNull(map.remove(1), "should be null for removed key");
+    Assertions.assertFalse(map.containsKey(1), "key should be removed");
+    Assertions.assertEquals(1, map.size(), "size mismatch");
+
+    map.clear();
+    Assertions.assertTrue(map.isEmpty(), "map should be empty");
+    Assertions.assertNull(map.get(-5), "should be null after clear");
+  }
+
+  @Test
+  public void nullValueErrorTest() {
+    LongObjectMap<Order> map = new LongObjectHashMap<>();
+    AppException ex = Assertions.assertThrows(AppException.class, () -> map.put(1, null),
+        "Exception should be thrown");
+    Assertions.assertEquals("Fail to put value: value is null", ex.getMessage());
+  }
+
+  @Test
+  public void resizeTest() {
+    LongObjectMap<Long> map = new LongObjectHashMap<>(2);
+    final int size = 100_000;
+    for (long i = 0; i < size; i++) {
+      map.put(i, i);
+    }
+    Assertions.assertEquals(size, map.size(), "size mismatch");
+    for (long i = 0; i < size; i++) {
+      Assertions.assertEquals(i, map.get(i), "value mismatch");
+    }
+  }
+
+  /**
+   * Fill small table close to load factor, so entries share probe chains,
+   * removing from the middle of the chain should keep the rest of entries reachable
+   */
+  @Test
+  public void backwardShiftRemoveTest() {
+    LongObjectMap<Long> map = new LongObjectHashMap<>(10, 0.9f);
+    for (long i = 0; i < 10; i++) {
+      map.put(i << 32, i);
+    }
+    for (long i = 0; i < 10; i += 2) {
+      Assertions.assertEquals(i, map.remove(i << 32), "removed value mismatch");
+    }
+    for (long i = 0; i < 10; i++) {
+      Assertions.assertEquals(i % 2 == 0 ? null : i, map.get(i << 32), "value mismatch");
+    }
+    Assertions.assertEquals(5, map.size(), "size mismatch");
+  }
+
+  @Test
+  public void randomOperationsTest() {
+    LongObjectMap<Long> map = new LongObjectHashMap<>(4);
+    Map<Long, Long> expected = new HashMap<>();
+    Random random = new Random(42);
+    for (int i = 0; i < 1_000_000; i++) {
+      long key = random.nextInt(10_000);
+      switch (random.nextInt(3)) {
+        case 0 -> Assertions.assertEquals(expected.put(key, (long) i), map.put(key, (long) i),
+            "put mismatch");
+        case 1 -> Assertions.assertEquals(expected.remove(key), map.remove(key),
+            "remove mismatch");
+        default -> Assertions.assertEquals(expected.get(key), map.get(key), "get mismatch");
+      }
+    }
+    Assertions.assertEquals(expected.size(), map.size(), "size mismatch");
+    expected.forEach((k, v) -> Assertions.assertEquals(v, map.get(k), "value mismatch"));
+  }
+}
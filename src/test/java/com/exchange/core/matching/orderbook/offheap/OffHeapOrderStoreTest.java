@@ -0,0 +1,67 @@
+package com.exchange.core.matching.orderbook.offheap;
+
+import com.exchange.core.exceptions.AppException;
+import com.exchange.core.model.enums.OrderSide;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class OffHeapOrderStoreTest {
+
+  @Test
+  public void fieldsTest() {
+    // small chunks, so slots are spread over several buffers
+    OffHeapOrderStore store = new OffHeapOrderStore(4);
+    final int size = 10;
+    for (int i = 0; i < size; i++) {
+      int handle = store.allocate();
+      Assertions.assertEquals(i, handle, "handle mismatch");
+      store.setOrderId(handle, Long.MAX_VALUE - i);
+      store.setPrice(handle, 100 + i);
+      store.setLeavesQty(handle, 1_000 + i);
+      store.setOrderQty(handle, 2_000 + i);
+      store.setAccount(handle, i);
+      store.setSide(handle, i % 2 == 0 ? OrderSide.BUY : OrderSide.SELL);
+      store.setPrev(handle, i - 1);
+      store.setNext(handle, i + 1);
+      store.setClOrdId(handle, "cl" + i);
+    }
+    Assertions.assertEquals(size, store.size(), "size mismatch");
+    Assertions.assertEquals(12, store.capacity(), "capacity should be 3 chunks");
+    for (int i = 0; i < size; i++) {
+      Assertions.assertEquals(Long.MAX_VALUE - i, store.getOrderId(i), "orderId mismatch");
+      Assertions.assertEquals(100 + i, store.getPrice(i), "price mismatch");
+      Assertions.assertEquals(1_000 + i, store.getLeavesQty(i), "leavesQty mismatch");
+      Assertions.assertEquals(2_000 + i, store.getOrderQty(i), "orderQty mismatch");
+      Assertions.assertEquals(i, store.getAccount(i), "account mismatch");
+      Assertions.assertEquals(i % 2 == 0 ? OrderSide.BUY : OrderSide.SELL, store.getSide(i),
+          "side mismatch");
+      Assertions.assertEquals(i - 1, store.getPrev(i), "prev mismatch");
+      Assertions.assertEquals(i + 1, store.getNext(i), "next mismatch");
+      Assertions.assertEquals("cl" + i, store.getClOrdId(i), "clOrdId mismatch");
+    }
+  }
+
+  @Test
+  public void freeReuseTest() {
+    OffHeapOrderStore store = new OffHeapOrderStore(4);
+    int first = store.allocate();
+    int second = store.allocate();
+    store.setClOrdId(second, "cl");
+    store.free(second);
+    store.free(first);
+    Assertions.assertEquals(0, store.size(), "size mismatch");
+    Assertions.assertNull(store.getClOrdId(second), "clOrdId should be cleared on free");
+    // freed slots are reused in LIFO order before new slots are taken
+    Assertions.assertEquals(first, store.allocate(), "handle mismatch");
+    Assertions.assertEquals(second, store.allocate(), "handle mismatch");
+    Assertions.assertEquals(2, store.allocate(), "handle mismatch");
+    Assertions.assertEquals(4, store.capacity(), "no chunk should be added");
+  }
+
+  @Test
+  public void chunkSizeErrorTest() {
+    AppException ex = Assertions.assertThrows(AppException.class,
+        () -> new OffHeapOrderStore(3), "Exception should be thrown");
+    Assertions.assertEquals("Chunk size should be power of 2: chunkSlots=3", ex.getMessage());
+  }
+}
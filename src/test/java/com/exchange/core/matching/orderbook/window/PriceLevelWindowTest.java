@@ -0,0 +1,75 @@
+package com.exchange.core.matching.orderbook.window;
+
+import com.exchange.core.MockData;
+import com.exchange.core.matching.orderbook.level.LinkedListPriceLevel;
+import com.exchange.core.matching.orderbook.level.PriceLevel;
+import java.util.Random;
+import java.util.TreeMap;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class PriceLevelWindowTest {
+
+  @Test
+  public void windowAndOverflowTest() {
+    PriceLevelWindow window = new PriceLevelWindow(100);
+    Assertions.assertEquals(128, window.getSize(), "size should be rounded up to power of 2");
+    PriceLevel inside = new LinkedListPriceLevel(MockData.getLimitBuy());
+    PriceLevel outside = new LinkedListPriceLevel(MockData.getLimitBuy());
+    window.put(10, inside);
+    window.put(1000, outside);
+    Assertions.assertEquals(2, window.getLevelCount());
+    Assertions.assertEquals(1, window.getOverflowCount(), "far tick should go into overflow");
+    Assertions.assertSame(inside, window.get(10));
+    Assertions.assertSame(outside, window.get(1000));
+    Assertions.assertEquals(10, window.first());
+    Assertions.assertEquals(1000, window.last());
+    Assertions.assertEquals(1000, window.next(11));
+    Assertions.assertEquals(10, window.prev(999));
+
+    window.recenter(950);
+    Assertions.assertEquals(1, window.getOverflowCount(), "levels should swap places");
+    Assertions.assertSame(inside, window.get(10));
+    Assertions.assertSame(outside, window.get(1000));
+    Assertions.assertEquals(10, window.first());
+    Assertions.assertEquals(1000, window.last());
+
+    window.remove(1000);
+    window.remove(10);
+    Assertions.assertTrue(window.isEmpty());
+    Assertions.assertEquals(PriceLevelWindow.NONE, window.first());
+    Assertions.assertEquals(PriceLevelWindow.NONE, window.last());
+  }
+
+  /**
+   * Compare lookup with TreeMap while window is moved over random ticks
+   */
+  @Test
+  public void randomCompareTest() {
+    PriceLevelWindow window = new PriceLevelWindow(256);
+    TreeMap<Long, PriceLevel> expected = new TreeMap<>();
+    PriceLevel level = new LinkedListPriceLevel(MockData.getLimitBuy());
+    Random random = new Random(11);
+    for (int i = 0; i < 50_000; i++) {
+      long tick = random.nextInt(2000);
+      if (expected.containsKey(tick)) {
+        window.remove(tick);
+        expected.remove(tick);
+      } else {
+        window.put(tick, level);
+        expected.put(tick, level);
+      }
+      if (i % 100 == 0) {
+        window.recenter(random.nextInt(2000));
+      }
+      long from = random.nextInt(2100);
+      Long next = expected.ceilingKey(from);
+      Long prev = expected.floorKey(from);
+      Assertions.assertEquals(next == null ? PriceLevelWindow.NONE : next, window.next(from),
+          "next mismatch: from=" + from + ", lo=" + window.getLo());
+      Assertions.assertEquals(prev == null ? PriceLevelWindow.NONE : prev, window.prev(from),
+          "prev mismatch: from=" + from + ", lo=" + window.getLo());
+      Assertions.assertEquals(expected.size(), window.getLevelCount(), "level count mismatch");
+    }
+  }
+}
@@ -12,12 +12,14 @@ import com.exchange.core.model.enums.OrderStatus;
 import com.exchange.core.model.msg.ExecutionReport;
 import com.exchange.core.model.msg.InstrumentConfig;
 import com.exchange.core.model.msg.MarketData;
+import com.exchange.core.model.msg.MarketDataUpdate;
 import com.exchange.core.model.msg.Message;
 import com.exchange.core.model.msg.Order;
 import com.exchange.core.repository.AccountRepository;
 import com.exchange.core.repository.InstrumentRepository;
 import com.exchange.core.user.Position;
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Queue;
 import org.junit.jupiter.api.Assertions;
@@ -119,6 +121,22 @@ public class PostOrderCheckTest {
     Assertions.assertEquals(md, argument.getValue(), "MarketData mismatch");
   }
 
+  @Test
+  public void sendMarketDataUpdateTest() {
+    GlobalCounter counter = mock(GlobalCounter.class);
+    AccountRepository accountRepository = mock(AccountRepository.class);
+    InstrumentRepository instrumentRepository = mock(InstrumentRepository.class);
+    Queue<Message> outbound = mock(Queue.class);
+    PostOrderCheck postCheck = new PostOrderCheckImpl(counter, accountRepository,
+        instrumentRepository, outbound);
+
+    MarketDataUpdate update = new MarketDataUpdate();
+    postCheck.sendMarketDataUpdate(update);
+    ArgumentCaptor<MarketDataUpdate> argument = ArgumentCaptor.forClass(MarketDataUpdate.class);
+    verify(outbound).add(argument.capture());
+    Assertions.assertEquals(update, argument.getValue(), "MarketDataUpdate mismatch");
+  }
+
   @Test
   public void settleTradeTrade() {
     GlobalCounter counter = mock(GlobalCounter.class);
@@ -202,4 +220,144 @@ public class PostOrderCheckTest {
     Assertions.assertEquals(order.getPrice(), exec.getPrice(), "price mismatch");
     Assertions.assertEquals(OrderStatus.CANCELLED, exec.getStatus(), "status should be cancelled");
   }
+
+  @Test
+  public void cancelSellOrderTest() {
+    GlobalCounter counter = mock(GlobalCounter.class);
+    AccountRepository accountRepository = mock(AccountRepository.class);
+    InstrumentRepository instrumentRepository = mock(InstrumentRepository.class);
+    Queue<Message> outbound = mock(Queue.class);
+    PostOrderCheck postCheck = new PostOrderCheckImpl(counter, accountRepository,
+        instrumentRepository, outbound);
+
+    Order order = MockData.getLimitBuy();
+    order.setSide(OrderSide.SELL);
+    order.setLeavesQty(new BigDecimal("4"));
+    InstrumentConfig config = MockData.getInstrument();
+    when(instrumentRepository.getInstrument(order.getSymbol())).thenReturn(config);
+    Position position = new Position(config.getBase(), new BigDecimal("20"));
+    position.lock(order.getOrderQty());
+    when(accountRepository.getAccountPosition(order.getAccount(), config.getBase()))
+        .thenReturn(position);
+    postCheck.cancelOrder(order);
+    // sell locks base quantity, so only leavesQty is unlocked without price
+    Assertions.assertEquals(new BigDecimal("14"), position.getBalance(), "balance should be 14");
+    Assertions.assertEquals(new BigDecimal("6"), position.getLocked(), "locked should be 6");
+  }
+
+  @Test
+  public void cancelOrdersTest() {
+    GlobalCounter counter = mock(GlobalCounter.class);
+    AccountRepository accountRepository = mock(AccountRepository.class);
+    InstrumentRepository instrumentRepository = mock(InstrumentRepository.class);
+    Queue<Message> outbound = mock(Queue.class);
+    PostOrderCheck postCheck = new PostOrderCheckImpl(counter, accountRepository,
+        instrumentRepository, outbound);
+
+    InstrumentConfig config = MockData.getInstrument();
+    when(instrumentRepository.getInstrument(MockData.SYMBOL)).thenReturn(config);
+    Position quotePosition = new Position(config.getQuote(), new BigDecimal("3000"));
+    quotePosition.lock(new BigDecimal("2000"));
+    Position basePosition = new Position(config.getBase(), new BigDecimal("10"));
+    basePosition.lock(new BigDecimal("10"));
+    when(accountRepository.getAccountPosition(MockData.BUY_ACCOUNT, config.getQuote()))
+        .thenReturn(quotePosition);
+    when(accountRepository.getAccountPosition(MockData.BUY_ACCOUNT, config.getBase()))
+        .thenReturn(basePosition);
+
+    List<Order> orders = new ArrayList<>();
+    for (int i = 0; i < 2; i++) {
+      Order buy = MockData.getLimitBuy();
+      buy.setLeavesQty(buy.getOrderQty());
+      orders.add(buy);
+    }
+    Order sell = MockData.getLimitBuy();
+    sell.setSide(OrderSide.SELL);
+    sell.setLeavesQty(new BigDecimal("6"));
+    orders.add(sell);
+    postCheck.cancelOrders(orders);
+
+    Assertions.assertEquals(new BigDecimal("3000"), quotePosition.getBalance(), "quote mismatch");
+    Assertions.assertEquals(new BigDecimal("6"), basePosition.getBalance(), "base mismatch");
+    Assertions.assertEquals(new BigDecimal("4"), basePosition.getLocked(), "locked mismatch");
+    // one unlock per asset: Position is not spied, cause loaded subclass of it breaks inlining
+    // in ZeroAllocationMatchingTest running in the same JVM
+    verify(accountRepository, times(1)).getAccountPosition(MockData.BUY_ACCOUNT,
+        config.getQuote());
+    verify(accountRepository, times(1)).getAccountPosition(MockData.BUY_ACCOUNT,
+        config.getBase());
+    verify(outbound, times(3)).add(Mockito.any(ExecutionReport.class));
+  }
+
+  @Test
+  public void sendExecReportReplaceTest() {
+    GlobalCounter counter = mock(GlobalCounter.class);
+    AccountRepository accountRepository = mock(AccountRepository.class);
+    InstrumentRepository instrumentRepository = mock(InstrumentRepository.class);
+    Queue<Message> outbound = mock(Queue.class);
+    PostOrderCheck postCheck = new PostOrderCheckImpl(counter, accountRepository,
+        instrumentRepository, outbound);
+
+    Order order = MockData.getLimitBuy();
+    order.setOrderId(99);
+    order.setClOrdId("replace1");
+    order.setLeavesQty(new BigDecimal("7"));
+    postCheck.sendExecReportReplace(order);
+    ArgumentCaptor<ExecutionReport> argument = ArgumentCaptor.forClass(ExecutionReport.class);
+    verify(outbound).add(argument.capture());
+    ExecutionReport exec = argument.getValue();
+    Assertions.assertEquals(order.getOrderId(), exec.getOrderId(), "orderId mismatch");
+    Assertions.assertEquals(order.getClOrdId(), exec.getClOrdId(), "clOrdId mismatch");
+    Assertions.assertEquals(order.getLeavesQty(), exec.getLeavesQty(), "leavesQty mismatch");
+    Assertions.assertEquals(OrderStatus.REPLACED, exec.getStatus(), "status should be replaced");
+  }
+
+  @Test
+  public void fixedPointSettleTradeTest() {
+    GlobalCounter counter = mock(GlobalCounter.class);
+    AccountRepository accountRepository = mock(AccountRepository.class);
+    InstrumentRepository instrumentRepository = mock(InstrumentRepository.class);
+    Queue<Message> outbound = mock(Queue.class);
+    PostOrderCheck postCheck = new PostOrderCheckImpl(counter, accountRepository,
+        instrumentRepository, outbound, true);
+
+    Order takerBuy = MockData.getLimitBuy();
+    takerBuy.setAccount(1);
+    Order makerSell = MockData.getLimitBuy();
+    makerSell.setAccount(2);
+    makerSell.setSide(OrderSide.SELL);
+    InstrumentConfig config = MockData.getInstrument();
+    config.setPriceScale(2);
+    config.setQuantityScale(3);
+    when(instrumentRepository.getInstrument(takerBuy.getSymbol())).thenReturn(config);
+    Position takerBasePosition = new Position(config.getBase());
+    Position takerQuotePosition = new Position(config.getQuote(), new BigDecimal("700"));
+    Position makerBasePosition = new Position(config.getBase(), new BigDecimal("10"));
+    Position makerQuotePosition = new Position(config.getQuote());
+    // 5.5 BTC for 100.5 USDT => 552.75 USDT
+    final long tradeQty = 5_500;
+    final long tradeAmount = 55_275_000;
+    takerQuotePosition.lock(tradeAmount, 5);
+    makerBasePosition.lock(tradeQty, 3);
+    when(accountRepository.getAccountPosition(takerBuy.getAccount(), config.getBase())).thenReturn(
+        takerBasePosition);
+    when(accountRepository.getAccountPosition(takerBuy.getAccount(), config.getQuote())).thenReturn(
+        takerQuotePosition);
+    when(accountRepository.getAccountPosition(makerSell.getAccount(), config.getBase())).thenReturn(
+        makerBasePosition);
+    when(
+        accountRepository.getAccountPosition(makerSell.getAccount(), config.getQuote())).thenReturn(
+        makerQuotePosition);
+    postCheck.settleTrade(takerBuy, makerSell, tradeQty, tradeAmount);
+    Assertions.assertEquals(0, new BigDecimal("5.5").compareTo(takerBasePosition.getBalance()),
+        "taker base should be 5.5");
+    Assertions.assertEquals(0, new BigDecimal("147.25").compareTo(takerQuotePosition.getBalance()),
+        "taker quote should be 147.25");
+    Assertions.assertEquals(0, BigDecimal.ZERO.compareTo(takerQuotePosition.getLocked()),
+        "taker quote locked should be 0");
+    Assertions.assertEquals(0, new BigDecimal("4.5").compareTo(makerBasePosition.getBalance()),
+        "maker base should be 4.5");
+    Assertions.assertEquals(0, new BigDecimal("552.75").compareTo(makerQuotePosition.getBalance()),
+        "maker quote should be 552.75");
+  }
 }
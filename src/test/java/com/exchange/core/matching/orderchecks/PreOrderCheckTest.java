@@ -4,11 +4,14 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 import com.exchange.core.MockData;
+import com.exchange.core.exceptions.AppException;
 import com.exchange.core.matching.counter.GlobalCounter;
 import com.exchange.core.model.enums.OrderType;
 import com.exchange.core.model.msg.InstrumentConfig;
 import com.exchange.core.model.msg.Message;
 import com.exchange.core.model.msg.Order;
+import com.exchange.core.model.msg.ReplaceOrder;
+import com.exchange.core.model.msg.UserBalance;
 import com.exchange.core.repository.AccountRepository;
 import com.exchange.core.repository.InstrumentRepository;
 import com.exchange.core.user.Account;
@@ -51,6 +54,38 @@ public class PreOrderCheckTest {
     Assertions.assertFalse(preCheck.validateOrder(market), "market should fail cause 1001>1000");
   }
 
+  @Test
+  public void checkLimitsTest() {
+    PreOrderCheck preCheck = new PreOrderCheckImpl(mock(GlobalCounter.class),
+        mock(AccountRepository.class), mock(InstrumentRepository.class), mock(Queue.class));
+    Order order = MockData.getLimitBuy();
+    order.setClOrdId("a".repeat(PreOrderCheckImpl.MAX_CL_ORD_ID_LENGTH));
+    preCheck.checkLimits(order);
+    order.setClOrdId("a".repeat(PreOrderCheckImpl.MAX_CL_ORD_ID_LENGTH + 1));
+    Assertions.assertThrows(AppException.class, () -> preCheck.checkLimits(order),
+        "clOrdId should be up to 39 chars");
+    order.setClOrdId("ordér");
+    Assertions.assertThrows(AppException.class, () -> preCheck.checkLimits(order),
+        "clOrdId should be ASCII");
+    order.setClOrdId(null);
+    order.setPrice(new BigDecimal("1e-128"));
+    Assertions.assertThrows(AppException.class, () -> preCheck.checkLimits(order),
+        "price scale should be up to 127");
+    order.setPrice(new BigDecimal(Long.MAX_VALUE).add(BigDecimal.ONE));
+    Assertions.assertThrows(AppException.class, () -> preCheck.checkLimits(order),
+        "price should fit into long");
+
+    InstrumentConfig inst = MockData.getInstrument();
+    inst.setSymbol("VERY_LONG_SYMBOL/USDT");
+    Assertions.assertThrows(AppException.class, () -> preCheck.checkLimits(inst),
+        "symbol should be up to 15 chars");
+    UserBalance balance = MockData.getUser(MockData.QUOTE);
+    preCheck.checkLimits(balance);
+    balance.setAsset("A".repeat(PreOrderCheckImpl.MAX_SYMBOL_LENGTH + 1));
+    Assertions.assertThrows(AppException.class, () -> preCheck.checkLimits(balance),
+        "asset should be up to 15 chars");
+  }
+
   @Test
   public void updateNewOrderTest() {
     GlobalCounter counter = mock(GlobalCounter.class);
@@ -93,4 +128,47 @@ public class PreOrderCheckTest {
     preCheck.lockBalance(order);
     Assertions.assertEquals(new BigDecimal("1000"), position.getLocked(), "locked mismatch");
   }
+
+  @Test
+  public void replaceOrderTest() {
+    GlobalCounter counter = mock(GlobalCounter.class);
+    AccountRepository accountRepository = mock(AccountRepository.class);
+    InstrumentRepository instrumentRepository = mock(InstrumentRepository.class);
+    Queue<Message> outbound = mock(Queue.class);
+    PreOrderCheck preCheck = new PreOrderCheckImpl(counter, accountRepository, instrumentRepository,
+        outbound);
+
+    // resting buy 10 @ 100 with 4 filled, 600 locked
+    Order order = MockData.getLimitBuy();
+    order.setOrderId(5);
+    order.setLeavesQty(new BigDecimal("6"));
+    InstrumentConfig config = MockData.getInstrument();
+    when(instrumentRepository.getInstrument(order.getSymbol())).thenReturn(config);
+    Position position = new Position(config.getQuote(), new BigDecimal("1000"));
+    position.lock(new BigDecimal("600"));
+    when(accountRepository.getAccountPosition(order.getAccount(), config.getQuote()))
+        .thenReturn(position);
+
+    ReplaceOrder msg = new ReplaceOrder();
+    Order replace = new Order();
+    replace.setPrice(new BigDecimal("110"));
+    replace.setOrderQty(new BigDecimal("12"));
+    preCheck.updateReplaceOrder(order, replace);
+    Assertions.assertEquals(order.getOrderId(), replace.getOrderId(), "orderId mismatch");
+    Assertions.assertEquals(new BigDecimal("8"), replace.getLeavesQty(), "leavesQty mismatch");
+    // 8 * 110 - 600 = 280 more should be locked, only 400 available
+    Assertions.assertTrue(preCheck.validateReplace(order, replace, msg), "replace should pass");
+    preCheck.relockBalance(order, replace);
+    Assertions.assertEquals(new BigDecimal("880"), position.getLocked(), "locked mismatch");
+    Assertions.assertEquals(new BigDecimal("120"), position.getBalance(), "balance mismatch");
+
+    replace.setOrderQty(new BigDecimal("20"));
+    preCheck.updateReplaceOrder(order, replace);
+    Assertions.assertFalse(preCheck.validateReplace(order, replace, msg),
+        "replace should fail cause balance insufficient");
+    replace.setOrderQty(new BigDecimal("4"));
+    preCheck.updateReplaceOrder(order, replace);
+    Assertions.assertFalse(preCheck.validateReplace(order, replace, msg),
+        "replace should fail cause 4 already filled");
+  }
 }
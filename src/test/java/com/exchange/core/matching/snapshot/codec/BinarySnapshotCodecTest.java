@@ -0,0 +1,272 @@
+package com.exchange.core.matching.snapshot.codec;
+
+import com.exchange.core.MockData;
+import com.exchange.core.exceptions.AppException;
+import com.exchange.core.matching.orderbook.book.MapOrderBook;
+import com.exchange.core.matching.snapshot.Snapshotable;
+import com.exchange.core.matching.snapshot.converter.JsonObjectConverter;
+import com.exchange.core.model.SnapshotItem;
+import com.exchange.core.model.enums.OrderSide;
+import com.exchange.core.model.enums.SnapshotType;
+import com.exchange.core.model.msg.InstrumentConfig;
+import com.exchange.core.model.msg.Order;
+import com.exchange.core.model.msg.UserBalance;
+import com.exchange.core.repository.AccountRepositoryImpl;
+import com.exchange.core.repository.InstrumentRepositoryImpl;
+import com.exchange.core.user.Account;
+import com.exchange.core.user.Position;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class BinarySnapshotCodecTest {
+
+  private final SnapshotCodec codec = new BinarySnapshotCodec();
+
+  @Test
+  public void encodeDecodeTest() {
+    List<SnapshotItem> items = items();
+    byte[] data = codec.encode(items);
+    List<SnapshotItem> decoded = codec.decode(data);
+    Assertions.assertEquals(items, decoded, "items mismatch");
+
+    List<Order> orders = (List<Order>) decoded.get(2).getData();
+    Assertions.assertSame(orders.get(0).getSymbol(), orders.get(1).getSymbol(),
+        "repeated symbol should be decoded once");
+    Account account = ((List<Account>) decoded.get(1).getData()).get(0);
+    account.getPosition("ETH").add(BigDecimal.ONE);
+    Assertions.assertEquals(new BigDecimal("1500.5"), account.getPosition("USDT").getBalance());
+    Assertions.assertEquals(new BigDecimal("-0.25"), account.getPosition("BTC").getLocked());
+
+    byte[] json = new JsonSnapshotCodec(new JsonObjectConverter()).encode(items);
+    Assertions.assertTrue(data.length * 3 < json.length,
+        "binary should be much smaller: binary=" + data.length + ", json=" + json.length);
+  }
+
+  @Test
+  public void decodeByTypeTest() {
+    byte[] data = codec.encode(items());
+    List<SnapshotItem> decoded = codec.decode(data, SnapshotType.INSTRUMENT);
+    Assertions.assertEquals(1, decoded.size());
+    Assertions.assertEquals(List.of(MockData.getInstrument()), decoded.get(0).getData());
+    decoded = codec.decode(data, SnapshotType.ORDER_BOOK);
+    Assertions.assertEquals(1, decoded.size());
+    Assertions.assertEquals(MockData.SYMBOL, ((List<Order>) decoded.get(0).getData()).get(99)
+        .getSymbol(), "symbols shouldn't depend on skipped items");
+  }
+
+  @Test
+  public void jsonSnapshotTest() {
+    List<SnapshotItem> items = items();
+    byte[] json = new JsonSnapshotCodec(new JsonObjectConverter()).encode(items);
+    Assertions.assertEquals(items, codec.decode(json), "json snapshot should be still readable");
+  }
+
+  @Test
+  public void widePositionTest() {
+    Account account = new Account(1);
+    account.getPositions().put("ETH", new Position("ETH", new BigDecimal("1E+20"),
+        new BigDecimal("0.1234567890123456789")));
+    account.getPositions().put("USDT", new Position("USDT", new BigDecimal("1000.5")));
+    List<SnapshotItem> items = List.of(item(SnapshotType.ACCOUNT, List.of(account)));
+    Assertions.assertEquals(items, codec.decode(codec.encode(items)),
+        "position which doesn't fit into long should be restored as is");
+  }
+
+  @Test
+  public void corruptedSnapshotTest() {
+    byte[] data = codec.encode(items());
+    Assertions.assertThrows(AppException.class,
+        () -> codec.decode(Arrays.copyOf(data, data.length - 1)));
+    data[4] = BinarySnapshotCodec.VERSION + 1;
+    AppException ex = Assertions.assertThrows(AppException.class, () -> codec.decode(data));
+    Assertions.assertTrue(ex.getMessage().startsWith("Unsupported snapshot version"));
+  }
+
+  @Test
+  public void streamTest() {
+    AccountRepositoryImpl accounts = new AccountRepositoryImpl();
+    UserBalance balance = new UserBalance();
+    balance.setAccount(1);
+    balance.setAsset("USDT");
+    balance.setAmount(new BigDecimal("1500.5"));
+    accounts.addBalance(balance);
+    InstrumentRepositoryImpl instruments = new InstrumentRepositoryImpl();
+    instruments.add(MockData.getInstrument());
+    MapOrderBook book = new MapOrderBook(MockData.SYMBOL);
+    int count = 10_000;
+    for (int i = 1; i <= count; i++) {
+      Order order = MockData.getLimitBuy();
+      order.setOrderId(i);
+      order.setClOrdId("order_" + i);
+      order.setPrice(BigDecimal.valueOf(i % 100 + 1));
+      book.add(order);
+    }
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    codec.write(List.of(accounts, instruments, book), Channels.newChannel(bytes));
+    byte[] data = bytes.toByteArray();
+    Assertions.assertTrue(data.length > 2 * BinarySnapshotCodec.CHUNK_SIZE,
+        "orders should take several chunks: size=" + data.length);
+
+    List<Snapshotable> loaded = List.of(new AccountRepositoryImpl(),
+        new InstrumentRepositoryImpl(), new MapOrderBook(MockData.SYMBOL));
+    Iterator<Snapshotable> targets = loaded.iterator();
+    codec.read(Channels.newChannel(new ByteArrayInputStream(data)), type -> {
+      Snapshotable target = targets.next();
+      Assertions.assertEquals(target.getType(), type, "items should be read in written order");
+      return target::loadRecord;
+    });
+    Assertions.assertFalse(targets.hasNext(), "all items should be read");
+    Assertions.assertEquals(accounts.getAllAccounts(),
+        ((AccountRepositoryImpl) loaded.get(0)).getAllAccounts());
+    Assertions.assertEquals(instruments.getInstruments(),
+        ((InstrumentRepositoryImpl) loaded.get(1)).getInstruments());
+    List<Order> orders = (List<Order>) loaded.get(2).create().getData();
+    Assertions.assertEquals(book.create().getData(), orders, "orders mismatch");
+    Assertions.assertTrue(orders.stream().allMatch(o -> MockData.SYMBOL.equals(o.getSymbol())),
+        "every chunk should have its own symbols");
+    Assertions.assertEquals(codec.decode(data), codec.decode(codec.encode(codec.decode(data))),
+        "in-memory encoding should be the same format");
+  }
+
+  @Test
+  public void truncatedStreamTest() {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    codec.write(List.of(new InstrumentRepositoryImpl()), Channels.newChannel(bytes));
+    byte[] data = bytes.toByteArray();
+    AppException ex = Assertions.assertThrows(AppException.class,
+        () -> codec.read(Channels.newChannel(
+            new ByteArrayInputStream(Arrays.copyOf(data, data.length - 1))), type -> null));
+    Assertions.assertTrue(ex.getMessage().startsWith("Snapshot is truncated"));
+  }
+
+  @Test
+  public void mappedReadTest() {
+    List<Snapshotable> books = new ArrayList<>();
+    for (int b = 0; b < 8; b++) {
+      MapOrderBook book = new MapOrderBook("SYM" + b);
+      for (int i = 1; i <= 3000; i++) {
+        Order order = MockData.getLimitBuy();
+        order.setSymbol("SYM" + b);
+        order.setOrderId(b * 10_000L + i);
+        order.setPrice(BigDecimal.valueOf(i % 50 + 1));
+        book.add(order);
+      }
+      books.add(book);
+    }
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    codec.write(books, Channels.newChannel(bytes));
+    ByteBuffer data = ByteBuffer.allocateDirect(bytes.size()).put(bytes.toByteArray()).flip();
+
+    List<Snapshotable> loaded = new ArrayList<>();
+    Set<String> threads = ConcurrentHashMap.newKeySet();
+    try (ForkJoinPool pool = new ForkJoinPool(4)) {
+      codec.read(data, type -> {
+        MapOrderBook book = new MapOrderBook("SYM" + loaded.size());
+        loaded.add(book);
+        return record -> {
+          threads.add(Thread.currentThread().getName());
+          book.loadRecord(record);
+        };
+      }, pool);
+    }
+    Assertions.assertEquals(books.size(), loaded.size(), "every item should be read");
+    for (int b = 0; b < books.size(); b++) {
+      Assertions.assertEquals(books.get(b).create().getData(), loaded.get(b).create().getData(),
+          "orders of book " + b + " mismatch");
+    }
+    Assertions.assertFalse(threads.contains(Thread.currentThread().getName()),
+        "items should be loaded on pool");
+    Assertions.assertEquals(0, data.position(), "mapped buffer shouldn't be changed");
+
+    ByteBuffer truncated = data.duplicate().limit(data.limit() - 1);
+    try (ForkJoinPool pool = new ForkJoinPool(4)) {
+      AppException ex = Assertions.assertThrows(AppException.class,
+          () -> codec.read(truncated, type -> record -> {
+          }, pool));
+      Assertions.assertTrue(ex.getMessage().startsWith("Snapshot is truncated"));
+    }
+  }
+
+  @Test
+  public void version1Test() {
+    SnapshotOutput out = new SnapshotOutput(64);
+    out.putInt(BinarySnapshotCodec.MAGIC);
+    out.putShort(1);
+    out.putVarLong(2);
+    out.putByte(SnapshotType.INSTRUMENT.ordinal());
+    int lengthIndex = out.position();
+    out.putInt(0);
+    out.putVarLong(1);
+    out.putSymbol(MockData.SYMBOL);
+    out.putSymbol("BTC");
+    out.putSymbol("USDT");
+    out.putVarLong(2);
+    out.putVarLong(8);
+    out.putInt(lengthIndex, out.position() - lengthIndex - Integer.BYTES);
+    out.putByte(SnapshotType.JOURNAL.ordinal());
+    out.putInt(1);
+    out.putSignedVarLong(42);
+    byte[] data = out.toByteArray();
+
+    List<SnapshotItem> items = codec.decode(data);
+    Assertions.assertEquals(2, items.size());
+    InstrumentConfig inst = ((List<InstrumentConfig>) items.get(0).getData()).get(0);
+    Assertions.assertEquals(MockData.SYMBOL, inst.getSymbol());
+    Assertions.assertEquals(8, inst.getQuantityScale());
+    Assertions.assertEquals(42L, items.get(1).getData());
+    List<Object> seqs = new ArrayList<>();
+    codec.read(Channels.newChannel(new ByteArrayInputStream(data)),
+        type -> type == SnapshotType.JOURNAL ? seqs::add : null);
+    Assertions.assertEquals(List.of(42L), seqs, "version 1 should be still readable");
+  }
+
+  private List<SnapshotItem> items() {
+    List<SnapshotItem> items = new ArrayList<>();
+    items.add(item(SnapshotType.INSTRUMENT, List.of(MockData.getInstrument())));
+
+    Account account = new Account(1);
+    account.getPositions().put("USDT", new Position("USDT", new BigDecimal("1500.5")));
+    Position btc = new Position("BTC", new BigDecimal("2"));
+    btc.setLocked(new BigDecimal("-0.25"));
+    account.getPositions().put("BTC", btc);
+    Account empty = new Account(Integer.MAX_VALUE);
+    items.add(item(SnapshotType.ACCOUNT, List.of(account, empty)));
+
+    List<Order> orders = new ArrayList<>();
+    for (int i = 1; i <= 100; i++) {
+      Order order = MockData.getLimitBuy();
+      order.setOrderId(i);
+      order.setClOrdId("order_" + i);
+      order.setLeavesQty(new BigDecimal("9.999"));
+      order.setPrice(new BigDecimal("100.25").add(BigDecimal.valueOf(i)));
+      if (i % 2 == 0) {
+        order.setSide(OrderSide.SELL);
+        order.setClOrdId(null);
+        order.setQuoteOrderQty(new BigDecimal("-5000.123456789"));
+      }
+      orders.add(order);
+    }
+    items.add(item(SnapshotType.ORDER_BOOK, orders));
+    items.add(item(SnapshotType.JOURNAL, 42L));
+    return items;
+  }
+
+  private SnapshotItem item(SnapshotType type, Object data) {
+    SnapshotItem item = new SnapshotItem();
+    item.setType(type);
+    item.setData(data);
+    return item;
+  }
+}
@@ -6,21 +6,35 @@ import static org.mockito.Mockito.when;
 import com.exchange.core.MockData;
 import com.exchange.core.TestUtils;
 import com.exchange.core.exceptions.AppException;
+import com.exchange.core.matching.orderbook.OrderBook;
+import com.exchange.core.matching.orderbook.book.MapOrderBook;
+import com.exchange.core.matching.orderbook.book.OffHeapOrderBook;
 import com.exchange.core.matching.snapshot.Snapshotable;
+import com.exchange.core.matching.snapshot.codec.BinarySnapshotCodec;
 import com.exchange.core.matching.snapshot.converter.JsonObjectConverter;
 import com.exchange.core.matching.snapshot.converter.ObjectConverter;
 import com.exchange.core.matching.snapshot.storage.FileStorageWriter;
 import com.exchange.core.matching.snapshot.storage.StorageWriter;
 import com.exchange.core.model.SnapshotItem;
+import com.exchange.core.model.enums.OrderSide;
 import com.exchange.core.model.enums.SnapshotType;
 import com.exchange.core.model.msg.InstrumentConfig;
 import com.exchange.core.model.msg.Order;
+import com.exchange.core.model.msg.UserBalance;
+import com.exchange.core.repository.AccountRepositoryImpl;
+import com.exchange.core.repository.InstrumentRepositoryImpl;
 import com.exchange.core.user.Account;
 import com.exchange.core.user.Position;
 import java.io.File;
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeAll;
@@ -53,8 +67,8 @@ public class SnapshotManagerTest {
         "Exception should be thrown");
     Assertions.assertEquals("List of Snapshotable should be provided", initException.getMessage(),
         "Exception message mismatch");
-    Snapshotable instrumentRepo = Mockito.mock(Snapshotable.class);
-    Snapshotable accountRepo = Mockito.mock(Snapshotable.class);
+    Snapshotable instrumentRepo = mockSnapshotable();
+    Snapshotable accountRepo = mockSnapshotable();
     snapshotables.add(instrumentRepo);
     snapshotables.add(accountRepo);
     SnapshotManager snapshotManager = new SnapshotManagerImpl(snapshotables, converter,
@@ -107,7 +121,7 @@ public class SnapshotManagerTest {
     List<Snapshotable> snapshotables = new ArrayList<>();
     ObjectConverter converter = new JsonObjectConverter();
     StorageWriter storageWriter = new FileStorageWriter();
-    Snapshotable ob = Mockito.mock(Snapshotable.class);
+    Snapshotable ob = mockSnapshotable();
     snapshotables.add(ob);
     SnapshotManager snapshotManager = new SnapshotManagerImpl(snapshotables, converter,
         storageWriter, BASE_PATH);
@@ -134,12 +148,153 @@ public class SnapshotManagerTest {
     Assertions.assertEquals(5, snapshotManager.getLastOrderId(), "lastOrderId should be 5");
   }
 
+  @Test
+  public void parallelLoadTest() {
+    StorageWriter storageWriter = new FileStorageWriter();
+    List<String> symbols = List.of("BTC-USDT", "ETH-USDT", "BTC-ETH");
+    InstrumentRepositoryImpl instruments = new InstrumentRepositoryImpl();
+    List<Snapshotable> snapshotables = new ArrayList<>();
+    snapshotables.add(instruments);
+    for (int s = 0; s < symbols.size(); s++) {
+      InstrumentConfig inst = MockData.getInstrument();
+      inst.setSymbol(symbols.get(s));
+      instruments.add(inst);
+      MapOrderBook book = new MapOrderBook(inst.getSymbol());
+      for (int i = 1; i <= 100; i++) {
+        Order buy = MockData.getLimitBuy();
+        buy.setSymbol(inst.getSymbol());
+        buy.setOrderId(s * 1000L + i);
+        book.add(buy);
+      }
+      snapshotables.add(book);
+    }
+    String filename = new SnapshotManagerImpl(snapshotables, new BinarySnapshotCodec(),
+        storageWriter, BASE_PATH).makeSnapshot();
+
+    InstrumentRepositoryImpl loadedInstruments = new InstrumentRepositoryImpl();
+    List<Snapshotable> loaded = new ArrayList<>();
+    loaded.add(loadedInstruments);
+    SnapshotManager snapshotManager = new SnapshotManagerImpl(loaded, new BinarySnapshotCodec(),
+        storageWriter, BASE_PATH, 3);
+    List<String> loadedSymbols = snapshotManager.getSymbols(filename);
+    Assertions.assertEquals(symbols, loadedSymbols, "symbols should keep insertion order");
+    loadedSymbols.forEach(symbol -> loaded.add(new MapOrderBook(symbol)));
+    snapshotManager.loadSnapshot(filename);
+
+    Assertions.assertEquals(instruments.getInstruments(), loadedInstruments.getInstruments());
+    for (int s = 0; s < symbols.size(); s++) {
+      List<Order> orders = (List<Order>) loaded.get(s + 1).create().getData();
+      Assertions.assertEquals(snapshotables.get(s + 1).create().getData(), orders,
+          "orders of " + symbols.get(s) + " mismatch");
+    }
+    Assertions.assertEquals(2100, snapshotManager.getLastOrderId(),
+        "lastOrderId should be max of all books");
+  }
+
+  @Test
+  public void deltaSnapshotTest() throws IOException {
+    StorageWriter storageWriter = new FileStorageWriter();
+    String basePath = BASE_PATH + "/delta";
+    new File(basePath).mkdir();
+    AccountRepositoryImpl accounts = new AccountRepositoryImpl();
+    InstrumentRepositoryImpl instruments = new InstrumentRepositoryImpl();
+    List<Snapshotable> snapshotables = new ArrayList<>(List.of(accounts, instruments));
+    for (String symbol : List.of("BTC-USDT", "ETH-USDT")) {
+      InstrumentConfig inst = MockData.getInstrument();
+      inst.setSymbol(symbol);
+      instruments.add(inst);
+      Snapshotable book = snapshotables.size() == 2 ? new MapOrderBook(symbol)
+          : new OffHeapOrderBook(symbol, 2, 4);
+      // 5 levels per side, 10 orders per level
+      for (int i = 1; i <= 100; i++) {
+        book.loadRecord(order(symbol, i, i % 2 == 0 ? OrderSide.BUY : OrderSide.SELL,
+            i % 2 == 0 ? 90 + i % 5 : 100 + i % 5));
+      }
+      snapshotables.add(book);
+    }
+    for (int i = 1; i <= 100; i++) {
+      UserBalance balance = MockData.getUser("BTC");
+      balance.setAccount(i);
+      accounts.addBalance(balance);
+      accounts.getAccountPosition(i, "USDT").add(new BigDecimal("1000"));
+    }
+    SnapshotManager snapshotManager = new SnapshotManagerImpl(snapshotables,
+        new BinarySnapshotCodec(), storageWriter, basePath, 2, 2);
+    String base = snapshotManager.makeSnapshot();
+    assertLoaded(snapshotables, basePath, base);
+
+    // new level, removed level, order removed from the middle of level, one position changed
+    OrderBook btc = (OrderBook) snapshotables.get(2);
+    btc.add(order("BTC-USDT", 101, OrderSide.BUY, 95));
+    for (int i = 10; i <= 100; i += 10) {
+      btc.remove(i);
+    }
+    btc.remove(52);
+    accounts.getAccountPosition(7, "USDT").lock(new BigDecimal("100.5"));
+    String delta = snapshotManager.makeSnapshot();
+    Assertions.assertEquals(base + "_delta_1", delta, "delta name mismatch");
+    Assertions.assertTrue(size(basePath, delta) * 10 < size(basePath, base),
+        "delta should have only changes: delta=" + size(basePath, delta) + ", base="
+            + size(basePath, base));
+    assertLoaded(snapshotables, basePath, delta);
+
+    // level of previous delta and level of base change in other book
+    btc.remove(101);
+    OrderBook eth = (OrderBook) snapshotables.get(3);
+    eth.remove(3);
+    ((Snapshotable) eth).loadRecord(order("ETH-USDT", 102, OrderSide.SELL, 103));
+    accounts.getAccountPosition(7, "BTC").add(new BigDecimal("1"));
+    delta = snapshotManager.makeSnapshot();
+    Assertions.assertEquals(base + "_delta_2", delta, "delta name mismatch");
+    assertLoaded(snapshotables, basePath, delta);
+
+    // deltas are compacted into new base
+    accounts.getAccountPosition(8, "BTC").add(new BigDecimal("1"));
+    String next = snapshotManager.makeSnapshot();
+    Assertions.assertFalse(next.contains("_delta_"), "snapshot should be full: name=" + next);
+    assertLoaded(snapshotables, basePath, next);
+    Assertions.assertEquals(next + "_delta_1", snapshotManager.makeSnapshot(),
+        "delta should follow new base");
+    Assertions.assertTrue(new File(basePath, delta).isFile(),
+        "new base shouldn't replace previous chain");
+  }
+
+  /**
+   * Book without levels writes all its orders into delta, so they replace orders of base
+   */
+  @Test
+  public void fullBookDeltaTest() {
+    String basePath = BASE_PATH + "/full";
+    new File(basePath).mkdir();
+    InstrumentRepositoryImpl instruments = new InstrumentRepositoryImpl();
+    instruments.add(MockData.getInstrument());
+    OrderListSnapshotable book = new OrderListSnapshotable();
+    book.orders.add(order(MockData.SYMBOL, 1, OrderSide.BUY, 90));
+    book.orders.add(order(MockData.SYMBOL, 2, OrderSide.SELL, 110));
+    SnapshotManager snapshotManager = new SnapshotManagerImpl(
+        new ArrayList<>(List.of(new AccountRepositoryImpl(), instruments, book)),
+        new BinarySnapshotCodec(), new FileStorageWriter(), basePath, 2, 2);
+    String base = snapshotManager.makeSnapshot();
+    book.orders.remove(0);
+    book.orders.add(order(MockData.SYMBOL, 3, OrderSide.SELL, 120));
+    String delta = snapshotManager.makeSnapshot();
+    Assertions.assertEquals(base + "_delta_1", delta, "delta name mismatch");
+
+    OrderListSnapshotable loaded = new OrderListSnapshotable();
+    List<Snapshotable> snapshotables = new ArrayList<>(
+        List.of(new AccountRepositoryImpl(), new InstrumentRepositoryImpl(), loaded));
+    new SnapshotManagerImpl(snapshotables, new BinarySnapshotCodec(), new FileStorageWriter(),
+        basePath, 2, 2).loadSnapshot(delta);
+    Assertions.assertEquals(List.of(2L, 3L), loaded.orders.stream().map(Order::getOrderId).toList(),
+        "orders of delta should replace orders of base");
+  }
+
   @Test
   public void getSymbolsTest() {
     List<Snapshotable> snapshotables = new ArrayList<>();
     ObjectConverter converter = new JsonObjectConverter();
     StorageWriter storageWriter = new FileStorageWriter();
-    Snapshotable instrumentRepo = Mockito.mock(Snapshotable.class);
+    Snapshotable instrumentRepo = mockSnapshotable();
     snapshotables.add(instrumentRepo);
     SnapshotManager snapshotManager = new SnapshotManagerImpl(snapshotables, converter,
         storageWriter, BASE_PATH);
@@ -163,4 +318,79 @@ public class SnapshotManagerTest {
     Assertions.assertEquals(3, snapshotSymbols.size(), "symbols size should be 3");
     Assertions.assertEquals(symbols, snapshotSymbols, "symbols mismatch");
   }
+
+  /**
+   * Load snapshot into new snapshotables of the same types and compare them with given ones
+   */
+  private void assertLoaded(List<Snapshotable> expected, String basePath, String name) {
+    AccountRepositoryImpl accounts = new AccountRepositoryImpl();
+    List<Snapshotable> loaded = new ArrayList<>(List.of(accounts, new InstrumentRepositoryImpl()));
+    SnapshotManager snapshotManager = new SnapshotManagerImpl(loaded, new BinarySnapshotCodec(),
+        new FileStorageWriter(), basePath, 2, 2);
+    List<String> symbols = snapshotManager.getSymbols(name);
+    for (int i = 0; i < symbols.size() && i + 2 < expected.size(); i++) {
+      loaded.add(expected.get(i + 2) instanceof MapOrderBook ? new MapOrderBook(symbols.get(i))
+          : new OffHeapOrderBook(symbols.get(i), 2, 4));
+    }
+    snapshotManager.loadSnapshot(name);
+    Assertions.assertEquals(accountMap((AccountRepositoryImpl) expected.get(0)),
+        accountMap(accounts), "accounts mismatch: snapshot=" + name);
+    for (int i = 2; i < loaded.size(); i++) {
+      Assertions.assertEquals(expected.get(i).create().getData(), loaded.get(i).create().getData(),
+          "orders mismatch: snapshot=" + name + ", symbol=" + symbols.get(i - 2));
+    }
+  }
+
+  private static Map<Integer, Account> accountMap(AccountRepositoryImpl accounts) {
+    return accounts.getAllAccounts().stream()
+        .collect(Collectors.toMap(Account::getAccountId, Function.identity()));
+  }
+
+  private static long size(String basePath, String name) throws IOException {
+    return Files.size(Path.of(basePath, name));
+  }
+
+  private static Order order(String symbol, long orderId, OrderSide side, int price) {
+    Order order = MockData.getLimitBuy();
+    order.setSymbol(symbol);
+    order.setOrderId(orderId);
+    order.setSide(side);
+    order.setPrice(BigDecimal.valueOf(price));
+    order.setLeavesQty(order.getOrderQty());
+    return order;
+  }
+
+  /**
+   * Order book which doesn't track changed levels, so it has default delta of all records
+   */
+  private static class OrderListSnapshotable implements Snapshotable {
+
+    private final List<Order> orders = new ArrayList<>();
+
+    @Override
+    public SnapshotType getType() {
+      return SnapshotType.ORDER_BOOK;
+    }
+
+    @Override
+    public SnapshotItem create() {
+      SnapshotItem item = new SnapshotItem();
+      item.setType(getType());
+      item.setData(new ArrayList<>(orders));
+      return item;
+    }
+
+    @Override
+    public void load(SnapshotItem data) {
+      orders.addAll((List<Order>) data.getData());
+    }
+  }
+
+  /**
+   * Record methods aren't mocked, so they stream records of mocked create() and pass them to
+   * mocked load()
+   */
+  private Snapshotable mockSnapshotable() {
+    return Mockito.mock(Snapshotable.class, Mockito.CALLS_REAL_METHODS);
+  }
 }
@@ -1,10 +1,16 @@
 package com.exchange.core.matching.snapshot.storage;
 
 import com.exchange.core.TestUtils;
+import com.exchange.core.exceptions.AppException;
 import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeAll;
@@ -69,4 +75,52 @@ public class StorageWriterTest {
     Assertions.assertEquals(lastFileContent, storageWriter.read(BASE_PATH + "/" + lastFileName),
         "last file content mismatch");
   }
+
+  @Test
+  public void streamTest() {
+    String filepath = BASE_PATH + "/streamFile";
+    storageWriter.write(filepath, channel -> {
+      try {
+        for (int i = 0; i < 10; i++) {
+          channel.write(ByteBuffer.wrap(("chunk_" + i).getBytes(StandardCharsets.UTF_8)));
+        }
+      } catch (IOException ex) {
+        throw new UncheckedIOException(ex);
+      }
+    });
+    ByteArrayOutputStream read = new ByteArrayOutputStream();
+    storageWriter.read(filepath, channel -> {
+      try {
+        Channels.newInputStream(channel).transferTo(read);
+      } catch (IOException ex) {
+        throw new UncheckedIOException(ex);
+      }
+    });
+    StringBuilder expected = new StringBuilder();
+    for (int i = 0; i < 10; i++) {
+      expected.append("chunk_").append(i);
+    }
+    Assertions.assertEquals(expected.toString(), read.toString(StandardCharsets.UTF_8),
+        "file content mismatch");
+  }
+
+  @Test
+  public void failedStreamTest() throws InterruptedException, IOException {
+    String filepath = BASE_PATH + "/failedStreamFile";
+    storageWriter.write(BASE_PATH + "/completeFile", "content");
+    Thread.sleep(100);
+    Assertions.assertThrows(AppException.class, () -> storageWriter.write(filepath, channel -> {
+      try {
+        channel.write(ByteBuffer.wrap("partial".getBytes(StandardCharsets.UTF_8)));
+      } catch (IOException ex) {
+        throw new UncheckedIOException(ex);
+      }
+      throw new AppException("Writer failed");
+    }));
+    Assertions.assertFalse(new File(filepath).exists(), "incomplete file shouldn't be visible");
+    // left by process which crashed while writing
+    Assertions.assertTrue(new File(filepath + ".tmp").createNewFile());
+    Assertions.assertEquals("completeFile", storageWriter.getLastModifiedFilename(BASE_PATH),
+        "incomplete file shouldn't be picked as last");
+  }
 }
@@ -17,4 +17,64 @@ public class WaitStrategyTest {
     // ideally since idle is 1ms, 1000-loop shouldn't be than 2000 combined, yet if we hit this problem we can increase it to 3000
     Assertions.assertTrue(diff < 2000, "waiting should be more then 2000 ms: diff=" + diff);
   }
+
+  @Test
+  public void backoffWaitStrategyTest() {
+    WaitStrategy waitStrategy = new BackoffWaitStrategy(10, 10, 10, 20_000_000, 40_000_000);
+    long time = System.nanoTime();
+    for (int i = 0; i < 30; i++) {
+      waitStrategy.idle();
+    }
+    long diff = System.nanoTime() - time;
+    Assertions.assertTrue(diff < 20_000_000, "spin/yield shouldn't park: diff=" + diff);
+    // park 20ms, 40ms, 40ms, 40ms
+    time = System.nanoTime();
+    for (int i = 0; i < 4; i++) {
+      waitStrategy.idle();
+    }
+    diff = System.nanoTime() - time;
+    Assertions.assertTrue(diff >= 140_000_000, "park should grow up to max: diff=" + diff);
+    // after reset strategy spins again
+    waitStrategy.reset();
+    time = System.nanoTime();
+    for (int i = 0; i < 30; i++) {
+      waitStrategy.idle();
+    }
+    diff = System.nanoTime() - time;
+    Assertions.assertTrue(diff < 20_000_000, "reset should start from spin: diff=" + diff);
+  }
+
+  @Test
+  public void blockingWaitStrategyTest() throws InterruptedException {
+    final long timeout = 5_000_000_000L;
+    WaitStrategy waitStrategy = new BlockingWaitStrategy(timeout);
+    // signal before idle is not lost
+    waitStrategy.signal();
+    long time = System.nanoTime();
+    waitStrategy.idle();
+    Assertions.assertTrue(System.nanoTime() - time < timeout, "idle should return at once");
+
+    // signal from another thread wakes up waiting thread
+    Thread producer = new Thread(() -> {
+      try {
+        Thread.sleep(50);
+      } catch (InterruptedException ex) {
+        throw new RuntimeException(ex);
+      }
+      waitStrategy.signal();
+    });
+    time = System.nanoTime();
+    producer.start();
+    waitStrategy.idle();
+    long diff = System.nanoTime() - time;
+    producer.join();
+    Assertions.assertTrue(diff < timeout, "signal should wake up consumer: diff=" + diff);
+
+    // without signal idle waits for timeout
+    WaitStrategy shortWait = new BlockingWaitStrategy(10_000_000);
+    time = System.nanoTime();
+    shortWait.idle();
+    diff = System.nanoTime() - time;
+    Assertions.assertTrue(diff >= 10_000_000, "idle should wait for timeout: diff=" + diff);
+  }
 }
@@ -0,0 +1,126 @@
+package com.exchange.core.pool;
+
+import com.exchange.core.model.enums.OrderSide;
+import com.exchange.core.model.msg.Order;
+import java.math.BigDecimal;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class ObjectPoolTest {
+
+  @Test
+  public void simplePoolReuseTest() {
+    ObjectPool<Order> pool = new SimpleObjectPool<>(Order::new, 2);
+    Order order = pool.acquire();
+    Assertions.assertEquals(0, pool.size());
+    order.setOrderId(1);
+    order.setSide(OrderSide.BUY);
+    order.setPrice(new BigDecimal("100"));
+    order.setScaledLeavesQty(10);
+    order.release();
+    Assertions.assertEquals(1, pool.size());
+
+    Order reused = pool.acquire();
+    Assertions.assertSame(order, reused, "released object should be reused");
+    Assertions.assertEquals(0, reused.getOrderId(), "orderId should be reset");
+    Assertions.assertNull(reused.getSide(), "side should be reset");
+    Assertions.assertNull(reused.getPrice(), "price should be reset");
+    Assertions.assertEquals(0, reused.getScaledLeavesQty(), "scaledLeavesQty should be reset");
+    Assertions.assertEquals(0, pool.size());
+  }
+
+  @Test
+  public void simplePoolOverflowTest() {
+    ObjectPool<Order> pool = new SimpleObjectPool<>(Order::new, 2);
+    Order o1 = pool.acquire();
+    Order o2 = pool.acquire();
+    Order o3 = pool.acquire();
+    o1.release();
+    o2.release();
+    o3.release();
+    Assertions.assertEquals(2, pool.size(), "pool shouldn't grow above capacity");
+    Assertions.assertSame(o2, pool.acquire());
+    Assertions.assertSame(o1, pool.acquire());
+    Assertions.assertNotSame(o3, pool.acquire(), "dropped object shouldn't be returned");
+  }
+
+  @Test
+  public void doubleReleaseTest() {
+    ObjectPool<Order> pool = new SimpleObjectPool<>(Order::new, 2);
+    Order order = pool.acquire();
+    order.release();
+    order.release();
+    Assertions.assertEquals(1, pool.size(), "second release should be ignored");
+    Assertions.assertSame(order, pool.acquire());
+    Assertions.assertNotSame(order, pool.acquire(), "object shouldn't be acquired twice");
+    order.setOrderId(1);
+    order.release();
+    Assertions.assertEquals(1, pool.size(), "reacquired object should be released again");
+  }
+
+  @Test
+  public void releaseWithoutPoolTest() {
+    Order order = new Order();
+    order.setOrderId(1);
+    order.release();
+    Assertions.assertEquals(1, order.getOrderId(), "order without pool shouldn't be reset");
+  }
+
+  @Test
+  public void spscPoolCapacityTest() {
+    ObjectPool<Order> pool = new SpscObjectPool<>(Order::new, 3);
+    Order[] orders = new Order[5];
+    for (int i = 0; i < orders.length; i++) {
+      orders[i] = pool.acquire();
+    }
+    for (Order order : orders) {
+      order.release();
+    }
+    Assertions.assertEquals(4, pool.size(), "capacity should be rounded up to power of 2");
+    for (int i = 0; i < 4; i++) {
+      Assertions.assertSame(orders[i], pool.acquire(), "objects should be reused in FIFO order");
+    }
+    Assertions.assertEquals(0, pool.size());
+  }
+
+  @Test
+  public void spscPoolConcurrentTest() throws InterruptedException {
+    final int count = 200_000;
+    ObjectPool<Order> pool = new SpscObjectPool<>(Order::new, 1024);
+    Order[] transfer = new Order[1024];
+    AtomicInteger published = new AtomicInteger();
+    AtomicInteger consumed = new AtomicInteger();
+    AtomicInteger mismatch = new AtomicInteger();
+    // releasing thread takes objects from transfer ring and returns them into the pool
+    Thread releaser = new Thread(() -> {
+      for (int i = 0; i < count; i++) {
+        while (consumed.get() == published.get()) {
+          Thread.onSpinWait();
+        }
+        int index = i & (transfer.length - 1);
+        Order order = transfer[index];
+        transfer[index] = null;
+        consumed.lazySet(i + 1);
+        if (order.getOrderId() != i) {
+          mismatch.incrementAndGet();
+        }
+        order.release();
+      }
+    });
+    releaser.start();
+    for (int i = 0; i < count; i++) {
+      while (i - consumed.get() == transfer.length) {
+        Thread.onSpinWait();
+      }
+      Order order = pool.acquire();
+      Assertions.assertEquals(0, order.getOrderId(), "acquired order should be reset");
+      order.setOrderId(i);
+      transfer[i & (transfer.length - 1)] = order;
+      published.lazySet(i + 1);
+    }
+    releaser.join();
+    Assertions.assertEquals(0, mismatch.get(), "released orders should keep order of transfer");
+    Assertions.assertTrue(pool.size() <= 1024, "pool shouldn't grow above capacity");
+  }
+}
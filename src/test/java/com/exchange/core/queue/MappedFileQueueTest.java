@@ -0,0 +1,127 @@
+package com.exchange.core.queue;
+
+import com.exchange.core.MockData;
+import com.exchange.core.exceptions.AppException;
+import com.exchange.core.matching.engine.MatchingEngine;
+import com.exchange.core.matching.engine.MatchingEngineConfig;
+import com.exchange.core.matching.engine.SpotMatchingEngine;
+import com.exchange.core.model.enums.OrderStatus;
+import com.exchange.core.model.msg.ExecutionReport;
+import com.exchange.core.model.msg.Message;
+import com.exchange.core.model.msg.Order;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class MappedFileQueueTest {
+
+  @TempDir
+  Path dir;
+
+  @Test
+  public void capacityTest() {
+    Path file = dir.resolve("queue");
+    Assertions.assertThrows(AppException.class, () -> new MappedFileQueue(file, 1000));
+    Assertions.assertEquals(1024, new MappedFileQueue(file, 1024).capacity());
+    Assertions.assertThrows(AppException.class, () -> new MappedFileQueue(file, 2048),
+        "file was created with other capacity");
+  }
+
+  @Test
+  public void offerPollTest() {
+    // every order record takes 120 bytes, so ring has space for 2 and wraps with padding
+    Queue<Message> queue = new MappedFileQueue(dir.resolve("queue"), 256);
+    Assertions.assertTrue(queue.isEmpty());
+    Assertions.assertNull(queue.poll());
+    Assertions.assertNull(queue.peek());
+    for (long i = 0; i < 10; i++) {
+      Assertions.assertTrue(queue.offer(order(i * 2)));
+      Assertions.assertTrue(queue.offer(order(i * 2 + 1)));
+      Assertions.assertFalse(queue.offer(order(-1)), "queue should be full");
+      Assertions.assertEquals(2, queue.size());
+      Assertions.assertEquals(i * 2, ((Order) queue.peek()).getOrderId());
+      Assertions.assertEquals(order(i * 2), queue.poll());
+      Assertions.assertEquals(order(i * 2 + 1), queue.poll());
+      Assertions.assertNull(queue.poll());
+      Assertions.assertTrue(queue.isEmpty());
+    }
+    Assertions.assertThrows(NullPointerException.class, () -> queue.offer(null));
+    Assertions.assertThrows(UnsupportedOperationException.class, queue::iterator);
+  }
+
+  /**
+   * Producers and consumer open the file separately, like different processes
+   */
+  @Test
+  public void mpscOrderTest() throws InterruptedException {
+    final int producers = 2;
+    final int count = 100_000;
+    Path file = dir.resolve("queue");
+    Queue<Message> consumer = new MappedFileQueue(file, 1 << 14, true);
+    List<Thread> threads = new ArrayList<>();
+    for (int p = 0; p < producers; p++) {
+      final int producer = p;
+      Queue<Message> queue = new MappedFileQueue(file, 1 << 14);
+      Thread thread = new Thread(() -> {
+        for (int i = 0; i < count; i++) {
+          Order order = order(i);
+          order.setAccount(producer);
+          queue.add(order);
+        }
+      });
+      thread.start();
+      threads.add(thread);
+    }
+    // every producer's messages should come in the order they were sent
+    long[] expected = new long[producers];
+    for (int i = 0; i < producers * count; ) {
+      Message msg = consumer.poll();
+      if (msg instanceof Order order) {
+        Assertions.assertEquals(expected[order.getAccount()]++, order.getOrderId());
+        order.release();
+        i++;
+      }
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    Assertions.assertNull(consumer.poll());
+  }
+
+  @Test
+  public void matchingEngineTest() {
+    Queue<Message> inbound = new MappedFileQueue(dir.resolve("inbound"), 1 << 16, true);
+    Queue<Message> outbound = new MappedFileQueue(dir.resolve("outbound"), 1 << 16, true);
+    MatchingEngine me = new SpotMatchingEngine(inbound, outbound, new MatchingEngineConfig());
+    me.start();
+    // gateway side opens the same files
+    Queue<Message> gatewayIn = new MappedFileQueue(dir.resolve("inbound"), 1 << 16);
+    gatewayIn.add(MockData.getInstrument());
+    gatewayIn.add(MockData.getUser(MockData.QUOTE));
+    Order buy = MockData.getLimitBuy();
+    buy.setClOrdId("buy_1");
+    gatewayIn.add(buy);
+
+    long deadline = System.currentTimeMillis() + 5_000;
+    Message msg = null;
+    while (!(msg instanceof ExecutionReport) && System.currentTimeMillis() < deadline) {
+      msg = outbound.poll();
+    }
+    ExecutionReport exec = (ExecutionReport) msg;
+    Assertions.assertNotNull(exec, "execution report not received");
+    Assertions.assertEquals(OrderStatus.NEW, exec.getStatus());
+    Assertions.assertEquals("buy_1", exec.getClOrdId());
+    Assertions.assertEquals(1, exec.getOrderId());
+    exec.release();
+  }
+
+  private static Order order(long orderId) {
+    Order order = MockData.getLimitBuy();
+    order.setOrderId(orderId);
+    return order;
+  }
+}
@@ -0,0 +1,107 @@
+package com.exchange.core.queue;
+
+import com.exchange.core.exceptions.AppException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+public class RingBufferQueueTest {
+
+  private static Stream<Arguments> getQueues() {
+    return Stream.of(
+        Arguments.of(new SpscRingBufferQueue<Long>(4)),
+        Arguments.of(new MpscRingBufferQueue<Long>(4))
+    );
+  }
+
+  @Test
+  public void capacityTest() {
+    Assertions.assertThrows(AppException.class, () -> new SpscRingBufferQueue<Long>(3));
+    Assertions.assertThrows(AppException.class, () -> new MpscRingBufferQueue<Long>(0));
+    Assertions.assertEquals(8, new MpscRingBufferQueue<Long>(8).capacity());
+  }
+
+  @ParameterizedTest
+  @MethodSource("getQueues")
+  public void offerPollTest(RingBufferQueue<Long> queue) {
+    Assertions.assertTrue(queue.isEmpty());
+    Assertions.assertNull(queue.poll());
+    Assertions.assertNull(queue.peek());
+    // go around buffer several times
+    for (long i = 0; i < 10; i++) {
+      for (long j = 0; j < 4; j++) {
+        Assertions.assertTrue(queue.offer(i * 4 + j));
+      }
+      Assertions.assertFalse(queue.offer(-1L), "queue should be full");
+      Assertions.assertEquals(4, queue.size());
+      Assertions.assertEquals(i * 4, queue.peek());
+      for (long j = 0; j < 4; j++) {
+        Assertions.assertEquals(i * 4 + j, queue.poll());
+      }
+      Assertions.assertNull(queue.poll());
+      Assertions.assertTrue(queue.isEmpty());
+    }
+    Assertions.assertThrows(NullPointerException.class, () -> queue.offer(null));
+    Assertions.assertThrows(UnsupportedOperationException.class, queue::iterator);
+  }
+
+  @Test
+  public void spscOrderTest() throws InterruptedException {
+    final int count = 1_000_000;
+    Queue<Integer> queue = new SpscRingBufferQueue<>(1024);
+    Thread producer = new Thread(() -> {
+      for (int i = 0; i < count; i++) {
+        queue.add(i);
+      }
+    });
+    producer.start();
+    for (int i = 0; i < count; ) {
+      Integer value = queue.poll();
+      if (value != null) {
+        Assertions.assertEquals(i++, value);
+      }
+    }
+    producer.join();
+    Assertions.assertNull(queue.poll());
+  }
+
+  @Test
+  public void mpscOrderTest() throws InterruptedException {
+    final int producers = 4;
+    final int count = 250_000;
+    Queue<long[]> queue = new MpscRingBufferQueue<>(1024);
+    List<Thread> threads = new ArrayList<>();
+    for (int p = 0; p < producers; p++) {
+      final int producer = p;
+      Thread thread = new Thread(() -> {
+        for (int i = 0; i < count; i++) {
+          queue.add(new long[]{producer, i});
+        }
+      });
+      thread.start();
+      threads.add(thread);
+    }
+    // every producer's messages should come in the order they were sent
+    long[] expected = new long[producers];
+    for (int i = 0; i < producers * count; ) {
+      long[] value = queue.poll();
+      if (value != null) {
+        Assertions.assertEquals(expected[(int) value[0]]++, value[1]);
+        i++;
+      }
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    Assertions.assertNull(queue.poll());
+    for (long received : expected) {
+      Assertions.assertEquals(count, received);
+    }
+  }
+}
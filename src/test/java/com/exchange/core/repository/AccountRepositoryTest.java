@@ -4,6 +4,8 @@ import com.exchange.core.model.msg.UserBalance;
 import com.exchange.core.user.Account;
 import com.exchange.core.user.Position;
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
@@ -34,4 +36,46 @@ public class AccountRepositoryTest {
 
     Assertions.assertEquals(1, repository.getAllAccounts().size());
   }
+
+  @Test
+  public void changedRecordTest() {
+    AccountRepositoryImpl repository = new AccountRepositoryImpl();
+    for (int i = 1; i <= 3; i++) {
+      Account account = new Account(i);
+      account.getPositions().put("BTC", new Position("BTC", 100, 0, 0));
+      account.getPositions().put("USDT", new Position("USDT", 100, 0, 0));
+      repository.loadRecord(account);
+    }
+    List<Object> changed = new ArrayList<>();
+    repository.forEachChangedRecord(changed::add);
+    Assertions.assertEquals(List.of(), changed, "loaded positions aren't changed");
+
+    repository.getAccountPosition(2, "USDT").lock(new BigDecimal("10"));
+    repository.forEachChangedRecord(changed::add);
+    Assertions.assertEquals(1, changed.size(), "only account with changed position expected");
+    Account account = (Account) changed.get(0);
+    Assertions.assertEquals(2, account.getAccountId());
+    Assertions.assertEquals(List.of("USDT"), List.copyOf(account.getPositions().keySet()));
+
+    // position created on first use is changed too
+    changed.clear();
+    repository.getAccountPosition(3, "ETH");
+    repository.forEachChangedRecord(changed::add);
+    Assertions.assertEquals(1, changed.size(), "account with new position expected");
+    Assertions.assertEquals(List.of("ETH"),
+        List.copyOf(((Account) changed.get(0)).getPositions().keySet()));
+
+    changed.clear();
+    repository.forEachChangedRecord(changed::add);
+    Assertions.assertEquals(List.of(), changed, "changes should be reset");
+
+    // account of delta snapshot brings only its changed positions
+    Account delta = new Account(1);
+    delta.getPositions().put("BTC", new Position("BTC", 50, 50, 0));
+    repository.loadRecord(delta);
+    Assertions.assertEquals(new BigDecimal("50"),
+        repository.getAccountPosition(1, "BTC").getLocked());
+    Assertions.assertEquals(new BigDecimal("100"),
+        repository.getAccountPosition(1, "USDT").getBalance());
+  }
 }
@@ -73,4 +73,115 @@ public class SpotPositionTest {
     Assertions.assertEquals(freeLock.getMessage(),
         "Failed to free more than locked: amount=200, locked=0");
   }
-}
\ No newline at end of file
+
+  @Test
+  public void scaledBalanceTest() {
+    Position position = new Position("USDT", new BigDecimal("1000"));
+    // lock 250.5 with scale 2
+    Assertions.assertTrue(position.isAvailable(25050, 2), "should be enough balance");
+    Assertions.assertFalse(position.isAvailable(100001, 2), "should not be enough balance");
+    position.lock(25050, 2);
+    Assertions.assertEquals(new BigDecimal("749.50"), position.getBalance(), "balance mismatch");
+    Assertions.assertEquals(new BigDecimal("250.50"), position.getLocked(), "locked mismatch");
+    position.freeLocked(5, 1);
+    position.unlock(25000, 2);
+    position.add(1, 0);
+    Assertions.assertEquals(new BigDecimal("1000.50"), position.getBalance(), "balance mismatch");
+    Assertions.assertEquals(new BigDecimal("0.00"), position.getLocked(), "locked mismatch");
+    Assertions.assertEquals(new BigDecimal("1000.50"), position.getTotalBalance(),
+        "totalBalance mismatch");
+
+    AppException lock = Assertions.assertThrows(AppException.class,
+        () -> position.lock(100051, 2), "Exception should be thrown");
+    Assertions.assertEquals("Failed to lock more than available: amount=1000.51, balance=1000.50",
+        lock.getMessage());
+  }
+
+  @Test
+  public void decimalScaleTest() {
+    Position position = new Position("BTC");
+    position.add(new BigDecimal("1.5"));
+    position.add(new BigDecimal("0.25"));
+    Assertions.assertEquals(new BigDecimal("1.5").add(new BigDecimal("0.25")),
+        position.getBalance(), "balance should have same scale as BigDecimal arithmetic");
+    position.setLocked(new BigDecimal("0.125"));
+    Assertions.assertEquals(new BigDecimal("1.75"), position.getBalance(), "balance mismatch");
+    Assertions.assertEquals(new BigDecimal("0.125"), position.getLocked(), "locked mismatch");
+  }
+
+  @Test
+  public void mixedScaleTest() {
+    Position position = new Position("USDT", new BigDecimal("1000000000"));
+    position.add(new BigDecimal("0.0000000001"));
+    position.add(new BigDecimal("0.1234567890123456789"));
+    Assertions.assertEquals(new BigDecimal("1000000000.1234567891123456789"),
+        position.getBalance(), "balance mismatch");
+
+    // amount with more digits than fixed-point scale moves position back to BigDecimal
+    Position scaled = new Position("USDT", new BigDecimal("1000"));
+    scaled.lock(25050, 2);
+    scaled.add(new BigDecimal("0.001"));
+    Assertions.assertEquals(new BigDecimal("749.501"), scaled.getBalance(), "balance mismatch");
+    scaled.freeLocked(50, 2);
+    scaled.unlock(25000, 2);
+    Assertions.assertEquals(new BigDecimal("999.501"), scaled.getBalance(), "balance mismatch");
+    Assertions.assertEquals(new BigDecimal("0.00"), scaled.getLocked(), "locked mismatch");
+  }
+
+  @Test
+  public void largeBalanceTest() {
+    BigDecimal large = new BigDecimal("1E+20");
+    Position position = new Position("BTC", large);
+    position.lock(new BigDecimal("1E+19"));
+    Assertions.assertEquals(new BigDecimal("9E+19"), position.getBalance(), "balance mismatch");
+    Assertions.assertEquals(0, large.compareTo(position.getTotalBalance()),
+        "totalBalance mismatch");
+    // doesn't fit into scaled long, so fixed-point amounts are applied to BigDecimal
+    position.add(5, 1);
+    position.freeLocked(10, 0);
+    Assertions.assertEquals(new BigDecimal("90000000000000000000.5"), position.getBalance(),
+        "balance mismatch");
+    Assertions.assertEquals(new BigDecimal("9999999999999999990"), position.getLocked(),
+        "locked mismatch");
+
+    Position scaled = new Position("USDT", new BigDecimal("90000000000"));
+    scaled.add(1, 8);
+    scaled.add(90000000000L, 0);
+    Assertions.assertEquals(new BigDecimal("180000000000.00000001"), scaled.getBalance(),
+        "balance should overflow scaled long into BigDecimal");
+  }
+
+  @Test
+  public void rescaleOverflowTest() {
+    Position position = new Position("USDT");
+    position.add(100, 2);
+    // amount with scale 0 overflows long when rescaled to position scale 2
+    final long amount = Long.MAX_VALUE / 10;
+    Assertions.assertFalse(position.isAvailable(amount, 0), "balance shouldn't be available");
+    AppException lock = Assertions.assertThrows(AppException.class,
+        () -> position.lock(amount, 0));
+    Assertions.assertTrue(lock.getMessage().startsWith("Failed to lock more than available"),
+        "error text mismatch: " + lock.getMessage());
+    AppException unlock = Assertions.assertThrows(AppException.class,
+        () -> position.unlock(amount, 0));
+    Assertions.assertTrue(unlock.getMessage().startsWith("Failed to unlock more than locked"),
+        "error text mismatch: " + unlock.getMessage());
+    AppException freeLock = Assertions.assertThrows(AppException.class,
+        () -> position.freeLocked(amount, 0));
+    Assertions.assertTrue(freeLock.getMessage().startsWith("Failed to free more than locked"),
+        "error text mismatch: " + freeLock.getMessage());
+
+    position.add(100, 2);
+    position.add(amount, 0);
+    position.lock(100, 2);
+    Assertions.assertTrue(position.isAvailable(amount, 0), "balance should be available");
+    position.lock(amount, 0);
+    position.unlock(amount, 0);
+    position.lock(amount, 0);
+    position.freeLocked(amount, 0);
+    Assertions.assertEquals(0, new BigDecimal("1.00").compareTo(position.getBalance()),
+        "balance mismatch: " + position.getBalance());
+    Assertions.assertEquals(0, new BigDecimal("1.00").compareTo(position.getLocked()),
+        "locked mismatch: " + position.getLocked());
+  }
+}
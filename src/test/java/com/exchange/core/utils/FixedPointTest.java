@@ -0,0 +1,56 @@
+package com.exchange.core.utils;
+
+import com.exchange.core.exceptions.AppException;
+import java.math.BigDecimal;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class FixedPointTest {
+
+  @Test
+  public void toLongTest() {
+    Assertions.assertEquals(12500, FixedPoint.toLong(new BigDecimal("1.25"), 4), "value mismatch");
+    Assertions.assertEquals(100, FixedPoint.toLong(new BigDecimal("100"), 0), "value mismatch");
+    Assertions.assertEquals(0, FixedPoint.toLong(null, 2), "null should be 0");
+    Assertions.assertThrows(AppException.class,
+        () -> FixedPoint.toLong(new BigDecimal("1.255"), 2), "Exception should be thrown");
+  }
+
+  /**
+   * Short values are restored from double, long ones go through BigDecimal, result is the same
+   */
+  @Test
+  public void toLongPrecisionTest() {
+    Assertions.assertEquals(125, FixedPoint.toLong(new BigDecimal("1.2500"), 2), "value mismatch");
+    Assertions.assertEquals(-50, FixedPoint.toLong(new BigDecimal("-0.5"), 2), "value mismatch");
+    Assertions.assertEquals(999_999_999_999_999L,
+        FixedPoint.toLong(new BigDecimal("9999999.99999999"), 8), "value mismatch");
+    Assertions.assertEquals(12_345_678_901_234_567L,
+        FixedPoint.toLong(new BigDecimal("1234567890.1234567"), 7), "value mismatch");
+    Assertions.assertEquals(Long.MAX_VALUE,
+        FixedPoint.toLong(new BigDecimal("92233720368.54775807"), 8), "value mismatch");
+    Assertions.assertThrows(AppException.class,
+        () -> FixedPoint.toLong(new BigDecimal("92233720368.54775808"), 8),
+        "Exception should be thrown");
+    Assertions.assertThrows(AppException.class,
+        () -> FixedPoint.toLong(new BigDecimal("100000.25"), 16), "Exception should be thrown");
+  }
+
+  @Test
+  public void toBigDecimalTest() {
+    Assertions.assertEquals(0, new BigDecimal("1.25").compareTo(FixedPoint.toBigDecimal(12500, 4)),
+        "value mismatch");
+    Assertions.assertEquals(new BigDecimal("100"), FixedPoint.toBigDecimal(100, 0),
+        "value mismatch");
+  }
+
+  @Test
+  public void rescaleTest() {
+    Assertions.assertEquals(1200, FixedPoint.rescale(12, 1, 3), "value mismatch");
+    Assertions.assertEquals(12, FixedPoint.rescale(12, 2, 2), "value mismatch");
+    Assertions.assertThrows(AppException.class, () -> FixedPoint.rescale(12, 3, 1),
+        "Exception should be thrown");
+    Assertions.assertThrows(AppException.class, () -> FixedPoint.rescale(Long.MAX_VALUE, 0, 1),
+        "Exception should be thrown");
+  }
+}
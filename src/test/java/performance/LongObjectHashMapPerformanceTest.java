@@ -0,0 +1,80 @@
+package performance;
+
+import com.exchange.core.MockData;
+import com.exchange.core.matching.orderbook.map.LongObjectHashMap;
+import com.exchange.core.matching.orderbook.map.LongObjectMap;
+import com.exchange.core.model.msg.Order;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare orderId index used by order books: HashMap<Long, Order> vs LongObjectHashMap<Order>
+ * Map is prefilled with resting orders, each operation adds new order, removes the oldest one
+ * (filled/cancelled) and looks up random resting order, so map size stays the same
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Fork(value = 2, jvmArgs = {"-Xms4G", "-Xmx4G"})
+@Warmup(iterations = 5, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class LongObjectHashMapPerformanceTest {
+
+  @Param({"1000000", "10000000"})
+  private int size;
+
+  private Map<Long, Order> hashMap;
+  private LongObjectMap<Order> longObjectMap;
+  private Order order;
+  private Random random;
+  private long hashMapNextId;
+  private long longObjectMapNextId;
+
+  public static void main(String[] args) throws RunnerException {
+    Options opt = new OptionsBuilder()
+        .include(LongObjectHashMapPerformanceTest.class.getSimpleName())
+        .forks(1)
+        .build();
+    new Runner(opt).run();
+  }
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    // same Order for all entries, we measure index itself, not Order allocation
+    order = MockData.getLimitBuy();
+    random = new Random(42);
+    hashMap = new HashMap<>();
+    longObjectMap = new LongObjectHashMap<>();
+    for (long i = 0; i < size; i++) {
+      hashMap.put(i, order);
+      longObjectMap.put(i, order);
+    }
+    hashMapNextId = size;
+    longObjectMapNextId = size;
+  }
+
+  @Benchmark
+  public void measureHashMap(Blackhole blackhole) {
+    long id = hashMapNextId++;
+    hashMap.put(id, order);
+    blackhole.consume(hashMap.remove(id - size));
+    blackhole.consume(hashMap.get(id - random.nextInt(size)));
+  }
+
+  @Benchmark
+  public void measureLongObjectHashMap(Blackhole blackhole) {
+    long id = longObjectMapNextId++;
+    longObjectMap.put(id, order);
+    blackhole.consume(longObjectMap.remove(id - size));
+    blackhole.consume(longObjectMap.get(id - random.nextInt(size)));
+  }
+}
@@ -0,0 +1,124 @@
+package performance;
+
+import com.exchange.core.MockData;
+import com.exchange.core.matching.engine.MatchingEngine;
+import com.exchange.core.matching.engine.MatchingEngineConfig;
+import com.exchange.core.matching.engine.SpotMatchingEngine;
+import com.exchange.core.matching.waitstrategy.YieldingWaitStrategy;
+import com.exchange.core.model.enums.OrderStatus;
+import com.exchange.core.model.msg.ExecutionReport;
+import com.exchange.core.model.msg.InstrumentConfig;
+import com.exchange.core.model.msg.Message;
+import com.exchange.core.model.msg.Order;
+import com.exchange.core.model.msg.UserBalance;
+import com.exchange.core.queue.MappedFileQueue;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * End-to-end latency between two processes on one host: this JVM is gateway, engine runs in child
+ * JVM (see main), they exchange messages through memory-mapped inbound/outbound files
+ * Gateway sends order and waits for its NEW execution report, so latency is round trip through
+ * both queues and matching, without time spent behind other orders
+ * Wake up can't be signalled across processes, so both sides poll with yielding
+ */
+public class MappedFileQueueLatencyTest {
+
+  private static final int QUEUE_CAPACITY = 1 << 20;
+
+  /**
+   * Engine process: args are inbound and outbound files
+   */
+  public static void main(String[] args) {
+    // don't outlive gateway, if test is killed
+    ProcessHandle.current().parent()
+        .ifPresent(parent -> parent.onExit().thenRun(() -> System.exit(0)));
+    Queue<Message> inbound = new MappedFileQueue(Path.of(args[0]), QUEUE_CAPACITY, true);
+    Queue<Message> outbound = new MappedFileQueue(Path.of(args[1]), QUEUE_CAPACITY);
+    MatchingEngineConfig config = new MatchingEngineConfig();
+    config.setWaitStrategy(new YieldingWaitStrategy());
+    MatchingEngine me = new SpotMatchingEngine(inbound, outbound, config);
+    me.start();
+  }
+
+  @Test
+  public void ipcLatencyTest() throws IOException, InterruptedException {
+    final int warmup = 20_000;
+    final int size = 50_000;
+    System.out.println("ipcLatencyTest: size=" + size);
+    Path dir = Files.createTempDirectory("ipc");
+    Path inboundFile = dir.resolve("inbound");
+    Path outboundFile = dir.resolve("outbound");
+    Queue<Message> inbound = new MappedFileQueue(inboundFile, QUEUE_CAPACITY);
+    Queue<Message> outbound = new MappedFileQueue(outboundFile, QUEUE_CAPACITY, true);
+    String java = ProcessHandle.current().info().command().orElse("java");
+    Process engine = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+        MappedFileQueueLatencyTest.class.getName(), inboundFile.toString(),
+        outboundFile.toString())
+        .inheritIO()
+        .start();
+    try {
+      InstrumentConfig symbolMsg = new InstrumentConfig();
+      symbolMsg.setBase(MockData.BASE);
+      symbolMsg.setQuote(MockData.QUOTE);
+      symbolMsg.setSymbol(MockData.SYMBOL);
+      inbound.add(symbolMsg);
+      UserBalance userBalance1 = new UserBalance();
+      userBalance1.setAccount(1);
+      userBalance1.setAsset(MockData.QUOTE);
+      userBalance1.setAmount(new BigDecimal("1000000000000000"));
+      inbound.add(userBalance1);
+      UserBalance userBalance2 = new UserBalance();
+      userBalance2.setAccount(2);
+      userBalance2.setAsset(MockData.BASE);
+      userBalance2.setAmount(new BigDecimal("1000000000000000"));
+      inbound.add(userBalance2);
+
+      long[] latencies = new long[size];
+      for (int i = 0; i < warmup + size; i++) {
+        Order order = i % 2 == 0 ? RandomOrder.buyLimitUser1() : RandomOrder.sellLimitUser2();
+        order.setClOrdId("order_" + i);
+        long start = System.nanoTime();
+        inbound.add(order);
+        awaitNew(outbound, order.getClOrdId());
+        if (i >= warmup) {
+          latencies[i - warmup] = System.nanoTime() - start;
+        }
+      }
+      Arrays.sort(latencies);
+      System.out.println("ipc"
+          + ", p50=" + latencies[size / 2] / 1000 + "us"
+          + ", p99=" + latencies[(int) (size * .99)] / 1000 + "us"
+          + ", p99.9=" + latencies[(int) (size * .999)] / 1000 + "us");
+    } finally {
+      engine.destroy();
+      engine.waitFor(5, TimeUnit.SECONDS);
+    }
+  }
+
+  private static void awaitNew(Queue<Message> outbound, String clOrdId) {
+    long deadline = System.currentTimeMillis() + 5_000;
+    while (System.currentTimeMillis() < deadline) {
+      Message msg = outbound.poll();
+      if (msg == null) {
+        Thread.yield();
+        continue;
+      }
+      if (msg instanceof ExecutionReport exec) {
+        boolean found = exec.getStatus() == OrderStatus.NEW && clOrdId.equals(exec.getClOrdId());
+        exec.release();
+        if (found) {
+          return;
+        }
+      }
+    }
+    Assertions.fail("NEW execution report not received: clOrdId=" + clOrdId);
+  }
+}
@@ -1,21 +1,46 @@
 package performance;
 
 import com.exchange.core.MockData;
+import com.exchange.core.TestUtils;
 import com.exchange.core.matching.engine.MatchingEngine;
+import com.exchange.core.matching.engine.MatchingEngineConfig;
+import com.exchange.core.matching.engine.ShardedMatchingEngine;
 import com.exchange.core.matching.engine.SpotMatchingEngine;
+import com.exchange.core.matching.journal.FileJournal;
+import com.exchange.core.matching.journal.Journal;
+import com.exchange.core.matching.waitstrategy.BackoffWaitStrategy;
+import com.exchange.core.matching.waitstrategy.BlockingWaitStrategy;
+import com.exchange.core.matching.waitstrategy.BusySpinWaitStrategy;
+import com.exchange.core.matching.waitstrategy.SleepWaitStrategy;
+import com.exchange.core.matching.waitstrategy.WaitStrategy;
+import com.exchange.core.matching.waitstrategy.YieldingWaitStrategy;
 import com.exchange.core.model.enums.OrderBookType;
 import com.exchange.core.model.enums.OrderStatus;
+import com.exchange.core.model.msg.ErrorMessage;
 import com.exchange.core.model.msg.ExecutionReport;
 import com.exchange.core.model.msg.InstrumentConfig;
+import com.exchange.core.model.msg.MarketData;
+import com.exchange.core.model.msg.MarketDataUpdate;
 import com.exchange.core.model.msg.Message;
 import com.exchange.core.model.msg.Order;
+import com.exchange.core.model.msg.ReplaceOrder;
+import com.exchange.core.model.msg.SnapshotMessage;
 import com.exchange.core.model.msg.UserBalance;
+import com.exchange.core.queue.MpscRingBufferQueue;
+import com.exchange.core.queue.SpscRingBufferQueue;
+import java.io.File;
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.locks.LockSupport;
 import java.util.stream.Stream;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
@@ -28,10 +53,223 @@ public class MatchingEnginePerformanceTest {
     final int size = 500_000;
     return Stream.of(
         Arguments.of(size, OrderBookType.MAP),
-        Arguments.of(size, OrderBookType.ARRAY)
+        Arguments.of(size, OrderBookType.ARRAY),
+        Arguments.of(size, OrderBookType.IPQ),
+        Arguments.of(size, OrderBookType.BITMAP),
+        Arguments.of(size, OrderBookType.SLIDING_WINDOW)
     );
   }
 
+  private static Stream<Arguments> getQueueTypes() {
+    final int size = 500_000;
+    return Stream.of(
+        Arguments.of(size, "LINKED_BLOCKING"),
+        Arguments.of(size, "CONCURRENT_LINKED"),
+        Arguments.of(size, "RING_BUFFER")
+    );
+  }
+
+  /**
+   * @param singleProducer - choose SPSC ring buffer if only one thread writes into queue
+   */
+  private static <E> Queue<E> newQueue(String queueType, boolean singleProducer) {
+    return switch (queueType) {
+      case "LINKED_BLOCKING" -> new LinkedBlockingQueue<>();
+      case "CONCURRENT_LINKED" -> new ConcurrentLinkedQueue<>();
+      case "RING_BUFFER" -> singleProducer ? new SpscRingBufferQueue<>(1 << 16)
+          : new MpscRingBufferQueue<>(1 << 16);
+      default -> throw new IllegalArgumentException("Unknown queue type: " + queueType);
+    };
+  }
+
+  /**
+   * Pure queue throughput: 2 producers write into one queue, single consumer reads it
+   */
+  @ParameterizedTest
+  @MethodSource("getQueueTypes")
+  public void queueThroughputTest(int size, String queueType) throws InterruptedException {
+    final int producers = 2;
+    final int total = size * producers * 10;
+    final Order order = RandomOrder.buyLimitUser1();
+    Queue<Message> queue = newQueue(queueType, false);
+    List<Thread> threads = new ArrayList<>();
+    long start = System.nanoTime();
+    for (int p = 0; p < producers; p++) {
+      Thread thread = new Thread(() -> {
+        for (int i = 0; i < total / producers; i++) {
+          queue.add(order);
+        }
+      });
+      thread.start();
+      threads.add(thread);
+    }
+    int count = 0;
+    while (count < total) {
+      if (queue.poll() != null) {
+        count++;
+      }
+    }
+    long timeTaken = System.nanoTime() - start;
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    System.out.println("queueThroughputTest: queueType=" + queueType + ", messages=" + total
+        + ", time=" + timeTaken / 1_000_000 + "ms, TPS=" + (long) (total * 1e9 / timeTaken));
+  }
+
+  /**
+   * Matching engine TPS with different inbound/outbound queues, ring buffer outbound is SPSC, cause
+   * only matching thread writes into it
+   */
+  @ParameterizedTest
+  @MethodSource("getQueueTypes")
+  public void queueTpsTest(int queueSize, String queueType) throws InterruptedException {
+    System.out.println("queueTpsTest: queueType=" + queueType + ", size=" + queueSize);
+    Queue<Message> inbound = newQueue(queueType, false);
+    Queue<Message> outbound = newQueue(queueType, true);
+    runTps(queueSize, inbound, outbound,
+        new SpotMatchingEngine(inbound, outbound, OrderBookType.MAP, false));
+  }
+
+  private static Stream<Arguments> getBatchSizes() {
+    return Stream.of(
+        Arguments.of(1_000_000, 1),
+        Arguments.of(1_000_000, 16),
+        Arguments.of(1_000_000, 64),
+        Arguments.of(1_000_000, 256)
+    );
+  }
+
+  /**
+   * Engine TPS and amount of market data when inbound is drained in batches, market data of every
+   * batch is conflated into one update per symbol
+   */
+  @ParameterizedTest
+  @MethodSource("getBatchSizes")
+  public void batchTpsTest(int queueSize, int batchSize) throws InterruptedException {
+    System.out.println("batchTpsTest: batchSize=" + batchSize + ", size=" + queueSize);
+    Queue<Message> inbound = new MpscRingBufferQueue<>(1 << 16);
+    Queue<Message> outbound = new SpscRingBufferQueue<>(1 << 16);
+    MatchingEngineConfig config = new MatchingEngineConfig();
+    config.setBatchSize(batchSize);
+    runTps(queueSize, inbound, outbound, new SpotMatchingEngine(inbound, outbound, config));
+  }
+
+  private static Stream<Arguments> getJournalModes() {
+    return Stream.of(
+        Arguments.of(1_000_000, false),
+        Arguments.of(1_000_000, true)
+    );
+  }
+
+  /**
+   * Engine TPS with every inbound message appended to journal, which is flushed by group commit
+   */
+  @ParameterizedTest
+  @MethodSource("getJournalModes")
+  public void journalTpsTest(int queueSize, boolean journalEnabled)
+      throws InterruptedException, IOException {
+    System.out.println("journalTpsTest: journal=" + journalEnabled + ", size=" + queueSize);
+    Path dir = Files.createTempDirectory("journal");
+    Journal journal = journalEnabled ? new FileJournal(dir) : null;
+    Queue<Message> inbound = new MpscRingBufferQueue<>(1 << 16);
+    Queue<Message> outbound = new SpscRingBufferQueue<>(1 << 16);
+    MatchingEngineConfig config = new MatchingEngineConfig();
+    config.setJournal(journal);
+    runTps(queueSize, inbound, outbound, new SpotMatchingEngine(inbound, outbound, config));
+    if (journal != null) {
+      System.out.println("journal: lastSeq=" + journal.getLastSeq() + ", committedSeq="
+          + journal.getCommittedSeq());
+    }
+    TestUtils.deleteDirectory(dir.toFile());
+  }
+
+  private static Stream<Arguments> getSnapshotModes() {
+    return Stream.of(
+        Arguments.of(500_000, false),
+        Arguments.of(500_000, true)
+    );
+  }
+
+  /**
+   * How long matching thread is paused by snapshot: book is filled with resting orders, then
+   * SnapshotMessage is sent with probe order right after it, pause is round trip of probe minus
+   * round trip of the same probe without snapshot. Without journal snapshot is written by matching
+   * thread, with journal by replica on background thread
+   */
+  @ParameterizedTest
+  @MethodSource("getSnapshotModes")
+  public void snapshotPauseTest(int restingOrders, boolean journalEnabled)
+      throws InterruptedException, IOException {
+    System.out.println(
+        "snapshotPauseTest: journal=" + journalEnabled + ", restingOrders=" + restingOrders);
+    File baseDir = new File(System.getProperty("user.dir") + "/snapshots");
+    TestUtils.deleteDirectory(baseDir);
+    Path dir = Files.createTempDirectory("journal");
+    Journal journal = journalEnabled ? new FileJournal(dir) : null;
+    Queue<Message> inbound = new ConcurrentLinkedQueue<>();
+    Queue<Message> outbound = new ConcurrentLinkedQueue<>();
+    MatchingEngineConfig config = new MatchingEngineConfig();
+    config.setJournal(journal);
+    MatchingEngine me = new SpotMatchingEngine(inbound, outbound, config);
+    me.start();
+    InstrumentConfig symbolMsg = new InstrumentConfig();
+    symbolMsg.setBase(MockData.BASE);
+    symbolMsg.setQuote(MockData.QUOTE);
+    symbolMsg.setSymbol(MockData.SYMBOL);
+    inbound.add(symbolMsg);
+    UserBalance userBalance = new UserBalance();
+    userBalance.setAccount(1);
+    userBalance.setAsset(MockData.QUOTE);
+    userBalance.setAmount(new BigDecimal("1000000000000000"));
+    inbound.add(userBalance);
+    for (int i = 0; i < restingOrders; i++) {
+      Order buy = RandomOrder.buyLimitUser1();
+      buy.setClOrdId("buy_" + i);
+      inbound.add(buy);
+    }
+    awaitExecReport(outbound, "buy_" + (restingOrders - 1));
+
+    long baseline = Long.MAX_VALUE;
+    for (int i = 0; i < 10; i++) {
+      long start = System.nanoTime();
+      inbound.add(probe("warmup_" + i));
+      awaitExecReport(outbound, "warmup_" + i);
+      baseline = Math.min(baseline, System.nanoTime() - start);
+    }
+    long start = System.nanoTime();
+    inbound.add(new SnapshotMessage());
+    inbound.add(probe("probe"));
+    awaitExecReport(outbound, "probe");
+    long roundTrip = System.nanoTime() - start;
+    System.out.println("snapshot pause: " + (roundTrip - baseline) / 1000 + "us, probe="
+        + roundTrip / 1000 + "us, baseline=" + baseline / 1000 + "us");
+
+    // replica writes snapshot in background, wait for it before cleanup
+    long deadline = System.currentTimeMillis() + 60_000;
+    while (baseDir.listFiles().length == 0 && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    System.out.println("snapshot written after: " + (System.nanoTime() - start) / 1_000_000 + "ms");
+    Thread.sleep(1000);
+    TestUtils.deleteDirectory(baseDir);
+    TestUtils.deleteDirectory(dir.toFile());
+  }
+
+  private Order probe(String clOrdId) {
+    Order buy = RandomOrder.buyLimitUser1();
+    buy.setClOrdId(clOrdId);
+    return buy;
+  }
+
+  private void awaitExecReport(Queue<Message> outbound, String clOrdId) {
+    while (true) {
+      if (outbound.poll() instanceof ExecutionReport exec && clOrdId.equals(exec.getClOrdId())) {
+        return;
+      }
+    }
+  }
+
   /**
    * Simple test to validate JDK Queue performance to understand is it a good structure to measure
    * latency and TPS Since we are using pure in-memory tests, any structure including JDK would
@@ -101,11 +339,15 @@ public class MatchingEnginePerformanceTest {
       throws InterruptedException {
     System.out.println(
         "tpsAndThroughputTest: orderBookType=" + orderBookType + ", size=" + queueSize);
-    final String lastClOrdId = "sell_" + (queueSize - 1);
-
     Queue<Message> inbound = new LinkedBlockingQueue<>();
     Queue<Message> outbound = new LinkedBlockingQueue<>();
-    MatchingEngine me = new SpotMatchingEngine(inbound, outbound, orderBookType, false);
+    runTps(queueSize, inbound, outbound,
+        new SpotMatchingEngine(inbound, outbound, orderBookType, false));
+  }
+
+  private void runTps(int queueSize, Queue<Message> inbound, Queue<Message> outbound,
+      MatchingEngine me) throws InterruptedException {
+    final String lastClOrdId = "sell_" + (queueSize - 1);
     me.start();
 
     // adding instrument
@@ -119,20 +361,23 @@ public class MatchingEnginePerformanceTest {
     UserBalance userBalance1 = new UserBalance();
     userBalance1.setAccount(1);
     userBalance1.setAsset(MockData.QUOTE);
-    userBalance1.setAmount(new BigDecimal("10000000000"));
+    userBalance1.setAmount(new BigDecimal("1000000000000000"));
     inbound.add(userBalance1);
     UserBalance userBalance2 = new UserBalance();
     userBalance2.setAccount(2);
     userBalance2.setAsset(MockData.BASE);
-    userBalance2.setAmount(new BigDecimal("10000000000"));
+    userBalance2.setAmount(new BigDecimal("1000000000000000"));
     inbound.add(userBalance2);
 
     Runnable reader = () -> {
       long readerStart = System.currentTimeMillis();
       long count = 0;
+      long marketData = 0;
       while (true) {
         Message msg = outbound.poll();
-        if (msg instanceof ExecutionReport exec) {
+        if (msg instanceof MarketData || msg instanceof MarketDataUpdate) {
+          marketData++;
+        } else if (msg instanceof ExecutionReport exec) {
           count++;
           if (exec.getClOrdId().equals(lastClOrdId)) {
             break;
@@ -143,7 +388,7 @@ public class MatchingEnginePerformanceTest {
       double tps = queueSize / (double) timeTaken * 1000;
       System.out.println(
           "reading done: time=" + timeTaken + ", TPS=" + (long) tps + ", messagesRead="
-              + count);
+              + count + ", marketDataRead=" + marketData);
     };
     Thread t1 = new Thread(reader);
     t1.start();
@@ -186,12 +431,12 @@ public class MatchingEnginePerformanceTest {
     UserBalance userBalance1 = new UserBalance();
     userBalance1.setAccount(1);
     userBalance1.setAsset(MockData.QUOTE);
-    userBalance1.setAmount(new BigDecimal("10000000000"));
+    userBalance1.setAmount(new BigDecimal("1000000000000000"));
     inbound.add(userBalance1);
     UserBalance userBalance2 = new UserBalance();
     userBalance2.setAccount(2);
     userBalance2.setAsset(MockData.BASE);
-    userBalance2.setAmount(new BigDecimal("10000000000"));
+    userBalance2.setAmount(new BigDecimal("1000000000000000"));
     inbound.add(userBalance2);
 
     Runnable reader = () -> {
@@ -236,4 +481,222 @@ public class MatchingEnginePerformanceTest {
     System.out.println("writing done: time=" + (System.currentTimeMillis() - start));
     t1.join();
   }
-}
\ No newline at end of file
+
+  private static Stream<Arguments> getWaitStrategies() {
+    final int size = 20_000;
+    // engine thread is never stopped, so strategies which keep CPU busy go last
+    return Stream.of(
+        Arguments.of(size, new SleepWaitStrategy()),
+        Arguments.of(size, new BlockingWaitStrategy()),
+        Arguments.of(size, new BackoffWaitStrategy()),
+        Arguments.of(size, new YieldingWaitStrategy()),
+        Arguments.of(size, new BusySpinWaitStrategy())
+    );
+  }
+
+  /**
+   * Latency from adding order to inbound till its NEW execution report is read from outbound
+   * Producer pauses after every pair, so matching thread goes idle and wait strategy wake up time is
+   * part of the latency, instead of time spent in queue behind other orders
+   */
+  @ParameterizedTest
+  @MethodSource("getWaitStrategies")
+  public void waitStrategyLatencyTest(int queueSize, WaitStrategy waitStrategy)
+      throws InterruptedException {
+    final String name = waitStrategy.getClass().getSimpleName();
+    System.out.println("waitStrategyLatencyTest: waitStrategy=" + name + ", size=" + queueSize);
+    Map<String, Long> latencyMap = new ConcurrentHashMap<>();
+    String lastClOrdId = "sell_" + (queueSize - 1);
+
+    Queue<Message> inbound = new MpscRingBufferQueue<>(1 << 16);
+    Queue<Message> outbound = new SpscRingBufferQueue<>(1 << 16);
+    MatchingEngineConfig config = new MatchingEngineConfig();
+    config.setWaitStrategy(waitStrategy);
+    MatchingEngine me = new SpotMatchingEngine(inbound, outbound, config);
+    me.start();
+
+    InstrumentConfig symbolMsg = new InstrumentConfig();
+    symbolMsg.setBase(MockData.BASE);
+    symbolMsg.setQuote(MockData.QUOTE);
+    symbolMsg.setSymbol(MockData.SYMBOL);
+    inbound.add(symbolMsg);
+    UserBalance userBalance1 = new UserBalance();
+    userBalance1.setAccount(1);
+    userBalance1.setAsset(MockData.QUOTE);
+    userBalance1.setAmount(new BigDecimal("1000000000000000"));
+    inbound.add(userBalance1);
+    UserBalance userBalance2 = new UserBalance();
+    userBalance2.setAccount(2);
+    userBalance2.setAsset(MockData.BASE);
+    userBalance2.setAmount(new BigDecimal("1000000000000000"));
+    inbound.add(userBalance2);
+    waitStrategy.signal();
+
+    Runnable reader = () -> {
+      while (true) {
+        Message msg = outbound.poll();
+        if (msg instanceof ExecutionReport exec) {
+          if (exec.getStatus() == OrderStatus.NEW) {
+            latencyMap.compute(exec.getClOrdId(), (k, v) -> System.nanoTime() - v);
+          }
+          if (exec.getClOrdId().equals(lastClOrdId)) {
+            break;
+          }
+        }
+      }
+      List<Long> latencyList = latencyMap.values()
+          .stream()
+          .sorted()
+          .toList();
+      System.out.println("waitStrategy=" + name
+          + ", p50=" + percentile(latencyList, .5) / 1000 + "us"
+          + ", p99=" + percentile(latencyList, .99) / 1000 + "us"
+          + ", p99.9=" + percentile(latencyList, .999) / 1000 + "us");
+    };
+    Thread t1 = new Thread(reader);
+    t1.start();
+
+    for (int i = 0; i < queueSize; i++) {
+      Order buy = RandomOrder.buyLimitUser1();
+      buy.setClOrdId("buy_" + i);
+      Order sell = RandomOrder.sellLimitUser2();
+      sell.setClOrdId("sell_" + i);
+      latencyMap.put(buy.getClOrdId(), System.nanoTime());
+      inbound.add(buy);
+      waitStrategy.signal();
+      latencyMap.put(sell.getClOrdId(), System.nanoTime());
+      inbound.add(sell);
+      waitStrategy.signal();
+      LockSupport.parkNanos(50_000);
+    }
+    t1.join();
+  }
+
+  private static long percentile(List<Long> sorted, double percentile) {
+    return sorted.get((int) (sorted.size() * percentile));
+  }
+
+  private static Stream<Arguments> getShardCounts() {
+    final int size = 500_000;
+    return Stream.of(
+        Arguments.of(size, 1),
+        Arguments.of(size, 2),
+        Arguments.of(size, 4)
+    );
+  }
+
+  /**
+   * Orders spread evenly over 4 symbols, every symbol is matched by its shard, so TPS should grow
+   * with number of shards as long as there are free cores
+   */
+  @ParameterizedTest
+  @MethodSource("getShardCounts")
+  public void shardedTpsTest(int queueSize, int shards) throws InterruptedException {
+    final String[] symbols = {"BTC/USDT", "ETH/USDT", "SOL/USDT", "XRP/USDT"};
+    System.out.println("shardedTpsTest: shards=" + shards + ", size=" + queueSize);
+    Queue<Message> inbound = new MpscRingBufferQueue<>(1 << 16);
+    Queue<Message> outbound = new MpscRingBufferQueue<>(1 << 16);
+    MatchingEngine me = new ShardedMatchingEngine(inbound, outbound, shards, OrderBookType.MAP,
+        false, BackoffWaitStrategy::new, 1 << 16);
+    me.start();
+
+    for (String symbol : symbols) {
+      InstrumentConfig symbolMsg = new InstrumentConfig();
+      symbolMsg.setBase(symbol.substring(0, symbol.indexOf('/')));
+      symbolMsg.setQuote(MockData.QUOTE);
+      symbolMsg.setSymbol(symbol);
+      inbound.add(symbolMsg);
+      UserBalance userBalance2 = new UserBalance();
+      userBalance2.setAccount(2);
+      userBalance2.setAsset(symbolMsg.getBase());
+      userBalance2.setAmount(new BigDecimal("1000000000000000"));
+      inbound.add(userBalance2);
+    }
+    UserBalance userBalance1 = new UserBalance();
+    userBalance1.setAccount(1);
+    userBalance1.setAsset(MockData.QUOTE);
+    userBalance1.setAmount(new BigDecimal("1000000000000000"));
+    inbound.add(userBalance1);
+
+    Runnable reader = () -> {
+      long readerStart = System.currentTimeMillis();
+      long count = 0;
+      while (count < queueSize * 2L) {
+        Message msg = outbound.poll();
+        if (msg instanceof ExecutionReport exec && exec.getStatus() == OrderStatus.NEW) {
+          count++;
+        } else if (msg instanceof ErrorMessage error) {
+          throw new IllegalStateException(error.getError());
+        }
+      }
+      long timeTaken = System.currentTimeMillis() - readerStart;
+      System.out.println("reading done: shards=" + shards + ", time=" + timeTaken + ", TPS="
+          + (long) (count / (double) timeTaken * 1000));
+    };
+    Thread t1 = new Thread(reader);
+    t1.start();
+
+    for (int i = 0; i < queueSize; i++) {
+      String symbol = symbols[i % symbols.length];
+      Order buy = RandomOrder.buyLimitUser1();
+      buy.setSymbol(symbol);
+      inbound.add(buy);
+      Order sell = RandomOrder.sellLimitUser2();
+      sell.setSymbol(symbol);
+      inbound.add(sell);
+    }
+    t1.join();
+  }
+
+  /**
+   * Market maker requotes resting orders: every replace alternates between quantity decrease,
+   * which is applied in place, and increase, which moves order to the end of the level
+   */
+  @Test
+  public void replaceTpsTest() throws InterruptedException {
+    final int restingOrders = 1000;
+    final int replaces = 1_000_000;
+    Queue<Message> inbound = new MpscRingBufferQueue<>(1 << 16);
+    Queue<Message> outbound = new SpscRingBufferQueue<>(1 << 16);
+    MatchingEngine me = new SpotMatchingEngine(inbound, outbound, OrderBookType.MAP, false);
+    me.start();
+    inbound.add(MockData.getInstrument());
+    UserBalance userBalance = MockData.getUser(MockData.QUOTE);
+    userBalance.setAmount(new BigDecimal("1000000000000000"));
+    inbound.add(userBalance);
+
+    Runnable reader = () -> {
+      long readerStart = System.currentTimeMillis();
+      long count = 0;
+      while (count < replaces) {
+        Message msg = outbound.poll();
+        if (msg instanceof ExecutionReport exec && exec.getStatus() == OrderStatus.REPLACED) {
+          count++;
+        } else if (msg instanceof ErrorMessage error) {
+          throw new IllegalStateException(error.getError());
+        }
+      }
+      long timeTaken = System.currentTimeMillis() - readerStart;
+      System.out.println("reading done: time=" + timeTaken + ", TPS="
+          + (long) (count / (double) timeTaken * 1000));
+    };
+    Thread t1 = new Thread(reader);
+    t1.start();
+
+    for (int i = 0; i < restingOrders; i++) {
+      Order buy = MockData.getLimitBuy();
+      buy.setPrice(new BigDecimal(100 - i % 10));
+      inbound.add(buy);
+    }
+    for (int i = 0; i < replaces; i++) {
+      ReplaceOrder replace = new ReplaceOrder();
+      replace.setSymbol(MockData.SYMBOL);
+      replace.setOrderId(i % restingOrders + 1);
+      replace.setAccount(MockData.BUY_ACCOUNT);
+      replace.setPrice(new BigDecimal(100 - i % 10));
+      replace.setOrderQty(new BigDecimal((i / restingOrders) % 2 == 0 ? 9 : 10));
+      inbound.add(replace);
+    }
+    t1.join();
+  }
+}
@@ -0,0 +1,181 @@
+package performance;
+
+import com.exchange.core.MockData;
+import com.exchange.core.codec.ExecutionReportFlyweight;
+import com.exchange.core.codec.MarketDataFlyweight;
+import com.exchange.core.codec.MessageCodec;
+import com.exchange.core.codec.OrderFlyweight;
+import com.exchange.core.model.enums.OrderStatus;
+import com.exchange.core.model.msg.ExecutionReport;
+import com.exchange.core.model.msg.MarketData;
+import com.exchange.core.model.msg.Order;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare binary flyweight codec with Jackson JSON on the same payloads:
+ * Order, trade ExecutionReport and MarketData with 10 levels per side
+ * Binary decode fills reused object, like pooled message on engine side
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Fork(value = 2, jvmArgs = {"-Xms2G", "-Xmx2G"})
+@Warmup(iterations = 5, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class MessageCodecPerformanceTest {
+
+  private static final int DEPTH = 10;
+
+  private final ObjectMapper mapper = new ObjectMapper()
+      .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+  private final ByteBuffer buffer = MessageCodec.allocate(1024);
+  private final OrderFlyweight orderFlyweight = new OrderFlyweight();
+  private final ExecutionReportFlyweight execFlyweight = new ExecutionReportFlyweight();
+  private final MarketDataFlyweight marketDataFlyweight = new MarketDataFlyweight();
+  private final Order decodedOrder = new Order();
+  private final ExecutionReport decodedExec = new ExecutionReport();
+  private final MarketData decodedMarketData = new MarketData();
+
+  private Order order;
+  private ExecutionReport exec;
+  private MarketData marketData;
+  private byte[] orderJson;
+  private byte[] execJson;
+  private byte[] marketDataJson;
+  private ByteBuffer orderBinary;
+  private ByteBuffer execBinary;
+  private ByteBuffer marketDataBinary;
+
+  public static void main(String[] args) throws RunnerException {
+    Options opt = new OptionsBuilder()
+        .include(MessageCodecPerformanceTest.class.getSimpleName())
+        .forks(1)
+        .build();
+    new Runner(opt).run();
+  }
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    order = MockData.getLimitBuy();
+    order.setOrderId(1);
+    order.setClOrdId("client_order_1");
+    order.setLeavesQty(order.getOrderQty());
+    exec = new ExecutionReport();
+    exec.setSymbol(MockData.SYMBOL);
+    exec.setExecId(5);
+    exec.setOrderId(1);
+    exec.setCounterOrderId(2);
+    exec.setClOrdId("client_order_1");
+    exec.setIsTaker(true);
+    exec.setOrderQty(new BigDecimal("10"));
+    exec.setLeavesQty(new BigDecimal("9.5"));
+    exec.setPrice(new BigDecimal("100"));
+    exec.setLastQty(new BigDecimal("0.5"));
+    exec.setLastPx(new BigDecimal("100"));
+    exec.setStatus(OrderStatus.PARTIALLY_FILLED);
+    marketData = new MarketData();
+    marketData.setSymbol(MockData.SYMBOL);
+    marketData.setDepth(DEPTH);
+    marketData.setTransactTime(System.currentTimeMillis());
+    marketData.setBids(levels(100, -1));
+    marketData.setAsks(levels(101, 1));
+
+    orderJson = mapper.writeValueAsBytes(order);
+    execJson = mapper.writeValueAsBytes(exec);
+    marketDataJson = mapper.writeValueAsBytes(marketData);
+    orderBinary = MessageCodec.allocate(1024);
+    orderFlyweight.wrap(orderBinary, 0).encode(order);
+    execBinary = MessageCodec.allocate(1024);
+    execFlyweight.wrap(execBinary, 0).encode(exec);
+    marketDataBinary = MessageCodec.allocate(1024);
+    marketDataFlyweight.wrap(marketDataBinary, 0).encode(marketData);
+  }
+
+  private BigDecimal[][] levels(int price, int step) {
+    BigDecimal[][] levels = new BigDecimal[DEPTH][];
+    for (int i = 0; i < DEPTH; i++) {
+      levels[i] = new BigDecimal[]{new BigDecimal(price + i * step), new BigDecimal("1.25")};
+    }
+    return levels;
+  }
+
+  @Benchmark
+  public int orderEncodeBinary() {
+    return orderFlyweight.wrap(buffer, 0).encode(order);
+  }
+
+  @Benchmark
+  public byte[] orderEncodeJson() throws IOException {
+    return mapper.writeValueAsBytes(order);
+  }
+
+  @Benchmark
+  public Order orderDecodeBinary() {
+    return orderFlyweight.wrap(orderBinary, 0).decode(decodedOrder);
+  }
+
+  @Benchmark
+  public Order orderDecodeJson() throws IOException {
+    return mapper.readValue(orderJson, Order.class);
+  }
+
+  @Benchmark
+  public int execEncodeBinary() {
+    return execFlyweight.wrap(buffer, 0).encode(exec);
+  }
+
+  @Benchmark
+  public byte[] execEncodeJson() throws IOException {
+    return mapper.writeValueAsBytes(exec);
+  }
+
+  @Benchmark
+  public ExecutionReport execDecodeBinary() {
+    return execFlyweight.wrap(execBinary, 0).decode(decodedExec);
+  }
+
+  @Benchmark
+  public ExecutionReport execDecodeJson() throws IOException {
+    return mapper.readValue(execJson, ExecutionReport.class);
+  }
+
+  @Benchmark
+  public int marketDataEncodeBinary() {
+    return marketDataFlyweight.wrap(buffer, 0).encode(marketData);
+  }
+
+  @Benchmark
+  public byte[] marketDataEncodeJson() throws IOException {
+    return mapper.writeValueAsBytes(marketData);
+  }
+
+  @Benchmark
+  public MarketData marketDataDecodeBinary() {
+    return marketDataFlyweight.wrap(marketDataBinary, 0).decode(decodedMarketData);
+  }
+
+  @Benchmark
+  public MarketData marketDataDecodeJson() throws IOException {
+    return mapper.readValue(marketDataJson, MarketData.class);
+  }
+
+  /**
+   * Read best bid price without creating any object
+   */
+  @Benchmark
+  public long marketDataReadInPlace() {
+    marketDataFlyweight.wrap(marketDataBinary, 0);
+    return marketDataFlyweight.mantissa(marketDataFlyweight.bidPriceField(0));
+  }
+}
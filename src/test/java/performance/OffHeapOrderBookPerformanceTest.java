@@ -0,0 +1,135 @@
+package performance;
+
+import com.exchange.core.MockData;
+import com.exchange.core.matching.orderbook.OrderBook;
+import com.exchange.core.matching.orderbook.book.ArrayOrderBook;
+import com.exchange.core.matching.orderbook.book.OffHeapOrderBook;
+import com.exchange.core.model.enums.OrderSide;
+import com.exchange.core.model.msg.Order;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare fixed-point ArrayOrderBook (resting Order objects on heap) with OffHeapOrderBook (resting
+ * orders in direct memory) holding many resting orders
+ * Setup prints heap used by the book and duration of full GC, benchmark adds new resting order and
+ * cancels the oldest one, teardown prints GC count/time during iteration
+ * Run with -prof gc to see allocation rate
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Fork(value = 1, jvmArgs = {"-Xms12G", "-Xmx12G", "-XX:MaxDirectMemorySize=4G"})
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class OffHeapOrderBookPerformanceTest {
+
+  // orders are spread over this number of prices per side, ArrayOrderBook keeps up to 1024 levels
+  private static final int LEVELS = 1000;
+  private static final int MID_PRICE = 10_000;
+
+  @Param({"20000000"})
+  private int size;
+  @Param({"ARRAY", "OFF_HEAP"})
+  private String type;
+
+  private OrderBook ob;
+  private Random random;
+  private long nextOrderId;
+  private long gcCount;
+  private long gcTime;
+
+  public static void main(String[] args) throws RunnerException {
+    Options opt = new OptionsBuilder()
+        .include(OffHeapOrderBookPerformanceTest.class.getSimpleName())
+        .build();
+    new Runner(opt).run();
+  }
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    random = new Random(42);
+    long heapBefore = usedHeapAfterGc();
+    ob = type.equals("ARRAY") ? new ArrayOrderBook(MockData.SYMBOL, true, 0, 0)
+        : new OffHeapOrderBook(MockData.SYMBOL, 0, 0);
+    for (int i = 0; i < size; i++) {
+      ob.add(newOrder());
+    }
+    ob.buildMarketDataUpdate();
+    long start = System.nanoTime();
+    long heapAfter = usedHeapAfterGc();
+    long fullGcMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    System.out.printf("%n%s: resting=%d, heap=%dMB, fullGc=%dms%n", type, size,
+        (heapAfter - heapBefore) >> 20, fullGcMs);
+  }
+
+  @Setup(Level.Iteration)
+  public void startIteration() {
+    gcCount = totalGcCount();
+    gcTime = totalGcTime();
+  }
+
+  @TearDown(Level.Iteration)
+  public void endIteration() {
+    System.out.printf("%n%s: gcCount=%d, gcTime=%dms%n", type, totalGcCount() - gcCount,
+        totalGcTime() - gcTime);
+  }
+
+  @Benchmark
+  public void measureAddCancel(Blackhole blackhole) {
+    blackhole.consume(ob.add(newOrder()));
+    blackhole.consume(ob.remove(nextOrderId - size));
+    // drain changed levels, as engine does after every order
+    blackhole.consume(ob.buildMarketDataUpdate());
+  }
+
+  /**
+   * Bids below mid price, asks above it, so orders never cross
+   */
+  private Order newOrder() {
+    Order order = MockData.getLimitBuy();
+    order.setOrderId(++nextOrderId);
+    order.setOrderQty(null);
+    int level = 1 + random.nextInt(LEVELS);
+    if (random.nextBoolean()) {
+      order.setSide(OrderSide.BUY);
+      order.setScaledPrice(MID_PRICE - level);
+    } else {
+      order.setSide(OrderSide.SELL);
+      order.setScaledPrice(MID_PRICE + level);
+    }
+    order.setScaledLeavesQty(1 + random.nextInt(100));
+    return order;
+  }
+
+  private static long usedHeapAfterGc() {
+    System.gc();
+    Runtime runtime = Runtime.getRuntime();
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+
+  private static long totalGcCount() {
+    long count = 0;
+    for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+      count += gc.getCollectionCount();
+    }
+    return count;
+  }
+
+  private static long totalGcTime() {
+    long time = 0;
+    for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+      time += gc.getCollectionTime();
+    }
+    return time;
+  }
+}
@@ -3,9 +3,11 @@ package performance;
 import com.exchange.core.MockData;
 import com.exchange.core.matching.orderbook.OrderBook;
 import com.exchange.core.matching.orderbook.book.ArrayOrderBook;
+import com.exchange.core.matching.orderbook.book.BitmapOrderBook;
 import com.exchange.core.matching.orderbook.book.IpqOrderBook;
 import com.exchange.core.matching.orderbook.book.LinkedListOrderBook;
 import com.exchange.core.matching.orderbook.book.MapOrderBook;
+import com.exchange.core.matching.orderbook.book.SlidingWindowOrderBook;
 import com.exchange.core.model.enums.OrderType;
 import com.exchange.core.model.msg.Order;
 import org.openjdk.jmh.annotations.*;
@@ -27,9 +29,13 @@ import java.util.concurrent.TimeUnit;
 public class OrderBookPerformanceTest {
 
   private OrderBook arrayOrderBook;
+  private OrderBook bitmapOrderBook;
+  private OrderBook fixedPointArrayOrderBook;
+  private OrderBook scaledPriceArrayOrderBook;
   private OrderBook ipqOrderBook;
   private OrderBook linkedListOrderBook;
   private OrderBook mapOrderBook;
+  private OrderBook slidingWindowOrderBook;
 
   public static void main(String[] args) throws RunnerException {
     Options opt = new OptionsBuilder()
@@ -43,9 +49,14 @@ public class OrderBookPerformanceTest {
   public void setUp() {
     // set big array as 100k, to have enough space for different price levels
     arrayOrderBook = new ArrayOrderBook(MockData.SYMBOL, 256, 100_000);
+    fixedPointArrayOrderBook = new ArrayOrderBook(MockData.SYMBOL, 256, 100_000, true, 0, 0);
+    // same prices with 2 digits after decimal point, ladder has 100 ticks per price
+    scaledPriceArrayOrderBook = new ArrayOrderBook(MockData.SYMBOL, 256, 100_000, true, 2, 0);
+    bitmapOrderBook = new BitmapOrderBook(MockData.SYMBOL);
     ipqOrderBook = new IpqOrderBook(MockData.SYMBOL);
     linkedListOrderBook = new LinkedListOrderBook(MockData.SYMBOL);
     mapOrderBook = new MapOrderBook(MockData.SYMBOL);
+    slidingWindowOrderBook = new SlidingWindowOrderBook(MockData.SYMBOL);
   }
 
   /**
@@ -60,20 +71,34 @@ public class OrderBookPerformanceTest {
    * 8. get/update/remove sell limit order
    */
   private void orderBookBatchTest(OrderBook ob, Blackhole blackhole) {
-    matchAndAdd(RandomOrder.buyLimitUser1(), ob, blackhole);
-    matchAndAdd(RandomOrder.sellLimitUser2(), ob, blackhole);
-    matchAndAdd(RandomOrder.buyMarketUser1(), ob, blackhole);
-    matchAndAdd(RandomOrder.sellMarketUser1(), ob, blackhole);
-    Order buy = matchAndAdd(RandomOrder.buyLimitUser1(), ob, blackhole);
+    orderBookBatchTest(ob, false, blackhole);
+  }
+
+  private void orderBookBatchTest(OrderBook ob, boolean fixedPoint, Blackhole blackhole) {
+    orderBookBatchTest(ob, fixedPoint, 1, blackhole);
+  }
+
+  private void orderBookBatchTest(OrderBook ob, boolean fixedPoint, long tickSize,
+      Blackhole blackhole) {
+    matchAndAdd(RandomOrder.buyLimitUser1(), ob, fixedPoint, tickSize, blackhole);
+    matchAndAdd(RandomOrder.sellLimitUser2(), ob, fixedPoint, tickSize, blackhole);
+    matchAndAdd(RandomOrder.buyMarketUser1(), ob, fixedPoint, tickSize, blackhole);
+    matchAndAdd(RandomOrder.sellMarketUser1(), ob, fixedPoint, tickSize, blackhole);
+    Order buy = matchAndAdd(RandomOrder.buyLimitUser1(), ob, fixedPoint, tickSize, blackhole);
     getUpdateRemove(buy.getOrderId(), ob, blackhole);
-    Order sell = matchAndAdd(RandomOrder.sellLimitUser2(), ob, blackhole);
+    Order sell = matchAndAdd(RandomOrder.sellLimitUser2(), ob, fixedPoint, tickSize, blackhole);
     getUpdateRemove(sell.getOrderId(), ob, blackhole);
   }
-  private Order matchAndAdd(Order order, OrderBook ob, Blackhole blackhole){
+  private Order matchAndAdd(Order order, OrderBook ob, boolean fixedPoint, long tickSize,
+      Blackhole blackhole){
+    order.setScaledPrice(order.getScaledPrice() * tickSize);
     blackhole.consume(ob.match(order));
-    if (order.getType() == OrderType.LIMIT && order.getLeavesQty().compareTo(BigDecimal.ZERO) > 0) {
+    boolean hasLeavesQty = fixedPoint ? order.getScaledLeavesQty() > 0
+        : order.getLeavesQty().compareTo(BigDecimal.ZERO) > 0;
+    if (order.getType() == OrderType.LIMIT && hasLeavesQty) {
       blackhole.consume(ob.add(order));
     }
+    blackhole.consume(ob.buildMarketDataUpdate());
     blackhole.consume(ob.buildMarketData());
     return order;
   }
@@ -93,9 +118,11 @@ public class OrderBookPerformanceTest {
       clone.setLeavesQty(qty);
       clone.setPrice(price);
       blackhole.consume(ob.update(clone));
-      blackhole.consume(ob.buildMarketData());
+      blackhole.consume(ob.buildMarketDataUpdate());
+    blackhole.consume(ob.buildMarketData());
       blackhole.consume(ob.remove(orderId));
-      blackhole.consume(ob.buildMarketData());
+      blackhole.consume(ob.buildMarketDataUpdate());
+    blackhole.consume(ob.buildMarketData());
     }
   }
 
@@ -104,6 +131,21 @@ public class OrderBookPerformanceTest {
     orderBookBatchTest(arrayOrderBook, blackhole);
   }
 
+  @Benchmark
+  public void measureBitmapOrderBook(Blackhole blackhole) {
+    orderBookBatchTest(bitmapOrderBook, blackhole);
+  }
+
+  @Benchmark
+  public void measureFixedPointArrayOrderBook(Blackhole blackhole) {
+    orderBookBatchTest(fixedPointArrayOrderBook, true, blackhole);
+  }
+
+  @Benchmark
+  public void measureScaledPriceArrayOrderBook(Blackhole blackhole) {
+    orderBookBatchTest(scaledPriceArrayOrderBook, true, 100, blackhole);
+  }
+
   @Benchmark
   public void measureIpqOrderBook(Blackhole blackhole) {
     orderBookBatchTest(ipqOrderBook, blackhole);
@@ -118,4 +160,9 @@ public class OrderBookPerformanceTest {
   public void measureMapOrderBook(Blackhole blackhole) {
     orderBookBatchTest(mapOrderBook, blackhole);
   }
-}
\ No newline at end of file
+
+  @Benchmark
+  public void measureSlidingWindowOrderBook(Blackhole blackhole) {
+    orderBookBatchTest(slidingWindowOrderBook, blackhole);
+  }
+}
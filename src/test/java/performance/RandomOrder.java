@@ -21,6 +21,8 @@ public class RandomOrder {
     order.setAccount(o.getAccount());
     order.setLeavesQty(o.getLeavesQty());
     order.setPrice(o.getPrice());
+    order.setScaledLeavesQty(o.getScaledLeavesQty());
+    order.setScaledPrice(o.getScaledPrice());
     return order;
   }
 
@@ -31,8 +33,13 @@ public class RandomOrder {
     order.setType(OrderType.LIMIT);
     order.setSide(OrderSide.BUY);
     order.setAccount(1);
-    order.setLeavesQty(getQuantity());
+    // engine validates orderQty and sets leavesQty from it, order books use leavesQty directly
+    order.setOrderQty(getQuantity());
+    order.setLeavesQty(order.getOrderQty());
     order.setPrice(getPrice());
+    // fixed-point values with scale 0, so they can be used by both modes
+    order.setScaledLeavesQty(order.getLeavesQty().longValue());
+    order.setScaledPrice(order.getPrice().longValue());
     return order;
   }
 
@@ -40,6 +47,7 @@ public class RandomOrder {
     Order order = buyLimitUser1();
     order.setType(OrderType.MARKET);
     order.setPrice(null);
+    order.setScaledPrice(0);
     return order;
   }
 
@@ -54,6 +62,7 @@ public class RandomOrder {
     Order order = sellLimitUser2();
     order.setType(OrderType.MARKET);
     order.setPrice(null);
+    order.setScaledPrice(0);
     return order;
   }
 
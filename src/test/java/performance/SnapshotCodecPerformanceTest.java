@@ -0,0 +1,142 @@
+package performance;
+
+import com.exchange.core.matching.orderbook.book.MapOrderBook;
+import com.exchange.core.matching.snapshot.Snapshotable;
+import com.exchange.core.matching.snapshot.codec.BinarySnapshotCodec;
+import com.exchange.core.matching.snapshot.codec.JsonSnapshotCodec;
+import com.exchange.core.matching.snapshot.codec.SnapshotCodec;
+import com.exchange.core.matching.snapshot.converter.JsonObjectConverter;
+import com.exchange.core.matching.snapshot.storage.FileStorageWriter;
+import com.exchange.core.matching.snapshot.storage.StorageWriter;
+import com.exchange.core.model.SnapshotItem;
+import com.exchange.core.model.enums.SnapshotType;
+import com.exchange.core.model.msg.InstrumentConfig;
+import com.exchange.core.model.msg.Order;
+import com.exchange.core.repository.AccountRepositoryImpl;
+import com.exchange.core.repository.InstrumentRepositoryImpl;
+import com.exchange.core.user.Account;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Write and load time of whole snapshot with JSON and binary codec, including file IO:
+ * accounts with 2 positions each and resting orders of one book
+ * Load includes decoding into Account/Order objects, but not adding them to repositories
+ * stream - binary codec streams records from repository and order book through a chunk buffer
+ * instead of encoding items into one array, run with -prof gc to compare allocation per operation
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgs = {"-Xms4G", "-Xmx4G"})
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class SnapshotCodecPerformanceTest {
+
+  @Param({"json", "binary", "stream"})
+  private String format;
+  @Param({"1000000"})
+  private int orderCount;
+  @Param({"100000"})
+  private int accountCount;
+
+  private final StorageWriter storageWriter = new FileStorageWriter();
+  private SnapshotCodec codec;
+  private List<SnapshotItem> items;
+  private List<Snapshotable> snapshotables;
+  private Path dir;
+  private String path;
+
+  public static void main(String[] args) throws RunnerException {
+    Options opt = new OptionsBuilder()
+        .include(SnapshotCodecPerformanceTest.class.getSimpleName())
+        .build();
+    new Runner(opt).run();
+  }
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    codec = format.equals("json")
+        ? new JsonSnapshotCodec(new JsonObjectConverter())
+        : new BinarySnapshotCodec();
+    InstrumentConfig inst = new InstrumentConfig();
+    inst.setSymbol("BTC/USDT");
+    inst.setBase("BTC");
+    inst.setQuote("USDT");
+    List<Account> accounts = new ArrayList<>(accountCount);
+    for (int i = 1; i <= accountCount; i++) {
+      Account account = new Account(i);
+      account.getPosition("BTC").add(new BigDecimal("12.5"));
+      account.getPosition("USDT").add(new BigDecimal("150000.25"));
+      account.getPosition("USDT").lock(new BigDecimal("1000.5"));
+      accounts.add(account);
+    }
+    List<Order> orders = new ArrayList<>(orderCount);
+    for (int i = 1; i <= orderCount; i++) {
+      Order order = i % 2 == 0 ? RandomOrder.buyLimitUser1() : RandomOrder.sellLimitUser2();
+      order.setOrderId(i);
+      order.setClOrdId("client_order_" + i);
+      order.setAccount(i % accountCount + 1);
+      order.setLeavesQty(order.getOrderQty());
+      orders.add(order);
+    }
+    AccountRepositoryImpl accountRepository = new AccountRepositoryImpl();
+    accounts.forEach(accountRepository::loadRecord);
+    InstrumentRepositoryImpl instrumentRepository = new InstrumentRepositoryImpl();
+    instrumentRepository.add(inst);
+    MapOrderBook book = new MapOrderBook(inst.getSymbol());
+    orders.forEach(book::add);
+    snapshotables = List.of(accountRepository, instrumentRepository, book);
+    items = List.of(
+        item(SnapshotType.INSTRUMENT, List.of(inst)),
+        item(SnapshotType.ACCOUNT, accounts),
+        item(SnapshotType.ORDER_BOOK, orders),
+        item(SnapshotType.JOURNAL, (long) orderCount));
+    dir = Files.createTempDirectory("snapshot");
+    path = dir.resolve("snap").toString();
+    write();
+    System.out.println(format + " snapshot size: " + Files.size(Path.of(path)) / 1024 + "KB");
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(Path.of(path));
+    Files.deleteIfExists(dir);
+  }
+
+  private SnapshotItem item(SnapshotType type, Object data) {
+    SnapshotItem item = new SnapshotItem();
+    item.setType(type);
+    item.setData(data);
+    return item;
+  }
+
+  @Benchmark
+  public void write() {
+    if (format.equals("stream")) {
+      storageWriter.write(path, channel -> codec.write(snapshotables, channel));
+    } else {
+      storageWriter.write(path, codec.encode(items));
+    }
+  }
+
+  @Benchmark
+  public Object load(Blackhole blackhole) {
+    if (format.equals("stream")) {
+      storageWriter.read(path, channel -> codec.read(channel, type -> blackhole::consume));
+      return null;
+    }
+    return codec.decode(storageWriter.readBytes(path));
+  }
+}
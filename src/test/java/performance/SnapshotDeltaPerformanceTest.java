@@ -0,0 +1,143 @@
+package performance;
+
+import com.exchange.core.TestUtils;
+import com.exchange.core.matching.orderbook.book.MapOrderBook;
+import com.exchange.core.matching.snapshot.Snapshotable;
+import com.exchange.core.matching.snapshot.codec.BinarySnapshotCodec;
+import com.exchange.core.matching.snapshot.manager.SnapshotManager;
+import com.exchange.core.matching.snapshot.manager.SnapshotManagerImpl;
+import com.exchange.core.matching.snapshot.storage.FileStorageWriter;
+import com.exchange.core.model.msg.InstrumentConfig;
+import com.exchange.core.model.msg.Order;
+import com.exchange.core.repository.AccountRepositoryImpl;
+import com.exchange.core.repository.InstrumentRepositoryImpl;
+import com.exchange.core.user.Account;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Snapshot of large state where only few books and accounts changed since previous snapshot
+ * maxDeltas 0 - every snapshot is full, otherwise snapshots after the first one are deltas
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgs = {"-Xms4G", "-Xmx4G"})
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class SnapshotDeltaPerformanceTest {
+
+  @Param({"0", "1000"})
+  private int maxDeltas;
+  @Param({"1000"})
+  private int symbolCount;
+  @Param({"1000000"})
+  private int orderCount;
+  @Param({"100000"})
+  private int accountCount;
+  @Param({"10"})
+  private int changedBooks;
+  @Param({"1000"})
+  private int changedAccounts;
+
+  private final List<MapOrderBook> books = new ArrayList<>();
+  private AccountRepositoryImpl accounts;
+  private SnapshotManager snapshotManager;
+  private Path dir;
+  private String filename;
+  private long nextOrderId;
+  private int round;
+
+  public static void main(String[] args) throws RunnerException {
+    Options opt = new OptionsBuilder()
+        .include(SnapshotDeltaPerformanceTest.class.getSimpleName())
+        .build();
+    new Runner(opt).run();
+  }
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    InstrumentRepositoryImpl instruments = new InstrumentRepositoryImpl();
+    accounts = new AccountRepositoryImpl();
+    for (int i = 1; i <= accountCount; i++) {
+      Account account = new Account(i);
+      account.getPosition("BTC").add(new BigDecimal("12.5"));
+      account.getPosition("USDT").add(new BigDecimal("150000.25"));
+      accounts.loadRecord(account);
+    }
+    List<Snapshotable> snapshotables = new ArrayList<>();
+    snapshotables.add(accounts);
+    snapshotables.add(instruments);
+    for (int s = 0; s < symbolCount; s++) {
+      InstrumentConfig inst = new InstrumentConfig();
+      inst.setSymbol("SYM" + s + "/USDT");
+      inst.setBase("SYM" + s);
+      inst.setQuote("USDT");
+      instruments.add(inst);
+      MapOrderBook book = new MapOrderBook(inst.getSymbol());
+      for (int i = s; i < orderCount; i += symbolCount) {
+        // 100 price levels per side, so changed level has few orders
+        int level = i / symbolCount / 2 % 100;
+        book.add(order(inst.getSymbol(), i + 1, i % 2 == 0, i % 2 == 0 ? 900 + level
+            : 1001 + level, i % accountCount + 1));
+      }
+      books.add(book);
+      snapshotables.add(book);
+    }
+    nextOrderId = orderCount + 1;
+    dir = Files.createTempDirectory("snapshot");
+    snapshotManager = new SnapshotManagerImpl(snapshotables, new BinarySnapshotCodec(),
+        new FileStorageWriter(), dir.toString(), 1, maxDeltas);
+    filename = snapshotManager.makeSnapshot();
+    System.out.println("full snapshot size: " + Files.size(dir.resolve(filename)) / 1024 + "KB");
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    TestUtils.deleteDirectory(dir.toFile());
+  }
+
+  @TearDown(Level.Iteration)
+  public void printSize() throws IOException {
+    System.out.println("snapshot size: " + Files.size(dir.resolve(filename)) / 1024 + "KB");
+  }
+
+  @Benchmark
+  public String snapshot() {
+    // one order is added to and one removed from every changed book
+    for (int b = 0; b < changedBooks; b++) {
+      // order with this id was added to this book by setUp
+      int index = (round * changedBooks + b) % symbolCount;
+      MapOrderBook book = books.get(index);
+      book.add(order("SYM" + index + "/USDT", nextOrderId++, true, 950, 1));
+      book.remove(round * changedBooks + b + 1);
+    }
+    for (int a = 0; a < changedAccounts; a++) {
+      accounts.getAccountPosition((round * changedAccounts + a) % accountCount + 1, "USDT")
+          .add(BigDecimal.ONE);
+    }
+    round++;
+    filename = snapshotManager.makeSnapshot();
+    return filename;
+  }
+
+  private static Order order(String symbol, long orderId, boolean buy, int price, int account) {
+    Order order = buy ? RandomOrder.buyLimitUser1() : RandomOrder.sellLimitUser2();
+    order.setOrderId(orderId);
+    order.setClOrdId("client_order_" + orderId);
+    order.setSymbol(symbol);
+    order.setAccount(account);
+    order.setPrice(BigDecimal.valueOf(price));
+    return order;
+  }
+}
@@ -0,0 +1,144 @@
+package performance;
+
+import com.exchange.core.TestUtils;
+import com.exchange.core.matching.orderbook.book.MapOrderBook;
+import com.exchange.core.matching.snapshot.Snapshotable;
+import com.exchange.core.matching.snapshot.codec.BinarySnapshotCodec;
+import com.exchange.core.matching.snapshot.codec.SnapshotCodec;
+import com.exchange.core.matching.snapshot.manager.SnapshotManager;
+import com.exchange.core.matching.snapshot.manager.SnapshotManagerImpl;
+import com.exchange.core.matching.snapshot.storage.FileStorageWriter;
+import com.exchange.core.matching.snapshot.storage.StorageWriter;
+import com.exchange.core.model.enums.SnapshotType;
+import com.exchange.core.model.msg.InstrumentConfig;
+import com.exchange.core.model.msg.Order;
+import com.exchange.core.repository.AccountRepositoryImpl;
+import com.exchange.core.repository.InstrumentRepositoryImpl;
+import com.exchange.core.user.Account;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Startup time: order books are created from instruments of snapshot, then accounts and orders
+ * are loaded into them, as SpotMatchingEngine does on start
+ * parallelism 0 - snapshot is streamed and loaded on one thread, otherwise it's mapped into memory
+ * and items are loaded on pool with this number of threads
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgs = {"-Xms12G", "-Xmx12G"})
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+public class SnapshotRestorePerformanceTest {
+
+  @Param({"0", "1", "4"})
+  private int parallelism;
+  @Param({"1000"})
+  private int symbolCount;
+  @Param({"10000000"})
+  private int orderCount;
+  @Param({"100000"})
+  private int accountCount;
+
+  private final StorageWriter storageWriter = new FileStorageWriter();
+  private final SnapshotCodec codec = new BinarySnapshotCodec();
+  private Path dir;
+  private String filename;
+  private List<Snapshotable> loaded;
+
+  public static void main(String[] args) throws RunnerException {
+    Options opt = new OptionsBuilder()
+        .include(SnapshotRestorePerformanceTest.class.getSimpleName())
+        .build();
+    new Runner(opt).run();
+  }
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    InstrumentRepositoryImpl instruments = new InstrumentRepositoryImpl();
+    AccountRepositoryImpl accounts = new AccountRepositoryImpl();
+    for (int i = 1; i <= accountCount; i++) {
+      Account account = new Account(i);
+      account.getPosition("BTC").add(new BigDecimal("12.5"));
+      account.getPosition("USDT").add(new BigDecimal("150000.25"));
+      accounts.loadRecord(account);
+    }
+    List<Snapshotable> snapshotables = new ArrayList<>();
+    snapshotables.add(accounts);
+    snapshotables.add(instruments);
+    for (int s = 0; s < symbolCount; s++) {
+      InstrumentConfig inst = new InstrumentConfig();
+      inst.setSymbol("SYM" + s + "/USDT");
+      inst.setBase("SYM" + s);
+      inst.setQuote("USDT");
+      instruments.add(inst);
+      MapOrderBook book = new MapOrderBook(inst.getSymbol());
+      for (int i = s; i < orderCount; i += symbolCount) {
+        Order order = i % 2 == 0 ? RandomOrder.buyLimitUser1() : RandomOrder.sellLimitUser2();
+        order.setOrderId(i + 1);
+        order.setClOrdId("client_order_" + i);
+        order.setSymbol(inst.getSymbol());
+        order.setAccount(i % accountCount + 1);
+        // 100 price levels per side
+        order.setPrice(BigDecimal.valueOf(i % 2 == 0 ? 900 + i % 100 : 1001 + i % 100));
+        book.add(order);
+      }
+      snapshotables.add(book);
+    }
+    dir = Files.createTempDirectory("snapshot");
+    filename = new SnapshotManagerImpl(snapshotables, codec, storageWriter, dir.toString())
+        .makeSnapshot();
+    System.out.println("snapshot size: "
+        + Files.size(dir.resolve(filename)) / 1024 / 1024 + "MB");
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    TestUtils.deleteDirectory(dir.toFile());
+  }
+
+  @TearDown(Level.Iteration)
+  public void release() {
+    // loaded state is kept until the end of iteration, so its GC isn't measured
+    loaded = null;
+    System.gc();
+  }
+
+  @Benchmark
+  public List<Snapshotable> restore() {
+    List<Snapshotable> snapshotables = new ArrayList<>();
+    snapshotables.add(new AccountRepositoryImpl());
+    snapshotables.add(new InstrumentRepositoryImpl());
+    String path = dir.resolve(filename).toString();
+    if (parallelism == 0) {
+      List<InstrumentConfig> instruments = new ArrayList<>();
+      storageWriter.read(path, channel -> codec.read(channel, type ->
+          type == SnapshotType.INSTRUMENT
+              ? record -> instruments.add((InstrumentConfig) record) : null));
+      instruments.forEach(inst -> snapshotables.add(new MapOrderBook(inst.getSymbol())));
+      Queue<Snapshotable> targets = new ArrayDeque<>(snapshotables);
+      storageWriter.read(path, channel -> codec.read(channel, type -> targets.poll()::loadRecord));
+    } else {
+      SnapshotManager manager = new SnapshotManagerImpl(snapshotables, codec, storageWriter,
+          dir.toString(), parallelism);
+      manager.getInstruments(filename)
+          .forEach(inst -> snapshotables.add(new MapOrderBook(inst.getSymbol())));
+      manager.loadSnapshot(filename);
+    }
+    loaded = snapshotables;
+    return snapshotables;
+  }
+}